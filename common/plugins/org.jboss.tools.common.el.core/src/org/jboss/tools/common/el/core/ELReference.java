@@ -27,7 +27,6 @@ import org.eclipse.core.runtime.Path;
 import org.jboss.tools.common.el.core.model.ELExpression;
 import org.jboss.tools.common.el.core.model.ELInstance;
 import org.jboss.tools.common.el.core.model.ELModel;
-import org.jboss.tools.common.el.core.parser.ELParser;
 import org.jboss.tools.common.el.core.parser.ELParserUtil;
 import org.jboss.tools.common.el.core.parser.SyntaxError;
 import org.jboss.tools.common.text.ITextSourceReference;
@@ -147,12 +146,13 @@ public class ELReference implements ITextSourceReference {
 	/**
 	 * Helper method, text should be the segment of file content determined by startPosition and length.
 	 * Check is not done, because it would affect performance. 
+	 * Returned expressions belong to a model that is not shared with other clients,
+	 * so that it may be modified, for instance shifted.
 	 * 
 	 * @param text
 	 */
 	public ELExpression[] init(String text) {
-		ELParser parser = ELParserUtil.getJbossFactory().createParser();
-		ELModel model = parser.parse(text);
+		ELModel model = ELParserUtil.getJbossFactory().createParser().parse(text);
 		return setEl(model.getInstances());
 	}
 
@@ -222,11 +222,9 @@ public class ELReference implements ITextSourceReference {
 	 * @return the syntaxErrors
 	 */
 	public List<SyntaxError> getSyntaxErrors() {
-		ELParser parser = ELParserUtil.getJbossFactory().createParser();
 		String text = getSourceText();
 		if(text.length() == 0) return Collections.emptyList();
-		ELModel model = parser.parse(text);
-		return model.getSyntaxErrors();
+		return ELParserUtil.getCache().getSyntaxErrors(ELParserUtil.getJbossFactory(), text);
 	}
 
 
@@ -11,6 +11,7 @@
 package org.jboss.tools.common.el.core.ca;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -59,6 +60,7 @@ import org.jboss.tools.common.el.core.resolver.JavaMemberELSegmentImpl;
 import org.jboss.tools.common.el.core.resolver.TypeInfoCollector;
 import org.jboss.tools.common.el.core.resolver.TypeInfoCollector.MemberInfo;
 import org.jboss.tools.common.el.core.resolver.TypeInfoCollector.MemberPresentation;
+import org.jboss.tools.common.el.core.resolver.TypeInfoCollector.MemberPresentationIndex;
 import org.jboss.tools.common.el.core.resolver.Var;
 import org.jboss.tools.common.el.internal.core.parser.token.JavaNameTokenDescription;
 import org.jboss.tools.common.el.internal.core.parser.token.WhiteSpaceTokenDescription;
@@ -854,7 +856,7 @@ public abstract class AbstractELCompletionEngine<V extends IVariable> implements
 				} catch (JavaModelException jme) {
 					ELCorePlugin.getDefault().logError(jme);
 				}
-				TypeInfoCollector infos = mbr.getTypeCollector(varIsUsed, isStaticMethodsCollectingEnabled());
+				MemberPresentationIndex index = TypeInfoCollector.getPresentationIndex(mbr, varIsUsed, isStaticMethodsCollectingEnabled(), returnEqualedVariablesOnly);
 				if (TypeInfoCollector.isNotParameterizedCollection(mbr) || TypeInfoCollector.isResourceBundle(mbr.getMemberType())) {
 					resolution.setMapOrCollectionOrBundleAmoungTheTokens(true);
 				}
@@ -874,8 +876,7 @@ public abstract class AbstractELCompletionEngine<V extends IVariable> implements
 				}
 				*/
 
-				Set<MemberPresentation> methodPresentations = 
-					infos.getMethodPresentations(returnEqualedVariablesOnly);
+				List<MemberPresentation> methodPresentations = index.getMethodPresentations();
 
 				if (methodPresentations != null) {
 					for (MemberPresentation presentation : methodPresentations) {
@@ -920,8 +921,8 @@ public abstract class AbstractELCompletionEngine<V extends IVariable> implements
 				}
 				*/
 
-				Set<MemberPresentation> propertyPresentations = 
-					infos.getPropertyPresentations(segment.getUnpairedGettersOrSetters(), returnEqualedVariablesOnly);
+				List<MemberPresentation> propertyPresentations = index.getPropertyPresentations();
+				index.addUnpairedGettersOrSetters(segment.getUnpairedGettersOrSetters());
 
 				if (propertyPresentations != null) {
 					for (MemberPresentation presentation : propertyPresentations) {
@@ -961,7 +962,7 @@ public abstract class AbstractELCompletionEngine<V extends IVariable> implements
 //				token.getType() == ELOperandToken.EL_METHOD_TOKEN) 
 			{
 			// return filtered methods + properties 
-			Set<TypeInfoCollector.MemberPresentation> proposalsToFilter = new TreeSet<TypeInfoCollector.MemberPresentation>(TypeInfoCollector.MEMBER_PRESENTATION_COMPARATOR);
+			TreeSet<TypeInfoCollector.MemberPresentation> proposalsToFilter = new TreeSet<TypeInfoCollector.MemberPresentation>(TypeInfoCollector.MEMBER_PRESENTATION_COMPARATOR);
 			for (TypeInfoCollector.MemberInfo mbr : members) {
 				if(isSingularMember(mbr)) {
 					filterSingularMember(mbr, proposalsToFilter);
@@ -978,22 +979,36 @@ public abstract class AbstractELCompletionEngine<V extends IVariable> implements
 				} catch (JavaModelException jme) {
 					ELCorePlugin.getDefault().logError(jme);
 				}
-				TypeInfoCollector infos = mbr.getTypeCollector(false, isStaticMethodsCollectingEnabled());
+				MemberPresentationIndex index = TypeInfoCollector.getPresentationIndex(mbr, false, isStaticMethodsCollectingEnabled(), returnEqualedVariablesOnly);
 				if (TypeInfoCollector.isNotParameterizedCollection(mbr) || TypeInfoCollector.isResourceBundle(mbr.getMemberType())) {
 					resolution.setMapOrCollectionOrBundleAmoungTheTokens(true);
 				}
-				proposalsToFilter.addAll(infos.getMethodPresentations(returnEqualedVariablesOnly));
-				proposalsToFilter.addAll(infos.getPropertyPresentations(segment.getUnpairedGettersOrSetters(), returnEqualedVariablesOnly));
+				proposalsToFilter.addAll(index.getMethodPresentations());
+				proposalsToFilter.addAll(index.getPropertyPresentations());
+				index.addUnpairedGettersOrSetters(segment.getUnpairedGettersOrSetters());
 //				segment.setMemberInfo(mbr);
 			}
-			
-			for (TypeInfoCollector.MemberPresentation proposal : proposalsToFilter) {
-				// We do expect nothing but name for method tokens (No round brackets)
-				String filter = expr.getMemberName();
-				if(filter == null) filter = ""; //$NON-NLS-1$
-				String presentationString = proposal.getPresentation();
+
+			// We do expect nothing but name for method tokens (No round brackets)
+			String filter = expr.getMemberName();
+			if(filter == null) filter = ""; //$NON-NLS-1$
+			Collection<TypeInfoCollector.MemberPresentation> matches = Collections.emptySet();
+			if(!proposalsToFilter.isEmpty()) {
+				TypeInfoCollector.MemberPresentation from = new TypeInfoCollector.MemberPresentation(filter, filter, null);
+				TypeInfoCollector.MemberPresentation resourceProposal = proposalsToFilter.last();
+				if(returnEqualedVariablesOnly) {
+					TypeInfoCollector.MemberPresentation match = proposalsToFilter.ceiling(from);
+					if(match != null && match.getPresentation().equals(filter)) {
+						matches = Collections.singleton(match);
+						resourceProposal = match;
+					}
+				} else {
+					TypeInfoCollector.MemberPresentation to = new TypeInfoCollector.MemberPresentation(filter + Character.MAX_VALUE, filter, null);
+					matches = proposalsToFilter.subSet(from, true, to, true);
+				}
+				//Resource is taken from the matched proposal, or from the last one if there is no match.
 				//proposal.getMember().getSourceType().getCompilationUnit().getCorrespondingResource()
-				MemberInfo info = proposal.getMember();
+				MemberInfo info = resourceProposal.getMember();
 				if(info!=null) {
 					IType type = info.getSourceType();
 					if(type!=null) {
@@ -1010,6 +1025,10 @@ public abstract class AbstractELCompletionEngine<V extends IVariable> implements
 						}
 					}
 				}
+			}
+
+			for (TypeInfoCollector.MemberPresentation proposal : matches) {
+				String presentationString = proposal.getPresentation();
 				if(returnEqualedVariablesOnly) {
 					// This is used for validation.
 					if (presentationString.equals(filter)) {
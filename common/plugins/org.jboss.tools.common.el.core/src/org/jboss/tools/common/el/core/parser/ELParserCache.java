@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.el.core.parser;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.tools.common.el.core.model.ELModel;
+import org.jboss.tools.common.el.internal.core.model.ELModelImpl;
+
+/**
+ * Bounded cache of parse results keyed by parser factory and source text.
+ *
+ * Models returned by the cache are shared between all clients and must be
+ * treated as read-only; calling ELModel.shift() on them is not allowed.
+ * Clients that need to modify the model should parse with
+ * factory.createParser() directly.
+ *
+ * The cache is split into segments, each one is an access-ordered map
+ * guarded by its own lock, so that concurrent parsing threads rarely wait
+ * for each other.
+ *
+ * @author V. Kabanovich
+ *
+ */
+public class ELParserCache {
+	public static final int DEFAULT_CAPACITY = 20000;
+
+	/**
+	 * Sources longer than this are parsed but not cached, they are
+	 * usually whole file bodies that do not repeat.
+	 */
+	public static final int MAX_CACHED_SOURCE_LENGTH = 1000;
+
+	private static final int SEGMENT_COUNT = 16;
+
+	private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+	private AtomicLong hits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+
+	public ELParserCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ELParserCache(int capacity) {
+		int segmentCapacity = Math.max(1, capacity / SEGMENT_COUNT);
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			segments[i] = new Segment(segmentCapacity);
+		}
+	}
+
+	/**
+	 * Returns shared model for the source parsed by parser created by the factory.
+	 *
+	 * @param factory
+	 * @param source
+	 * @return
+	 */
+	public ELModel parse(ELParserFactory factory, String source) {
+		if(source.length() > MAX_CACHED_SOURCE_LENGTH) {
+			misses.incrementAndGet();
+			return factory.createParser().parse(source);
+		}
+		Key key = new Key(factory, source);
+		Segment segment = getSegment(key);
+		ELModel result = null;
+		synchronized (segment) {
+			result = segment.get(key);
+		}
+		if(result != null) {
+			hits.incrementAndGet();
+			return result;
+		}
+		misses.incrementAndGet();
+		//Parse outside of the lock, two threads may parse the same source, that is harmless.
+		ELModel model = factory.createParser().parse(source);
+		if(model instanceof ELModelImpl) {
+			((ELModelImpl)model).setShared();
+		}
+		synchronized (segment) {
+			result = segment.get(key);
+			if(result == null) {
+				segment.put(key, model);
+				result = model;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns syntax errors of the source. Short sources are parsed 
+	 * and cached as by parse(), longer ones are tokenized in packed mode 
+	 * without building a model.
+	 *
+	 * @param factory
+	 * @param source
+	 * @return
+	 */
+	public List<SyntaxError> getSyntaxErrors(ELParserFactory factory, String source) {
+		if(source.length() > MAX_CACHED_SOURCE_LENGTH) {
+			misses.incrementAndGet();
+			return ELParserUtil.tokenize(factory, source).getErrors();
+		}
+		return parse(factory, source).getSyntaxErrors();
+	}
+
+	private Segment getSegment(Key key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[(h & 0x7fffffff) % SEGMENT_COUNT];
+	}
+
+	public void clear() {
+		for (Segment segment: segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment: segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public void resetStatistics() {
+		hits.set(0);
+		misses.set(0);
+	}
+
+	public String toString() {
+		return "ELParserCache(size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	static class Key {
+		ELParserFactory factory;
+		String source;
+		int hash;
+
+		Key(ELParserFactory factory, String source) {
+			this.factory = factory;
+			this.source = source;
+			hash = 31 * System.identityHashCode(factory) + source.hashCode();
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object o) {
+			if(!(o instanceof Key)) return false;
+			Key other = (Key)o;
+			return factory == other.factory && source.equals(other.source);
+		}
+	}
+
+	static class Segment extends LinkedHashMap<Key, ELModel> {
+		private static final long serialVersionUID = 1L;
+		int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		protected boolean removeEldestEntry(Map.Entry<Key, ELModel> eldest) {
+			return size() > capacity;
+		}
+	}
+
+}
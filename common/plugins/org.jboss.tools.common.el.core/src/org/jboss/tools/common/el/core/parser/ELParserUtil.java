@@ -11,7 +11,10 @@
 package org.jboss.tools.common.el.core.parser;
 
 import java.util.List;
-import java.util.Stack;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.tools.common.el.core.model.ELModel;
 import org.jboss.tools.common.el.internal.core.model.ELModelImpl;
@@ -25,7 +28,7 @@ import org.jboss.tools.common.el.internal.core.parser.ELParserImpl;
 public class ELParserUtil {
 
 	private static ELParserFactory DEFAULT_FACTORY = new DefaultFactory() {
-		public ELParser newParser() {
+		public DefaultParser newParser() {
 			return new DefaultParser() {
 				protected Tokenizer createTokenizer() {
 					return TokenizerFactory.createDefaultTokenizer();
@@ -43,7 +46,7 @@ public class ELParserUtil {
 	}
 
 	private static ELParserFactory COLLECTION_FACTORY = new DefaultFactory() {
-		public ELParser newParser() {
+		public DefaultParser newParser() {
 			return new DefaultParser() {
 				protected Tokenizer createTokenizer() {
 					return TokenizerFactory.createCollectionTokenizer();
@@ -66,7 +69,7 @@ public class ELParserUtil {
 	}
 
 	private static ELParserFactory JBOSS_FACTORY = new DefaultFactory() {
-		public ELParser newParser() {
+		public DefaultParser newParser() {
 			return new DefaultParser() {
 				protected Tokenizer createTokenizer() {
 					return TokenizerFactory.createJbossTokenizer();
@@ -83,40 +86,101 @@ public class ELParserUtil {
 		return JBOSS_FACTORY;
 	}
 
+	/**
+	 * Tokenizes source with tokenizer of the factory in packed mode,
+	 * without creating lexical tokens and EL model.
+	 * This is enough for clients that need only token offsets and types, and syntax errors.
+	 * 
+	 * @param factory
+	 * @param source
+	 * @return
+	 */
+	public static PackedTokens tokenize(ELParserFactory factory, String source) {
+		ELParser parser = factory.createParser();
+		if(parser instanceof DefaultParser) {
+			return ((DefaultParser)parser).tokenize(source, 0, source.length());
+		}
+		ELModel model = parser.parse(source);
+		PackedTokens result = new PackedTokens(source, 16);
+		LexicalToken t = model.getFirstToken();
+		while(t != null) {
+			result.add(t.getStart(), t.getLength(), t.getType());
+			t = t.getNextToken();
+		}
+		result.setErrors(model.getSyntaxErrors());
+		return result;
+	}
+
+	private static ELParserCache CACHE = new ELParserCache();
+
+	/**
+	 * Returns cache of parse results shared by validators and other clients
+	 * that repeatedly parse the same EL text and do not modify the result.
+	 * @return
+	 */
+	public static ELParserCache getCache() {
+		return CACHE;
+	}
+
+	/**
+	 * Keeps released parsers in a lock-free queue for reuse.
+	 * The number of kept parsers is bounded by MAX_FREE_PARSERS, 
+	 * parsers released when the queue is full are left to garbage collector.
+	 */
 	private static abstract class DefaultFactory implements ELParserFactory {
-		protected Stack<ELParser> inUse = new Stack<ELParser>();
-		protected Stack<ELParser> free = new Stack<ELParser>();
+		static final int MAX_FREE_PARSERS = 32;
+
+		protected ConcurrentLinkedQueue<DefaultParser> free = new ConcurrentLinkedQueue<DefaultParser>();
+		protected AtomicInteger freeCount = new AtomicInteger();
+
+		private AtomicLong reused = new AtomicLong();
+		private AtomicLong created = new AtomicLong();
+		private AtomicLong dropped = new AtomicLong();
 
 		public ELParser createParser() {
-			synchronized(this) {
-				if(!free.isEmpty()) {
-					//reuse
-					ELParser parser = free.pop();
-					inUse.push(parser);
-					return parser;
-				}
+			DefaultParser parser = free.poll();
+			if(parser != null) {
+				//reuse
+				freeCount.decrementAndGet();
+				parser.pooled.set(false);
+				reused.incrementAndGet();
+				return parser;
 			}
-			ELParser parser = newParser();
-			synchronized(this) {
-				//new
-				inUse.push(parser);
-			}			
-			return parser;
+			//new
+			created.incrementAndGet();
+			return newParser();
 		}
 
-		protected abstract ELParser newParser();
+		protected abstract DefaultParser newParser();
 
 		public void release(ELParser parser) {
-			synchronized(this) {
-				//release
-				boolean b = inUse.remove(parser);
-				if(!b) return;
-				free.push(parser);
+			if(!(parser instanceof DefaultParser)) return;
+			DefaultParser p = (DefaultParser)parser;
+			if(!p.pooled.compareAndSet(false, true)) {
+				//already released
+				return;
 			}
+			if(freeCount.incrementAndGet() > MAX_FREE_PARSERS) {
+				freeCount.decrementAndGet();
+				dropped.incrementAndGet();
+				return;
+			}
+			free.offer(p);
+		}
+
+		/**
+		 * Returns statistics of the parser pool: 
+		 * number of reused parsers, number of parsers created 
+		 * because the pool was empty, and number of parsers dropped 
+		 * because the pool was full.
+		 */
+		public String toString() {
+			return getClass().getName() + "(reused=" + reused.get() + ", created=" + created.get() + ", dropped=" + dropped.get() + ", free=" + freeCount.get() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
 		}
 	}
 
 	private static abstract class DefaultParser implements ELParser {
+		AtomicBoolean pooled = new AtomicBoolean(false);
 		ELParserImpl impl = new ELParserImpl();
 		List<SyntaxError> errors = null;
 		Tokenizer t = createTokenizer();
@@ -139,6 +203,15 @@ public class ELParserUtil {
 			}
 		}
 
+		public PackedTokens tokenize(String source, int start, int length) {
+			try {
+				return t.parsePacked(source, start, length);
+			} finally {
+				t.dispose();
+				dispose();
+			}
+		}
+
 		protected abstract Tokenizer createTokenizer();
 
 		public void dispose() {
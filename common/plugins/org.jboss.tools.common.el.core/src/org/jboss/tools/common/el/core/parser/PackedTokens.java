@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.el.core.parser;
+
+import java.util.List;
+
+/**
+ * Result of tokenizing in packed mode. Tokens are kept in one int array
+ * as triples (start, length, type), text of a token is computed
+ * only when requested.
+ *
+ * Method toLexicalTokens() builds the linked list of LexicalToken objects
+ * equivalent to the result of Tokenizer.parse(), it is needed only when
+ * EL model has to be built.
+ *
+ * @author V. Kabanovich
+ *
+ */
+public class PackedTokens {
+	private static final int START = 0;
+	private static final int LENGTH = 1;
+	private static final int TYPE = 2;
+	private static final int SLOT = 3;
+
+	private String source;
+	private int[] data;
+	private int size = 0;
+	private List<SyntaxError> errors = Tokenizer.EMPTY;
+
+	PackedTokens(String source, int capacity) {
+		this.source = source;
+		data = new int[Math.max(4, capacity) * SLOT];
+	}
+
+	void add(int start, int length, int type) {
+		int i = size * SLOT;
+		if(i + SLOT > data.length) {
+			int[] d = new int[data.length * 2];
+			System.arraycopy(data, 0, d, 0, i);
+			data = d;
+		}
+		data[i + START] = start;
+		data[i + LENGTH] = length;
+		data[i + TYPE] = type;
+		size++;
+	}
+
+	void setErrors(List<SyntaxError> errors) {
+		this.errors = errors;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getStart(int index) {
+		return data[index * SLOT + START];
+	}
+
+	public int getLength(int index) {
+		return data[index * SLOT + LENGTH];
+	}
+
+	public int getEnd(int index) {
+		return getStart(index) + getLength(index);
+	}
+
+	public int getType(int index) {
+		return data[index * SLOT + TYPE];
+	}
+
+	public String getText(int index) {
+		int start = getStart(index);
+		return source.substring(start, start + getLength(index));
+	}
+
+	/**
+	 * Returns index of the first token of the given type, or -1 if there is no such token.
+	 * @param type
+	 * @return
+	 */
+	public int indexOf(int type) {
+		for (int i = 0; i < size; i++) {
+			if(getType(i) == type) return i;
+		}
+		return -1;
+	}
+
+	public List<SyntaxError> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Builds the linked list of lexical tokens.
+	 * @return the first token or null if there are no tokens
+	 */
+	public LexicalToken toLexicalTokens() {
+		LexicalToken first = null;
+		LexicalToken last = null;
+		for (int i = 0; i < size; i++) {
+			LexicalToken t = new LexicalToken(getStart(i), getLength(i), getText(i), getType(i));
+			if(last == null) {
+				first = t;
+			} else {
+				last.setNextToken(t);
+			}
+			last = t;
+		}
+		return first;
+	}
+
+}
@@ -34,6 +34,9 @@ public class Tokenizer {
 
 	private LexicalToken start;
 	private LexicalToken last;
+
+	private PackedTokens packed;
+	private int packedStart;
 	
 	private int state;
 	private Properties context = new Properties();
@@ -90,11 +93,55 @@ public class Tokenizer {
 	}
 
 	public LexicalToken parse(String sourceString, int initialOffset, int length) {
+		start = new LexicalToken(initialOffset, 0, "", -1000); //$NON-NLS-1$
+		last = start;
+		run(sourceString, initialOffset, length);
+		LexicalToken result = start.getNextToken();
+		if(result != null) {
+			result.makeItFirst();
+		}
+		if(last != null && last.getStart() + last.getLength() < sourceString.length()
+			&& last.getType() != LITERAL) {
+			int lastEnd = last.getStart() + last.getLength();
+			LexicalToken t = new LexicalToken(lastEnd, length, getCharSequence(lastEnd, sourceString.length()), LITERAL);
+			last.setNextToken(t);
+			last = t;
+		}
+		return result;
+	}
+
+	/**
+	 * Tokenizes source string without creating LexicalToken objects.
+	 * Token offsets and types are stored in the returned object,
+	 * token text is not computed until requested. 
+	 * Syntax errors are copied to the result.
+	 * 
+	 * @param sourceString
+	 * @param initialOffset
+	 * @param length
+	 * @return
+	 */
+	public PackedTokens parsePacked(String sourceString, int initialOffset, int length) {
+		packed = new PackedTokens(sourceString, length / 2);
+		packedStart = initialOffset;
+		last = null;
+		try {
+			run(sourceString, initialOffset, length);
+			int lastEnd = getLastEnd();
+			if(lastEnd < sourceString.length() && getLastTokenType() != LITERAL) {
+				packed.add(lastEnd, sourceString.length() - lastEnd, LITERAL);
+			}
+			packed.setErrors(getErrors());
+			return packed;
+		} finally {
+			packed = null;
+		}
+	}
+
+	private void run(String sourceString, int initialOffset, int length) {
 		this.sourceString = sourceString;
 		errors.clear();
 		index = initialOffset;
-		start = new LexicalToken(initialOffset, 0, "", -1000); //$NON-NLS-1$
-		last = start;
 		state = BasicStates.STATE_EXPECTING_EL;
 
 		int lastIndex = initialOffset + length;
@@ -130,21 +177,9 @@ public class Tokenizer {
 				}
 			}
 		}
-		LexicalToken result = start.getNextToken();
-		if(result != null) {
-			result.makeItFirst();
-		}
-		if(last != null && last.getStart() + last.getLength() < sourceString.length()
-			&& last.getType() != LITERAL) {
-			int lastEnd = last.getStart() + last.getLength();
-			LexicalToken t = new LexicalToken(lastEnd, length, getCharSequence(lastEnd, sourceString.length()), LITERAL);
-			last.setNextToken(t);
-			last = t;
-		}
-		return result;
 	}
 
-	private static List<SyntaxError> EMPTY = new ArrayList<SyntaxError>();
+	static List<SyntaxError> EMPTY = new ArrayList<SyntaxError>();
 
 	/**
 	 * Copies errors in order to reuse this object.
@@ -163,6 +198,15 @@ public class Tokenizer {
 
 	public void addToken(int type, int start, int end) {
 		if(end < 0) return;
+		if(packed != null) {
+			int lastEnd = getLastEnd();
+			if(start > lastEnd) {
+				packed.add(lastEnd, start - lastEnd, LITERAL);
+			}
+			packed.add(start, end - start, type);
+			index = end;
+			return;
+		}
 		int lastEnd = last.getStart() + last.getLength();
 		if(start > lastEnd) {
 			int length = start - lastEnd;
@@ -177,6 +221,11 @@ public class Tokenizer {
 		index = end;
 	}
 
+	private int getLastEnd() {
+		int size = packed.size();
+		return size == 0 ? packedStart : packed.getEnd(size - 1);
+	}
+
 	public Properties getContext() {
 		return context;
 	}
@@ -219,10 +268,32 @@ public class Tokenizer {
 		return true;
 	}
 
+	/**
+	 * Returns the last token.
+	 * Tokens are not created in packed mode, so this method throws 
+	 * IllegalStateException if called while parsePacked() runs.
+	 * Token descriptions should use getLastTokenType() that works in both modes.
+	 * @return
+	 */
 	public LexicalToken getLastToken() {
+		if(packed != null) {
+			throw new IllegalStateException("Tokenizer does not create tokens in packed mode."); //$NON-NLS-1$
+		}
 		return last;
 	}
 
+	/**
+	 * Returns type of the last read token, or -1000 if no token is read yet.
+	 * @return
+	 */
+	public int getLastTokenType() {
+		if(packed != null) {
+			int size = packed.size();
+			return size == 0 ? -1000 : packed.getType(size - 1);
+		}
+		return last == null ? -1000 : last.getType();
+	}
+
 	public int getState() {
 		return state;
 	}
@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.el.core.resolver;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.jboss.tools.common.el.core.resolver.TypeInfoCollector.MemberInfo;
+import org.jboss.tools.common.el.core.resolver.TypeInfoCollector.MemberPresentationIndex;
+import org.jboss.tools.common.el.core.resolver.TypeInfoCollector.SuperTypeInfo;
+
+/**
+ * Per-project cache of member infos, super type infos and member presentation
+ * indexes used by TypeInfoCollector.
+ *
+ * Each project keeps its own bounded maps, least recently used entries are
+ * evicted when a limit is reached. The cache listens to Java model changes and
+ * removes only entries of changed compilation units, and super type infos and
+ * presentation indexes of their subtypes. Entries of a project are dropped
+ * entirely when its classpath changes, or when it is closed or removed.
+ *
+ * @author V. Kabanovich
+ *
+ */
+class TypeInfoCache implements IElementChangedListener {
+	static int MAX_MEMBER_INFOS = 10000;
+	static int MAX_SUPER_TYPE_INFOS = 2000;
+	static int MAX_PRESENTATION_INDEXES = 2000;
+
+	private Map<IProject, ProjectCache> projects = new ConcurrentHashMap<IProject, ProjectCache>();
+	private boolean listening = false;
+
+	private AtomicLong hits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+
+	static class ProjectCache {
+		LimitedMap<IMember, MemberInfo> memberInfoCacheFalse = new LimitedMap<IMember, MemberInfo>(MAX_MEMBER_INFOS);
+		LimitedMap<IMember, MemberInfo> memberInfoCacheTrue = new LimitedMap<IMember, MemberInfo>(MAX_MEMBER_INFOS);
+		LimitedMap<IType, SuperTypeInfo> superTypesCache = new LimitedMap<IType, SuperTypeInfo>(MAX_SUPER_TYPE_INFOS);
+		LimitedMap<PresentationKey, MemberPresentationIndex> presentationIndexes = new LimitedMap<PresentationKey, MemberPresentationIndex>(MAX_PRESENTATION_INDEXES);
+
+		synchronized int size() {
+			return memberInfoCacheFalse.size() + memberInfoCacheTrue.size() + superTypesCache.size() + presentationIndexes.size();
+		}
+	}
+
+	static class PresentationKey {
+		IType type;
+		int flags;
+
+		PresentationKey(IType type, int flags) {
+			this.type = type;
+			this.flags = flags;
+		}
+
+		public int hashCode() {
+			return type.hashCode() * 64 + flags;
+		}
+
+		public boolean equals(Object o) {
+			if(!(o instanceof PresentationKey)) return false;
+			PresentationKey other = (PresentationKey)o;
+			return flags == other.flags && type.equals(other.type);
+		}
+	}
+
+	static class LimitedMap<K, V> extends LinkedHashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+		int limit;
+
+		LimitedMap(int limit) {
+			super(16, 0.75f, true);
+			this.limit = limit;
+		}
+
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > limit;
+		}
+	}
+
+	ProjectCache get(IProject p) {
+		if(p == null || !p.isAccessible()) return null;
+		ProjectCache c = projects.get(p);
+		if(c == null) {
+			synchronized (this) {
+				if(!listening) {
+					JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
+					listening = true;
+				}
+				c = projects.get(p);
+				if(c == null) {
+					c = new ProjectCache();
+					projects.put(p, c);
+				}
+			}
+		}
+		return c;
+	}
+
+	ProjectCache get(IJavaElement element) {
+		if(element == null) {
+			return null;
+		}
+		IJavaProject jp = element.getJavaProject();
+		IProject p = jp == null ? null : jp.getProject();
+		return get(p);
+	}
+
+	MemberInfo getMemberInfo(IMember member, boolean dataModel) {
+		ProjectCache c = get(member);
+		if(c == null) return null;
+		MemberInfo result = null;
+		synchronized (c) {
+			result = dataModel ? c.memberInfoCacheTrue.get(member) : c.memberInfoCacheFalse.get(member);
+		}
+		if(result != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return result;
+	}
+
+	void putMemberInfo(IMember member, boolean dataModel, MemberInfo info) {
+		ProjectCache c = get(member);
+		if(c == null) return;
+		synchronized (c) {
+			if(dataModel) {
+				c.memberInfoCacheTrue.put(member, info);
+			} else {
+				c.memberInfoCacheFalse.put(member, info);
+			}
+		}
+	}
+
+	SuperTypeInfo getSuperTypeInfo(IType type) {
+		ProjectCache c = get(type);
+		if(c == null) return null;
+		SuperTypeInfo result = null;
+		synchronized (c) {
+			result = c.superTypesCache.get(type);
+		}
+		if(result != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return result;
+	}
+
+	void putSuperTypeInfo(IType type, SuperTypeInfo info) {
+		ProjectCache c = get(type);
+		if(c == null) return;
+		synchronized (c) {
+			c.superTypesCache.put(type, info);
+		}
+	}
+
+	MemberPresentationIndex getPresentationIndex(IType type, int flags) {
+		ProjectCache c = get(type);
+		if(c == null) return null;
+		MemberPresentationIndex result = null;
+		synchronized (c) {
+			result = c.presentationIndexes.get(new PresentationKey(type, flags));
+		}
+		if(result != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return result;
+	}
+
+	void putPresentationIndex(IType type, int flags, MemberPresentationIndex index) {
+		ProjectCache c = get(type);
+		if(c == null) return;
+		synchronized (c) {
+			c.presentationIndexes.put(new PresentationKey(type, flags), index);
+		}
+	}
+
+	void clean() {
+		projects.clear();
+	}
+
+	void clean(IProject p) {
+		if(p != null) {
+			projects.remove(p);
+		}
+	}
+
+	int size() {
+		int size = 0;
+		for (ProjectCache c: projects.values()) {
+			size += c.size();
+		}
+		return size;
+	}
+
+	long getHitCount() {
+		return hits.get();
+	}
+
+	long getMissCount() {
+		return misses.get();
+	}
+
+	synchronized void dispose() {
+		if(listening) {
+			JavaCore.removeElementChangedListener(this);
+			listening = false;
+		}
+		clean();
+	}
+
+	public void elementChanged(ElementChangedEvent event) {
+		if(projects.isEmpty()) return;
+		Set<ICompilationUnit> units = new HashSet<ICompilationUnit>();
+		collectChanges(event.getDelta(), units);
+		if(!units.isEmpty()) {
+			invalidate(units);
+		}
+	}
+
+	private void collectChanges(IJavaElementDelta delta, Set<ICompilationUnit> units) {
+		IJavaElement element = delta.getElement();
+		int kind = delta.getKind();
+		int flags = delta.getFlags();
+		switch (element.getElementType()) {
+		case IJavaElement.JAVA_PROJECT:
+			if(kind == IJavaElementDelta.REMOVED
+					|| (flags & (IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_CLASSPATH_CHANGED
+							| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+				clean(((IJavaProject)element).getProject());
+				return;
+			}
+			break;
+		case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			if(kind != IJavaElementDelta.CHANGED
+					|| (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+							| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED)) != 0) {
+				IJavaProject jp = element.getJavaProject();
+				if(jp != null) {
+					clean(jp.getProject());
+				}
+				return;
+			}
+			break;
+		case IJavaElement.COMPILATION_UNIT:
+			units.add(((ICompilationUnit)element).getPrimary());
+			return;
+		case IJavaElement.CLASS_FILE:
+			IJavaProject jp = element.getJavaProject();
+			if(jp != null) {
+				clean(jp.getProject());
+			}
+			return;
+		default:
+			break;
+		}
+		for (IJavaElementDelta child: delta.getAffectedChildren()) {
+			collectChanges(child, units);
+		}
+	}
+
+	/**
+	 * Removes entries declared in changed compilation units,
+	 * and super type infos of types that extend types declared in them.
+	 * Compilation units and their types may be already removed,
+	 * so type names are computed both from units and from cached entries.
+	 *
+	 * @param units
+	 */
+	void invalidate(Set<ICompilationUnit> units) {
+		Set<String> typeNames = new HashSet<String>();
+		for (ICompilationUnit unit: units) {
+			IJavaElement parent = unit.getParent();
+			String packageName = (parent instanceof IPackageFragment) ? parent.getElementName() : ""; //$NON-NLS-1$
+			String name = unit.getElementName();
+			if(name.endsWith(".java")) { //$NON-NLS-1$
+				name = name.substring(0, name.length() - 5);
+			}
+			typeNames.add(packageName.length() == 0 ? name : packageName + "." + name); //$NON-NLS-1$
+			if(unit.exists()) {
+				try {
+					for (IType t: unit.getAllTypes()) {
+						typeNames.add(t.getFullyQualifiedName());
+					}
+				} catch (JavaModelException e) {
+					//ignore, names from the cache will be used
+				}
+			}
+		}
+		for (ProjectCache c: projects.values()) {
+			synchronized (c) {
+				removeMembers(c.memberInfoCacheFalse, units, typeNames);
+				removeMembers(c.memberInfoCacheTrue, units, typeNames);
+				removeMembers(c.superTypesCache, units, typeNames);
+			}
+		}
+		for (ProjectCache c: projects.values()) {
+			synchronized (c) {
+				Iterator<SuperTypeInfo> it = c.superTypesCache.values().iterator();
+				while(it.hasNext()) {
+					if(containsAny(it.next().getNames(), typeNames)) {
+						it.remove();
+					}
+				}
+				Iterator<MemberPresentationIndex> is = c.presentationIndexes.values().iterator();
+				while(is.hasNext()) {
+					if(containsAny(is.next().typeNames, typeNames)) {
+						is.remove();
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean containsAny(Set<String> names, Set<String> typeNames) {
+		for (String n: typeNames) {
+			if(names.contains(n)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private <K extends IMember> void removeMembers(Map<K, ?> map, Set<ICompilationUnit> units, Set<String> typeNames) {
+		Iterator<K> it = map.keySet().iterator();
+		while(it.hasNext()) {
+			K member = it.next();
+			ICompilationUnit unit = member.getCompilationUnit();
+			if(unit != null && units.contains(unit.getPrimary())) {
+				it.remove();
+				IType type = (member instanceof IType) ? (IType)member : member.getDeclaringType();
+				if(type != null) {
+					typeNames.add(type.getFullyQualifiedName());
+				}
+			}
+		}
+	}
+
+}
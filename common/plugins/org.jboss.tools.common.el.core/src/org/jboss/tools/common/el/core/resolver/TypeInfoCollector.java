@@ -13,7 +13,9 @@ package org.jboss.tools.common.el.core.resolver;
 
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -51,50 +53,7 @@ public class TypeInfoCollector {
 	List<MethodInfo> fMethods;
 	List<FieldInfo> fFields;
 	
-	private static class ProjectCache {
-		Map<IMember, MemberInfo> memberInfoCacheFalse = new HashMap<IMember, MemberInfo>();
-		Map<IMember, MemberInfo> memberInfoCacheTrue = new HashMap<IMember, MemberInfo>();
-		Map<IType, SuperTypeInfo> superTypesCache = new HashMap<IType, SuperTypeInfo>();
-	}
-	
-	private static Caches caches = new Caches();
-
-	private static class Caches {
-		ProjectCache common = new ProjectCache();
-//		Map<IProject, ProjectCache> cache = new HashMap<IProject, ProjectCache>();
-		
-		public boolean contains(IProject p) {
-//			return p != null && cache.containsKey(p);
-			return true;
-		}
-		
-		public void clean(IProject p) {
-//			if(contains(p)) {
-//				cache.remove(p);
-//			}
-			common = new ProjectCache();
-		}
-		
-		public ProjectCache get(IProject p) {
-			if(p == null || !p.isAccessible()) return null;
-			return common;
-//			ProjectCache c = cache.get(p);
-//			if(c == null) {
-//				c = new ProjectCache();
-//				cache.put(p, c);
-//			}
-//			return c;
-		}
-		
-		public ProjectCache get(IJavaElement element) {
-			if(element == null) {
-				return null;
-			}
-			IJavaProject jp = element.getJavaProject();
-			IProject p = jp == null ? null : jp.getProject();
-			return get(p);			
-		}
-	}
+	private static TypeInfoCache caches = new TypeInfoCache();
 
 	public static class Type {
 		private String fName;
@@ -922,10 +881,7 @@ public class TypeInfoCollector {
 		
 		SuperTypeInfo(IType type) throws JavaModelException {
 			this.type = type;
-			ProjectCache cache = caches.get(type);
-			if(cache != null) {
-				cache.superTypesCache.put(type, this);
-			}
+			caches.putSuperTypeInfo(type, this);
 			ITypeHierarchy typeHierarchy = type.newSupertypeHierarchy(new NullProgressMonitor());
 			superTypes = typeHierarchy == null ? null : typeHierarchy.getAllSupertypes(type);
 			if(superTypes != null) for (int i = 0; i < superTypes.length; i++) {
@@ -945,8 +901,7 @@ public class TypeInfoCollector {
 	
 	public static SuperTypeInfo getSuperTypes(IType type) throws JavaModelException {
 		if(type == null) return null;
-		ProjectCache cache = caches.get(type);
-		SuperTypeInfo ts = (cache != null) ? cache.superTypesCache.get(type) : null;
+		SuperTypeInfo ts = caches.getSuperTypeInfo(type);
 		if(ts == null) {
 			ts = new SuperTypeInfo(type);
 		}
@@ -1376,18 +1331,209 @@ public class TypeInfoCollector {
 		return properties;
 	}
 
-	public static void cleanCache() {
-		caches = new Caches();
+	/**
+	 * Immutable index of method and property presentations of a type,
+	 * sorted by presentation string. 
+	 * It is built once and reused for code assist and validation 
+	 * until the type or one of its super types is changed.
+	 */
+	public static class MemberPresentationIndex {
+		private static final MemberPresentation[] EMPTY = new MemberPresentation[0];
+
+		private MemberPresentation[] methods;
+		private MemberPresentation[] properties;
+		private MemberPresentation[] all;
+		private String[] unpairedNames;
+		private MethodInfo[] unpairedMethods;
+		Set<String> typeNames = new HashSet<String>();
+
+		MemberPresentationIndex(TypeInfoCollector infos, boolean isValidating) {
+			methods = infos.getMethodPresentations(isValidating).toArray(EMPTY);
+			//Record changes made to the map of unpaired getters and setters, to replay them for each client.
+			final List<String> names = new ArrayList<String>();
+			final List<MethodInfo> values = new ArrayList<MethodInfo>();
+			Map<String, MethodInfo> recorder = new HashMap<String, MethodInfo>() {
+				private static final long serialVersionUID = 1L;
+				public MethodInfo put(String key, MethodInfo value) {
+					names.add(key);
+					values.add(value);
+					return super.put(key, value);
+				}
+				public MethodInfo remove(Object key) {
+					names.add((String)key);
+					values.add(null);
+					return super.remove(key);
+				}
+			};
+			properties = infos.getPropertyPresentations(recorder, isValidating).toArray(EMPTY);
+			unpairedNames = names.toArray(new String[names.size()]);
+			unpairedMethods = values.toArray(new MethodInfo[values.size()]);
+
+			Set<MemberPresentation> merged = new TreeSet<MemberPresentation>(MEMBER_PRESENTATION_COMPARATOR);
+			merged.addAll(Arrays.asList(methods));
+			merged.addAll(Arrays.asList(properties));
+			all = merged.toArray(EMPTY);
+
+			IType type = infos.getType();
+			if(type != null) {
+				typeNames.add(type.getFullyQualifiedName());
+				try {
+					SuperTypeInfo s = getSuperTypes(type);
+					if(s != null) {
+						typeNames.addAll(s.getNames());
+					}
+				} catch (JavaModelException e) {
+					ELCorePlugin.getPluginLog().logError(e);
+				}
+			}
+		}
+
+		public List<MemberPresentation> getMethodPresentations() {
+			return Collections.unmodifiableList(Arrays.asList(methods));
+		}
+
+		public List<MemberPresentation> getPropertyPresentations() {
+			return Collections.unmodifiableList(Arrays.asList(properties));
+		}
+
+		/**
+		 * Returns method or property presentation equal to the name, 
+		 * method presentation is preferred.
+		 * @param name
+		 * @return
+		 */
+		public MemberPresentation find(String name) {
+			int i = indexOf(name);
+			return (i < all.length && all[i].getPresentation().equals(name)) ? all[i] : null;
+		}
+
+		/**
+		 * Returns method and property presentations starting with the prefix.
+		 * @param prefix
+		 * @return
+		 */
+		public List<MemberPresentation> findByPrefix(String prefix) {
+			int from = indexOf(prefix);
+			int to = from;
+			while(to < all.length && all[to].getPresentation().startsWith(prefix)) {
+				to++;
+			}
+			return Collections.unmodifiableList(Arrays.asList(all).subList(from, to));
+		}
+
+		private int indexOf(String name) {
+			int low = 0;
+			int high = all.length;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(all[mid].getPresentation().compareTo(name) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Updates the map of unpaired getters or setters in the same way as
+		 * getPropertyPresentations(Map, boolean) does.
+		 * @param unpairedGettersOrSetters
+		 */
+		public void addUnpairedGettersOrSetters(Map<String, MethodInfo> unpairedGettersOrSetters) {
+			if(unpairedGettersOrSetters == null) return;
+			for (int i = 0; i < unpairedNames.length; i++) {
+				if(unpairedMethods[i] == null) {
+					unpairedGettersOrSetters.remove(unpairedNames[i]);
+				} else {
+					unpairedGettersOrSetters.put(unpairedNames[i], unpairedMethods[i]);
+				}
+			}
+		}
 	}
 
-	public static MemberInfo createMemberInfo(IMember member, boolean dataModel) {
-		ProjectCache pcache = caches.get(member);
+	/**
+	 * Returns presentation index for the member type.
+	 * Index is shared if member type is not generic, otherwise 
+	 * presentations depend on the member and a new index is built.
+	 * 
+	 * @param mbr
+	 * @param varIsUsed
+	 * @param includeStaticMethods
+	 * @param isValidating
+	 * @return
+	 */
+	public static MemberPresentationIndex getPresentationIndex(MemberInfo mbr, boolean varIsUsed, boolean includeStaticMethods, boolean isValidating) {
+		IType type = isIndexShared(mbr) ? mbr.getMemberType() : null;
+		if(type == null) {
+			return new MemberPresentationIndex(mbr.getTypeCollector(varIsUsed, includeStaticMethods), isValidating);
+		}
+		int flags = (varIsUsed ? 1 : 0)
+			| (includeStaticMethods ? 2 : 0)
+			| (isValidating ? 4 : 0)
+			| (mbr.isDataModel() ? 8 : 0)
+			| (ELCorePlugin.getDefault().getPreferenceStore().getBoolean(ELContentAssistPreferences.SHOW_GETTERS_AND_SETTERS) ? 16 : 0)
+			| (ELCorePlugin.getDefault().getPreferenceStore().getBoolean(ELContentAssistPreferences.SHOW_METHODS_WITH_PARENTHESES_ONLY) ? 32 : 0);
+		MemberPresentationIndex index = caches.getPresentationIndex(type, flags);
+		if(index == null) {
+			index = new MemberPresentationIndex(mbr.getTypeCollector(varIsUsed, includeStaticMethods), isValidating);
+			caches.putPresentationIndex(type, flags, index);
+		}
+		return index;
+	}
 
-		Map<IMember, MemberInfo> cache = null;
-		if(pcache != null) {
-			cache = dataModel ? pcache.memberInfoCacheTrue : pcache.memberInfoCacheFalse;
+	/**
+	 * Presentations of a non-generic type do not depend on the member 
+	 * that references it, so they can be shared. 
+	 * Subclasses of member infos may override collecting, they are not shared.
+	 */
+	private static boolean isIndexShared(MemberInfo mbr) {
+		Class<?> c = mbr.getClass();
+		if(c != TypeInfo.class && c != FieldInfo.class && c != MethodInfo.class) {
+			return false;
+		}
+		if(mbr.getType() == null || (mbr.getType().getParameters() != null && mbr.getType().getParameters().length > 0)) {
+			return false;
+		}
+		IType type = mbr.getMemberType();
+		try {
+			return type != null && type.getTypeParameters().length == 0;
+		} catch (JavaModelException e) {
+			return false;
 		}
-		MemberInfo result = cache == null ? null : cache.get(member);
+	}
+
+	public static void cleanCache() {
+		caches.clean();
+	}
+
+	/**
+	 * Removes cached infos of members of the project.
+	 * Other projects are not affected. 
+	 * @param project
+	 */
+	public static void cleanCache(IProject project) {
+		caches.clean(project);
+	}
+
+	/**
+	 * Returns the number of requests to the member info and super type info caches 
+	 * that were served from the cache.
+	 */
+	public static long getCacheHitCount() {
+		return caches.getHitCount();
+	}
+
+	/**
+	 * Returns the number of requests to the member info and super type info caches 
+	 * that had to compute the result.
+	 */
+	public static long getCacheMissCount() {
+		return caches.getMissCount();
+	}
+
+	public static MemberInfo createMemberInfo(IMember member, boolean dataModel) {
+		MemberInfo result = caches.getMemberInfo(member, dataModel);
 		if(result != null) return result;
 		try {
 			if (member instanceof IType) {
@@ -1404,8 +1550,8 @@ public class TypeInfoCollector {
 		} catch (JavaModelException e) {
 			ELCorePlugin.getPluginLog().logError(e);
 		}
-		if(result != null && cache!=null) {
-			cache.put(member, result);
+		if(result != null) {
+			caches.putMemberInfo(member, dataModel, result);
 		}
 
 		return result;
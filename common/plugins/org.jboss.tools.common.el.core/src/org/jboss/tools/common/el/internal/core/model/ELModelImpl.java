@@ -28,6 +28,7 @@ public class ELModelImpl extends ELObjectImpl implements ELModel {
 	String source;
 	List<ELInstance> instances = new ArrayList<ELInstance>();
 	int delta = 0;
+	boolean shared = false;
 
 	public ELModelImpl() {}
 
@@ -90,7 +91,22 @@ public class ELModelImpl extends ELObjectImpl implements ELModel {
 		return errors == null ? ELInstanceImpl.EMPTY : errors;
 	}
 
+	/**
+	 * Marks this model as shared between clients by ELParserCache.
+	 * Shared model cannot be shifted.
+	 */
+	public void setShared() {
+		shared = true;
+	}
+
+	public boolean isShared() {
+		return shared;
+	}
+
 	public void shift(int delta) {
+		if(shared) {
+			throw new IllegalStateException("Cannot shift EL model shared by parser cache."); //$NON-NLS-1$
+		}
 		this.delta = delta;
 		if(instances.size() > 0) {
 			instances.get(0).getFirstToken().shift(delta);
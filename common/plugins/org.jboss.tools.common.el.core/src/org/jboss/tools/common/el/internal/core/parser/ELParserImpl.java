@@ -14,6 +14,7 @@ import java.util.List;
 
 import org.jboss.tools.common.el.core.model.ELInvocationExpression;
 import org.jboss.tools.common.el.core.parser.LexicalToken;
+import org.jboss.tools.common.el.core.parser.PackedTokens;
 import org.jboss.tools.common.el.core.parser.Tokenizer;
 import org.jboss.tools.common.el.internal.core.model.ELArgumentImpl;
 import org.jboss.tools.common.el.internal.core.model.ELArgumentExpressionImpl;
@@ -57,6 +58,18 @@ import org.jboss.tools.common.el.internal.core.parser.token.WhiteSpaceTokenDescr
 public class ELParserImpl {
 	LexicalToken current;
 
+	/**
+	 * Builds model from tokens produced by Tokenizer.parsePacked().
+	 * Lexical tokens are materialized here, so that clients that need only
+	 * token offsets, types and syntax errors do not pay for them.
+	 */
+	public ELModelImpl parse(PackedTokens tokens) {
+		ELModelImpl model = parse(tokens.toLexicalTokens());
+		model.setSource(tokens.getSource());
+		model.setErrors(tokens.getErrors());
+		return model;
+	}
+
 	public ELModelImpl parse(LexicalToken start) {
 		if(current != null) {
 			throw new RuntimeException("Cannot reuse parser while it is running."); //$NON-NLS-1$
@@ -137,8 +137,7 @@ public class PrimitiveValueTokenDescription implements ITokenDescription {
 		if(lastCharIsWrong) {
 			tokenizer.releaseChar();
 		}
-		if(tokenizer.getLastToken() != null 
-			&& tokenizer.getLastToken().getType() == ArgStartTokenDescription.ARG_START
+		if(tokenizer.getLastTokenType() == ArgStartTokenDescription.ARG_START
 			&& dotCount < 1) {
 			SyntaxError error = new SyntaxError(dotOffset, BasicStates.STATE_EXPECTING_ARG);
 			error.setProblem(ElCoreMessages.PrimitiveValueTokenDescription_ArgMustResolveToIntegerOrString);
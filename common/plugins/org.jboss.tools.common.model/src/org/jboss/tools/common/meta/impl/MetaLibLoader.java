@@ -60,19 +60,44 @@ public class MetaLibLoader {
     public MetaLibLoader() {}
 
     public void load(XModelMetaDataImpl meta) {
+        File snapshot = MetaSnapshot.isEnabled() && !validateMetaXML ? MetaSnapshot.getDefaultFile() : null;
+        load(meta, snapshot);
+    }
+
+    /**
+     * Loads meta resources from the snapshot file if it is saved for the current
+     * meta resources, otherwise parses XML and saves the snapshot file.
+     * Returns true if meta resources were loaded from the snapshot.
+     * 
+     * @param meta
+     * @param snapshot file, or null to parse XML without snapshot
+     * @return
+     */
+    boolean load(XModelMetaDataImpl meta, File snapshot) {
         this.meta = meta;
-		Map<String,URL> resources = MetaResourceLoader.getMetaResources();
-		Iterator<String> it = resources.keySet().iterator();
-		while(it.hasNext()) {
-			String path = it.next();
-			URL url = resources.get(path);
-			load(path, url);
-		}
+        String key = snapshot == null ? null : MetaResourceLoader.getMetaResourcesKey();
+        List<ModuleRef> refs = snapshot == null ? null : MetaSnapshot.load(snapshot, key, root);
+        if(refs != null) {
+        	metarefs.addAll(refs);
+        } else {
+			Map<String,URL> resources = MetaResourceLoader.getMetaResources();
+			Iterator<String> it = resources.keySet().iterator();
+			while(it.hasNext()) {
+				String path = it.next();
+				URL url = resources.get(path);
+				load(path, url);
+			}
+			if(snapshot != null) {
+				//Save before elements are used by loading.
+				MetaSnapshot.save(snapshot, key, metarefs);
+			}
+        }
 
         for (int i = 0; i < metarefs.size(); i++) {
             ModuleRef r = metarefs.get(i);
             load(r.element, r.name, r.info);
         }
+        return refs != null;
     }
 
     void sift(Set modules) {
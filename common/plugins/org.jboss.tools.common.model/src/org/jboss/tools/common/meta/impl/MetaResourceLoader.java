@@ -50,4 +50,34 @@ public class MetaResourceLoader {
 		return resources;
 	}
 
+	/**
+	 * Returns string that changes when a bundle contributing meta resources
+	 * is added, removed or updated, or when contributed resources change.
+	 * @return
+	 */
+	public static String getMetaResourcesKey() {
+		List<String> items = new ArrayList<String>();
+		IExtensionPoint point = Platform.getExtensionRegistry().getExtensionPoint("org.jboss.tools.common.model.meta"); //$NON-NLS-1$
+		IExtension[] es = point.getExtensions();
+		for (int i = 0; i < es.length; i++) {
+			Bundle bundle = Platform.getBundle(es[i].getNamespaceIdentifier());
+			if(bundle == null) continue;
+			StringBuilder sb = new StringBuilder();
+			sb.append(bundle.getSymbolicName()).append(':').append(bundle.getVersion())
+				.append(':').append(bundle.getLastModified());
+			IConfigurationElement[] elements = es[i].getConfigurationElements();
+			for (int j = 0; j < elements.length; j++) {
+				String path = elements[j].getAttribute("path"); //$NON-NLS-1$
+				if(path != null) sb.append(':').append(path);
+			}
+			items.add(sb.toString());
+		}
+		Collections.sort(items);
+		StringBuilder key = new StringBuilder();
+		for (String item: items) {
+			key.append(item).append(';');
+		}
+		return key.toString();
+	}
+
 }
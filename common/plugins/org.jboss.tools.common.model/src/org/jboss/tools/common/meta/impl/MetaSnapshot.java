@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.meta.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.tools.common.model.plugin.ModelPlugin;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Binary copy of meta resources parsed by MetaLibLoader, saved in the plugin 
+ * state location at the first start, so that next starts do not parse XML.
+ * 
+ * Snapshot keeps entity groups as element trees with attributes,
+ * exactly what MetaLibLoader takes from XML. It is valid while the key,
+ * built of versions of bundles contributing meta resources, is the same.
+ *
+ * @author V. Kabanovich
+ */
+class MetaSnapshot {
+	/**
+	 * System property that turns off the snapshot when set to false.
+	 */
+	public static final String ENABLED_PROPERTY = "org.jboss.tools.common.model.meta.snapshot"; //$NON-NLS-1$
+
+	static final int VERSION = 1;
+	static final String FILE_NAME = "meta.snapshot"; //$NON-NLS-1$
+	static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	public static boolean isEnabled() {
+		return !"false".equals(System.getProperty(ENABLED_PROPERTY)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns snapshot file in the plugin state location, or null if it is not available.
+	 * @return
+	 */
+	public static File getDefaultFile() {
+		ModelPlugin plugin = ModelPlugin.getDefault();
+		if(plugin == null) return null;
+		try {
+			return plugin.getStateLocation().append(FILE_NAME).toFile();
+		} catch (IllegalStateException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns modules saved in the snapshot file with the given key, creating 
+	 * their elements in the document of root; or null if the file does not exist 
+	 * or is saved for another key.
+	 * 
+	 * @param file
+	 * @param key
+	 * @param root
+	 * @return
+	 */
+	public static List<ModuleRef> load(File file, String key, Element root) {
+		if(!file.isFile()) return null;
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+			if(in.readInt() != VERSION) return null;
+			Reader reader = new Reader(in, root.getOwnerDocument());
+			if(!key.equals(reader.readString())) return null;
+			int count = in.readInt();
+			List<ModuleRef> result = new ArrayList<ModuleRef>(count);
+			for (int i = 0; i < count; i++) {
+				String name = reader.readString();
+				String info = reader.readString();
+				Element g = reader.readElement(root);
+				root.removeChild(g);
+				result.add(new ModuleRef(g, name, info));
+			}
+			return result;
+		} catch (IOException e) {
+			ModelPlugin.getPluginLog().logError("Cannot read meta model snapshot " + file, e); //$NON-NLS-1$
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Saves modules to the snapshot file with the given key.
+	 * 
+	 * @param file
+	 * @param key
+	 * @param modules
+	 */
+	public static void save(File file, String key, List<ModuleRef> modules) {
+		file.getParentFile().mkdirs();
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+			out.writeInt(VERSION);
+			Writer writer = new Writer(out);
+			writer.writeString(key);
+			out.writeInt(modules.size());
+			for (ModuleRef r: modules) {
+				writer.writeString(r.name);
+				writer.writeString(r.info);
+				writer.writeElement(r.element);
+			}
+			out.close();
+			out = null;
+			file.delete();
+			if(!temp.renameTo(file)) {
+				temp.delete();
+			}
+		} catch (IOException e) {
+			ModelPlugin.getPluginLog().logError("Cannot save meta model snapshot " + file, e); //$NON-NLS-1$
+			close(out);
+			out = null;
+			temp.delete();
+		} finally {
+			close(out);
+		}
+	}
+
+	/**
+	 * Strings are written once; next occurrences are written as indexes.
+	 */
+	static class Writer {
+		DataOutputStream out;
+		Map<String, Integer> strings = new HashMap<String, Integer>();
+
+		Writer(DataOutputStream out) {
+			this.out = out;
+		}
+
+		void writeString(String s) throws IOException {
+			Integer index = strings.get(s);
+			if(index != null) {
+				out.writeInt(index.intValue());
+			} else {
+				out.writeInt(strings.size());
+				strings.put(s, Integer.valueOf(strings.size()));
+				byte[] bs = s.getBytes(ENCODING);
+				out.writeInt(bs.length);
+				out.write(bs);
+			}
+		}
+
+		void writeElement(Element e) throws IOException {
+			writeString(e.getNodeName());
+			NamedNodeMap as = e.getAttributes();
+			out.writeInt(as.getLength());
+			for (int i = 0; i < as.getLength(); i++) {
+				Attr a = (Attr)as.item(i);
+				writeString(a.getName());
+				writeString(a.getValue());
+			}
+			List<Element> children = new ArrayList<Element>();
+			for (Node c = e.getFirstChild(); c != null; c = c.getNextSibling()) {
+				if(c instanceof Element) children.add((Element)c);
+			}
+			out.writeInt(children.size());
+			for (Element c: children) {
+				writeElement(c);
+			}
+		}
+	}
+
+	static class Reader {
+		DataInputStream in;
+		Document document;
+		List<String> strings = new ArrayList<String>();
+
+		Reader(DataInputStream in, Document document) {
+			this.in = in;
+			this.document = document;
+		}
+
+		String readString() throws IOException {
+			int index = in.readInt();
+			if(index < strings.size()) {
+				return strings.get(index);
+			}
+			if(index != strings.size()) {
+				throw new IOException("Corrupted string table"); //$NON-NLS-1$
+			}
+			byte[] bs = new byte[in.readInt()];
+			in.readFully(bs);
+			String s = new String(bs, ENCODING);
+			strings.add(s);
+			return s;
+		}
+
+		Element readElement(Element parent) throws IOException {
+			Element e = document.createElement(readString());
+			parent.appendChild(e);
+			int attributes = in.readInt();
+			for (int i = 0; i < attributes; i++) {
+				String n = readString();
+				e.setAttribute(n, readString());
+			}
+			int children = in.readInt();
+			for (int i = 0; i < children; i++) {
+				readElement(e);
+			}
+			return e;
+		}
+	}
+
+	private static void close(Closeable c) {
+		if(c != null) {
+			try {
+				c.close();
+			} catch (IOException e) {
+				//ignore
+			}
+		}
+	}
+
+}
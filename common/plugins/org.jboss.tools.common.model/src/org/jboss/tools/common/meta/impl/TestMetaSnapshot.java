@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.meta.impl;
+
+import java.io.File;
+
+import org.jboss.tools.common.meta.XModelMetaData;
+
+/**
+ * Gives tests meta models that are not shared, loaded with a given snapshot file.
+ * 
+ * @author V. Kabanovich
+ */
+public class TestMetaSnapshot {
+
+	/**
+	 * Loads meta model from the snapshot file if it is saved for the current meta resources,
+	 * otherwise from XML, saving the snapshot file.
+	 */
+	public static XModelMetaData load(File snapshot) {
+		return new XModelMetaDataImpl(snapshot);
+	}
+
+	public static boolean isLoadedFromSnapshot(XModelMetaData meta) {
+		return ((XModelMetaDataImpl)meta).isLoadedFromSnapshot();
+	}
+
+}
@@ -42,8 +42,21 @@ public class XModelEntityImpl extends XMetaElementImpl implements XModelEntity {
     protected String xmlSubPath = null;
     protected Element element = null;
 
+    /**
+     * Meta model that created this entity.
+     */
+    private XModelMetaDataImpl meta = null;
+
     protected XModelEntityImpl() {}
 
+    void setMetaModel(XModelMetaDataImpl meta) {
+    	this.meta = meta;
+    }
+
+    public XModelMetaData getMetaModel() {
+    	return meta != null ? meta : super.getMetaModel();
+    }
+
     public void setModule(String s) {
     	module = s;
     }
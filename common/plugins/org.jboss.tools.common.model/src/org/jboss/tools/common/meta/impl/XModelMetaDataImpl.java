@@ -10,6 +10,7 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.meta.impl;
 
+import java.io.File;
 import java.util.*;
 import org.w3c.dom.*;
 
@@ -74,6 +75,29 @@ public class XModelMetaDataImpl implements XModelMetaData, XMetaDataConstants {
 		recognizer = new ModelEntityRecognizer(this);
     }
 
+    /**
+     * Creates meta model that is not shared, loading meta resources 
+     * with the given snapshot file, and resolves its entities.
+     * Used by tests to compare meta model loaded from XML with meta model
+     * loaded from the snapshot.
+     * 
+     * @param snapshot
+     */
+    XModelMetaDataImpl(File snapshot) {
+    	loadedFromSnapshot = new MetaLibLoader().load(this, snapshot);
+    	XModelEntity[] es = entities.values().toArray(new XModelEntity[0]);
+    	for (int i = 0; i < es.length; i++) {
+    		((XModelEntityImpl)es[i]).validate();
+    		((XModelEntityImpl)es[i]).validateChildren();
+    	}
+    }
+
+    private boolean loadedFromSnapshot = false;
+
+    boolean isLoadedFromSnapshot() {
+    	return loadedFromSnapshot;
+    }
+
     public EntityRecognizer getEntityRecognizer() {
         return recognizer;
     }
@@ -132,6 +156,7 @@ public class XModelMetaDataImpl implements XModelMetaData, XMetaDataConstants {
 
     public XModelEntity createEntity(Element element, String module) {
         XModelEntityImpl entity = new XModelEntityImpl();
+        entity.setMetaModel(this);
         entity.setModule(module);
         entity.setElement(element);
         entities.put(entity.getName(), entity);
@@ -7,7 +7,7 @@
  *
  * Contributors:
  *     Exadel, Inc. and Red Hat, Inc. - initial API and implementation
- ******************************************************************************/ 
+ ******************************************************************************/
 package org.jboss.tools.common.model;
 
 import java.util.*;
@@ -21,28 +21,178 @@ import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.ui.internal.decorators.DecoratorManager;
 import org.eclipse.ui.progress.UIJob;
 import org.jboss.tools.common.model.plugin.ModelPlugin;
 
+/**
+ * Runs model updates in background.
+ *
+ * Runnables are executed one by one in lanes; each lane is a separate job,
+ * so that a slow update in one lane, e.g. of one project, does not block others.
+ * Runnables of different lanes may run at the same time, so only runnables
+ * that do not share mutable state with other lanes should choose a lane;
+ * others run one at a time in the default lane.
+ * Within a lane, runnables with higher priority class are executed first.
+ * A runnable with the id of a waiting runnable is ignored; a runnable with the id
+ * of a running one is executed once after it, however many times it was added.
+ */
 public class XJob extends WorkspaceJob {
 	public static Object FAMILY_XJOB = new Object();
-	
+
+	public static final int PRIORITY_HIGH = 0;
+	public static final int PRIORITY_NORMAL = 1;
+	public static final int PRIORITY_LOW = 2;
+
+	static final String DEFAULT_LANE = "default"; //$NON-NLS-1$
+	static final int MAX_STATISTICS = 200;
+
 	private static boolean suspended = false;
 
 	public interface XRunnable extends Runnable {
 		public String getId();
 	}
-	
-	static XJob JOB = new XJob();
-	
+
+	/**
+	 * Runnable that should be executed in a lane other than the default one.
+	 * Runnables with equal ids should return equal lanes.
+	 */
+	public interface XLaneRunnable extends XRunnable {
+		public String getLane();
+	}
+
+	static class Entry {
+		String id;
+		XRunnable runnable;
+		int priority;
+		long queued;
+		boolean running = false;
+		volatile boolean canceled = false;
+		XRunnable rerun = null;
+		int rerunPriority;
+
+		Entry(XRunnable runnable, String id, int priority) {
+			this.runnable = runnable;
+			this.id = id;
+			this.priority = priority;
+		}
+	}
+
+	static class Statistics {
+		int count;
+		long totalTime;
+		long maxTime;
+		long totalWait;
+	}
+
+	static final Object lock = new Object();
+	static Map<String, XJob> lanes = new HashMap<String, XJob>();
+	static Map<String, Entry> entries = new HashMap<String, Entry>();
+	static Map<String, Statistics> statistics = new LinkedHashMap<String, Statistics>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		protected boolean removeEldestEntry(Map.Entry<String, Statistics> eldest) {
+			return size() > MAX_STATISTICS;
+		}
+	};
+	static ThreadLocal<Entry> current = new ThreadLocal<Entry>();
+
 	public static void addRunnable(XRunnable runnable) {
-		JOB.addRunnableInternal(runnable);
+		addRunnable(runnable, PRIORITY_NORMAL);
 	}
 
 	public static void addRunnableWithPriority(XRunnable runnable) {
-		JOB.addRunnableInternalWithPriority(runnable);
+		addRunnable(runnable, PRIORITY_HIGH);
+	}
+
+	/**
+	 * Adds runnable with the given priority class, one of PRIORITY_HIGH,
+	 * PRIORITY_NORMAL and PRIORITY_LOW. If a runnable with the same id is
+	 * waiting, it is moved to the higher priority class.
+	 *
+	 * @param runnable
+	 * @param priority
+	 */
+	public static void addRunnable(XRunnable runnable, int priority) {
+		if(isSuspended()) return;
+		priority = Math.max(PRIORITY_HIGH, Math.min(PRIORITY_LOW, priority));
+		String id = runnable.getId();
+		XJob job = null;
+		long delay = priority == PRIORITY_HIGH ? 0 : 1000;
+		synchronized (lock) {
+			Entry e = entries.get(id);
+			if(e != null) {
+				if(e.running) {
+					e.rerunPriority = e.rerun == null ? priority : Math.min(priority, e.rerunPriority);
+					e.rerun = runnable;
+					return;
+				}
+				job = lanes.get(getLane(runnable));
+				if(job == null) {
+					return;
+				}
+				if(priority < e.priority) {
+					job.queues.get(e.priority).remove(e);
+					e.priority = priority;
+					job.enqueue(e);
+				}
+			} else {
+				e = new Entry(runnable, id, priority);
+				entries.put(id, e);
+				String lane = getLane(runnable);
+				job = lanes.get(lane);
+				if(job == null) {
+					job = new XJob(lane);
+					lanes.put(lane, job);
+				}
+				job.enqueue(e);
+			}
+			if(!job.needsSchedule(delay)) {
+				return;
+			}
+		}
+		job.schedule(delay);
+	}
+
+	private static String getLane(XRunnable runnable) {
+		String lane = (runnable instanceof XLaneRunnable) ? ((XLaneRunnable)runnable).getLane() : null;
+		return lane == null ? DEFAULT_LANE : lane;
+	}
+
+	/**
+	 * Removes the waiting runnable with the given id. If the runnable is running,
+	 * it is marked as canceled, and it may check isRunnableCanceled() to stop early.
+	 * Returns true if a runnable was found.
+	 *
+	 * @param id
+	 * @return
+	 */
+	public static boolean cancelRunnable(String id) {
+		synchronized (lock) {
+			Entry e = entries.get(id);
+			if(e == null) return false;
+			e.canceled = true;
+			e.rerun = null;
+			if(!e.running) {
+				entries.remove(id);
+				XJob job = lanes.get(getLane(e.runnable));
+				if(job != null) {
+					job.queues.get(e.priority).remove(e);
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Returns true if the runnable executed by the current thread was canceled.
+	 * @return
+	 */
+	public static boolean isRunnableCanceled() {
+		Entry e = current.get();
+		return e != null && e.canceled;
 	}
 
 	public static void waitForJob() throws InterruptedException {
@@ -51,12 +201,24 @@ public class XJob extends WorkspaceJob {
 
 	public static void shutdown() {
 		setSuspended(true);
-		synchronized (JOB) {
-			JOB.ids.clear();
-			JOB.list.clear();
+		List<XJob> jobs = null;
+		synchronized (lock) {
+			for (Entry e: entries.values()) {
+				e.canceled = true;
+				e.rerun = null;
+			}
+			entries.clear();
+			jobs = new ArrayList<XJob>(lanes.values());
+			for (XJob job: jobs) {
+				for (List<Entry> queue: job.queues) {
+					queue.clear();
+				}
+			}
 		}
-		if(JOB.isRunning()) {
-			JOB.cancel();
+		for (XJob job: jobs) {
+			if(job.isRunning()) {
+				job.cancel();
+			}
 		}
 	}
 
@@ -83,7 +245,7 @@ public class XJob extends WorkspaceJob {
 			if(stop) break;
 		}
 	}
-	
+
 	public static Job getJobRunning(int iterationLimit) {
 		Job[] js = Platform.getJobManager().find(null);
 		Job dm = null;
@@ -94,7 +256,7 @@ public class XJob extends WorkspaceJob {
 					dm = js[i];
 					continue;
 				}
-				//TODO keep watching 
+				//TODO keep watching
 				return js[i];
 			}
 		}
@@ -108,101 +270,198 @@ public class XJob extends WorkspaceJob {
 				return getJobRunning(iterationLimit - 1);
 		}
 		return null;
-		
+
+	}
+
+	/**
+	 * Returns description of lanes and times of runnables,
+	 * sorted by total time of execution.
+	 * @return
+	 */
+	public static String getDiagnostics() {
+		StringBuilder sb = new StringBuilder();
+		synchronized (lock) {
+			List<String> names = new ArrayList<String>(lanes.keySet());
+			Collections.sort(names);
+			sb.append("Lanes: ").append(names.size()).append('\n'); //$NON-NLS-1$
+			for (String name: names) {
+				XJob job = lanes.get(name);
+				sb.append("  ").append(name) //$NON-NLS-1$
+					.append(" waiting=").append(job.getWaitingCount()); //$NON-NLS-1$
+				if(job.runningEntry != null) {
+					sb.append(" running=").append(job.runningEntry.id); //$NON-NLS-1$
+				}
+				sb.append('\n');
+			}
+			List<Map.Entry<String, Statistics>> ss = new ArrayList<Map.Entry<String, Statistics>>(statistics.entrySet());
+			Collections.sort(ss, new Comparator<Map.Entry<String, Statistics>>() {
+				public int compare(Map.Entry<String, Statistics> o1, Map.Entry<String, Statistics> o2) {
+					long t1 = o1.getValue().totalTime, t2 = o2.getValue().totalTime;
+					return t1 > t2 ? -1 : t1 < t2 ? 1 : 0;
+				}
+			});
+			sb.append("Runnables: ").append(ss.size()).append('\n'); //$NON-NLS-1$
+			for (Map.Entry<String, Statistics> e: ss) {
+				Statistics s = e.getValue();
+				sb.append("  ").append(e.getKey()) //$NON-NLS-1$
+					.append(" count=").append(s.count) //$NON-NLS-1$
+					.append(" total=").append(s.totalTime / 1000000).append("ms") //$NON-NLS-1$ //$NON-NLS-2$
+					.append(" max=").append(s.maxTime / 1000000).append("ms") //$NON-NLS-1$ //$NON-NLS-2$
+					.append(" wait=").append(s.totalWait / 1000000 / s.count).append("ms") //$NON-NLS-1$ //$NON-NLS-2$
+					.append('\n');
+			}
+		}
+		return sb.toString();
 	}
 
-	Set<String> ids = new HashSet<String>();
-	List<XRunnable> list = new ArrayList<XRunnable>();
+	String lane;
+	List<LinkedList<Entry>> queues = new ArrayList<LinkedList<Entry>>();
+	Entry runningEntry = null;
+	long wakeUp = 0;
 
 	public XJob() {
-		super("JBoss Tools Model Update");
+		this(DEFAULT_LANE);
+	}
+
+	XJob(String lane) {
+		super(DEFAULT_LANE.equals(lane) ? "JBoss Tools Model Update" : "JBoss Tools Model Update - " + lane); //$NON-NLS-1$ //$NON-NLS-2$
+		this.lane = lane;
+		for (int i = PRIORITY_HIGH; i <= PRIORITY_LOW; i++) {
+			queues.add(new LinkedList<Entry>());
+		}
 		setSystem(true);
+		addJobChangeListener(new JobChangeAdapter() {
+			public void done(IJobChangeEvent event) {
+				// Job canceled before it ran did not reset wake up time.
+				if(event.getResult() != null && event.getResult().getSeverity() == IStatus.CANCEL) {
+					synchronized (lock) {
+						wakeUp = 0;
+					}
+				}
+			}
+		});
 	}
 
 	public boolean belongsTo(Object family) {
 		return family == FAMILY_XJOB;
 	}
-	
-	void addRunnableInternal(XRunnable runnable) {
-		if (!isSuspended()) {
-			synchronized (this) {
-				if (ids.contains(runnable.getId()))
-					return;
-				ids.add(runnable.getId());
-				list.add(runnable);
-			}
-			if (getState() == Job.NONE || !isRunning()) {
-				schedule(1000);
-			}
+
+	/**
+	 * Called with lock held.
+	 */
+	void enqueue(Entry e) {
+		e.queued = System.nanoTime();
+		if(e.priority == PRIORITY_HIGH) {
+			queues.get(e.priority).addFirst(e);
+		} else {
+			queues.get(e.priority).addLast(e);
 		}
 	}
 
-	private boolean isRunning() {
-		synchronized(this) {
-			return running;
+	/**
+	 * Called with lock held. Returns true if the job should be scheduled
+	 * with the given delay, that is it is not running and is not going to
+	 * wake up earlier.
+	 */
+	boolean needsSchedule(long delay) {
+		if(running) return false;
+		long time = System.currentTimeMillis() + delay;
+		if(wakeUp > 0 && wakeUp <= time) return false;
+		wakeUp = time;
+		return true;
+	}
+
+	/**
+	 * Called with lock held.
+	 */
+	int getWaitingCount() {
+		int count = 0;
+		for (List<Entry> queue: queues) {
+			count += queue.size();
 		}
+		return count;
 	}
 
-	void addRunnableInternalWithPriority(XRunnable runnable) {
-		if (!isSuspended()) {
-			synchronized (this) {
-				if (ids.contains(runnable.getId()))
-					return;
-				ids.add(runnable.getId());
-				list.add(0, runnable);
-			}
-			if (getState() == Job.NONE || !isRunning()) {
-				schedule(0);
+	/**
+	 * Called with lock held.
+	 */
+	private Entry poll() {
+		for (LinkedList<Entry> queue: queues) {
+			if(!queue.isEmpty()) {
+				return queue.removeFirst();
 			}
 		}
+		return null;
 	}
-	
+
+	private boolean isRunning() {
+		synchronized(lock) {
+			return running;
+		}
+	}
+
 	boolean running = false;
 
 	@Override
 	public IStatus runInWorkspace(IProgressMonitor monitor)
 			throws CoreException {
-		synchronized(this) {
-			running = true;
-		}
 		while(true) {
-			XRunnable r = null;
-			synchronized (this) {
-				if(list.size() == 0) {
+			Entry e = null;
+			synchronized (lock) {
+				wakeUp = 0;
+				e = monitor.isCanceled() ? null : poll();
+				if(e == null) {
 					running = false;
+					if(getWaitingCount() == 0 && lanes.get(lane) == this) {
+						lanes.remove(lane);
+					}
 					break;
 				}
-				r = list.remove(0);
-			}
-			// monitor.subTask(r.getId()) is irrelevant for system jobs 
-			//monitor.subTask(r.getId());
-			// XJob is a class from the org.jboss.tools.common.model plugin. This plugin must be active
-			//int state = 0;
-			//Bundle b = Platform.getBundle("org.jboss.tools.common.model");
-			//state = b==null ? -1 : b.getState();
-			//if(state == Bundle.ACTIVE) {
-			synchronized (this) {
-				ids.remove(r.getId());
-			}
-			if(monitor.isCanceled()) {
-				break;
+				running = true;
+				e.running = true;
+				runningEntry = e;
 			}
+			run(e);
+		}
+		return Status.OK_STATUS;
+	}
+
+	private void run(Entry e) {
+		long start = System.nanoTime();
+		current.set(e);
+		try {
 			if (!isSuspended()) {
-				try {
-					r.run();
-				} catch (Exception e) {
-					if(e instanceof RuntimeException) {
-						synchronized(this) {
-							running = false;
-						}
-						throw (RuntimeException)e;
-					}
-					ModelPlugin.getDefault().logError("Error in job " + r.getId(), e);
+				e.runnable.run();
+			}
+		} catch (RuntimeException exc) {
+			ModelPlugin.getDefault().logError("Error in job " + e.id, exc); //$NON-NLS-1$
+		} finally {
+			current.remove();
+			long end = System.nanoTime();
+			synchronized (lock) {
+				Statistics s = statistics.get(e.id);
+				if(s == null) {
+					s = new Statistics();
+					statistics.put(e.id, s);
+				}
+				s.count++;
+				s.totalTime += end - start;
+				s.maxTime = Math.max(s.maxTime, end - start);
+				s.totalWait += start - e.queued;
+
+				runningEntry = null;
+				e.running = false;
+				if(e.rerun != null && !isSuspended()) {
+					e.runnable = e.rerun;
+					e.priority = e.rerunPriority;
+					e.rerun = null;
+					e.canceled = false;
+					enqueue(e);
+				} else if(entries.get(e.id) == e) {
+					entries.remove(e.id);
 				}
 			}
-			//}
 		}
-		return Status.OK_STATUS;
 	}
 
 	public static boolean isSuspended() {
@@ -66,6 +66,20 @@ public interface XModel {
 	 * @param listener
 	 */
 	public void removeModelTreeListener(XModelTreeListener listener);
+
+	/**
+	 * Starts collecting tree events fired by the current thread for
+	 * listeners implementing XModelTreeBatchListener. Other listeners
+	 * receive events immediately. Batches may be nested; each call should
+	 * be followed by endBatch() in a finally block.
+	 */
+	public void beginBatch();
+
+	/**
+	 * Ends the batch started by beginBatch(). When the outermost batch ends,
+	 * collected events are delivered to batch listeners as one compound event.
+	 */
+	public void endBatch();
 	
 	/**
 	 * Returns root object. Root object is defined by String property
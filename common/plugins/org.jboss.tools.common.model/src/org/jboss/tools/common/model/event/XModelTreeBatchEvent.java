@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.event;
+
+import java.util.EventObject;
+
+import org.jboss.tools.common.model.XModel;
+import org.jboss.tools.common.model.XModelObject;
+
+/**
+ * Events fired in a batch, in the order they were fired. For each object there is
+ * at most one event of kind NODE_CHANGED, the first one, which has the path
+ * of the object before the batch as info. A structure event is merged only into 
+ * the event fired just before it, if that is an event of the same object and kind, 
+ * and for CHILD_ADDED or CHILD_REMOVED has the same info. So STRUCTURE_CHANGED 
+ * is in the batch only if it was fired, and a child added, removed and added again 
+ * is reported by three events.
+ *
+ * @author V. Kabanovich
+ */
+public class XModelTreeBatchEvent extends EventObject {
+	private static final long serialVersionUID = 1L;
+
+	private XModelTreeEvent[] events;
+	private int firedCount;
+
+	public XModelTreeBatchEvent(XModel source, XModelTreeEvent[] events, int firedCount) {
+		super(source);
+		this.events = events;
+		this.firedCount = firedCount;
+	}
+
+	public XModel getModel() {
+		return (XModel)getSource();
+	}
+
+	public XModelTreeEvent[] getEvents() {
+		return events;
+	}
+
+	/**
+	 * Returns the number of events fired in the batch before merging.
+	 * @return
+	 */
+	public int getFiredCount() {
+		return firedCount;
+	}
+
+	/**
+	 * Returns true if the batch contains an event of the given kind for the object.
+	 * @param object
+	 * @param kind
+	 * @return
+	 */
+	public boolean contains(XModelObject object, int kind) {
+		for (XModelTreeEvent e: events) {
+			if(e.getModelObject() == object && e.kind() == kind) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.event;
+
+/**
+ * Tree listener that receives events fired between XModel.beginBatch()
+ * and XModel.endBatch() as one compound event when the batch ends.
+ * Events fired outside of batches are delivered to nodeChanged() and
+ * structureChanged() as to other tree listeners.
+ *
+ * @author V. Kabanovich
+ */
+public interface XModelTreeBatchListener extends XModelTreeListener {
+
+	public void batchChanged(XModelTreeBatchEvent event);
+
+	/**
+	 * Returns true if compound events should be delivered in a background thread
+	 * rather than in the thread that ends the batch.
+	 * @return
+	 */
+	public boolean isAsynchronous();
+
+}
@@ -13,72 +13,226 @@ package org.jboss.tools.common.model.filesystems.impl;
 import java.io.*;
 import java.util.*;
 
-import org.jboss.tools.common.model.XModelObjectConstants;
 import org.jboss.tools.common.model.filesystems.FilePathHelper;
 
+/**
+ * Registry of files loaded into the model with their time stamps and lengths.
+ * 
+ * Each registered path is given an integer id, by which its state is kept
+ * in primitive arrays. Ids of unregistered paths are reused.
+ * Whether a path is a directory is stored at registration,
+ * so that look-ups do not query the file system.
+ * 
+ * Ids are found by a hash table over normalized paths that compares
+ * the path of the given file char by char, so that look-ups do not
+ * create a key string.
+ */
 public class FileSystemPeer {
-    private Hashtable<String,Info> p = new Hashtable<String,Info>();
+	static final byte FILE = 1;
+	static final byte DIRECTORY = 2;
+
+    private final boolean caseSensitive = FilePathHelper.isCaseSensitive();
+    private int[] buckets = newBuckets(64);
+    private int[] next = new int[64];
+    private int[] hashes = new int[64];
+    private String[] keys = new String[64];
+    private int count = 0;
+    private int size = 0;
+    private int[] free = new int[16];
+    private int freeCount = 0;
+    private byte[] kinds = new byte[64];
+    private long[] lastModified = new long[64];
+    private long[] lengths = new long[64];
 
     public FileSystemPeer() {}
 
-    public void clear() {
-        p.clear();
+    public synchronized void clear() {
+        buckets = newBuckets(64);
+        next = new int[64];
+        hashes = new int[64];
+        keys = new String[64];
+        count = 0;
+        size = 0;
+        freeCount = 0;
+        kinds = new byte[64];
+        lastModified = new long[64];
+        lengths = new long[64];
     }
 
-    public void register(File f) {
-        p.put(toKey(f), new Info(f));
+    public synchronized void register(File f) {
+        register(f, f.isDirectory());
     }
 
-    public void unregister(File f) {
-        p.remove(toKey(f));
+    /**
+     * Registers files of one directory, querying the state of each file once.
+     * @param files
+     */
+    public synchronized void register(Collection<File> files) {
+    	ensureCapacity(size + files.size());
+    	for (File f: files) {
+    		register(f, f.isDirectory());
+    	}
+    }
+
+    private void register(File f, boolean directory) {
+        String path = toPath(f);
+        int h = hash(path);
+        int i = find(path, h);
+        if(i < 0) {
+        	i = newId(path, h);
+        }
+        kinds[i] = directory ? DIRECTORY : FILE;
+        lastModified[i] = f.lastModified();
+        lengths[i] = directory ? 0 : f.length();
+    }
+
+    public synchronized void unregister(File f) {
+        int i = find(f);
+        if(i >= 0) {
+        	release(i);
+        }
     }
 
-    public void unregisterDir(File f) {
-        p.remove(toKey(f, true));
+    public synchronized void unregisterDir(File f) {
+        int i = find(f);
+        if(i >= 0 && kinds[i] == DIRECTORY) {
+        	release(i);
+        }
     }
 
-    public boolean contains(File f) {
-        return p.containsKey(toKey(f));
+    public synchronized boolean contains(File f) {
+        return find(f) >= 0;
     }
 
-    public boolean containsDir(File f) {
-        return p.containsKey(toKey(f, true));
+    public synchronized boolean containsDir(File f) {
+        int i = find(f);
+        return i >= 0 && kinds[i] == DIRECTORY;
     }
 
     public boolean isUpdated(File f) {
-        Info o = p.get(toKey(f));
-        return (o == null) ? f.exists() : o.changed(f);
+    	long modified;
+    	long length;
+    	boolean directory;
+    	synchronized (this) {
+            int i = find(f);
+            if(i < 0) {
+            	return f.exists();
+            }
+            modified = lastModified[i];
+            length = lengths[i];
+            directory = kinds[i] == DIRECTORY;
+    	}
+    	return modified != f.lastModified() || (!directory && length != f.length());
+    }
+
+    private int find(File f) {
+    	String path = toPath(f);
+    	return find(path, hash(path));
     }
 
-    private String toKey(File f) {
-        return toKey(f, f.isDirectory());
+    private int find(String path, int h) {
+    	for (int i = buckets[h & (buckets.length - 1)]; i >= 0; i = next[i]) {
+    		if(hashes[i] == h && matches(keys[i], path)) return i;
+    	}
+    	return -1;
     }
 
-    private String toKey(File f, boolean asDir) {
-        String s = f.getAbsolutePath().replace('\\', '/');
-        s = FilePathHelper.toPathPath(s);
-        return (asDir) ? s + XModelObjectConstants.SEPARATOR : s;
+    private int newId(String path, int h) {
+    	int i = freeCount > 0 ? free[--freeCount] : size++;
+    	ensureCapacity(size);
+    	keys[i] = toKey(path);
+    	hashes[i] = h;
+    	if(++count > buckets.length) {
+    		rehash(buckets.length * 2);
+    	} else {
+    		link(i);
+    	}
+    	return i;
     }
 
-    class Info {
-    	long lastModified;
-    	long length;
-    	Info(File f) {
-    		lastModified = f.lastModified();
-    		length = f.length();
+    private void link(int i) {
+    	int b = hashes[i] & (buckets.length - 1);
+    	next[i] = buckets[b];
+    	buckets[b] = i;
+    }
+
+    private void rehash(int n) {
+    	buckets = newBuckets(n);
+    	for (int i = 0; i < size; i++) {
+    		if(keys[i] != null) link(i);
+    	}
+    }
+
+    private void release(int i) {
+    	int b = hashes[i] & (buckets.length - 1);
+    	if(buckets[b] == i) {
+    		buckets[b] = next[i];
+    	} else {
+    		int p = buckets[b];
+    		while(next[p] != i) p = next[p];
+    		next[p] = next[i];
+    	}
+    	keys[i] = null;
+    	count--;
+    	kinds[i] = 0;
+    	if(freeCount == free.length) {
+    		free = Arrays.copyOf(free, free.length * 2);
+    	}
+    	free[freeCount++] = i;
+    }
+
+    private void ensureCapacity(int capacity) {
+    	if(capacity > kinds.length) {
+    		int n = Math.max(capacity, kinds.length * 2);
+    		kinds = Arrays.copyOf(kinds, n);
+    		lastModified = Arrays.copyOf(lastModified, n);
+    		lengths = Arrays.copyOf(lengths, n);
+    		next = Arrays.copyOf(next, n);
+    		hashes = Arrays.copyOf(hashes, n);
+    		keys = Arrays.copyOf(keys, n);
     	}
-    
-    	public boolean equals(Info other) {
-    		return lastModified != other.lastModified || length != other.length;
+    }
+
+    private static int[] newBuckets(int n) {
+    	int[] result = new int[n];
+    	Arrays.fill(result, -1);
+    	return result;
+    }
+
+    /**
+     * Returns path of file without copying it when the file is absolute.
+     */
+    private static String toPath(File f) {
+    	return f.isAbsolute() ? f.getPath() : f.getAbsolutePath();
+    }
+
+    private char normalize(char c) {
+    	if(c == File.separatorChar) return '/';
+    	return caseSensitive ? c : Character.toLowerCase(c);
+    }
+
+    private int hash(String path) {
+    	int h = 0;
+    	for (int i = 0; i < path.length(); i++) {
+    		h = 31 * h + normalize(path.charAt(i));
     	}
+    	return h ^ (h >>> 16);
+    }
 
-    	public boolean equals(File other) {
-    		return lastModified != other.lastModified() || length != other.length();
+    private boolean matches(String key, String path) {
+    	if(key.length() != path.length()) return false;
+    	for (int i = 0; i < key.length(); i++) {
+    		if(key.charAt(i) != normalize(path.charAt(i))) return false;
     	}
-    	
-    	public boolean changed(File f) {
-    		return equals(f);
+    	return true;
+    }
+
+    private String toKey(String path) {
+    	char[] cs = new char[path.length()];
+    	for (int i = 0; i < cs.length; i++) {
+    		cs[i] = normalize(path.charAt(i));
     	}
+    	return new String(cs);
     }
 
 }
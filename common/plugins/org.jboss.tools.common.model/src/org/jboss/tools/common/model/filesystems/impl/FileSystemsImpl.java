@@ -15,6 +15,7 @@ import java.util.*;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.internal.ui.*;
 import org.eclipse.jface.resource.ImageDescriptor;
@@ -69,6 +70,9 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
 
     public void removeChild_0(XModelObject o) {
         super.removeChild_0(o);
+        if(o instanceof JarSystemImpl) {
+            ((JarSystemImpl)o).releaseJarAccess();
+        }
         updateOverlappedLater();
     }
     
@@ -76,7 +80,7 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
     private static int OV_STOPPED = 1;
     private static int OV_RUNNING = 2;
 
-    class Ov implements XJob.XRunnable {
+    class Ov implements XJob.XLaneRunnable {
     	int status = OV_SLEEPING;
         public void run() {
         
@@ -95,7 +99,11 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
         }
 
 		public String getId() {
-			return "Model:update overlapped: " + XModelConstants.getWorkspace(FileSystemsImpl.this.getModel()); //$NON-NLS-1$
+			return "Model:update overlapped: " + getLane(); //$NON-NLS-1$
+		}
+
+		public String getLane() {
+			return XModelConstants.getWorkspace(FileSystemsImpl.this.getModel());
 		}
     }
 
@@ -264,6 +272,7 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
 		}
 		fileSystemsRenameListener.checkFileSystemRename(event);
 
+		deltas.collect(event.getDelta(), EclipseResourceUtil.getProject(this));
 		requireUpdate();
 	}
 
@@ -285,6 +294,7 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
 	}
 	
 	UpdateRunnable currentUpdate = null;
+	ResourceDeltaCollector deltas = new ResourceDeltaCollector();
 	
 	void requireUpdate() {
 		if(lock == 0 && currentUpdate == null) {
@@ -333,8 +343,9 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
 		return isUpdating;
 	}
 
-	class UpdateRunnable implements XJob.XRunnable {
-		String id = "Update File Systems - " + XModelConstants.getWorkspace(getModel()); //$NON-NLS-1$
+	class UpdateRunnable implements XJob.XLaneRunnable {
+		String lane = XModelConstants.getWorkspace(getModel());
+		String id = "Update File Systems - " + lane; //$NON-NLS-1$
 		int request = 0;
 		int usage = 0;
 
@@ -342,6 +353,10 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
 			return id;
 		}
 
+		public String getLane() {
+			return lane;
+		}
+
 		public void run() {
 			if(this != currentUpdate) return;
 			if(!isActive()) {
@@ -361,13 +376,17 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
 	private void doUpdate() {
 		if(lock > 0) return;
 		isUpdating = true;
+		getModel().beginBatch();
 		try {
 			boolean b = isOpenProject();
-			if(b) {
+			Map<IPath, Set<String>> changes = deltas.takeChanges();
+			if(b && (changes == null || !updateIncrementally(changes))) {
 				XModelObjectLoaderUtil.getObjectLoader(FileSystemsImpl.this).update(FileSystemsImpl.this);
 			} 
 		} catch (XModelException e) {
 			ModelPlugin.getPluginLog().logError(e);
+		} finally {
+			getModel().endBatch();
 		}
 		if(saveRequested) {
 			try {
@@ -380,6 +399,31 @@ public class FileSystemsImpl extends OrderedObjectImpl implements IResourceChang
 		isUpdating = false;
 	}
 	
+	/**
+	 * Updates only folders that contain changed files.
+	 * Returns false if the full update is needed.
+	 * @param changes names of changed files by paths of their folders
+	 * @return
+	 */
+	private boolean updateIncrementally(Map<IPath, Set<String>> changes) {
+		XModelObject[] fs = getChildren();
+		for (IPath path: changes.keySet()) {
+			for (int i = 0; i < fs.length; i++) {
+				if(!(fs[i] instanceof FileSystemImpl)) continue;
+				IContainer root = ((FileSystemImpl)fs[i]).getResource();
+				if(root == null || !root.getFullPath().isPrefixOf(path)) continue;
+				String[] segments = path.removeFirstSegments(root.getFullPath().segmentCount()).segments();
+				if(!((FileSystemImpl)fs[i]).updateFiles(segments, 0, changes.get(path))) {
+					return false;
+				}
+			}
+		}
+		if(!changes.isEmpty()) {
+			updateOverlapped();
+		}
+		return true;
+	}
+
 	private boolean isOpenProject() {
 		IProject p = EclipseResourceUtil.getProject(this);
 		return p != null && p.isAccessible() && p.isOpen();		
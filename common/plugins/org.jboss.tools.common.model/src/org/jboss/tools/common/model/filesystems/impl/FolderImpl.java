@@ -14,13 +14,20 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.internal.resources.ResourceException;
 import org.eclipse.core.resources.IContainer;
@@ -35,12 +42,14 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.swt.widgets.Display;
+import org.jboss.tools.common.meta.XModelEntity;
 import org.jboss.tools.common.meta.action.XActionInvoker;
 import org.jboss.tools.common.meta.impl.XMetaDataConstants;
 import org.jboss.tools.common.model.ServiceDialog;
 import org.jboss.tools.common.model.XModelException;
 import org.jboss.tools.common.model.XModelObjectConstants;
 import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.event.XModelTreeEvent;
 import org.jboss.tools.common.model.filesystems.BodySource;
 import org.jboss.tools.common.model.filesystems.FileAuxiliary;
 import org.jboss.tools.common.model.filesystems.FilePathHelper;
@@ -203,8 +212,9 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
     	FileSystemImpl fileSystem = getFileSystem();
     	if(fileSystem == null) return;
 		FileSystemPeer peer = fileSystem.getPeer();
+		List<File> files = new ArrayList<File>(fs.length);
         for (int i = 0; i < fs.length; i++) {
-        	_loadChild(peer, fs[i]);
+        	files.add(fs[i]);
         }
         for (int i = 0; i < rs.length; i++) {
         	if(!rs[i].isAccessible()) continue;
@@ -214,7 +224,19 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
         		continue;
         	}
         	linked.registerResource(rs[i]);
-        	_loadChild(peer, f);
+        	files.add(f);
+        }
+        // States are recorded before bodies are read, so that a change
+        // made while the folder is loading is found by the next update.
+        peer.register(files);
+
+        ExecutorService executor = FolderLoadingPool.getExecutor();
+        if(executor == null || files.size() < FolderLoadingPool.MIN_FILES) {
+        	for (File f: files) {
+        		_loadChild(f, null);
+        	}
+        } else {
+        	loadChildren(executor, files);
         }
         
         bindAuxiliary();
@@ -222,6 +244,78 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
         fire = true;
     }
 
+	/**
+	 * Entity properties and bodies of files are prepared by workers ahead
+	 * of the current entry, while the total size of files being prepared
+	 * does not exceed the limit. Objects are created and added in this thread
+	 * in the order of entries. Linked resources are registered before workers start,
+	 * because workers resolve files by them.
+	 */
+	private void loadChildren(ExecutorService executor, List<File> files) {
+		int size = files.size();
+		List<Future<Properties>> prepared = new ArrayList<Future<Properties>>(size);
+		long[] sizes = new long[size];
+		long maxBytes = FolderLoadingPool.getMaxBytes();
+		long inFlight = 0;
+		try {
+			for (int i = 0; i < size; i++) {
+				while(prepared.size() < size) {
+					int next = prepared.size();
+					final File f = files.get(next);
+					boolean isFile = !f.isDirectory();
+					sizes[next] = isFile ? f.length() : 0;
+					if(next > i && inFlight + sizes[next] > maxBytes) {
+						break;
+					}
+					prepared.add(!isFile ? null : executor.submit(new Callable<Properties>() {
+						public Properties call() throws Exception {
+							return prepareEntityProperties(f);
+						}
+					}));
+					inFlight += sizes[next];
+				}
+				_loadChild(files.get(i), getPrepared(prepared.get(i)));
+				prepared.set(i, null);
+				inFlight -= sizes[i];
+			}
+		} finally {
+			for (Future<Properties> f: prepared) {
+				if(f != null) f.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Returns prepared entity properties, or null if they should be computed in this thread.
+	 */
+	private Properties getPrepared(Future<Properties> future) {
+		if(future == null) return null;
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			ModelPlugin.getPluginLog().logError(e.getCause());
+		}
+		return null;
+	}
+
+	/**
+	 * Recognizes entity and reads body of the file if it will be needed by the loader.
+	 * Does not modify the model, so may be called by workers.
+	 */
+	private Properties prepareEntityProperties(File f) {
+		Properties p = getEntityProperties(f);
+		if(p.getProperty(XModelObjectConstants.ATTR_NAME_BODY) == null) {
+			XModelEntity entity = getModel().getMetaData().getEntity(p.getProperty(XMetaDataConstants.ENTITY));
+			if(entity != null && entity.getAttribute("_lateload") == null && entity.hasObjectLoader()) { //$NON-NLS-1$
+				String body = getBodySource(f).get();
+				if(body != null) p.setProperty(XModelObjectConstants.ATTR_NAME_BODY, body);
+			}
+		}
+		return p;
+	}
+
 	private void bindAuxiliary() {
         XModelObject[] cs = getChildren();
         for (int i = 0; i < cs.length; i++) {
@@ -234,7 +328,7 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
         }
 	}
 	
-	private void _loadChild(FileSystemPeer peer, File f) {
+	private void _loadChild(File f, Properties prepared) {
         if(f.isDirectory()) {
             Properties p = new Properties();
             p.setProperty(XModelObjectConstants.ATTR_NAME, f.getName());
@@ -244,10 +338,11 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
             	c.setObject("file", linked.getFileByFileName(pp)); //$NON-NLS-1$
             }
             addChild(c);
+        } else if(prepared != null) {
+            createFileObject(f, prepared, true);
         } else {
             createFileObject(f, true);
         }
-        peer.register(f);
 	}
 
     private Properties getEntityProperties(File f) {
@@ -258,13 +353,26 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
         EntityRecognizer recognizer = getModel().getEntityRecognizer();
         EntityRecognizerContext context = new EntityRecognizerContext(f.getName(), ext, body);
         String entity = recognizer.getEntityName(context);
-        if("FileAny".equals(entity)) { //$NON-NLS-1$
-        	boolean isText = XModelObjectLoaderUtil.isTextFile(f, 100);
-            if(f.length() > 100000 || !isText) entity = XModelObjectConstants.ENT_FILE_ANY_LONG;
-            else if(isText) entity = "FileTXT"; //$NON-NLS-1$
-        } else if(isRecognizerNeedingBody(entity, recognizer, context)) {
-            body = getBodySource(f).get();
-            entity = recognizer.getEntityName(new EntityRecognizerContext(f.getName(), ext, body));
+        boolean isFileAny = "FileAny".equals(entity); //$NON-NLS-1$
+        if(isFileAny || isRecognizerNeedingBody(entity, recognizer, context)) {
+        	String recognized = (recognizer instanceof ModelEntityRecognizer) 
+        			? ((ModelEntityRecognizer)recognizer).getRecognizedEntity(f) : null;
+        	if(recognized != null) {
+        		entity = recognized;
+        	} else {
+        		if(isFileAny) {
+        			boolean isText = XModelObjectLoaderUtil.isTextFile(f, 100);
+        			if(f.length() > 100000 || !isText) entity = XModelObjectConstants.ENT_FILE_ANY_LONG;
+        			else if(isText) entity = "FileTXT"; //$NON-NLS-1$
+        		} else {
+        			body = getBodySource(f).get();
+        			entity = recognizer.getEntityName(new EntityRecognizerContext(f.getName(), ext, body));
+        		}
+        		if(entity != null && getModel().getMetaData().getEntity(entity) != null 
+        				&& recognizer instanceof ModelEntityRecognizer) {
+        			((ModelEntityRecognizer)recognizer).setRecognizedEntity(f, entity);
+        		}
+        	}
         }
         if(entity == null || getModel().getMetaData().getEntity(entity) == null) entity = "FileAny"; //$NON-NLS-1$
         p.setProperty(XMetaDataConstants.ENTITY, entity);
@@ -400,12 +508,126 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
 
         updateAuxiliary(mc, mf);
 
+        updateChildren(fileSystem, mc, mf);
+
+        bindAuxiliary();
+      } catch (NoClassDefFoundError error) {
+    	  //Most probably Eclipse is shutting down.
+    	  return true;
+      } catch (XModelException t) {
+    	  ModelPlugin.getPluginLog().logError("Exception caught in FolderImpl.update()"); //$NON-NLS-1$
+      } finally {  
+		updateLock--;
+		unsynchronized = null;
+		synchronized (this) {
+			this.notifyAll();
+		}
+      }
+        return true;
+    }
+
+    /**
+     * Updates children of the descendant folder with the given path
+     * only for the given file names, without reading the folder.
+     * Returns false if the files cannot be updated incrementally,
+     * and the full update is needed.
+     * 
+     * @param segments path of the folder relative to the file system
+     * @param index index of the segment for a child of this folder
+     * @param names names of added, removed or changed files
+     * @return
+     */
+    boolean updateFiles(String[] segments, int index, Set<String> names) {
+    	if(!loaded) return true;
+    	if(!linked.isEmpty()) return false;
+    	if(index < segments.length) {
+    		XModelObject c = children.getObject(FilePathHelper.toPathPath(segments[index]));
+    		if(c == null) return true; // not loaded yet, or will be added by the full update.
+    		if(!(c instanceof FolderImpl)) return false;
+    		return ((FolderImpl)c).updateFiles(segments, index + 1, names);
+    	}
+    	if(updateLock > 0) return false;
+        FileSystemImpl fileSystem = getFileSystem();
+        if(fileSystem == null) return false;
+        File folder = getFile();
+        if(folder == null || !folder.isDirectory()) return false;
+        updateLock++;
+      try {
+        Map<String,XModelObject> mc = new HashMap<String,XModelObject>();
+        Map<String,File> mf = new HashMap<String,File>();
+        for (String name: names) {
+        	String nm = FilePathHelper.toPathPath(name);
+        	XModelObject o = children.getObject(nm);
+        	if(o != null) {
+        		if(o.getFileType() != XModelObject.FILE 
+        				|| o.getModelEntity().getName().equals(FileAuxiliary.AUX_FILE_ENTITY)) {
+        			return false;
+        		}
+        		mc.put(nm, o);
+        	}
+        	File f = new File(folder, name);
+        	if(f.isDirectory()) return false;
+        	if(f.isFile()) mf.put(nm, f);
+        }
+
+        updateChildren(fileSystem, mc, mf);
+
+        boolean auxiliaryAdded = false;
+        List<XModelObject> updated = new ArrayList<XModelObject>();
+        for (String nm: mf.keySet()) {
+            XModelObject c = children.getObject(nm);
+            if(c != null) {
+            	if(c.getModelEntity().getName().equals(FileAuxiliary.AUX_FILE_ENTITY)) {
+            		auxiliaryAdded = true;
+            	} else {
+            		updated.add(c);
+            	}
+            }
+        }
+
+        if(auxiliaryAdded) {
+        	bindAuxiliary();
+        } else {
+        	for (XModelObject c: updated) {
+        		XObjectLoader loader = XModelObjectLoaderUtil.getObjectLoader(c);
+        		if(loader instanceof AuxiliaryLoader) {
+        			((AuxiliaryLoader)loader).bind(c);
+        		}
+        	}
+        }
+      } catch (NoClassDefFoundError error) {
+    	  //Most probably Eclipse is shutting down.
+    	  return true;
+      } catch (XModelException t) {
+    	  ModelPlugin.getPluginLog().logError("Exception caught in FolderImpl.updateFiles()", t); //$NON-NLS-1$
+    	  return false;
+      } finally {  
+		updateLock--;
+		synchronized (this) {
+			this.notifyAll();
+		}
+      }
+        return true;
+    }
+
+    /**
+     * Applies files found in the folder to loaded children, shared by the full
+     * and the incremental update. Children without file are removed if the file
+     * system peer has registered their file, children with file are updated,
+     * and new files are loaded.
+     * 
+     * @param fileSystem
+     * @param mc loaded children by path part, only those that are checked
+     * @param mf files by path part
+     * @throws XModelException
+     */
+    private void updateChildren(FileSystemImpl fileSystem, Map<String,XModelObject> mc, Map<String,File> mf) throws XModelException {
         Map<String,XModelObject> toRemove = new HashMap<String,XModelObject>();
         Iterator<String> io = mc.keySet().iterator();
         while(io.hasNext()) {
             String nm = io.next();
             if(mf.containsKey(nm)) continue;
-            XModelObject o = (XModelObject)mc.get(nm);
+            XModelObject o = mc.get(nm);
             File of = getChildIOFile(o);
             if(o.getFileType() == XModelObject.FOLDER) {
                 if(!fileSystem.getPeer().containsDir(of)) continue;
@@ -415,12 +637,12 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
             toRemove.put(nm, o);
             io.remove();
         }
-        
+
         Iterator<String> it = mf.keySet().iterator();
         while(it.hasNext()) {
             String nm = it.next();
-            File f = (File)mf.get(nm);
-            XModelObject o = (XModelObject)mc.get(nm);
+            File f = mf.get(nm);
+            XModelObject o = mc.get(nm);
             if(o != null) {
                 updateLoaded(o, f);
                 mc.remove(nm);
@@ -428,26 +650,7 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
                 updateNew(nm, f, toRemove);
             }
         }
-        it = toRemove.keySet().iterator();
-        while(it.hasNext()) {
-            String nm = (String)it.next();
-            updateRemove((XModelObject)toRemove.get(nm));
-        }
-        
-        bindAuxiliary();
-      } catch (NoClassDefFoundError error) {
-    	  //Most probably Eclipse is shutting down.
-    	  return true;
-      } catch (XModelException t) {
-    	  ModelPlugin.getPluginLog().logError("Exception caught in FolderImpl.update()"); //$NON-NLS-1$
-      } finally {  
-		updateLock--;
-		unsynchronized = null;
-		synchronized (this) {
-			this.notifyAll();
-		}
-      }
-        return true;
+        updateRemove(toRemove.values());
     }
 
     /**
@@ -801,6 +1004,35 @@ public class FolderImpl extends RegularObjectImpl implements FolderLoader {
         if(d) peer.unregisterDir(rf); else peer.unregister(rf);
     }
     
+    /**
+     * Removes unmodified objects with one update of children,
+     * other objects are processed by updateRemove(XModelObject).
+     */
+    private void updateRemove(Collection<XModelObject> os) throws XModelException {
+    	FileSystemImpl fs = getFileSystem();
+    	if(fs == null || os.isEmpty()) return;
+        FileSystemPeer peer = fs.getPeer();
+        List<XModelObject> unmodified = new ArrayList<XModelObject>();
+        Map<XModelObject, String> paths = new HashMap<XModelObject, String>();
+        for (XModelObject o: os) {
+        	if(o.isModified()) {
+        		updateRemove(o);
+        		continue;
+        	}
+            boolean d = (o instanceof FolderImpl);
+            File rf = getChildIOFile(o);
+            boolean c = (d && peer.containsDir(rf)) || ((!d) && peer.contains(rf));
+            if(!c) continue;
+            unmodified.add(o);
+            paths.put(o, o.getPath());
+            if(d) peer.unregisterDir(rf); else peer.unregister(rf);
+        }
+        if(unmodified.isEmpty()) return;
+        for (XModelObject o: removeChildren_0(unmodified)) {
+        	fireStructureChanged(XModelTreeEvent.CHILD_REMOVED, paths.get(o));
+        }
+    }
+
     public void removeChildFile(XModelObject o) {
     	FileSystemImpl fs = getFileSystem();
     	if(fs == null) return;
@@ -1234,6 +1466,10 @@ class LinkedResources {
         resourcesByLinkName.put(r.getName(), r);
 	}
 
+	public boolean isEmpty() {
+		return filesByFileName.isEmpty();
+	}
+
 	public void clearFiles() {
 		filesByFileName.clear();
 		filesByLinkName.clear();
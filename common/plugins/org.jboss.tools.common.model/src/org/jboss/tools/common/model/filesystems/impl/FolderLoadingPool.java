@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.filesystems.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.tools.common.model.plugin.ModelPlugin;
+
+/**
+ * Worker threads that read file bodies and recognize entities
+ * for FolderImpl while it loads children.
+ *
+ * Workers do not modify the model; objects are created and added
+ * to the folder by the thread that loads the folder.
+ *
+ * @author V. Kabanovich
+ */
+class FolderLoadingPool {
+	/**
+	 * System property that sets the number of worker threads.
+	 * Value 1 or less turns off parallel loading.
+	 */
+	public static final String PARALLELISM_PROPERTY = "org.jboss.tools.common.model.loading.parallelism"; //$NON-NLS-1$
+
+	/**
+	 * System property that sets the maximum total size in bytes of files
+	 * that are being prepared by workers and are not yet added to the folder.
+	 */
+	public static final String MAX_BYTES_PROPERTY = "org.jboss.tools.common.model.loading.maxBytes"; //$NON-NLS-1$
+
+	static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+	/**
+	 * Folders with less entries are loaded in the calling thread.
+	 */
+	static final int MIN_FILES = 8;
+
+	private static ExecutorService executor = null;
+	private static boolean initialized = false;
+	private static long maxBytes = DEFAULT_MAX_BYTES;
+
+	/**
+	 * Returns executor for preparing files, or null if parallel loading is turned off.
+	 * @return
+	 */
+	public static synchronized ExecutorService getExecutor() {
+		if(!initialized) {
+			initialized = true;
+			int parallelism = getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+			maxBytes = Math.max(1, getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES));
+			if(parallelism > 1) {
+				ThreadPoolExecutor e = new ThreadPoolExecutor(parallelism, parallelism,
+						30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new WorkerFactory());
+				e.allowCoreThreadTimeOut(true);
+				executor = e;
+			}
+		}
+		return executor;
+	}
+
+	public static synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	private static int getInteger(String property, long defaultValue) {
+		return (int)Math.min(Integer.MAX_VALUE, getLong(property, defaultValue));
+	}
+
+	private static long getLong(String property, long defaultValue) {
+		String value = System.getProperty(property);
+		if(value != null) {
+			try {
+				return Long.parseLong(value.trim());
+			} catch (NumberFormatException e) {
+				ModelPlugin.getPluginLog().logError(e);
+			}
+		}
+		return defaultValue;
+	}
+
+	static class WorkerFactory implements ThreadFactory {
+		static AtomicInteger counter = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "JBoss Tools Folder Loader " + counter.incrementAndGet()); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+}
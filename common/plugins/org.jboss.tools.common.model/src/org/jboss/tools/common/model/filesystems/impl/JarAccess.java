@@ -10,12 +10,13 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.model.filesystems.impl;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -23,6 +24,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -36,8 +38,10 @@ public class JarAccess {
 	private String location = null;
 	private String templocation = null;
 
+	private final Object zipLock = new Object();
 	private ZipFile jar = null;
 	int jarLock = 0;
+	private boolean staleJar = false;
 
 	private Map<String,HashSet<String>> map = new HashMap<String,HashSet<String>>();
 	private Map<String,Long> fileEntries = new HashMap<String,Long>();
@@ -60,8 +64,10 @@ public class JarAccess {
 		validate();
 	}
     
-	public synchronized void lockJar() {
-		jarLock++;
+	public void lockJar() {
+		synchronized (zipLock) {
+			jarLock++;
+		}
 	}
 
 	public String getLocation() {
@@ -95,6 +101,7 @@ public class JarAccess {
 				timeStamp = nf.lastModified();
 				size = nf.length();
 			}
+			closeIfIdle();
 			init();
 			exists = true;
 		} catch (IOException e) {
@@ -107,54 +114,111 @@ public class JarAccess {
 		}
 	}
 
+	/**
+	 * Registers entries from the persisted index if the jar was not modified
+	 * since it was indexed; otherwise enumerates entries and saves the index.
+	 */
 	private void init() throws IOException  {
-		ZipFile jar = getZipFile();
 		map.clear();
 		fileEntries.clear();
 		map.put("", new HashSet<String>()); //$NON-NLS-1$
+		File indexFolder = timeStamp == -1 ? null : JarIndex.getDefaultFolder();
+		JarIndex index = indexFolder == null ? null : JarIndex.load(indexFolder, templocation, timeStamp, size);
+		if(index == null) {
+			index = createIndex();
+			if(index == null) return;
+			if(indexFolder != null) {
+				index.save(indexFolder);
+			}
+		}
+		for (int i = 0; i < index.getEntryCount(); i++) {
+			String name = index.getName(i);
+			long entrySize = index.getSize(i);
+			if(!name.endsWith(XModelObjectConstants.SEPARATOR) && entrySize > 0) {
+				fileEntries.put(name, Long.valueOf(entrySize));
+			}
+			register(name);
+		}
+	}
+
+	private JarIndex createIndex() throws IOException {
+		ZipFile jar = getZipFile();
 		try {
-			if(jar == null) return;
+			if(jar == null) return null;
+			JarIndex index = new JarIndex(templocation, timeStamp, size);
 			Enumeration<?> en = jar.entries();
 			while(en.hasMoreElements()) {
-					ZipEntry entry = (ZipEntry)en.nextElement();
-					String name = entry.getName();
-					if(name != null && name.endsWith(".class")) {
-						//Ignore .class entries. They are handled by JDT.
-						continue;
-					}
-					if(name != null && !name.endsWith(XModelObjectConstants.SEPARATOR) && entry.getSize() > 0) {
-						fileEntries.put(name, Long.valueOf(entry.getSize()));
-					}
-					register(name);
+				ZipEntry entry = (ZipEntry)en.nextElement();
+				String name = entry.getName();
+				if(name == null || name.endsWith(".class")) { //$NON-NLS-1$
+					//Ignore .class entries. They are handled by JDT.
+					continue;
+				}
+				index.add(name, entry.getSize());
 			}
+			return index;
 		} finally {
 			unlockJar();
 		}
 	}
 
+	/**
+	 * Locks and returns zip file, opening it if it is not kept open by ZipFilePool.
+	 * Caller must invoke unlockJar() when it is done with the zip file.
+	 */
 	private ZipFile getZipFile() throws IOException {
-		synchronized (this) {
-			lockJar();
-			if(!new File(templocation).isFile()) return null;
-			if(jar != null) return jar;
-			return jar = new ZipFile(templocation);
+		boolean opened = false;
+		ZipFile result = null;
+		synchronized (zipLock) {
+			jarLock++;
+			if(jar == null) {
+				if(!new File(templocation).isFile()) return null;
+				jar = new ZipFile(templocation);
+				staleJar = false;
+				opened = true;
+			}
+			result = jar;
+			ZipFilePool.used(this);
 		}
+		if(opened) {
+			ZipFilePool.trim();
+		}
+		return result;
 	}
 
-	public synchronized void unlockJar() {
-		jarLock--;
-		if(jarLock > 0 || jar == null) return;
-		if(jar != null && jarLock == 0) {
-			try {
-				jar.close();
-			} catch (IOException e) {
-           		//ignore
-			} finally {
-				jar = null;
+	public void unlockJar() {
+		synchronized (zipLock) {
+			jarLock--;
+			if(jarLock == 0 && staleJar) {
+				closeJar();
 			}
 		}
 	}
 
+	/**
+	 * Closes zip file if it is open and is not being read.
+	 * Returns true if zip file was closed.
+	 */
+	boolean closeIfIdle() {
+		synchronized (zipLock) {
+			if(jar == null || jarLock > 0) return false;
+			closeJar();
+			return true;
+		}
+	}
+
+	private void closeJar() {
+		try {
+			if(jar != null) jar.close();
+		} catch (IOException e) {
+			//ignore
+		} finally {
+			jar = null;
+			staleJar = false;
+			ZipFilePool.closed(this);
+		}
+	}
+
 	private void register(String path) {
 		String[] parsed = parse(path);
 		check(parsed[0]);
@@ -196,9 +260,6 @@ public class JarAccess {
 	}
 
 	public String getContent(String path) {
-		int size = 1024;
-		byte b[] = new byte[size];
-		StringBuffer sb = new StringBuffer();
 		ZipFile jar = null;
 		try {
 			jar = getZipFile();
@@ -211,10 +272,7 @@ public class JarAccess {
 			unlockJar();
 			return ""; //$NON-NLS-1$
 		}
-		int length = 0;
-		BufferedInputStream bs = null;
-		String encoding = null;
-		boolean first = true;
+		InputStream is = null;
 		try {
 			ZipEntry entry = jar.getEntry(path);
 			if(entry == null && fileEntries.containsKey("/" + path)) {
@@ -227,34 +285,24 @@ public class JarAccess {
 				return ""; //$NON-NLS-1$
 			}
 			
-			InputStream is = jar.getInputStream(entry);
-			bs = new BufferedInputStream(is);
-			while ((length = bs.available()) > 0) {
-				if (length > size)
-					length = size;
-				length = bs.read(b, 0, length);
-				if (length < 0)
-					break;
-				if(first) {
-					first = false;
-					encoding = FileUtil.getEncoding(b);
-				}
-				if(encoding != null) {
-					sb.append(new String(b, 0, length, encoding));
-				} else {
-					sb.append(new String(b, 0, length));
-				}
+			is = jar.getInputStream(entry);
+			byte[] b = readFully(is, entry.getSize());
+			int length = b.length;
+			if(length == 0) {
+				return ""; //$NON-NLS-1$
 			}
-			return sb.toString();
+			// Encoding is detected by the header, as it was by the first chunk of 1024 bytes.
+			String encoding = FileUtil.getEncoding(Arrays.copyOf(b, HEADER_SIZE));
+			return (encoding != null) ? new String(b, 0, length, encoding) : new String(b, 0, length);
 		} catch (IOException e) {
 			errors.add(e.getClass().getName() + " occurs when reading " + jar.getName() + " : " + e.getMessage());  //$NON-NLS-1$//$NON-NLS-2$
 			ModelPlugin.getPluginLog().logError("Exception occurs when reading " + jar.getName(), e); //$NON-NLS-1$
 			return ""; //$NON-NLS-1$
 		} finally {
 			unlockJar();
-			if(bs!=null) {
+			if(is != null) {
 				try {
-					bs.close();
+					is.close();
 				} catch (IOException e) {
 					//ignore
 				}
@@ -262,6 +310,33 @@ public class JarAccess {
 		}
 	}
 
+	static final int HEADER_SIZE = 1024;
+
+	/**
+	 * Reads the stream into array of the exact size, allocating it by the size of the entry if it is known.
+	 */
+	static byte[] readFully(InputStream is, long size) throws IOException {
+		byte[] b = new byte[size >= 0 && size < Integer.MAX_VALUE ? (int)size : 8192];
+		int length = 0;
+		while(true) {
+			if(length == b.length) {
+				if(size >= 0) {
+					int c = is.read();
+					if(c < 0) break;
+					size = -1;
+					b = Arrays.copyOf(b, Math.max(8192, b.length * 2));
+					b[length++] = (byte)c;
+				} else {
+					b = Arrays.copyOf(b, b.length * 2);
+				}
+			}
+			int n = is.read(b, length, b.length - length);
+			if(n < 0) break;
+			length += n;
+		}
+		return length == b.length ? b : Arrays.copyOf(b, length);
+	}
+
 	public boolean isTextEntry(String path, int length) {
 		String b = getContent(path);
 		b = (b == null || b.length() < length) ? b : b.substring(length);
@@ -295,6 +370,15 @@ public class JarAccess {
 	}
 
 	public synchronized void invalidate() {
+		synchronized (zipLock) {
+			if(jar != null) {
+				if(jarLock == 0) {
+					closeJar();
+				} else {
+					staleJar = true;
+				}
+			}
+		}
 		exists = false;
 		map.clear();
 		timeStamp = -1;
@@ -305,26 +389,33 @@ public class JarAccess {
 		return templocation;
 	}
 
-	JarSystemImpl main = null;
-	Map<IProject, JarSystemImpl> slaves = new HashMap<IProject, JarSystemImpl>();
+	/**
+	 * Jar systems that share this object are held weakly, since it is kept
+	 * by JarAccessFactory after their models are discarded.
+	 */
+	private WeakReference<JarSystemImpl> main = null;
+	private Map<IProject, WeakReference<JarSystemImpl>> slaves = new HashMap<IProject, WeakReference<JarSystemImpl>>();
 
 	public JarSystemImpl getMain() {
+		JarSystemImpl main = get(this.main);
 		IProject p = EclipseResourceUtil.getProject(main);
 		if(p == null || !p.isAccessible() || !main.isActive()) {
 			main = null;
 			synchronized(slaves) {
-				Iterator<Map.Entry<IProject, JarSystemImpl>> it = slaves.entrySet().iterator();
+				Iterator<Map.Entry<IProject, WeakReference<JarSystemImpl>>> it = slaves.entrySet().iterator();
 				while(it.hasNext()) {
-					Map.Entry<IProject, JarSystemImpl> s = it.next();
-					p = s.getKey();
-					if(p == null || !p.isAccessible() || !s.getValue().isActive()) {
+					Map.Entry<IProject, WeakReference<JarSystemImpl>> e = it.next();
+					JarSystemImpl s = e.getValue().get();
+					p = e.getKey();
+					if(s == null || p == null || !p.isAccessible() || !s.isActive()) {
 						it.remove();
 					} else if(main == null) {
-						main = s.getValue();
+						main = s;
 						it.remove();
 					}					
 				}			
 			}
+			setMain(main);
             if(main != null) main.jarUpdated();
             JarSystemImpl[] ss = getSlaves();
             for (JarSystemImpl s: ss) s.jarUpdated();
@@ -333,34 +424,155 @@ public class JarAccess {
 	}
 
 	public void setMain(JarSystemImpl main) {
-		this.main = main;
+		this.main = main == null ? null : new WeakReference<JarSystemImpl>(main);
 	}
 
 	public JarSystemImpl[] getSlaves() {
+		List<JarSystemImpl> result = new ArrayList<JarSystemImpl>();
 		synchronized(slaves) {
-			return slaves.values().toArray(new JarSystemImpl[slaves.size()]);
+			for (WeakReference<JarSystemImpl> r: slaves.values()) {
+				JarSystemImpl s = r.get();
+				if(s != null) result.add(s);
+			}
 		}
+		return result.toArray(new JarSystemImpl[result.size()]);
 	}
 
 	public void addSlave(JarSystemImpl s) {
-		if(main == null) {
-			main = s;
+		if(get(main) == null) {
+			setMain(s);
 		} else {
 			synchronized(slaves) {
 				IProject p = EclipseResourceUtil.getProject(s);
 				if(p != null) {
-					slaves.put(p, s);
+					slaves.put(p, new WeakReference<JarSystemImpl>(s));
 				}
 			}
 		}
 	}
 
 	void onProjectDelete(IProject project) {
-		slaves.remove(project);
+		synchronized(slaves) {
+			slaves.remove(project);
+		}
 	}
 
 	public boolean isSlave(JarSystemImpl s) {
-		return slaves.containsValue(s);
+		synchronized(slaves) {
+			for (WeakReference<JarSystemImpl> r: slaves.values()) {
+				if(r.get() == s) return true;
+			}
+		}
+		return false;
+	}
+
+	private static JarSystemImpl get(WeakReference<JarSystemImpl> r) {
+		return r == null ? null : r.get();
+	}
+
+	/**
+	 * Guards reference counting by JarAccessFactory.
+	 */
+	final Object referenceLock = new Object();
+	int acquiring = 0;
+	long lastUsed = System.currentTimeMillis();
+	long unreferencedSince = 0;
+
+	/**
+	 * Jar systems that obtained this object from JarAccessFactory, including those
+	 * in models without project and in closed projects. Jar systems are held weakly,
+	 * so that a discarded model does not keep the jar.
+	 */
+	private final Map<JarSystemImpl, Boolean> holders = new WeakHashMap<JarSystemImpl, Boolean>();
+	private volatile boolean disposed = false;
+
+	void addHolder(JarSystemImpl s) {
+		if(s == null) return;
+		synchronized (referenceLock) {
+			holders.put(s, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Returns the number of active jar systems that hold this object.
+	 * @return
+	 */
+	int getReferenceCount() {
+		synchronized (referenceLock) {
+			int count = 0;
+			for (JarSystemImpl s: holders.keySet()) {
+				if(s != null && s.isActive()) count++;
+			}
+			return count;
+		}
+	}
+
+	void removeContext(JarSystemImpl s) {
+		synchronized (referenceLock) {
+			holders.remove(s);
+		}
+		if(get(main) == s) {
+			main = null;
+		}
+		synchronized(slaves) {
+			Iterator<WeakReference<JarSystemImpl>> it = slaves.values().iterator();
+			while(it.hasNext()) {
+				if(it.next().get() == s) it.remove();
+			}
+		}
+	}
+
+	static final int ENTRY_SIZE = 32;
+	static final int SET_SIZE = 64;
+	static final int LONG_SIZE = 16;
+
+	/**
+	 * Returns approximate size in bytes of entry names and sizes kept in memory.
+	 * @return
+	 */
+	synchronized long getRetainedSize() {
+		long result = 0;
+		for (Map.Entry<String, HashSet<String>> e: map.entrySet()) {
+			result += ENTRY_SIZE + sizeOf(e.getKey()) + SET_SIZE;
+			for (String n: e.getValue()) {
+				result += ENTRY_SIZE + sizeOf(n);
+			}
+		}
+		for (String n: fileEntries.keySet()) {
+			result += ENTRY_SIZE + sizeOf(n) + LONG_SIZE;
+		}
+		return result;
+	}
+
+	private static long sizeOf(String s) {
+		return 40 + 2L * s.length();
+	}
+
+	synchronized int getEntryCount() {
+		return fileEntries.size();
+	}
+
+	boolean isJarOpen() {
+		synchronized (zipLock) {
+			return jar != null;
+		}
+	}
+
+	/**
+	 * Releases memory and zip file when this object is removed from JarAccessFactory.
+	 */
+	synchronized void dispose() {
+		disposed = true;
+		invalidate();
+		fileEntries.clear();
+	}
+
+	/**
+	 * Returns true if this object was removed from JarAccessFactory. 
+	 * A jar system that still holds it has to obtain a new one.
+	 */
+	boolean isDisposed() {
+		return disposed;
 	}
 }
 
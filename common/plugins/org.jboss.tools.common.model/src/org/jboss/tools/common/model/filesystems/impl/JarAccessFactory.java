@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 - 2015 Red Hat, Inc.
+ * Copyright (c) 2007 - 2016 Red Hat, Inc.
  * Distributed under license by Red Hat, Inc. All rights reserved.
  * This program is made available under the terms of the
  * Eclipse Public License v1.0 which accompanies this distribution,
@@ -10,40 +10,226 @@
  ******************************************************************************/
 package org.jboss.tools.common.model.filesystems.impl;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.jboss.tools.common.model.plugin.ModelPlugin;
 
+/**
+ * Registry of JarAccess objects shared by jar systems of all projects.
+ * 
+ * JarAccess is referenced by active jar systems that obtained it, whether or not
+ * their model belongs to an accessible project. JarAccess holds jar systems weakly,
+ * so that the jar of a discarded model becomes unreferenced when the model
+ * is garbage collected.
+ * An object that is not referenced is removed from the registry when it has been 
+ * unreferenced longer than the release timeout, or when there are more 
+ * unreferenced objects than allowed, the oldest ones first. Persisted index
+ * of the released jar is deleted.
+ */
 public class JarAccessFactory {
-	
-	private static Map<String, JarAccess> jars = new HashMap<String, JarAccess>();
+	/**
+	 * System property that sets time in milliseconds after which unreferenced jar is released.
+	 */
+	public static final String RELEASE_TIMEOUT_PROPERTY = "org.jboss.tools.common.model.jars.releaseTimeout"; //$NON-NLS-1$
+
+	/**
+	 * System property that sets the maximum number of unreferenced jars kept in the registry.
+	 */
+	public static final String MAX_UNREFERENCED_PROPERTY = "org.jboss.tools.common.model.jars.maxUnreferenced"; //$NON-NLS-1$
+
+	static final long DEFAULT_RELEASE_TIMEOUT = 5 * 60 * 1000;
+	static final int DEFAULT_MAX_UNREFERENCED = 100;
+	static final long SWEEP_INTERVAL = 60 * 1000;
+
+	static final long releaseTimeout = Math.max(0, getLong(RELEASE_TIMEOUT_PROPERTY, DEFAULT_RELEASE_TIMEOUT));
+	private static final int maxUnreferenced = (int)Math.max(0, getLong(MAX_UNREFERENCED_PROPERTY, DEFAULT_MAX_UNREFERENCED));
+
+	private static final ConcurrentHashMap<String, JarAccess> jars = new ConcurrentHashMap<String, JarAccess>();
+	private static volatile long lastSweep = System.currentTimeMillis();
 	
 	static {
 		ResourcesPlugin.getWorkspace().addResourceChangeListener(new WorkspaceListener());
 	}
 
-	public synchronized static JarAccess getJarAccess(String location, JarSystemImpl context) {
-		JarAccess jar = jars.get(location);
-		if(jar == null) {
-			jar = new JarAccess();
-			jar.setMain(context);
-			jar.setLocation(location);
-			jars.put(location, jar);
+	public static JarAccess getJarAccess(String location, JarSystemImpl context) {
+		JarAccess jar = null;
+		while(jar == null) {
+			jar = jars.get(location);
+			if(jar == null) {
+				JarAccess created = new JarAccess();
+				created.setMain(context);
+				created.setLocation(location);
+				jar = jars.putIfAbsent(location, created);
+				if(jar == null) {
+					jar = created;
+				} else {
+					created.dispose();
+				}
+			}
+			synchronized (jar.referenceLock) {
+				if(jars.get(location) != jar || jar.isDisposed()) {
+					// Released concurrently.
+					jars.remove(location, jar);
+					jar = null;
+					continue;
+				}
+				jar.acquiring++;
+				jar.addHolder(context);
+				jar.lastUsed = System.currentTimeMillis();
+				jar.unreferencedSince = 0;
+			}
+		}
+		try {
+			if(context != jar.getMain()) {
+				jar.addSlave(context);
+			}
+		} finally {
+			synchronized (jar.referenceLock) {
+				jar.acquiring--;
+			}
 		}
-		if(context != jar.getMain()) {
-			jar.addSlave(context);
+		if(System.currentTimeMillis() - lastSweep > SWEEP_INTERVAL) {
+			sweep();
 		}
 		return jar;
 	}
 
-	private synchronized static void onProjectDelete(IProject project) {
+	/**
+	 * Notifies that the jar system does not use the jar access object any more.
+	 * @param jar
+	 * @param context
+	 */
+	static void release(JarAccess jar, JarSystemImpl context) {
+		jar.removeContext(context);
+		if(System.currentTimeMillis() - lastSweep > SWEEP_INTERVAL) {
+			sweep();
+		}
+	}
+
+	/**
+	 * Removes jar access objects that are not referenced longer than the release timeout,
+	 * and the oldest unreferenced ones while there are too many of them.
+	 */
+	static void sweep() {
+		sweep(System.currentTimeMillis());
+	}
+
+	/**
+	 * Sweeps the registry as if it were the given time.
+	 * @param now
+	 */
+	static void sweep(long now) {
+		lastSweep = System.currentTimeMillis();
+		List<Map.Entry<String, JarAccess>> unreferenced = new ArrayList<Map.Entry<String, JarAccess>>();
+		for (Map.Entry<String, JarAccess> e: jars.entrySet()) {
+			JarAccess jar = e.getValue();
+			synchronized (jar.referenceLock) {
+				if(jar.acquiring > 0 || jar.getReferenceCount() > 0) {
+					jar.unreferencedSince = 0;
+					continue;
+				}
+				if(jar.unreferencedSince == 0) {
+					jar.unreferencedSince = now;
+				}
+			}
+			unreferenced.add(e);
+		}
+		Collections.sort(unreferenced, new Comparator<Map.Entry<String, JarAccess>>() {
+			public int compare(Map.Entry<String, JarAccess> o1, Map.Entry<String, JarAccess> o2) {
+				long t1 = o1.getValue().unreferencedSince;
+				long t2 = o2.getValue().unreferencedSince;
+				return t1 < t2 ? -1 : t1 == t2 ? 0 : 1;
+			}
+		});
+		int excess = unreferenced.size() - maxUnreferenced;
+		for (Map.Entry<String, JarAccess> e: unreferenced) {
+			boolean expired = now - e.getValue().unreferencedSince >= releaseTimeout;
+			if(!expired && excess <= 0) break;
+			if(release(e.getKey(), e.getValue())) {
+				excess--;
+			}
+		}
+	}
+
+	private static boolean release(String location, JarAccess jar) {
+		synchronized (jar.referenceLock) {
+			if(jar.acquiring > 0 || jar.getReferenceCount() > 0) return false;
+			if(!jars.remove(location, jar)) return false;
+		}
+		jar.dispose();
+		JarIndex.delete(JarIndex.getDefaultFolder(), jar.getTempLocation());
+		return true;
+	}
+
+	/**
+	 * Returns report on jar access objects retained in the registry 
+	 * with their references and approximate memory used by entry names.
+	 * @return
+	 */
+	public static String getDiagnostics() {
+		long now = System.currentTimeMillis();
+		StringBuilder sb = new StringBuilder();
+		int referenced = 0;
+		long retained = 0;
+		List<String> locations = new ArrayList<String>(jars.keySet());
+		Collections.sort(locations);
+		for (String location: locations) {
+			JarAccess jar = jars.get(location);
+			if(jar == null) continue;
+			int references = jar.getReferenceCount();
+			long size = jar.getRetainedSize();
+			if(references > 0) referenced++;
+			retained += size;
+			sb.append("  ").append(location) //$NON-NLS-1$
+				.append(" references=").append(references) //$NON-NLS-1$
+				.append(" entries=").append(jar.getEntryCount()) //$NON-NLS-1$
+				.append(" retained=").append(size) //$NON-NLS-1$
+				.append(" open=").append(jar.isJarOpen()); //$NON-NLS-1$
+			if(jar.unreferencedSince > 0) {
+				sb.append(" unreferenced=").append((now - jar.unreferencedSince) / 1000).append('s'); //$NON-NLS-1$
+			}
+			sb.append('\n');
+		}
+		sb.insert(0, "Jars: " + locations.size() + ", referenced: " + referenced  //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", retained bytes: " + retained + ", open zip files: " + ZipFilePool.getOpenCount() + '\n'); //$NON-NLS-1$ //$NON-NLS-2$
+		return sb.toString();
+	}
+
+	/**
+	 * Returns jar access object registered for the location, or null.
+	 * @param location
+	 * @return
+	 */
+	static JarAccess getRegistered(String location) {
+		return jars.get(location);
+	}
+
+	private static void onProjectDelete(IProject project) {
 		for (JarAccess jar: jars.values()) {
 			jar.onProjectDelete(project);
 		}
+		sweep();
+	}
+
+	private static long getLong(String property, long defaultValue) {
+		String value = System.getProperty(property);
+		if(value != null) {
+			try {
+				return Long.parseLong(value.trim());
+			} catch (NumberFormatException e) {
+				ModelPlugin.getPluginLog().logError(e);
+			}
+		}
+		return defaultValue;
 	}
 	
 	static class WorkspaceListener implements IResourceChangeListener {
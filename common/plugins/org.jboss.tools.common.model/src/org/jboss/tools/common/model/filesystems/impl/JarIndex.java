@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.filesystems.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.tools.common.model.plugin.ModelPlugin;
+
+/**
+ * Names and sizes of entries of a jar file, except for .class entries,
+ * persisted in the plugin state location, so that entries of a jar
+ * that was not modified are not enumerated again.
+ * 
+ * An index is valid for the jar with the same path, time stamp and size.
+ * It is deleted when JarAccessFactory releases the jar, or when the plugin starts
+ * if it was not used for a month, for example because the jar was moved.
+ *
+ * @author V. Kabanovich
+ */
+public class JarIndex {
+	static final int VERSION = 1;
+	static final String FOLDER = "jars"; //$NON-NLS-1$
+	static final String EXTENSION = ".idx"; //$NON-NLS-1$
+	static final long UNUSED_TIMEOUT = 30L * 24 * 60 * 60 * 1000;
+
+	private String path;
+	private long timeStamp;
+	private long size;
+
+	private List<String> names = new ArrayList<String>();
+	private long[] sizes = new long[64];
+
+	public JarIndex(String path, long timeStamp, long size) {
+		this.path = path;
+		this.timeStamp = timeStamp;
+		this.size = size;
+	}
+
+	public void add(String name, long entrySize) {
+		if(names.size() == sizes.length) {
+			sizes = Arrays.copyOf(sizes, sizes.length * 2);
+		}
+		sizes[names.size()] = entrySize;
+		names.add(name);
+	}
+
+	public int getEntryCount() {
+		return names.size();
+	}
+
+	public String getName(int i) {
+		return names.get(i);
+	}
+
+	public long getSize(int i) {
+		return sizes[i];
+	}
+
+	/**
+	 * Returns the persisted index of the jar, or null if there is no index,
+	 * or it was built for another version of the jar.
+	 * 
+	 * @param folder
+	 * @param path
+	 * @param timeStamp
+	 * @param size
+	 * @return
+	 */
+	public static JarIndex load(File folder, String path, long timeStamp, long size) {
+		File f = getIndexFile(folder, path);
+		if(f == null || !f.isFile()) return null;
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+			if(in.readInt() != VERSION || !path.equals(in.readUTF()) 
+					|| in.readLong() != timeStamp || in.readLong() != size) {
+				return null;
+			}
+			JarIndex index = new JarIndex(path, timeStamp, size);
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				index.add(name, in.readLong());
+			}
+			// Time of the last use is checked by deleteUnused().
+			f.setLastModified(System.currentTimeMillis());
+			return index;
+		} catch (IOException e) {
+			f.delete();
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	public void save(File folder) {
+		File f = getIndexFile(folder, path);
+		if(f == null) return;
+		f.getParentFile().mkdirs();
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+			out.writeInt(VERSION);
+			out.writeUTF(path);
+			out.writeLong(timeStamp);
+			out.writeLong(size);
+			out.writeInt(names.size());
+			for (int i = 0; i < names.size(); i++) {
+				out.writeUTF(names.get(i));
+				out.writeLong(sizes[i]);
+			}
+		} catch (IOException e) {
+			ModelPlugin.getPluginLog().logError("Cannot save index of " + path, e); //$NON-NLS-1$
+			close(out);
+			out = null;
+			f.delete();
+		} finally {
+			close(out);
+		}
+	}
+
+	static File getIndexFile(File folder, String path) {
+		if(folder == null) return null;
+		String name = new File(path).getName() + "-" + Integer.toHexString(path.hashCode()) + EXTENSION; //$NON-NLS-1$
+		return new File(folder, name);
+	}
+
+	/**
+	 * Deletes the persisted index of the jar.
+	 * @param folder
+	 * @param path
+	 */
+	static void delete(File folder, String path) {
+		File f = path == null ? null : getIndexFile(folder, path);
+		if(f != null && f.isFile()) {
+			f.delete();
+		}
+	}
+
+	/**
+	 * Deletes indexes in the default folder that were not loaded or saved for a month.
+	 * Called when the plugin starts.
+	 */
+	public static void deleteUnused() {
+		deleteUnused(getDefaultFolder(), System.currentTimeMillis() - UNUSED_TIMEOUT);
+	}
+
+	/**
+	 * Deletes indexes in the folder modified before the given time.
+	 * @param folder
+	 * @param beforeTime
+	 */
+	static void deleteUnused(File folder, long beforeTime) {
+		File[] fs = folder == null ? null : folder.listFiles();
+		if(fs != null) for (File f: fs) {
+			if(f.getName().endsWith(EXTENSION) && f.lastModified() < beforeTime) {
+				f.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns folder for indexes in the plugin state location,
+	 * or null if the plugin is not available.
+	 * @return
+	 */
+	static File getDefaultFolder() {
+		ModelPlugin plugin = ModelPlugin.getDefault();
+		if(plugin == null) return null;
+		try {
+			return plugin.getStateLocation().append(FOLDER).toFile();
+		} catch (IllegalStateException e) {
+			return null;
+		}
+	}
+
+	private static void close(java.io.Closeable c) {
+		if(c != null) {
+			try {
+				c.close();
+			} catch (IOException e) {
+				//ignore
+			}
+		}
+	}
+
+}
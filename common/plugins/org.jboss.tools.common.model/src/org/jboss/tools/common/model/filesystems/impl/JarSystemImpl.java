@@ -27,13 +27,28 @@ public class JarSystemImpl extends JarFolderImpl implements org.jboss.tools.comm
         return this;
     }
 
+    /**
+     * Returns jar access object shared by jar systems with the same location.
+     * If the object held was disposed by JarAccessFactory, a new one is obtained,
+     * so that folders not loaded yet read entries from a loaded jar.
+     */
     protected JarAccess getJarAccess() {
-    	if(jar == null) {
+    	if(jar == null || jar.isDisposed()) {
     		jar = JarAccessFactory.getJarAccess(getLocation(), this);
     	}
         return jar;
     }
 
+    /**
+     * Called when this jar system is removed from the model.
+     */
+    void releaseJarAccess() {
+    	if(jar != null) {
+    		JarAccessFactory.release(jar, this);
+    		jar = null;
+    	}
+    }
+
     public boolean isAttributeEditable(String name) {
         return super.isAttributeEditable(name) && XModelObjectConstants.ATTR_NAME.equals(name);
     }
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.filesystems.impl;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Collects files added, removed or changed in the project between updates
+ * of file systems, so that only folders containing those files are updated.
+ *
+ * Changes that cannot be applied file by file, such as added or removed folders,
+ * changes of the project, of libraries and of class path, or too many changes,
+ * turn on the full update.
+ *
+ * @author V. Kabanovich
+ */
+class ResourceDeltaCollector {
+	static final int MAX_CHANGES = 1000;
+
+	private Map<IPath, Set<String>> changes = new HashMap<IPath, Set<String>>();
+	private int size = 0;
+	private boolean fullUpdate = false;
+
+	/**
+	 * Collects changes of the project from the workspace delta.
+	 * @param delta
+	 * @param project
+	 */
+	public synchronized void collect(IResourceDelta delta, IProject project) {
+		if(fullUpdate) return;
+		if(project == null) {
+			fullUpdate = true;
+			return;
+		}
+		IResourceDelta d = delta.findMember(project.getFullPath());
+		if(d != null) {
+			collect(d);
+		}
+		if(size > MAX_CHANGES) {
+			requestFullUpdate();
+		}
+	}
+
+	private void collect(IResourceDelta delta) {
+		if(fullUpdate) return;
+		IResource r = delta.getResource();
+		int flags = delta.getFlags() & ~IResourceDelta.MARKERS;
+		if(r instanceof IFile) {
+			if(delta.getKind() == IResourceDelta.CHANGED && flags == 0) {
+				return;
+			}
+			if(isFullUpdateFile(r.getName())) {
+				fullUpdate = true;
+				return;
+			}
+			IPath parent = r.getParent().getFullPath();
+			Set<String> names = changes.get(parent);
+			if(names == null) {
+				names = new HashSet<String>();
+				changes.put(parent, names);
+			}
+			if(names.add(r.getName())) {
+				size++;
+			}
+		} else {
+			if(delta.getKind() != IResourceDelta.CHANGED || flags != 0) {
+				fullUpdate = true;
+				return;
+			}
+			for (IResourceDelta c: delta.getAffectedChildren()) {
+				collect(c);
+			}
+		}
+	}
+
+	static boolean isFullUpdateFile(String name) {
+		if(name.startsWith(".")) return true; //$NON-NLS-1$
+		String n = name.toLowerCase();
+		return n.endsWith(".jar") || n.endsWith(".zip"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public synchronized void requestFullUpdate() {
+		fullUpdate = true;
+		changes.clear();
+		size = 0;
+	}
+
+	/**
+	 * Returns names of changed files by paths of their folders collected
+	 * since the last call and starts collecting anew,
+	 * or returns null if the full update is needed.
+	 * @return
+	 */
+	public synchronized Map<IPath, Set<String>> takeChanges() {
+		Map<IPath, Set<String>> result = fullUpdate ? null : changes;
+		changes = new HashMap<IPath, Set<String>>();
+		size = 0;
+		fullUpdate = false;
+		return result;
+	}
+
+}
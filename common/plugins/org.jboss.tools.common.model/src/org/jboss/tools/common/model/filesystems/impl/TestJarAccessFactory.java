@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.filesystems.impl;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jboss.tools.common.model.XModelObject;
+
+/**
+ * Gives tests access to reference counting and sweeping of JarAccessFactory.
+ * 
+ * @author V. Kabanovich
+ */
+public class TestJarAccessFactory {
+
+	public static boolean isRegistered(String location) {
+		return JarAccessFactory.getRegistered(location) != null;
+	}
+
+	/**
+	 * Returns the number of active jar systems that hold jar access for the location,
+	 * or -1 if it is not registered.
+	 */
+	public static int getReferenceCount(String location) {
+		JarAccess jar = JarAccessFactory.getRegistered(location);
+		return jar == null ? -1 : jar.getReferenceCount();
+	}
+
+	/**
+	 * Sweeps the registry twice, the second time after the release timeout,
+	 * so that all unreferenced jar access objects are released.
+	 */
+	public static void releaseUnreferenced() {
+		long now = System.currentTimeMillis();
+		JarAccessFactory.sweep(now);
+		JarAccessFactory.sweep(now + JarAccessFactory.releaseTimeout);
+	}
+
+	/**
+	 * Disposes jar access held by the jar system as if it were released.
+	 */
+	public static void dispose(XModelObject jarSystem) {
+		((JarSystemImpl)jarSystem).getJarAccess().dispose();
+	}
+
+	/**
+	 * Returns file of the persisted index of the jar at the location.
+	 */
+	public static File getIndexFile(String location) throws IOException {
+		return JarIndex.getIndexFile(JarIndex.getDefaultFolder(), new File(location).getCanonicalPath());
+	}
+
+	/**
+	 * Deletes persisted indexes that were not used for the given time in milliseconds.
+	 */
+	public static void deleteUnusedIndexes(long unusedTime) {
+		JarIndex.deleteUnused(JarIndex.getDefaultFolder(), System.currentTimeMillis() - unusedTime);
+	}
+
+}
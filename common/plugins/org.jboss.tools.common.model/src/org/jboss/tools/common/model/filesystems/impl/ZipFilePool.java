@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.filesystems.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.jboss.tools.common.model.plugin.ModelPlugin;
+
+/**
+ * Keeps zip files of JarAccess objects open between reads.
+ * 
+ * When more files are open than allowed, the least recently used
+ * files that are not being read are closed. Files that were not used
+ * for some time are closed as well, so that jars are not kept locked
+ * on file systems that do not allow to modify open files.
+ *
+ * @author V. Kabanovich
+ */
+class ZipFilePool {
+	/**
+	 * System property that sets the maximum number of zip files kept open.
+	 */
+	public static final String MAX_OPEN_PROPERTY = "org.jboss.tools.common.model.jars.maxOpen"; //$NON-NLS-1$
+
+	/**
+	 * System property that sets time in milliseconds after which unused zip file is closed.
+	 */
+	public static final String IDLE_TIMEOUT_PROPERTY = "org.jboss.tools.common.model.jars.idleTimeout"; //$NON-NLS-1$
+
+	static final int DEFAULT_MAX_OPEN = 32;
+	static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+	private static final int maxOpen = (int)Math.max(1, getLong(MAX_OPEN_PROPERTY, DEFAULT_MAX_OPEN));
+	private static final long idleTimeout = Math.max(1000, getLong(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT));
+
+	/**
+	 * Access objects with open zip files in the order of use, mapped to time of last use.
+	 */
+	private static final Map<JarAccess, Long> open = new LinkedHashMap<JarAccess, Long>(16, 0.75f, true);
+	private static Timer timer = null;
+
+	/**
+	 * Notifies that the zip file of the access object is used.
+	 * @param access
+	 */
+	public static void used(JarAccess access) {
+		synchronized (open) {
+			open.put(access, Long.valueOf(System.currentTimeMillis()));
+			if(timer == null) {
+				timer = new Timer("JBoss Tools Jar Closer", true); //$NON-NLS-1$
+				timer.schedule(new TimerTask() {
+					public void run() {
+						closeIdle();
+					}
+				}, idleTimeout, idleTimeout);
+			}
+		}
+	}
+
+	/**
+	 * Notifies that the zip file of the access object is closed.
+	 * @param access
+	 */
+	public static void closed(JarAccess access) {
+		synchronized (open) {
+			open.remove(access);
+		}
+	}
+
+	/**
+	 * Closes least recently used zip files while too many are open.
+	 * Must not be called while holding lock of a JarAccess object.
+	 */
+	public static void trim() {
+		int excess;
+		List<JarAccess> candidates;
+		synchronized (open) {
+			excess = open.size() - maxOpen;
+			if(excess <= 0) return;
+			candidates = new ArrayList<JarAccess>(open.keySet());
+		}
+		for (JarAccess access: candidates) {
+			if(excess <= 0) break;
+			if(access.closeIfIdle()) {
+				excess--;
+			}
+		}
+	}
+
+	static void closeIdle() {
+		long t = System.currentTimeMillis() - idleTimeout;
+		List<JarAccess> candidates = new ArrayList<JarAccess>();
+		synchronized (open) {
+			Iterator<Map.Entry<JarAccess, Long>> it = open.entrySet().iterator();
+			while(it.hasNext()) {
+				Map.Entry<JarAccess, Long> e = it.next();
+				if(e.getValue().longValue() > t) break;
+				candidates.add(e.getKey());
+			}
+		}
+		for (JarAccess access: candidates) {
+			access.closeIfIdle();
+		}
+	}
+
+	public static int getOpenCount() {
+		synchronized (open) {
+			return open.size();
+		}
+	}
+
+	private static long getLong(String property, long defaultValue) {
+		String value = System.getProperty(property);
+		if(value != null) {
+			try {
+				return Long.parseLong(value.trim());
+			} catch (NumberFormatException e) {
+				ModelPlugin.getPluginLog().logError(e);
+			}
+		}
+		return defaultValue;
+	}
+
+}
@@ -12,6 +12,7 @@ package org.jboss.tools.common.model.impl;
 
 public class ExtraRootImpl extends RegularObjectImpl {
 	private static final long serialVersionUID = 1L;
+	private transient String longPath = null;
 
 	public ExtraRootImpl() {}
 
@@ -23,7 +24,13 @@ public class ExtraRootImpl extends RegularObjectImpl {
         return "root:" + super.getPathPart(); //$NON-NLS-1$
     }
     public String getLongPath() {
-        return getPathPart();
+        // Keep the same instance while the path is not changed, children cache their paths by it.
+        String p = getPathPart();
+        String c = longPath;
+        if(c == null || !c.equals(p)) {
+            longPath = c = p;
+        }
+        return c;
     }
 
     public String getPath() {
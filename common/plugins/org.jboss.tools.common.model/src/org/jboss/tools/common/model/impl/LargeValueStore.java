@@ -0,0 +1,504 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.tools.common.model.plugin.ModelPlugin;
+
+/**
+ * Keeps large attribute values (usually file bodies) out of heap,
+ * in memory-mapped segment files of the state temp folder.
+ *
+ * Values are content-addressed: equal strings share one stored copy,
+ * which is found by 64-bit hash and compared by content, so that hash collisions
+ * never return a wrong value. Stored copy is reference counted by handles;
+ * it is released when the handle is released explicitly or collected by garbage collector.
+ * Segments that have no live values are deleted; when total size of segments
+ * reaches the limit, sparse segments are compacted, and if that is not enough,
+ * values are not accepted and should be kept in heap by the caller.
+ *
+ * Recently read values are kept decoded in a small LRU cache.
+ *
+ * @author V. Kabanovich
+ */
+public class LargeValueStore {
+	/**
+	 * Values shorter than that are not worth storing.
+	 */
+	public static final int THRESHOLD = 10000;
+
+	static final String MAX_SIZE_PROPERTY = "org.jboss.tools.common.model.largeValueStore.maxSize"; //$NON-NLS-1$
+	static final long DEFAULT_MAX_SIZE = 1024L << 20;
+	static final int SEGMENT_SIZE = 64 << 20;
+	static final int CACHE_SIZE = 4 << 20;
+	static final String SEGMENT_PREFIX = ModelPlugin.TEMP_FILE_PREFIX + "lv"; //$NON-NLS-1$
+	static final String SEGMENT_SUFFIX = ".seg"; //$NON-NLS-1$
+
+	private static LargeValueStore instance;
+	private static boolean initialized = false;
+
+	/**
+	 * Returns store in the state temp folder of the model plugin,
+	 * or null if the folder is not available.
+	 * @return
+	 */
+	public static synchronized LargeValueStore getInstance() {
+		if(!initialized) {
+			ModelPlugin plugin = ModelPlugin.getDefault();
+			File folder = plugin == null ? null : plugin.getStateTempFolder();
+			if(folder == null) {
+				return null;
+			}
+			initialized = true;
+			long maxSize = DEFAULT_MAX_SIZE;
+			String s = System.getProperty(MAX_SIZE_PROPERTY);
+			if(s != null) {
+				try {
+					maxSize = Long.parseLong(s.trim()) << 20;
+				} catch (NumberFormatException e) {
+					ModelPlugin.getPluginLog().logError("Wrong value of " + MAX_SIZE_PROPERTY + ": " + s); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+			instance = new LargeValueStore(folder, maxSize, SEGMENT_SIZE);
+		}
+		return instance;
+	}
+
+	/**
+	 * Reference to a stored value held by its owner.
+	 */
+	public static final class Handle {
+		final Value value;
+		Tracker tracker;
+
+		Handle(Value value) {
+			this.value = value;
+		}
+
+		public int length() {
+			return value.length;
+		}
+	}
+
+	static class Value {
+		final long hash;
+		final int length;
+		Segment segment;
+		int offset;
+		int refs;
+
+		Value(long hash, int length) {
+			this.hash = hash;
+			this.length = length;
+		}
+
+		int getSize() {
+			return length * 2;
+		}
+	}
+
+	static class Tracker extends WeakReference<Handle> {
+		Value value;
+
+		Tracker(Handle handle, ReferenceQueue<Handle> queue) {
+			super(handle, queue);
+			value = handle.value;
+		}
+	}
+
+	static class Segment {
+		File file;
+		FileChannel channel;
+		MappedByteBuffer buffer;
+		int capacity;
+		int position = 0;
+		int live = 0;
+	}
+
+	private File folder;
+	private long maxSize;
+	private int segmentSize;
+	private int segmentCount = 0;
+
+	private List<Segment> segments = new ArrayList<Segment>();
+	private Segment current;
+	private long size = 0;
+
+	private Map<Long, List<Value>> index = new HashMap<Long, List<Value>>();
+	private ReferenceQueue<Handle> queue = new ReferenceQueue<Handle>();
+	private Set<Tracker> trackers = new HashSet<Tracker>();
+
+	private LinkedHashMap<Value, String> cache = new LinkedHashMap<Value, String>(16, 0.75f, true);
+	private int cachedSize = 0;
+
+	public LargeValueStore(File folder, long maxSize, int segmentSize) {
+		this.folder = folder;
+		this.maxSize = maxSize;
+		this.segmentSize = segmentSize;
+		deleteSegmentFiles();
+	}
+
+	/**
+	 * Stores the value and returns a handle to it, or null if the value
+	 * cannot be stored and should be kept by the caller.
+	 * @param value
+	 * @return
+	 */
+	public synchronized Handle put(String value) {
+		drainQueue();
+		int length = value.length();
+		long hash = hash(value);
+		List<Value> vs = index.get(hash);
+		if(vs != null) {
+			for (Value v: vs) {
+				if(v.length == length && contentEquals(v, value)) {
+					return createHandle(v);
+				}
+			}
+		}
+		if(length * 2L > segmentSize) {
+			return null;
+		}
+		Value v = new Value(hash, length);
+		if(!write(v, value)) {
+			return null;
+		}
+		if(vs == null) {
+			vs = new ArrayList<Value>(1);
+			index.put(hash, vs);
+		}
+		vs.add(v);
+		return createHandle(v);
+	}
+
+	/**
+	 * Returns the stored value.
+	 * @param handle
+	 * @return
+	 */
+	public synchronized String get(Handle handle) {
+		Value v = handle.value;
+		String result = cache.get(v);
+		if(result != null) {
+			return result;
+		}
+		if(v.segment == null) {
+			throw new IllegalStateException("Value is released."); //$NON-NLS-1$
+		}
+		result = read(v);
+		if(v.length <= CACHE_SIZE / 8) {
+			cache.put(v, result);
+			cachedSize += v.length;
+			Iterator<Map.Entry<Value, String>> it = cache.entrySet().iterator();
+			while(cachedSize > CACHE_SIZE && it.hasNext()) {
+				cachedSize -= it.next().getKey().length;
+				it.remove();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if the handle refers to a value equal to the string.
+	 * @param handle
+	 * @param value
+	 * @return
+	 */
+	public synchronized boolean contentEquals(Handle handle, String value) {
+		Value v = handle.value;
+		return v.length == value.length() && v.segment != null && contentEquals(v, value);
+	}
+
+	/**
+	 * Releases the handle. The stored value is deleted when the last handle is released.
+	 * @param handle
+	 */
+	public synchronized void release(Handle handle) {
+		Tracker t = handle.tracker;
+		if(t != null && trackers.remove(t)) {
+			t.clear();
+			unref(t.value);
+		}
+		drainQueue();
+	}
+
+	/**
+	 * Returns total size of segment files.
+	 * @return
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of distinct stored values.
+	 * @return
+	 */
+	public synchronized int getValueCount() {
+		drainQueue();
+		int result = 0;
+		for (List<Value> vs: index.values()) {
+			result += vs.size();
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes all segments. Handles obtained before become invalid.
+	 */
+	public synchronized void dispose() {
+		for (List<Value> vs: index.values()) {
+			for (Value v: vs) {
+				v.segment = null;
+			}
+		}
+		for (Segment s: new ArrayList<Segment>(segments)) {
+			close(s);
+		}
+		segments.clear();
+		current = null;
+		size = 0;
+		index.clear();
+		trackers.clear();
+		cache.clear();
+		cachedSize = 0;
+	}
+
+	private Handle createHandle(Value v) {
+		Handle h = new Handle(v);
+		h.tracker = new Tracker(h, queue);
+		trackers.add(h.tracker);
+		v.refs++;
+		return h;
+	}
+
+	private void drainQueue() {
+		Tracker t = null;
+		while((t = (Tracker)queue.poll()) != null) {
+			if(trackers.remove(t)) {
+				unref(t.value);
+			}
+		}
+	}
+
+	private void unref(Value v) {
+		if(--v.refs > 0) {
+			return;
+		}
+		List<Value> vs = index.get(v.hash);
+		if(vs != null) {
+			vs.remove(v);
+			if(vs.isEmpty()) {
+				index.remove(v.hash);
+			}
+		}
+		if(cache.remove(v) != null) {
+			cachedSize -= v.length;
+		}
+		Segment s = v.segment;
+		v.segment = null;
+		if(s != null) {
+			s.live -= v.getSize();
+			if(s.live == 0 && s != current) {
+				close(s);
+			}
+		}
+	}
+
+	private boolean write(Value v, String value) {
+		int needed = v.getSize();
+		if(current == null || current.capacity - current.position < needed) {
+			if(size + segmentSize > maxSize) {
+				compact();
+			}
+			if(current == null || current.capacity - current.position < needed) {
+				if(size + segmentSize > maxSize) {
+					return false;
+				}
+				Segment old = current;
+				current = createSegment();
+				if(old != null && old.live == 0) {
+					close(old);
+				}
+				if(current == null) {
+					return false;
+				}
+			}
+		}
+		ByteBuffer b = current.buffer.duplicate();
+		b.position(current.position);
+		b.asCharBuffer().put(value);
+		v.segment = current;
+		v.offset = current.position;
+		current.position += needed;
+		current.live += needed;
+		return true;
+	}
+
+	private CharBuffer chars(Value v) {
+		ByteBuffer b = v.segment.buffer.duplicate();
+		b.position(v.offset);
+		b.limit(v.offset + v.getSize());
+		return b.slice().asCharBuffer();
+	}
+
+	private String read(Value v) {
+		char[] cs = new char[v.length];
+		chars(v).get(cs);
+		return new String(cs);
+	}
+
+	private boolean contentEquals(Value v, String value) {
+		CharBuffer cb = chars(v);
+		for (int i = 0; i < v.length; i++) {
+			if(cb.get(i) != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Moves live values of the sparsest segments to the current segment
+	 * and deletes those segments.
+	 */
+	private void compact() {
+		List<Segment> candidates = new ArrayList<Segment>();
+		for (Segment s: segments) {
+			if(s != current && s.live <= s.capacity / 2) {
+				candidates.add(s);
+			}
+		}
+		Collections.sort(candidates, new Comparator<Segment>() {
+			public int compare(Segment o1, Segment o2) {
+				return o1.live - o2.live;
+			}
+		});
+		for (Segment s: candidates) {
+			if(size + segmentSize <= maxSize) {
+				break;
+			}
+			List<Value> values = new ArrayList<Value>();
+			for (List<Value> vs: index.values()) {
+				for (Value v: vs) {
+					if(v.segment == s) {
+						values.add(v);
+					}
+				}
+			}
+			for (Value v: values) {
+				if(current == null || current.capacity - current.position < v.getSize()) {
+					current = createSegment();
+					if(current == null) {
+						return;
+					}
+				}
+				String value = read(v);
+				s.live -= v.getSize();
+				write(v, value);
+			}
+			close(s);
+		}
+	}
+
+	private Segment createSegment() {
+		Segment s = new Segment();
+		s.file = new File(folder, SEGMENT_PREFIX + (segmentCount++) + SEGMENT_SUFFIX);
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(s.file, "rw"); //$NON-NLS-1$
+			raf.setLength(segmentSize);
+			s.channel = raf.getChannel();
+			s.buffer = s.channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+			s.capacity = segmentSize;
+		} catch (IOException e) {
+			ModelPlugin.getPluginLog().logError(e);
+			if(raf != null) {
+				try {
+					raf.close();
+				} catch (IOException e1) {
+					//ignore
+				}
+			}
+			s.file.delete();
+			return null;
+		}
+		s.file.deleteOnExit();
+		segments.add(s);
+		size += s.capacity;
+		return s;
+	}
+
+	private void close(Segment s) {
+		if(segments.remove(s)) {
+			size -= s.capacity;
+		}
+		if(s == current) {
+			current = null;
+		}
+		s.buffer = null;
+		try {
+			s.channel.close();
+		} catch (IOException e) {
+			ModelPlugin.getPluginLog().logError(e);
+		}
+		// On some platforms mapped file cannot be deleted until the mapping is collected,
+		// then it is deleted on exit.
+		s.file.delete();
+	}
+
+	private void deleteSegmentFiles() {
+		File[] fs = folder.listFiles();
+		if(fs != null) for (File f: fs) {
+			String n = f.getName();
+			if(n.startsWith(SEGMENT_PREFIX) && n.endsWith(SEGMENT_SUFFIX)) {
+				f.delete();
+			}
+		}
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of chars.
+	 * @param value
+	 * @return
+	 */
+	static long hash(String value) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			h ^= c & 0xff;
+			h *= 0x100000001b3L;
+			h ^= c >>> 8;
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+}
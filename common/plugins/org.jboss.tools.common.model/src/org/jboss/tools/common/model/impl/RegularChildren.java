@@ -11,6 +11,7 @@
 package org.jboss.tools.common.model.impl;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jboss.tools.common.model.*;
 import org.jboss.tools.common.model.impl.XModelImpl;
 
@@ -52,6 +53,9 @@ public class RegularChildren {
 	 */
 	public void setComparator(Comparator<XModelObject> c) {
 		comparator = c;
+		if(objects != null) {
+			objects.setComparator(c);
+		}
 	}
 
 	/**
@@ -88,7 +92,8 @@ public class RegularChildren {
 	 * @return
 	 */
 	public XModelObject[] getObjects() {
-		return (isEmpty()) ? EMPTY : objects.getSortedValues(comparator);
+		SMap m = objects;
+		return (m == null) ? EMPTY : m.getSortedValues();
 	}
     
 	/**
@@ -97,14 +102,8 @@ public class RegularChildren {
 	 * @return
 	 */
 	public Map<String, XModelObject> getObjectsMap() {
-		Map<String, XModelObject> result = new HashMap<String, XModelObject>();
-		if (objects != null) {
-			Map<String, XModelObject> entries = objects.getMap();
-			synchronized(entries) {
-				result.putAll(entries);
-			}
-		}
-		return result;
+		SMap m = objects;
+		return (m == null) ? new HashMap<String, XModelObject>() : new HashMap<String, XModelObject>(m.getMap());
 	}
     
 	/**
@@ -135,11 +134,11 @@ public class RegularChildren {
 			return false;
 		}
 		if (objects == null)
-			objects = new SMap();
+			objects = new SMap(comparator);
 		objects.put(pp, o);
 		return true;
 	}
-    
+
 	/**
 	 * Removes child object. To save memory, if children set becomes empty,
 	 * object keeping children is set to null.
@@ -160,6 +159,52 @@ public class RegularChildren {
 		return true;
 	}
 
+	/**
+	 * Removes child objects with one update of sorted children.
+	 * Returns removed objects.
+	 * 
+	 * @param os
+	 * @return
+	 */
+	public List<XModelObject> removeObjects(List<XModelObject> os) {
+		List<XModelObject> removed = new ArrayList<XModelObject>(os.size());
+		if (areChildrenOrdered()) {
+			for (XModelObject o: os) {
+				if (removeObject(o)) removed.add(o);
+			}
+			return removed;
+		}
+		if (objects == null)
+			return removed;
+		Map<String, XModelObject> batch = new HashMap<String, XModelObject>();
+		for (XModelObject o: os) {
+			String s = o.getPathPart();
+			if (s == null || objects.get(s) != o) continue;
+			batch.put(s, o);
+			removed.add(o);
+		}
+		for (XModelObject o: removed) {
+			((XModelObjectImpl) o).setParent_0(null);
+		}
+		objects.removeAll(batch);
+		if (objects.size() == 0)
+			objects = null;
+		return removed;
+	}
+
+	/**
+	 * Updates the amounts of children by entity and the position of the child
+	 * in sorted children after the entity of the child was changed.
+	 * 
+	 * @param o
+	 * @param oldEntity
+	 */
+	public void entityChanged(XModelObject o, String oldEntity) {
+		if (objects != null) {
+			objects.entityChanged(o, oldEntity);
+		}
+	}
+
 	/**
 	 * Request for change of path part in specified child. If other object
 	 * exists that has proposed new path part, change is rejected and that
@@ -178,10 +223,12 @@ public class RegularChildren {
 		if (c != null && c != o)
 			return c;
 		if (objects == null)
-			objects = new SMap();
+			objects = new SMap(comparator);
 		if (opp != null)
 			objects.remove(opp);
 		objects.put(npp, o);
+		if (o instanceof XModelObjectImpl)
+			((XModelObjectImpl) o).invalidatePath();
 		if (opp != null && o.getParent() != null) {
 			XModelImpl m = (XModelImpl) o.getModel();
 			m.fireStructureChanged(o.getParent());
@@ -220,10 +267,12 @@ public class RegularChildren {
 		if(objects.length == 0) {
 			if(this.objects != null) this.objects = null;
 		} else {
-			SMap m = new SMap();
+			SMap m = new SMap(comparator);
+			Map<String, XModelObject> batch = new HashMap<String, XModelObject>();
 			for (int i = 0; i < objects.length; i++) {
-				m.put(objects[i].getPathPart(), objects[i]);
+				batch.put(objects[i].getPathPart(), objects[i]);
 			}
+			m.putAll(batch);
 			this.objects = m;
 		}
 	}
@@ -231,14 +280,27 @@ public class RegularChildren {
 }
 
 /**
- * Keeps objects in a fast up-to-date map and in a sorted cache that is lazily
- * updated on requests.
+ * Keeps objects in a concurrent map, amounts of objects by entity,
+ * and a sorted array of objects that is built on first request
+ * and then is updated by insertion and removal of objects.
+ * 
+ * Modifications are synchronized; each modification publishes a new 
+ * sorted array, so readers do not lock.
  * 
  * @author glory
  */
 class SMap {
-	Map<String,XModelObject> entries = new HashMap<String, XModelObject>();
-	XModelObject[] cache = RegularChildren.EMPTY;
+	ConcurrentHashMap<String,XModelObject> entries = new ConcurrentHashMap<String, XModelObject>(4, 0.75f, 1);
+	Map<String,Integer> counts = new HashMap<String, Integer>(4);
+	/**
+	 * Sorted values, or null if they are not requested yet.
+	 */
+	volatile XModelObject[] cache = null;
+	Comparator<XModelObject> comparator;
+
+	SMap(Comparator<XModelObject> comparator) {
+		this.comparator = comparator;
+	}
 
 	public int size() {
 		return entries.size();
@@ -248,17 +310,41 @@ class SMap {
 		return entries.get(key);
 	}
 
-	public void put(String key, XModelObject value) {
-		synchronized(entries) {
-			entries.put(key, value);
+	public synchronized void setComparator(Comparator<XModelObject> comparator) {
+		this.comparator = comparator;
+		cache = null;
+	}
+
+	public synchronized void put(String key, XModelObject value) {
+		XModelObject old = entries.put(key, value);
+		if(old != null) {
+			count(old, -1);
 		}
-		if(cache != null) {
-			synchronized(this) {
-				cache = null;
-			}
+		count(value, 1);
+		XModelObject[] c = cache;
+		if(c != null) {
+			if(old != null) c = remove(c, Collections.singleton(old));
+			cache = insert(c, value);
 		}
 	}
-    
+
+	/**
+	 * Adds objects by keys that are not in the map.
+	 * @param values
+	 */
+	public synchronized void putAll(Map<String, XModelObject> values) {
+		for (Map.Entry<String, XModelObject> e: values.entrySet()) {
+			entries.put(e.getKey(), e.getValue());
+			count(e.getValue(), 1);
+		}
+		XModelObject[] c = cache;
+		if(c != null) {
+			XModelObject[] batch = values.values().toArray(RegularChildren.EMPTY);
+			if(comparator != null) Arrays.sort(batch, comparator);
+			cache = merge(c, batch);
+		}
+	}
+
 	/**
 	 * Returns the stored map.
 	 * 
@@ -268,44 +354,48 @@ class SMap {
 		return entries;
 	}
 
-	private XModelObject[] values() {
-		synchronized(entries) {
-			return entries.values().toArray(RegularChildren.EMPTY);
-		}
-	}
-
 	/**
-	 * Returns values of map sorted by the passed comparator.
-	 * @param comparator
+	 * Returns values of map sorted by the comparator.
 	 * @return
 	 */
-	public XModelObject[] getSortedValues(Comparator<XModelObject> comparator) {
+	public XModelObject[] getSortedValues() {
 		XModelObject[] c = cache;
-		//Otherwise, cache can be made null between 'if' and 'return', but we 
-		//avoid synchronizing this line for the most probable return to be very fast.
 		if (c != null) return c;
 		synchronized (this) {
 			if (cache != null) return cache;
-			if (size() == 0) {
-				cache = RegularChildren.EMPTY;
-			} else {
-				cache = values();
-				if (comparator != null)
-					Arrays.sort(cache, comparator);
-			}
-			return cache;
+			c = entries.values().toArray(RegularChildren.EMPTY);
+			if (comparator != null)
+				Arrays.sort(c, comparator);
+			return cache = c;
 		}
 	}
 
-	public void remove(String key) {
-		synchronized(entries) {
-			entries.remove(key);
+	public synchronized void remove(String key) {
+		XModelObject old = entries.remove(key);
+		if(old == null) return;
+		count(old, -1);
+		XModelObject[] c = cache;
+		if(c != null) {
+			cache = remove(c, Collections.singleton(old));
 		}
-		if(cache != null) {
-			synchronized(this) {
-				cache = null;
+	}
+
+	/**
+	 * Removes objects by keys if they are mapped to the same objects.
+	 * @param values
+	 */
+	public synchronized void removeAll(Map<String, XModelObject> values) {
+		Set<XModelObject> removed = new HashSet<XModelObject>();
+		for (Map.Entry<String, XModelObject> e: values.entrySet()) {
+			if(entries.remove(e.getKey(), e.getValue())) {
+				count(e.getValue(), -1);
+				removed.add(e.getValue());
 			}
 		}
+		XModelObject[] c = cache;
+		if(c != null && !removed.isEmpty()) {
+			cache = remove(c, removed);
+		}
 	}
 
 	/**
@@ -313,15 +403,76 @@ class SMap {
 	 * @param entity
 	 * @return
 	 */
-	public int getChildrenCount(String entity) {
-		int k = 0;
-		synchronized(entries) {
-			for (XModelObject r : entries.values()) {
-				String e = r.getModelEntity().getName();
-				if (entity.equals(e)) ++k;
+	public synchronized int getChildrenCount(String entity) {
+		Integer k = counts.get(entity);
+		return k == null ? 0 : k.intValue();
+	}
+
+	public synchronized void entityChanged(XModelObject o, String oldEntity) {
+		if(entries.get(o.getPathPart()) != o) return;
+		add(oldEntity, -1);
+		count(o, 1);
+		XModelObject[] c = cache;
+		if(c != null && comparator != null) {
+			// Comparator may order by entity.
+			cache = insert(remove(c, Collections.singleton(o)), o);
+		}
+	}
+
+	private void count(XModelObject o, int delta) {
+		add(o.getModelEntity().getName(), delta);
+	}
+
+	private void add(String entity, int delta) {
+		Integer k = counts.get(entity);
+		int n = (k == null ? 0 : k.intValue()) + delta;
+		if(n <= 0) {
+			counts.remove(entity);
+		} else {
+			counts.put(entity, Integer.valueOf(n));
+		}
+	}
+
+	private XModelObject[] insert(XModelObject[] c, XModelObject value) {
+		int i = c.length;
+		if(comparator != null) {
+			i = Arrays.binarySearch(c, value, comparator);
+			if(i < 0) {
+				i = -i - 1;
+			} else {
+				while(i < c.length && comparator.compare(c[i], value) == 0) i++;
 			}
 		}
-		return k;
+		XModelObject[] result = new XModelObject[c.length + 1];
+		System.arraycopy(c, 0, result, 0, i);
+		result[i] = value;
+		System.arraycopy(c, i, result, i + 1, c.length - i);
+		return result;
+	}
+
+	private XModelObject[] merge(XModelObject[] c, XModelObject[] batch) {
+		XModelObject[] result = new XModelObject[c.length + batch.length];
+		if(comparator == null) {
+			System.arraycopy(c, 0, result, 0, c.length);
+			System.arraycopy(batch, 0, result, c.length, batch.length);
+			return result;
+		}
+		int i = 0, j = 0, k = 0;
+		while(i < c.length && j < batch.length) {
+			result[k++] = (comparator.compare(batch[j], c[i]) < 0) ? batch[j++] : c[i++];
+		}
+		while(i < c.length) result[k++] = c[i++];
+		while(j < batch.length) result[k++] = batch[j++];
+		return result;
+	}
+
+	private XModelObject[] remove(XModelObject[] c, Set<XModelObject> removed) {
+		if(c.length == removed.size() && entries.isEmpty()) return RegularChildren.EMPTY;
+		List<XModelObject> result = new ArrayList<XModelObject>(c.length);
+		for (XModelObject o: c) {
+			if(!removed.contains(o)) result.add(o);
+		}
+		return result.size() == c.length ? c : result.toArray(RegularChildren.EMPTY);
 	}
 	
 }
@@ -91,6 +91,7 @@ public class RegularObjectImpl extends XModelObjectImpl implements XOrderedObjec
         ((XModelObjectImpl)o).setParent_0(this);
         boolean b = children.addObject(o);
         if(b) {
+        	registerChange();
         	if(o.getErrorState() == 2 || o.getErrorChildCount() > 0) {
         		registerErrorChild();
         	}
@@ -103,6 +104,7 @@ public class RegularObjectImpl extends XModelObjectImpl implements XOrderedObjec
 
     public void removeChild_0(XModelObject o) {
         if(children.removeObject(o)) {
+        	registerChange();
         	if(o.getErrorState() == 2 || o.getErrorChildCount() > 0) {
         		unregisterErrorChild();
         	}
@@ -112,6 +114,26 @@ public class RegularObjectImpl extends XModelObjectImpl implements XOrderedObjec
         }
     }
 
+    /**
+     * Removes children with one update of children storage,
+     * does not fire events. Returns removed children.
+     * @param os
+     * @return
+     */
+    protected List<XModelObject> removeChildren_0(List<XModelObject> os) {
+    	List<XModelObject> removed = children.removeObjects(os);
+    	if(!removed.isEmpty()) registerChange();
+    	for (XModelObject o: removed) {
+        	if(o.getErrorState() == 2 || o.getErrorChildCount() > 0) {
+        		unregisterErrorChild();
+        	}
+        	if(o.getErrorState() == 1 || o.getWarningChildCount() > 0) {
+        		unregisterWarningChild();
+        	}
+    	}
+    	return removed;
+    }
+
     public void set(String name, String value) {
         if(!(getParent() instanceof RegularObjectImpl)) {
         	super.set(name, value);
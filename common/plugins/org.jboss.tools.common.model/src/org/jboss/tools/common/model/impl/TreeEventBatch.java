@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.impl;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.tools.common.model.XModel;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.event.XModelTreeBatchEvent;
+import org.jboss.tools.common.model.event.XModelTreeEvent;
+
+/**
+ * Tree events fired by a thread between XModel.beginBatch() and XModel.endBatch(),
+ * kept in the order they were fired and merged as described in XModelTreeBatchEvent.
+ *
+ * @author V. Kabanovich
+ */
+class TreeEventBatch {
+	int depth = 0;
+	private int firedCount = 0;
+	private List<XModelTreeEvent> events = new ArrayList<XModelTreeEvent>();
+	private Map<XModelObject, XModelTreeEvent> nodeEvents = new IdentityHashMap<XModelObject, XModelTreeEvent>();
+
+	public void add(XModelTreeEvent event) {
+		firedCount++;
+		XModelObject o = event.getModelObject();
+		if(event.kind() == XModelTreeEvent.NODE_CHANGED) {
+			if(nodeEvents.containsKey(o)) return;
+			nodeEvents.put(o, event);
+		} else if(!events.isEmpty() && isSame(events.get(events.size() - 1), event)) {
+			return;
+		}
+		events.add(event);
+	}
+
+	/**
+	 * Structure events of the same object and kind are merged if they are STRUCTURE_CHANGED
+	 * or have equal info, that is the same child was added or removed.
+	 */
+	private static boolean isSame(XModelTreeEvent e1, XModelTreeEvent e2) {
+		if(e1.getModelObject() != e2.getModelObject() || e1.kind() != e2.kind()) return false;
+		if(e1.kind() == XModelTreeEvent.STRUCTURE_CHANGED) return true;
+		Object i1 = e1.getInfo();
+		Object i2 = e2.getInfo();
+		return i1 == null ? i2 == null : i1.equals(i2);
+	}
+
+	public boolean isEmpty() {
+		return firedCount == 0;
+	}
+
+	public XModelTreeBatchEvent createEvent(XModel model) {
+		return new XModelTreeBatchEvent(model, events.toArray(new XModelTreeEvent[events.size()]), firedCount);
+	}
+
+}
@@ -53,6 +53,10 @@ public class WrappedObjectImpl extends RegularObjectImpl {
         return (wrapped == null) ? super.getPathPart() : wrapped.getPathPart();
     }
 
+    protected boolean isPathCacheable() {
+        return false;
+    }
+
     public String getPresentationString() {
         return (wrapped == null) ? super.getPresentationString()
                : wrapped.getPresentationString();
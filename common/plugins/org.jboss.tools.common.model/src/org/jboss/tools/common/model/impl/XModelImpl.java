@@ -21,6 +21,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
@@ -42,6 +49,8 @@ import org.jboss.tools.common.model.XModelObjectConstants;
 import org.jboss.tools.common.model.XModelObject;
 import org.jboss.tools.common.model.XModelTransferBuffer;
 import org.jboss.tools.common.model.event.XModelChangeManager;
+import org.jboss.tools.common.model.event.XModelTreeBatchEvent;
+import org.jboss.tools.common.model.event.XModelTreeBatchListener;
 import org.jboss.tools.common.model.event.XModelTreeEvent;
 import org.jboss.tools.common.model.event.XModelTreeListener;
 import org.jboss.tools.common.model.filesystems.FileSystemsHelper;
@@ -73,6 +82,11 @@ public class XModelImpl implements XModel {
     private static PrintWriter out = new PrintWriter(System.out, true);
     private HashMap<String,XModelObject> extraroots = new HashMap<String,XModelObject>(2);
     private String rootEntity = XModelObjectConstants.ROOT_OBJECT;
+    private XModelPathIndex pathIndex = new XModelPathIndex(this);
+    private ThreadLocal<TreeEventBatch> batches = new ThreadLocal<TreeEventBatch>();
+    private AtomicLong changeCount = new AtomicLong();
+    private Map<XModelObject, Long> subtreeChanges = new WeakHashMap<XModelObject, Long>();
+    private static ExecutorService eventExecutor = null;
 
     public XModelImpl(Properties properties, XModelMetaData metadata) {
         this.metadata = metadata;
@@ -150,6 +164,22 @@ public class XModelImpl implements XModel {
 
     public XModelObject getByPath(String path) {
         if(path == null || path.length() == 0) return getRoot();
+        XModelObject o = pathIndex.get(path);
+        if(o == null) {
+            o = findByPath(path);
+            pathIndex.put(path, o);
+        }
+        return o;
+    }
+
+    public XModelPathIndex getPathIndex() {
+        return pathIndex;
+    }
+
+    /*
+     * Resolves path by walking the tree.
+     */
+    XModelObject findByPath(String path) {
         if(path.startsWith("root:")) { //$NON-NLS-1$
             int i = path.indexOf('/');
             if(i < 0) return extraroots.get(path);
@@ -492,6 +522,47 @@ public class XModelImpl implements XModel {
         extraroots.remove(pathpart);
     }
 
+    /**
+     * Returns counter of changes of attributes and children of objects in this model,
+     * including changes that are made without events and without changing time stamps.
+     * Data computed from the tree may be reused while the counter is not changed.
+     */
+    public long getChangeCount() {
+        return changeCount.get();
+    }
+
+    /**
+     * Returns stamp of the last change of attributes or children of objects
+     * under the root, including the root. Stamp is the value of the model 
+     * change counter, the subtree is watched starting from the first call.
+     * Data computed from the subtree may be reused while the stamp is not changed.
+     */
+    public long getChangeCount(XModelObject root) {
+        synchronized (subtreeChanges) {
+            Long stamp = subtreeChanges.get(root);
+            if(stamp == null) {
+                stamp = Long.valueOf(changeCount.get());
+                subtreeChanges.put(root, stamp);
+            }
+            return stamp.longValue();
+        }
+    }
+
+    /**
+     * Counts change of attributes or children of the object,
+     * and updates stamps of watched subtrees containing it.
+     */
+    void registerChange(XModelObject object) {
+        long stamp = changeCount.incrementAndGet();
+        synchronized (subtreeChanges) {
+            if(subtreeChanges.isEmpty()) return;
+            Long value = Long.valueOf(stamp);
+            for (XModelObject o = object; o != null; o = o.getParent()) {
+                if(subtreeChanges.containsKey(o)) subtreeChanges.put(o, value);
+            }
+        }
+    }
+
     // fire
 
     public void fireNodeChanged(XModelObject object, String info) {
@@ -499,19 +570,12 @@ public class XModelImpl implements XModel {
     }
 
 	void fireNodeChanged(XModelObject object, String info, Object details) {
-		if(object.getModel() != this || !object.isActive()) return;
-		final XModelTreeEvent event = new XModelTreeEvent(this, object, 0, info, details);
-		XModelTreeListener[] ls = treeListenersArray;
-		for (int i = 0; i < ls.length; i++) {
-			final XModelTreeListener l = ls[i];
-			SafeRunner.run(new ISafeRunnable() {
-				public void handleException(Throwable exception) {
-				}
-				public void run() throws Exception {
-					l.nodeChanged(event);
-				}
-			});
-		}
+		if(object.getModel() != this) return;
+		registerChange(object);
+		if(!object.isActive()) return;
+		XModelTreeEvent event = new XModelTreeEvent(this, object, 0, info, details);
+		pathIndex.update(event);
+		fire(event);
 	}
 
     public void fireStructureChanged(XModelObject object) {
@@ -520,19 +584,107 @@ public class XModelImpl implements XModel {
     
 
     public void fireStructureChanged(XModelObject object, int kind, Object info) {
-        if(object.getModel() != this || !object.isActive()) return;
-        final XModelTreeEvent event = new XModelTreeEvent(this, object, kind, info);
+        if(object.getModel() != this) return;
+        registerChange(object);
+        if(!object.isActive()) return;
+        XModelTreeEvent event = new XModelTreeEvent(this, object, kind, info);
+        pathIndex.update(event);
+        fire(event);
+    }
+
+    /*
+     * Delivers event to listeners; if the current thread runs a batch,
+     * batch listeners are skipped and the event is added to the batch.
+     */
+    private void fire(XModelTreeEvent event) {
+        TreeEventBatch batch = batches.get();
+        if(batch != null) batch.add(event);
         XModelTreeListener[] ls = treeListenersArray;
-		for (int i = 0; i < ls.length; i++) {
-			final XModelTreeListener l = ls[i];
-			SafeRunner.run(new ISafeRunnable() {
-				public void handleException(Throwable exception) {
-				}
-				public void run() throws Exception {
-					l.structureChanged(event);
-				}
-			});
-		}
+        if(ls.length == 0) return;
+        TreeEventNotifier notifier = new TreeEventNotifier(event);
+        for (int i = 0; i < ls.length; i++) {
+            if(batch != null && ls[i] instanceof XModelTreeBatchListener) continue;
+            notifier.listener = ls[i];
+            SafeRunner.run(notifier);
+        }
+    }
+
+    static class TreeEventNotifier implements ISafeRunnable {
+        XModelTreeEvent event;
+        XModelTreeListener listener;
+
+        TreeEventNotifier(XModelTreeEvent event) {
+            this.event = event;
+        }
+
+        public void handleException(Throwable exception) {
+        }
+
+        public void run() throws Exception {
+            if(event.kind() == XModelTreeEvent.NODE_CHANGED) {
+                listener.nodeChanged(event);
+            } else {
+                listener.structureChanged(event);
+            }
+        }
+    }
+
+    public void beginBatch() {
+        TreeEventBatch batch = batches.get();
+        if(batch == null) {
+            batch = new TreeEventBatch();
+            batches.set(batch);
+        }
+        batch.depth++;
+    }
+
+    public void endBatch() {
+        TreeEventBatch batch = batches.get();
+        if(batch == null || --batch.depth > 0) return;
+        batches.remove();
+        if(batch.isEmpty()) return;
+        final XModelTreeBatchEvent event = batch.createEvent(this);
+        XModelTreeListener[] ls = treeListenersArray;
+        for (int i = 0; i < ls.length; i++) {
+            if(!(ls[i] instanceof XModelTreeBatchListener)) continue;
+            final XModelTreeBatchListener l = (XModelTreeBatchListener)ls[i];
+            final ISafeRunnable r = new ISafeRunnable() {
+                public void handleException(Throwable exception) {
+                }
+                public void run() throws Exception {
+                    l.batchChanged(event);
+                }
+            };
+            if(l.isAsynchronous()) {
+                getEventExecutor().execute(new Runnable() {
+                    public void run() {
+                        SafeRunner.run(r);
+                    }
+                });
+            } else {
+                SafeRunner.run(r);
+            }
+        }
+    }
+
+    /*
+     * Single thread delivering compound events to asynchronous batch listeners
+     * in the order in which batches end.
+     */
+    private static synchronized ExecutorService getEventExecutor() {
+        if(eventExecutor == null) {
+            ThreadPoolExecutor e = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, 
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "JBoss Tools Model Events"); //$NON-NLS-1$
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            e.allowCoreThreadTimeOut(true);
+            eventExecutor = e;
+        }
+        return eventExecutor;
     }
     
     protected Map<String,Object> managers = new HashMap<String,Object>();
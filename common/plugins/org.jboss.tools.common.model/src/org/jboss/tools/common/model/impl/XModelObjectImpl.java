@@ -10,7 +10,6 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.model.impl;
 
-import java.io.File;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -38,7 +37,6 @@ import org.jboss.tools.common.model.adapter.ModelObjectAdapterExtensionPoint;
 import org.jboss.tools.common.model.icons.impl.XModelObjectIcon;
 import org.jboss.tools.common.model.plugin.ModelPlugin;
 import org.jboss.tools.common.model.util.EclipseResourceUtil;
-import org.jboss.tools.common.util.FileUtil;
 
 public class XModelObjectImpl implements XModelObject, Serializable, Cloneable {
     private static final long serialVersionUID = 3860648580262144825L;
@@ -91,7 +89,11 @@ public class XModelObjectImpl implements XModelObject, Serializable, Cloneable {
     		String v = getAttributeValue(n);
     		if(v != null) p.setProperty(n, v); 
     	}
+    	String oldEntity = entity.getName();
     	entity = newEntity;
+    	if(parent instanceof RegularObjectImpl && ((RegularObjectImpl)parent).children != null) {
+    		((RegularObjectImpl)parent).children.entityChanged(this, oldEntity);
+    	}
 		as = newEntity.getAttributes();
 		for (int i = 0; i < as.length; i++) {
 			String n = as[i].getName();
@@ -116,6 +118,7 @@ public class XModelObjectImpl implements XModelObject, Serializable, Cloneable {
 
     public void setParent_0(XModelObjectImpl parent) {
         this.parent = parent;
+        invalidatePath();
         if(parent != null) {
             if(model != parent.getModel()) setModel(parent.getModel());
         } else {
@@ -148,6 +151,15 @@ public class XModelObjectImpl implements XModelObject, Serializable, Cloneable {
     public void set(String name, String value) {
         if(value != null && value.length() < 100) value = value.intern();
         properties.put(name.intern(), value);
+        invalidatePath();
+        registerChange();
+    }
+
+    /**
+     * Counts low level change of attributes or children, made without events.
+     */
+    protected void registerChange() {
+        if(model instanceof XModelImpl) ((XModelImpl)model).registerChange(this);
     }
 
     private Boolean hasIdAttr = null;
@@ -305,16 +317,65 @@ public class XModelObjectImpl implements XModelObject, Serializable, Cloneable {
 
     // paths
 
+    /**
+     * Long path and path computed for the path of parent.
+     * Cached path is valid while parent returns the same instance of its long path.
+     */
+    static class PathCache {
+        final String parentPath;
+        final String longPath;
+        String path;
+
+        PathCache(String parentPath, String longPath) {
+            this.parentPath = parentPath;
+            this.longPath = longPath;
+        }
+    }
+
+    private transient volatile PathCache pathCache = null;
+
+    /**
+     * Drops cached path of this object, paths of descendants 
+     * are recomputed when they find that the path of their parent is changed.
+     * Called when the object gets new parent, or its attributes
+     * that path part depends on are changed.
+     */
+    public void invalidatePath() {
+        pathCache = null;
+    }
+
+    /**
+     * Should return false in subclass which path part depends on 
+     * anything except for attributes of the object.
+     * @return
+     */
+    protected boolean isPathCacheable() {
+        return true;
+    }
+
     public String getLongPath() {
         if(getParent() == null) return null;
         String p = parent.getLongPath();
-        return (p == null) ? null : (p.length() == 0)
-                           ? getPathPart() : p + XModelObjectConstants.SEPARATOR + getPathPart();
+        if(p == null) return null;
+        PathCache c = pathCache;
+        if(c != null && c.parentPath == p) return c.longPath;
+        String lp = (p.length() == 0) ? getPathPart() : p + XModelObjectConstants.SEPARATOR + getPathPart();
+        if(isPathCacheable()) pathCache = new PathCache(p, lp);
+        return lp;
     }
 
     public String getPath() {
         String lp = getLongPath();
         if(lp == null) return null;
+        PathCache c = pathCache;
+        if(c != null && c.longPath == lp) {
+            if(c.path == null) c.path = getPath(lp);
+            return c.path;
+        }
+        return getPath(lp);
+    }
+
+    private String getPath(String lp) {
         XMapping m = getModel().getMetaData().getMapping("Roots"); //$NON-NLS-1$
         String h = "" + lp; //$NON-NLS-1$
         do {
@@ -656,86 +717,69 @@ public class XModelObjectImpl implements XModelObject, Serializable, Cloneable {
 }
 
 class SProperties implements XModelObjectImpl.SP {
-	static final String SUFFIX = ".sp.txt";
-	static final String MOD_SUFFIX = ".mod.sp.txt";
-	static int modification = 0;
-    String[] list = null;
+    Object[] list = null;
     XModelEntity entity;
 
     void init(XModelEntity entity) {
         this.entity = entity;
-        list = new String[entity.getAttributes().length];
+        list = new Object[entity.getAttributes().length];
     }
 
     public String get(String name) {
         int i = entity.getPropertyIndex(name, false);
-        String value = (i < 0 || i >= list.length) ? null : list[i];
-        if(value != null && value.endsWith(SUFFIX)) {
-        	synchronized(this) {
-        		File f = new File(value);
-        		if(f.exists()) {
-        			value = FileUtil.readFile(f);
-        		} else {
-        			//Report illegal state
-        			String message = "Cannot read " + value + " for object\n entity:" + entity.getName() + "\n";
-        			XAttribute[] as = entity.getAttributes();
-        			for (XAttribute a: as) {
-        				int j = entity.getPropertyIndex(a.getName(), false);
-        				String v = (j < 0 || j >= list.length) ? null : list[j];
-        				if(v != null && v.length() > 200) {
-        					v = v.substring(0, 200); 
-        				}
-        				if(v != null) {
-        					message += a.getName() + "=" + v + "\n";
-        				}
-        			}
-        			ModelPlugin.getDefault().logError(new IllegalStateException(message));
-        			return "";
-        		}
+        Object value = (i < 0 || i >= list.length) ? null : list[i];
+        if(value instanceof LargeValueStore.Handle) {
+        	try {
+        		return LargeValueStore.getInstance().get((LargeValueStore.Handle)value);
+        	} catch (IllegalStateException e) {
+        		//Report illegal state
+        		ModelPlugin.getDefault().logError(new IllegalStateException("Cannot read attribute " + name + " for object\n entity:" + entity.getName(), e));
+        		return "";
         	}
         }
-        return value;
+        return (String)value;
     }
 
     public void put(String name, String value) {
         int i = entity.getPropertyIndex(name, true);
         ensureCapacity(i);
-        if(value != null && value.length() > 10000 && ModelPlugin.getDefault().getStateTempFolder() != null) {
-        	synchronized(this) {
-        		long l = value.hashCode();
-        		l = Math.abs((l << 32) + value.substring(100, value.length() - 100).hashCode());
-        		File f = new File(ModelPlugin.getDefault().getStateTempFolder(), ModelPlugin.TEMP_FILE_PREFIX + l + SUFFIX);
-        		String fileName = f.getAbsolutePath();
-        		if(f.exists() && fileName.equals(list[i])) {
+        Object old = list[i];
+        if(value != null && value.length() > LargeValueStore.THRESHOLD) {
+        	LargeValueStore store = LargeValueStore.getInstance();
+        	if(store != null) {
+        		if(old instanceof LargeValueStore.Handle && store.contentEquals((LargeValueStore.Handle)old, value)) {
         			return;
         		}
-        		if(!f.exists() || (list[i] != null && list[i].endsWith(MOD_SUFFIX))) {
-        			if(list[i] != null && list[i].endsWith(SUFFIX)) {
-        				if(!list[i].endsWith(MOD_SUFFIX)) {
-        					fileName = list[i].substring(0, list[i].length() - SUFFIX.length()) + "." + (modification++) + MOD_SUFFIX;
-        				} else {
-        					fileName = list[i];
-        				}
-        				f = new File(fileName);        				
-        			}
-        			FileUtil.writeFile(f, value);
-        			f.deleteOnExit();
+        		LargeValueStore.Handle handle = store.put(value);
+        		if(handle != null) {
+        			list[i] = handle;
+        			release(old);
+        			return;
         		}
-        		list[i] = fileName;
         	}
-        } else {
-        	list[i] = value;
         }
+        list[i] = value;
+        release(old);
     }
 
     public void remove(String name) {
         int i = entity.getPropertyIndex(name, false);
-        if (i >= 0 && i < list.length) list[i] = null;
+        if (i >= 0 && i < list.length) {
+        	Object old = list[i];
+        	list[i] = null;
+        	release(old);
+        }
+    }
+
+    private void release(Object old) {
+        if(old instanceof LargeValueStore.Handle) {
+        	LargeValueStore.getInstance().release((LargeValueStore.Handle)old);
+        }
     }
 
     private void ensureCapacity(int i) {
         if(i < list.length) return;
-        String[] _list = new String[i + 1];
+        Object[] _list = new Object[i + 1];
         System.arraycopy(list, 0, _list, 0, list.length);
         list = _list;
     }
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.tools.common.model.XModel;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.event.XModelTreeEvent;
+
+/**
+ * Objects of the model by their paths, so that XModel.getByPath()
+ * does not walk the tree for paths that were already resolved.
+ *
+ * Objects are added when they are added to the model or found by walking,
+ * and removed or re-registered on tree events. An object found in the index
+ * is returned only if it is still active in the model and still has the requested
+ * path, so that objects moved or removed without an event are never returned.
+ *
+ * Only paths equal to getPath() or getLongPath() of the found object are indexed;
+ * paths relative to file systems or with '..' are always resolved by walking.
+ *
+ * @author V. Kabanovich
+ */
+public class XModelPathIndex {
+	/**
+	 * When the index grows larger, it is cleared, which drops objects
+	 * that were removed from the model without an event.
+	 */
+	static final int MAX_SIZE = 50000;
+
+	private XModel model;
+	private Map<String, XModelObject> objects = new ConcurrentHashMap<String, XModelObject>();
+	private AtomicLong hits = new AtomicLong();
+	private AtomicLong walks = new AtomicLong();
+
+	public XModelPathIndex(XModel model) {
+		this.model = model;
+	}
+
+	/**
+	 * Returns indexed object with the given path, or null if it is not indexed
+	 * and the path should be resolved by walking the tree.
+	 * @param path
+	 * @return
+	 */
+	public XModelObject get(String path) {
+		XModelObject o = objects.get(path);
+		if(o != null) {
+			if(isValid(path, o)) {
+				hits.incrementAndGet();
+				return o;
+			}
+			objects.remove(path, o);
+		}
+		walks.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Indexes object found by walking the tree.
+	 * @param path
+	 * @param o
+	 */
+	public void put(String path, XModelObject o) {
+		if(o != null && isValid(path, o)) {
+			add(path.intern(), o);
+		}
+	}
+
+	private void add(String path, XModelObject o) {
+		if(objects.size() >= MAX_SIZE) {
+			objects.clear();
+		}
+		objects.put(path, o);
+	}
+
+	private boolean isValid(String path, XModelObject o) {
+		if(o.getModel() != model || !o.isActive()) return false;
+		return path.equals(o.getPath()) 
+			|| (o instanceof XModelObjectImpl && path.equals(((XModelObjectImpl)o).getLongPath()));
+	}
+
+	public void clear() {
+		objects.clear();
+	}
+
+	/**
+	 * Updates the index by an event fired by the model.
+	 * @param event
+	 */
+	public void update(XModelTreeEvent event) {
+		XModelObject o = event.getModelObject();
+		switch (event.kind()) {
+			case XModelTreeEvent.NODE_CHANGED:
+				if(event.getInfo() instanceof String) {
+					String oldPath = (String)event.getInfo();
+					String path = o.getPath();
+					if(path != null && !path.equals(oldPath)) {
+						objects.remove(oldPath, o);
+						add(path, o);
+					}
+				}
+				break;
+			case XModelTreeEvent.CHILD_ADDED:
+				if(event.getInfo() instanceof XModelObject) {
+					XModelObject c = (XModelObject)event.getInfo();
+					String path = c.getPath();
+					if(path != null) add(path, c);
+				}
+				break;
+			case XModelTreeEvent.CHILD_REMOVED:
+				if(event.getInfo() instanceof String) {
+					objects.remove((String)event.getInfo());
+				}
+				break;
+			case XModelTreeEvent.STRUCTURE_CHANGED:
+				if(o == model.getRoot()) {
+					clear();
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Returns the number of lookups answered by the index.
+	 * @return
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of lookups that walked the tree.
+	 * @return
+	 */
+	public long getWalkCount() {
+		return walks.get();
+	}
+
+	public int size() {
+		return objects.size();
+	}
+
+	/**
+	 * Returns paths of valid indexed objects that differ from objects found
+	 * by walking the tree. Used by tests; an empty list means that the index
+	 * is consistent with the model.
+	 * @return
+	 */
+	public List<String> checkConsistency() {
+		List<String> result = new ArrayList<String>();
+		for (Map.Entry<String, XModelObject> e: objects.entrySet()) {
+			String path = e.getKey();
+			XModelObject o = e.getValue();
+			if(!isValid(path, o)) continue;
+			if(((XModelImpl)model).findByPath(path) != o) {
+				result.add(path);
+			}
+		}
+		return result;
+	}
+
+}
@@ -64,8 +64,21 @@ public class EncodedProperties extends Properties {
      * 		   malformed Unicode escape sequence.
      */
     public synchronized void load(InputStream inStream) throws IOException {
+        load(new LineReader(FileUtil.readStream(inStream, encoding)));
+    }
+
+    /**
+     * Reads a property list from text that is already decoded,
+     * without converting it to bytes and back.
+     *
+     * @param      source   the text of properties file.
+     */
+    public synchronized void load(String source) {
+        load(new LineReader(source));
+    }
+
+    private void load(LineReader lr) {
         char[] convtBuf = new char[1024];
-        LineReader lr = new LineReader(inStream);
 
         int limit;
         int keyLen;
@@ -132,12 +145,12 @@ public class EncodedProperties extends Properties {
 		int inLimit = 0;
 		String source = null;
 
-		public LineReader(InputStream inStream) {
-			source = FileUtil.readStream(inStream, encoding);
+		public LineReader(String source) {
+			this.source = source;
 			inLimit = source.length();
 		}
 
-		int readLine() throws IOException {
+		int readLine() {
 			int len = 0;
 			char c = 0;
 
@@ -233,7 +246,7 @@ public class EncodedProperties extends Properties {
      * Converts encoded &#92;uxxxx to unicode chars
      * and changes special saved chars to their original forms
      */
-    private String loadConvert (char[] in, int off, int len, char[] convtBuf) {
+    private static String loadConvert (char[] in, int off, int len, char[] convtBuf) {
         if (convtBuf.length < len) {
             int newLen = len * 2;
             if (newLen < 0) {
@@ -289,6 +302,25 @@ public class EncodedProperties extends Properties {
         return new String (out, 0, outLen);
     }
 
+    /**
+     * Converts escaped key or value to its original form, as it is done when
+     * properties are loaded; returns null if the text is malformed.
+     *
+     * @param s
+     * @return
+     */
+    public static String loadConvert(String s) {
+        char[] in = s.toCharArray();
+        try {
+            return loadConvert(in, 0, in.length, new char[in.length]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // ends with backslash
+            return null;
+        }
+    }
+
     /*
      * Converts unicodes to encoded &#92;uxxxx and escapes
      * special characters with a preceding slash
@@ -10,6 +10,7 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.model.loaders.impl;
 
+import java.io.File;
 import java.util.*;
 import org.jboss.tools.common.meta.*;
 import org.jboss.tools.common.model.loaders.*;
@@ -20,6 +21,23 @@ public class ModelEntityRecognizer implements EntityRecognizer {
     private HashMap<String,EntityRecognizer[]> recognizers = new HashMap<String,EntityRecognizer[]>();
     private Set<String> umbiguousExtensions = new HashSet<String>();
 
+    /**
+     * Maximum number of files for which recognized entities are kept.
+     */
+    static final int MAX_RECOGNIZED = 10000;
+
+    /**
+     * Entities recognized by file content, by absolute paths of files,
+     * the least recently used are dropped first.
+     */
+    private Map<String,Recognized> recognized = new LinkedHashMap<String,Recognized>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String,Recognized> eldest) {
+			return size() > MAX_RECOGNIZED;
+		}
+	};
+
     public ModelEntityRecognizer(XModelMetaData meta) {
     	load(meta);
     }
@@ -37,8 +55,42 @@ public class ModelEntityRecognizer implements EntityRecognizer {
 	}
 
 	public boolean isBodyRequired(EntityRecognizerContext context, String entityForNullBody) {
+		String ext = context.getExtension();
 		return entityForNullBody == null 
-					|| (context.getExtension() != null && umbiguousExtensions.contains(context.getExtension()));
+					|| (ext != null && umbiguousExtensions.contains(ext.toLowerCase()));
+	}
+
+	/**
+	 * Returns entity set by setRecognizedEntity() for the file if the file 
+	 * has not been modified since then, that is if it has the same time stamp and length. 
+	 * Otherwise, returns null.
+	 * 
+	 * @param f
+	 * @return
+	 */
+	public String getRecognizedEntity(File f) {
+		long lastModified = f.lastModified();
+		long length = f.length();
+		synchronized (recognized) {
+			Recognized r = recognized.get(f.getAbsolutePath());
+			return (r != null && r.lastModified == lastModified && r.length == length) ? r.entity : null;
+		}
+	}
+
+	/**
+	 * Keeps entity recognized by the content of the file, so that the file
+	 * is not read again for recognition until it is modified.
+	 * 
+	 * @param f
+	 * @param entity
+	 */
+	public void setRecognizedEntity(File f, String entity) {
+		long lastModified = f.lastModified();
+		if(lastModified == 0L || entity == null) return;
+		Recognized r = new Recognized(lastModified, f.length(), entity);
+		synchronized (recognized) {
+			recognized.put(f.getAbsolutePath(), r);
+		}
 	}
 
     private void load(XModelMetaData meta) {
@@ -148,6 +200,17 @@ public class ModelEntityRecognizer implements EntityRecognizer {
         }
     }
     
+    private static class Recognized {
+    	long lastModified;
+    	long length;
+    	String entity;
+    	Recognized(long lastModified, long length, String entity) {
+    		this.lastModified = lastModified;
+    		this.length = length;
+    		this.entity = entity;
+    	}
+    }
+
     private class EntityRecognizerWrapper implements EntityRecognizer {
     	String clsname;
     	EntityRecognizer resolved;
@@ -156,7 +219,7 @@ public class ModelEntityRecognizer implements EntityRecognizer {
     		this.clsname = clsname;
     	}
     	
-    	boolean checkResolved() {
+    	synchronized boolean checkResolved() {
 			if(resolved == null && clsname != null) {
 				resolved = find(clsname);
 				clsname = null;
@@ -91,19 +91,7 @@ public class PropertiesLoader implements XObjectLoader {
         String body = XModelObjectLoaderUtil.getTempBody(object);
         EncodedProperties properties = new EncodedProperties();
         properties.setEncoding(encoding);
-        Properties mapping = new Properties();
-        try {
-        	ByteArrayInputStream s = new ByteArrayInputStream(body.getBytes(encoding));
-			properties.load(s);
-			Iterator it = properties.keySet().iterator();
-			while(it.hasNext()) {
-				String nm = it.next().toString();
-				String sn = EncodedProperties.saveConvert(nm, true); // convertName(nm);
-				mapping.put(sn, nm);
-			}
-        } catch (IOException e) {
-        	//ignore
-        }
+        properties.load(body);
 
         StringTokenizer st = new StringTokenizer(body, "\n\r", true); //$NON-NLS-1$
         StringBuilder sb = new StringBuilder();
@@ -169,8 +157,8 @@ public class PropertiesLoader implements XObjectLoader {
             }
 			String dirtyName = s.substring(0, i);
 			String name = dirtyName.trim();
-			String visualName = mapping.getProperty(name);
-			if(visualName == null || !properties.containsKey(visualName)) {
+			String visualName = getPropertyName(name, properties);
+			if(visualName == null) {
 				sb.append(s);
 				state = 1;
 				continue;
@@ -222,6 +210,16 @@ public class PropertiesLoader implements XObjectLoader {
         }
     }
 
+    /**
+     * Returns the key of loaded properties that is written as the given name,
+     * that is the key which is converted to the name when properties are saved.
+     */
+    private String getPropertyName(String name, Properties properties) {
+    	String key = EncodedProperties.loadConvert(name);
+    	if(key == null || !properties.containsKey(key)) return null;
+    	return EncodedProperties.saveConvert(key, true).equals(name) ? key : null;
+    }
+
     boolean endsWithBackslash(String s) {
     	boolean result = false;
     	for (int i = s.length() - 1; i >= 0; i--) {
@@ -259,10 +257,64 @@ public class PropertiesLoader implements XObjectLoader {
 		return generateBody(object);	
 	}
 
+    /**
+     * Text of a property generated by generateBody() without line end,
+     * kept with the values of attributes it was generated from.
+     * The text is reused while the property has the same values,
+     * so that saving a large file after editing one property 
+     * converts only that property.
+     */
+    static class PropertyText {
+    	/**
+    	 * Stored properties read by generateText() with get(), by xml names.
+    	 */
+    	static final String[] PROPERTIES = {
+    		"COMMENTS", "ENABLED", XModelObjectConstants.XML_ATTR_NAME, "VALUE"  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	};
+    	/**
+    	 * Attributes read by generateText() with getAttributeValue().
+    	 */
+    	static final String[] ATTRIBUTES = {
+    		"dirtyname", "dirtyvalue", "name-value-separator" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	};
+    	String[] values;
+    	String text;
+
+    	PropertyText(XModelObject o) {
+    		values = getValues(o);
+    	}
+
+    	static String[] getValues(XModelObject o) {
+    		String[] values = new String[PROPERTIES.length + ATTRIBUTES.length];
+    		for (int i = 0; i < PROPERTIES.length; i++) {
+    			values[i] = o.get(PROPERTIES[i]);
+    		}
+    		for (int i = 0; i < ATTRIBUTES.length; i++) {
+    			values[PROPERTIES.length + i] = o.getAttributeValue(ATTRIBUTES[i]);
+    		}
+    		return values;
+    	}
+
+    	/**
+    	 * Values are compared by identity, which is enough for values kept by 
+    	 * the object, and otherwise just makes the text generated again.
+    	 */
+    	boolean isValid(String[] values) {
+    		for (int i = 0; i < values.length; i++) {
+    			if(values[i] != this.values[i]) return false;
+    		}
+    		return true;
+    	}
+    }
+
+    static final String TEXT_CACHE = "propertiesText"; //$NON-NLS-1$
+
     private String generateBody(XModelObject object) {
     	String lineSeparator = defaultLineSeparator;
 		StringBuffer sb = new StringBuffer();
 		XModelObject[] cs = object.getChildren();
+		Map<XModelObject, PropertyText> oldTexts = getTextCache(object);
+		Map<XModelObject, PropertyText> texts = new IdentityHashMap<XModelObject, PropertyText>();
 		for (int i = 0; i < cs.length; i++) {
 			String ls = cs[i].get("line-end"); //$NON-NLS-1$
 			if(ls.length() > 0 && !ls.equals("\\r\\n")) { //$NON-NLS-1$
@@ -271,16 +323,50 @@ public class PropertiesLoader implements XObjectLoader {
 			}
 		}
 		for (int i = 0; i < cs.length; i++) {
-			String name_value_separator = cs[i].getAttributeValue("name-value-separator"); //$NON-NLS-1$
+			String[] values = PropertyText.getValues(cs[i]);
+			PropertyText text = oldTexts == null ? null : oldTexts.get(cs[i]);
+			if(text == null || !text.isValid(values)) {
+				text = new PropertyText(cs[i]);
+				text.text = generateText(cs[i]);
+			}
+			texts.put(cs[i], text);
+			sb.append(text.text);
+			String ls = cs[i].get("line-end"); //$NON-NLS-1$
+			if(ls.length() > 0) {
+				if(ls.equals("\\r\\n")) ls = lineSeparator; //$NON-NLS-1$
+				sb.append(ls);
+			} else if(i < cs.length - 1) {
+				ls = lineSeparator;
+				sb.append(ls);
+			}
+		}
+		if(object instanceof XModelObjectImpl) {
+			((XModelObjectImpl)object).setObject(TEXT_CACHE, texts);
+		}
+		String conclusion = object.get("conclusion"); //$NON-NLS-1$
+		if(conclusion != null) sb.append(conclusion);
+		return sb.toString();    	
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<XModelObject, PropertyText> getTextCache(XModelObject object) {
+    	if(!(object instanceof XModelObjectImpl)) return null;
+    	Object o = ((XModelObjectImpl)object).getObject(TEXT_CACHE);
+    	return (o instanceof Map) ? (Map<XModelObject, PropertyText>)o : null;
+    }
+
+    private String generateText(XModelObject c) {
+			StringBuffer sb = new StringBuffer();
+			String name_value_separator = c.getAttributeValue("name-value-separator"); //$NON-NLS-1$
 			if(name_value_separator == null || name_value_separator.length() != 1 || " \t=:".indexOf(name_value_separator) < 0) { //$NON-NLS-1$
 				name_value_separator = "="; //$NON-NLS-1$
 			}
-			appendComments(sb, cs[i].get("COMMENTS"), cs[i].get("SEPARATOR"), lineSeparator); //$NON-NLS-1$ //$NON-NLS-2$
-			if(XModelObjectConstants.NO.equals(cs[i].get("ENABLED"))) sb.append('#'); //$NON-NLS-1$
-			String dirtyname = cs[i].getAttributeValue("dirtyname"); //$NON-NLS-1$
-			String name = EncodedProperties.saveConvert(cs[i].get(XModelObjectConstants.XML_ATTR_NAME), true);
-			String value = cs[i].get("VALUE"); //$NON-NLS-1$
-			String dirtyvalue = cs[i].getAttributeValue("dirtyvalue"); //$NON-NLS-1$
+			appendComments(sb, c.get("COMMENTS"), c.get("SEPARATOR"), defaultLineSeparator); //$NON-NLS-1$ //$NON-NLS-2$
+			if(XModelObjectConstants.NO.equals(c.get("ENABLED"))) sb.append('#'); //$NON-NLS-1$
+			String dirtyname = c.getAttributeValue("dirtyname"); //$NON-NLS-1$
+			String name = EncodedProperties.saveConvert(c.get(XModelObjectConstants.XML_ATTR_NAME), true);
+			String value = c.get("VALUE"); //$NON-NLS-1$
+			String dirtyvalue = c.getAttributeValue("dirtyvalue"); //$NON-NLS-1$
 			if(value == null || dirtyvalue == null || !value.equals(trimLeft(dirtyvalue))) {
 				value = EncodedProperties.saveConvert(value, false); // convertValue(value);
 			}
@@ -303,18 +389,7 @@ public class PropertiesLoader implements XObjectLoader {
 				sb.append(name_value_separator);
 			}
 			sb.append(resolved);
-			String ls = cs[i].get("line-end"); //$NON-NLS-1$
-			if(ls.length() > 0) {
-				if(ls.equals("\\r\\n")) ls = lineSeparator; //$NON-NLS-1$
-				sb.append(ls);
-			} else if(i < cs.length - 1) {
-				ls = lineSeparator;
-				sb.append(ls);
-			}
-		}
-		String conclusion = object.get("conclusion"); //$NON-NLS-1$
-		if(conclusion != null) sb.append(conclusion);
-		return sb.toString();    	
+			return sb.toString();
     }
    
     private String trimLeft(String s) {
@@ -214,6 +214,14 @@ public class SharableElementImpl extends XModelObjectImpl implements SharableEle
     }
     public void setName_0(String value) {
         name = value;
+        invalidatePaths();
+    }
+
+    private void invalidatePaths() {
+        invalidatePath();
+        for (SharableElement c: children.values()) {
+            ((SharableElementImpl)c).invalidatePaths();
+        }
     }
 
     public boolean setName(String value) {
@@ -33,6 +33,7 @@ import org.jboss.tools.common.log.BaseUIPlugin;
 import org.jboss.tools.common.log.IPluginLog;
 import org.jboss.tools.common.model.XJob;
 import org.jboss.tools.common.model.XModelConstants;
+import org.jboss.tools.common.model.filesystems.impl.JarIndex;
 import org.jboss.tools.common.model.util.EclipseResourceUtil;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -102,6 +103,7 @@ public class ModelPlugin extends BaseUIPlugin implements IModelPlugin, IWindowLi
 		File location = Platform.getStateLocation(bundle).toFile();
 		stateTempFolder = new File(location, "tmp");
 		stateTempFolder.mkdirs();
+		JarIndex.deleteUnused();
 	}
 	
 	protected void initializeDefaultPluginPreferences() {
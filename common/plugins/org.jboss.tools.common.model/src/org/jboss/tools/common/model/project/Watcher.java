@@ -20,7 +20,7 @@ import org.jboss.tools.common.model.plugin.ModelPlugin;
 import org.jboss.tools.common.model.util.EclipseResourceUtil;
 import org.jboss.tools.common.model.util.ModelFeatureFactory;
 
-public class Watcher implements XModelTreeListener {
+public class Watcher implements XModelTreeBatchListener {
     public static Watcher getInstance(XModel model) {
 		Watcher instance = (Watcher)model.getManager("Watcher"); //$NON-NLS-1$
         if(instance == null) {
@@ -36,13 +36,18 @@ public class Watcher implements XModelTreeListener {
     protected Map<String,IWatcherContributor> contributors = new HashMap<String, IWatcherContributor>();
     private boolean lock = false;
 
-	class WatcherRunnable implements XJob.XRunnable {
-		String id = "Watcher - " + XModelConstants.getWorkspace(model); //$NON-NLS-1$
+	class WatcherRunnable implements XJob.XLaneRunnable {
+		String lane = XModelConstants.getWorkspace(model);
+		String id = "Watcher - " + lane; //$NON-NLS-1$
 
 		public String getId() {
 			return id;
 		}
 
+		public String getLane() {
+			return lane;
+		}
+
 		public void run() {
 			Watcher.this.updateAll();
 		}
@@ -122,9 +127,7 @@ public class Watcher implements XModelTreeListener {
         XModel model = event.getModelObject().getModel();
         if (event.kind() == XModelTreeEvent.STRUCTURE_CHANGED &&
                 event.getModelObject() == model.getRoot()) {
-            model.removeModelTreeListener(this);
-///            stopped = true;
-            model.removeManager("Watcher"); //$NON-NLS-1$
+            stop(model);
             return;
         }
         forceUpdate();
@@ -134,6 +137,25 @@ public class Watcher implements XModelTreeListener {
     	forceUpdate();
     }
 
+    public void batchChanged(XModelTreeBatchEvent event) {
+        XModel model = event.getModel();
+        if(event.contains(model.getRoot(), XModelTreeEvent.STRUCTURE_CHANGED)) {
+            stop(model);
+            return;
+        }
+        forceUpdate();
+    }
+
+    public boolean isAsynchronous() {
+        return false;
+    }
+
+    private void stop(XModel model) {
+        model.removeModelTreeListener(this);
+///        stopped = true;
+        model.removeManager("Watcher"); //$NON-NLS-1$
+    }
+
     
 	String error = "initial"; //$NON-NLS-1$
 	ResourceMarkers markers = null;
@@ -10,6 +10,7 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.model.search.impl;
 
+import java.lang.ref.SoftReference;
 import java.util.*;
 import org.jboss.tools.common.model.*;
 import org.jboss.tools.common.model.search.*;
@@ -20,6 +21,12 @@ public class SearchCommandImpl extends SearchConstraintImpl implements SearchCom
 	private static final long serialVersionUID = 1L;
     protected SearchConstraint matching;
     protected SearchConstraint insight;
+    /**
+     * Indexes used by the last execution. Roots are weak keys and indexes are softly
+     * reachable, so that this command does not keep subtrees in memory when memory is low.
+     * Indexes of roots that are not searched again are dropped at the next execution.
+     */
+    private transient Map<XModelObject, SoftReference<SearchIndex>> indexes = new WeakHashMap<XModelObject, SoftReference<SearchIndex>>();
 
     public SearchCommandImpl() {}
 
@@ -31,7 +38,6 @@ public class SearchCommandImpl extends SearchConstraintImpl implements SearchCom
 
     public XModelObject[] execute() {
         prepare();
-        ArrayList<XModelObject> list = new ArrayList<XModelObject>();
         String[] roots = XModelObjectUtil.asStringArray(getAttributeValue("root")); //$NON-NLS-1$
         ArrayList<XModelObject> os = new ArrayList<XModelObject>();
         if(roots.length == 0) {
@@ -42,13 +48,59 @@ public class SearchCommandImpl extends SearchConstraintImpl implements SearchCom
                 if(root != null) os.add(root);
             }
         }
+        return execute(os, SearchIndex.isEnabled());
+    }
+
+    /**
+     * Searches under the roots by the index or by the tree walk.
+     */
+    XModelObject[] execute(List<XModelObject> os, boolean useIndex) {
+        ArrayList<XModelObject> list = new ArrayList<XModelObject>();
+        Map<XModelObject, SearchIndex> used = new IdentityHashMap<XModelObject, SearchIndex>();
         for (int i = 0; i < os.size(); i++) {
             XModelObject root = os.get(i);
-            execute(root, list);
+            if(useIndex && SearchIndex.isIndexable(root)) {
+                getIndex(root, used).find(matching, list);
+            } else {
+                execute(root, list);
+            }
+        }
+        if(useIndex) {
+            Map<XModelObject, SoftReference<SearchIndex>> refs = new WeakHashMap<XModelObject, SoftReference<SearchIndex>>();
+            for (Map.Entry<XModelObject, SearchIndex> e: used.entrySet()) {
+                refs.put(e.getKey(), new SoftReference<SearchIndex>(e.getValue()));
+            }
+            synchronized (this) {
+                indexes = refs;
+            }
         }
         return list.toArray(new XModelObject[list.size()]);
     }
 
+    /**
+     * Returns index of objects under the root, which is reused 
+     * while the model of the root and this command are not modified.
+     */
+    private SearchIndex getIndex(XModelObject root, Map<XModelObject, SearchIndex> used) {
+        SearchIndex index = used.get(root);
+        if(index != null) return index;
+        index = getCachedIndex(root);
+        if(index == null || !index.isValid(root, getTimeStamp())) {
+            index = new SearchIndex(root, getTimeStamp());
+            index.build(insight);
+        }
+        used.put(root, index);
+        return index;
+    }
+
+    /**
+     * Returns index kept from the last execution, which may be not valid.
+     */
+    synchronized SearchIndex getCachedIndex(XModelObject root) {
+        SoftReference<SearchIndex> ref = (indexes == null) ? null : indexes.get(root);
+        return (ref == null) ? null : ref.get();
+    }
+
     public void validate() {
         String rootpath = getAttributeValue("root"); //$NON-NLS-1$
         if(rootpath.length() == 0) throw new IllegalStateException("Attribute 'root' of search command must be set."); //$NON-NLS-1$
@@ -25,4 +25,16 @@ public class SearchConstraintANDImpl extends SearchConstraintImpl {
         return !not;
     }
 
+    SearchConstraintValueImpl getIndexableConstraint() {
+        if(not) return null;
+        SearchConstraint[] sc = getConstraints();
+        for (int i = 0; i < sc.length; i++) {
+            if(sc[i] instanceof SearchConstraintImpl) {
+                SearchConstraintValueImpl c = ((SearchConstraintImpl)sc[i]).getIndexableConstraint();
+                if(c != null) return c;
+            }
+        }
+        return null;
+    }
+
 }
@@ -30,6 +30,15 @@ public class SearchConstraintImpl extends SharableElementImpl implements SearchC
         return true;
     }
 
+    /**
+     * Returns a constraint on equality of an attribute value that is satisfied 
+     * by every object accepted by this constraint, or null. 
+     * Used to take candidates from the search index.
+     */
+    SearchConstraintValueImpl getIndexableConstraint() {
+        return null;
+    }
+
     public void prepare() {
         not = XModelObjectConstants.TRUE.equals(getAttributeValue("not")); //$NON-NLS-1$
         SharableElement[] cs = getSharableChildren();
@@ -33,6 +33,10 @@ public class SearchConstraintValueImpl extends SearchConstraintImpl {
         return matches(object, propertyname);
     }
 
+    SearchConstraintValueImpl getIndexableConstraint() {
+        return (not || equality != 0 || "*".equals(propertyname)) ? null : this; //$NON-NLS-1$
+    }
+
     private boolean matches(XModelObject object, String name) {
         String value = object.getAttributeValue(name);
         return (matches(value, propertyvalue)) ? !not : not;
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.search.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tools.common.model.XModel;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.impl.XModelImpl;
+import org.jboss.tools.common.model.impl.XModelObjectImpl;
+import org.jboss.tools.common.model.plugin.ModelPlugin;
+import org.jboss.tools.common.model.search.SearchConstraint;
+
+/**
+ * Objects found under a search root by the recursion constraint of a search command,
+ * in the order of the tree walk, and inverted indexes of their attribute values,
+ * built on the first query of each attribute.
+ *
+ * The index is valid while the change stamp of the root's subtree and the time stamp
+ * of the search command are not changed. Time stamps of the root are not enough, since
+ * low level methods like set(), addChild_0() and removeChild_0() do not change them;
+ * the change stamp is updated by these methods and by tree events on objects under 
+ * the root, so that the index is rebuilt only after a modification of its subtree
+ * and is reused while other parts of the model are edited.
+ * Objects of other implementations of XModel are not indexed.
+ *
+ * @author V. Kabanovich
+ */
+class SearchIndex {
+	/**
+	 * System property that turns off the index if set to false.
+	 */
+	public static final String ENABLED_PROPERTY = "org.jboss.tools.common.model.search.index"; //$NON-NLS-1$
+
+	/**
+	 * System property that sets the number of threads matching objects
+	 * for constraints that cannot be answered by the index.
+	 * Value 1 or less turns off parallel matching.
+	 */
+	public static final String PARALLELISM_PROPERTY = "org.jboss.tools.common.model.search.parallelism"; //$NON-NLS-1$
+
+	/**
+	 * Lists with less objects are matched in the calling thread.
+	 */
+	static final int MIN_PARALLEL_SIZE = 2000;
+
+	private static ExecutorService executor = null;
+	private static boolean initialized = false;
+
+	private XModelObject root;
+	private long changeCount;
+	private long commandTimeStamp;
+	private List<XModelObject> objects = new ArrayList<XModelObject>();
+	private Map<String, Map<String, List<XModelObject>>> values = new HashMap<String, Map<String, List<XModelObject>>>();
+
+	SearchIndex(XModelObject root, long commandTimeStamp) {
+		this.root = root;
+		this.commandTimeStamp = commandTimeStamp;
+	}
+
+	public static boolean isEnabled() {
+		return !"false".equals(System.getProperty(ENABLED_PROPERTY)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns true if objects under the root can be indexed.
+	 */
+	public static boolean isIndexable(XModelObject root) {
+		return root.getModel() instanceof XModelImpl;
+	}
+
+	public boolean isValid(XModelObject root, long commandTimeStamp) {
+		return this.root == root && getChangeCount(root) == changeCount
+				&& this.commandTimeStamp == commandTimeStamp;
+	}
+
+	private static long getChangeCount(XModelObject root) {
+		XModel model = root.getModel();
+		return (model instanceof XModelImpl) ? ((XModelImpl)model).getChangeCount(root) : -1;
+	}
+
+	/**
+	 * Collects objects as SearchCommandImpl does.
+	 * @param insight recursion constraint
+	 */
+	public void build(SearchConstraint insight) {
+		changeCount = getChangeCount(root);
+		collect(root, insight);
+	}
+
+	private void collect(XModelObject o, SearchConstraint insight) {
+		objects.add(o);
+		if(insight.accepts(o)) {
+			XModelObject[] os = ((XModelObjectImpl)o).getChildrenForSave();
+			for (int i = 0; i < os.length; i++) collect(os[i], insight);
+		}
+	}
+
+	/**
+	 * Adds objects accepted by the matching constraint to the list.
+	 * @param matching
+	 * @param list
+	 */
+	public void find(SearchConstraint matching, List<XModelObject> list) {
+		SearchConstraintValueImpl c = (matching instanceof SearchConstraintImpl)
+				? ((SearchConstraintImpl)matching).getIndexableConstraint() : null;
+		List<XModelObject> candidates = objects;
+		if(c != null) {
+			candidates = getObjects(c.propertyname, c.ignorecase).get(c.propertyvalue);
+			if(candidates == null) return;
+			if(candidates.size() < MIN_PARALLEL_SIZE) {
+				for (XModelObject o: candidates) {
+					if(matching.accepts(o)) list.add(o);
+				}
+				return;
+			}
+		}
+		match(candidates, matching, list);
+	}
+
+	private synchronized Map<String, List<XModelObject>> getObjects(String attribute, boolean ignoreCase) {
+		String key = ignoreCase ? attribute + "/i" : attribute; //$NON-NLS-1$
+		Map<String, List<XModelObject>> result = values.get(key);
+		if(result == null) {
+			result = new HashMap<String, List<XModelObject>>();
+			for (XModelObject o: objects) {
+				if(o.getModelEntity().getAttribute(attribute) == null) continue;
+				String value = o.getAttributeValue(attribute);
+				if(value == null) continue;
+				if(ignoreCase) value = value.toLowerCase();
+				List<XModelObject> os = result.get(value);
+				if(os == null) {
+					os = new ArrayList<XModelObject>(1);
+					result.put(value, os);
+				}
+				os.add(o);
+			}
+			values.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Matches objects in parts by several threads if the list is large.
+	 */
+	private void match(final List<XModelObject> objects, final SearchConstraint matching, List<XModelObject> list) {
+		ExecutorService executor = getExecutor();
+		int size = objects.size();
+		if(executor == null || size < MIN_PARALLEL_SIZE) {
+			for (XModelObject o: objects) {
+				if(matching.accepts(o)) list.add(o);
+			}
+			return;
+		}
+		int parts = Math.min(((ThreadPoolExecutor)executor).getMaximumPoolSize() * 4, size / (MIN_PARALLEL_SIZE / 4));
+		List<Future<List<XModelObject>>> fs = new ArrayList<Future<List<XModelObject>>>(parts);
+		for (int i = 0; i < parts; i++) {
+			final int from = (int)((long)size * i / parts), to = (int)((long)size * (i + 1) / parts);
+			fs.add(executor.submit(new Callable<List<XModelObject>>() {
+				public List<XModelObject> call() throws Exception {
+					List<XModelObject> result = new ArrayList<XModelObject>();
+					for (int j = from; j < to; j++) {
+						XModelObject o = objects.get(j);
+						if(matching.accepts(o)) result.add(o);
+					}
+					return result;
+				}
+			}));
+		}
+		for (Future<List<XModelObject>> f: fs) {
+			try {
+				list.addAll(f.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				ModelPlugin.getPluginLog().logError(e.getCause());
+			}
+		}
+	}
+
+	static synchronized ExecutorService getExecutor() {
+		if(!initialized) {
+			initialized = true;
+			int parallelism = Runtime.getRuntime().availableProcessors();
+			String value = System.getProperty(PARALLELISM_PROPERTY);
+			if(value != null) {
+				try {
+					parallelism = Integer.parseInt(value.trim());
+				} catch (NumberFormatException e) {
+					ModelPlugin.getPluginLog().logError(e);
+				}
+			}
+			if(parallelism > 1) {
+				ThreadPoolExecutor e = new ThreadPoolExecutor(parallelism, parallelism,
+						30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "JBoss Tools Model Search"); //$NON-NLS-1$
+						t.setDaemon(true);
+						return t;
+					}
+				});
+				e.allowCoreThreadTimeOut(true);
+				executor = e;
+			}
+		}
+		return executor;
+	}
+
+}
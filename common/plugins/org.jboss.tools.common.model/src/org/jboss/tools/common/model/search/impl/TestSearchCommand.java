@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.search.impl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.tools.common.model.XModelObject;
+
+/**
+ * Gives tests a search command that accepts all objects for recursion
+ * and is not stored in a model, so that search by the index
+ * can be compared with search by the tree walk.
+ *
+ * @author V. Kabanovich
+ */
+public class TestSearchCommand {
+	private SearchCommandImpl command = new SearchCommandImpl();
+
+	public TestSearchCommand() {
+		command.insight = new SearchConstraintImpl();
+	}
+
+	/**
+	 * Sets constraint on value of the attribute.
+	 * @param attribute
+	 * @param value
+	 * @param ignoreCase
+	 * @param contains if true, value of the attribute should contain the text, otherwise coincide with it
+	 */
+	public void setMatching(String attribute, String value, boolean ignoreCase, boolean contains) {
+		SearchConstraintValueImpl c = new SearchConstraintValueImpl();
+		c.propertyname = attribute;
+		c.ignorecase = ignoreCase;
+		c.propertyvalue = ignoreCase ? value.toLowerCase() : value;
+		c.equality = contains ? 1 : 0;
+		command.matching = c;
+	}
+
+	public List<XModelObject> findByIndex(XModelObject root) {
+		return Arrays.asList(command.execute(Arrays.asList(root), true));
+	}
+
+	public List<XModelObject> findByTreeWalk(XModelObject root) {
+		return Arrays.asList(command.execute(Arrays.asList(root), false));
+	}
+
+	/**
+	 * Returns the index kept from the last search under the root, or null.
+	 */
+	public Object getCachedIndex(XModelObject root) {
+		return command.getCachedIndex(root);
+	}
+
+	/**
+	 * Returns true if the index built by the last search under the root can be reused.
+	 */
+	public boolean hasValidIndex(XModelObject root) {
+		SearchIndex index = command.getCachedIndex(root);
+		return index != null && index.isValid(root, command.getTimeStamp());
+	}
+
+	public static boolean isParallel() {
+		return SearchIndex.getExecutor() != null;
+	}
+
+	public static int getMinParallelSize() {
+		return SearchIndex.MIN_PARALLEL_SIZE;
+	}
+
+}
@@ -20,6 +20,7 @@ import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 import org.jboss.tools.common.log.BaseUIPlugin;
+import org.jboss.tools.common.validation.internal.ValidationContextStorage;
 import org.jboss.tools.common.validation.java.JavaEditorTracker;
 import org.osgi.framework.BundleContext;
 
@@ -76,6 +77,17 @@ public class CommonValidationPlugin extends BaseUIPlugin implements IStartup {
 	@Override
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
+		ValidationContextStorage.start();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
+	 */
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		ValidationContextStorage.stop();
+		super.stop(context);
 	}
 
 	@Override
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation;
+
+/**
+ * Marks a validator that may validate different root projects at the same time
+ * from different threads. Such validator must not keep state of validation
+ * of a root project in its fields, or must keep it per thread.
+ * It is run without a scheduling rule while the thread that started validation 
+ * may hold one, so it must not begin rules and should only read resources 
+ * and modify problem markers.
+ *
+ * ValidatorManager validates independent root projects concurrently
+ * only if all the validators that take part in the validation implement this interface.
+ *
+ * @author V. Kabanovich
+ */
+public interface IConcurrentValidator extends IValidator {
+
+}
@@ -10,6 +10,8 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.validation;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
@@ -130,17 +132,41 @@ public interface IProjectValidationContext {
 	Set<ELReference> getElsByVariableName(String variableName);
 
 	/**
-	 * Stores context to XML element
+	 * Stores context to XML element. If the context knows its project, links are
+	 * written in binary form with store(File) to the folder of the project
+	 * in the plugin state location, and the element only refers to that folder
+	 * by its name. Otherwise, or if binary storage fails, links are written to XML
+	 * and the folder of the project is deleted.
 	 * @param root
 	 */
 	void store(Element root);
 
 	/**
-	 * Loads context from XML element
+	 * Loads context from XML element. If the element refers to
+	 * binary storage, links are loaded with load(File).
 	 * @param root
 	 */
 	void load(Element root);
 
+	/**
+	 * Stores context in binary form to files of the folder.
+	 * Only collections modified since the last store to the same folder are rewritten.
+	 * @param folder
+	 * @throws IOException
+	 */
+	void store(File folder) throws IOException;
+
+	/**
+	 * Loads context stored in binary form. Collections are read from
+	 * the files when they are requested for the first time.
+	 * Returns false if the folder does not contain a stored context,
+	 * in that case the context may be loaded from XML with load(Element)
+	 * and the next store(File) writes it in binary form.
+	 * @param folder
+	 * @return
+	 */
+	boolean load(File folder);
+
 	void setValidationResourceRegister(ValidationResourceRegister validationResourceRegister);
 
 	ValidationResourceRegister getValidationResourceRegister();
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.jboss.tools.common.CommonPlugin;
+
+/**
+ * Keeps problem markers of files being validated until validation is completed.
+ *
+ * When a validator reports a problem equal to an existing marker, the marker is
+ * reused instead of being deleted and created again. Markers that were not
+ * reported again are deleted in one workspace operation when the batch is finished.
+ *
+ * A file belongs to the batch that registered it first, so that concurrent
+ * validations do not take markers from each other.
+ *
+ * @author V. Kabanovich
+ */
+class MarkerBatch {
+	/**
+	 * Attributes that identify a problem.
+	 */
+	static final String[] KEY_ATTRIBUTES = {
+		ValidationErrorManager.VALIDATION_MARKER_OWNER,
+		ValidationErrorManager.VALIDATION_MARKER_GROUP,
+		IMarker.MESSAGE,
+		IMarker.SEVERITY,
+		IMarker.LINE_NUMBER,
+		IMarker.CHAR_START,
+		IMarker.CHAR_END
+	};
+
+	private static final Map<IResource, Pending> pending = new ConcurrentHashMap<IResource, Pending>();
+
+	private List<IFile> files = new ArrayList<IFile>();
+
+	public MarkerBatch(Set<IFile> files) {
+		for (IFile file : files) {
+			if(file.isAccessible()) {
+				try {
+					IMarker[] markers = file.findMarkers(IValidator.KB_PROBLEM_MARKER_TYPE, true, IResource.DEPTH_ZERO);
+					if(markers != null && markers.length > 0) {
+						synchronized (pending) {
+							if(!pending.containsKey(file)) {
+								pending.put(file, new Pending(markers));
+								this.files.add(file);
+							}
+						}
+					}
+				} catch (CoreException e) {
+					CommonPlugin.getDefault().logError(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns an existing marker of the resource with the given type and attributes
+	 * that is waiting for deletion, and removes it from the batch; or null if there is no such marker.
+	 * Attributes of the marker that are not given are removed.
+	 * @param resource
+	 * @param markerType
+	 * @param attribNames
+	 * @param attribValues
+	 * @return
+	 */
+	public static IMarker reuse(IResource resource, String markerType, String[] attribNames, Object[] attribValues) {
+		Pending markers = pending.get(resource);
+		return markers == null ? null : markers.reuse(markerType, attribNames, attribValues);
+	}
+
+	/**
+	 * Returns the number of existing markers of the resource that are waiting for deletion
+	 * and are of the given type or its subtypes.
+	 * @param resource
+	 * @param markerType
+	 * @return
+	 */
+	public static int getPendingCount(IResource resource, String markerType) {
+		Pending markers = pending.get(resource);
+		return markers == null ? 0 : markers.getCount(markerType);
+	}
+
+	/**
+	 * Deletes markers that were not reused.
+	 */
+	public void finish() {
+		List<IMarker> stale = new ArrayList<IMarker>();
+		for (IFile file : files) {
+			Pending markers = pending.remove(file);
+			if(markers != null) {
+				markers.collectStale(stale);
+			}
+		}
+		if(!stale.isEmpty()) {
+			try {
+				ResourcesPlugin.getWorkspace().deleteMarkers(stale.toArray(new IMarker[stale.size()]));
+			} catch (CoreException e) {
+				CommonPlugin.getDefault().logError(e);
+			}
+		}
+	}
+
+	static List<Object> getKey(String markerType, String[] attribNames, Object[] attribValues) {
+		Object[] key = new Object[KEY_ATTRIBUTES.length + 1];
+		key[0] = markerType;
+		for (int i = 0; i < attribNames.length; i++) {
+			for (int j = 0; j < KEY_ATTRIBUTES.length; j++) {
+				if(KEY_ATTRIBUTES[j].equals(attribNames[i])) {
+					key[j + 1] = attribValues[i];
+					break;
+				}
+			}
+		}
+		return Arrays.asList(key);
+	}
+
+	/**
+	 * Markers of one resource waiting for deletion.
+	 * Markers are indexed by type and problem attributes when
+	 * the first problem is reported for the resource.
+	 */
+	static class Pending {
+		private Map<IMarker, Map<?, ?>> remaining = new LinkedHashMap<IMarker, Map<?, ?>>();
+		private Map<List<Object>, List<IMarker>> markersByKey;
+		private Map<String, Integer> counts = new HashMap<String, Integer>();
+
+		Pending(IMarker[] markers) {
+			for (IMarker marker : markers) {
+				remaining.put(marker, null);
+			}
+		}
+
+		synchronized IMarker reuse(String markerType, String[] attribNames, Object[] attribValues) {
+			if(markersByKey == null) {
+				index();
+			}
+			List<IMarker> markers = markersByKey.get(getKey(markerType, attribNames, attribValues));
+			while(markers != null && !markers.isEmpty()) {
+				IMarker marker = markers.remove(markers.size() - 1);
+				Map<?, ?> attributes = remaining.remove(marker);
+				if(marker.exists()) {
+					reused(marker);
+					if(!Arrays.asList(attribNames).containsAll(attributes.keySet())) {
+						try {
+							Map<String, Object> values = new HashMap<String, Object>();
+							for (int i = 0; i < attribNames.length; i++) {
+								values.put(attribNames[i], attribValues[i]);
+							}
+							marker.setAttributes(values);
+						} catch (CoreException e) {
+							CommonPlugin.getDefault().logError(e);
+						}
+					}
+					return marker;
+				}
+			}
+			return null;
+		}
+
+		private void index() {
+			markersByKey = new HashMap<List<Object>, List<IMarker>>();
+			for (Map.Entry<IMarker, Map<?, ?>> entry : remaining.entrySet()) {
+				IMarker marker = entry.getKey();
+				try {
+					Map<?, ?> attributes = marker.getAttributes();
+					if(attributes == null) {
+						attributes = new HashMap<String, Object>();
+					}
+					entry.setValue(attributes);
+					Object[] key = new Object[KEY_ATTRIBUTES.length + 1];
+					key[0] = marker.getType();
+					for (int i = 0; i < KEY_ATTRIBUTES.length; i++) {
+						key[i + 1] = attributes.get(KEY_ATTRIBUTES[i]);
+					}
+					List<Object> k = Arrays.asList(key);
+					List<IMarker> markers = markersByKey.get(k);
+					if(markers == null) {
+						markers = new ArrayList<IMarker>(1);
+						markersByKey.put(k, markers);
+					}
+					markers.add(marker);
+				} catch (CoreException e) {
+					// Marker does not exist.
+				}
+			}
+		}
+
+		private void reused(IMarker marker) {
+			for (Map.Entry<String, Integer> count : counts.entrySet()) {
+				try {
+					if(marker.isSubtypeOf(count.getKey())) {
+						count.setValue(count.getValue() - 1);
+					}
+				} catch (CoreException e) {
+					// Marker does not exist.
+				}
+			}
+		}
+
+		synchronized int getCount(String markerType) {
+			Integer count = counts.get(markerType);
+			if(count == null) {
+				int c = 0;
+				for (IMarker marker : remaining.keySet()) {
+					try {
+						if(marker.isSubtypeOf(markerType)) {
+							c++;
+						}
+					} catch (CoreException e) {
+						// Marker does not exist.
+					}
+				}
+				count = c;
+				counts.put(markerType, count);
+			}
+			return count;
+		}
+
+		synchronized void collectStale(List<IMarker> stale) {
+			for (IMarker marker : remaining.keySet()) {
+				if(marker.exists()) {
+					stale.add(marker);
+				}
+			}
+		}
+	}
+
+}
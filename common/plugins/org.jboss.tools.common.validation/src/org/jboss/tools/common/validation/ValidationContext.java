@@ -308,7 +308,7 @@ public class ValidationContext implements IValidationContextManager {
 	 * (non-Javadoc)
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContextManager#addValidatedProject(org.jboss.tools.jst.web.kb.validation.IValidator, org.eclipse.core.resources.IProject)
 	 */
-	public void addValidatedProject(IValidator validator, IProject project) {
+	public synchronized void addValidatedProject(IValidator validator, IProject project) {
 		Set<IProject> projects = validatedProjects.get(validator);
 		if(projects==null) {
 			projects = new HashSet<IProject>();
@@ -321,7 +321,7 @@ public class ValidationContext implements IValidationContextManager {
 	 * (non-Javadoc)
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContextManager#clearValidatedProjectsList()
 	 */
-	public void clearValidatedProjectsList() {
+	public synchronized void clearValidatedProjectsList() {
 		validatedProjects.clear();
 	}
 
@@ -329,7 +329,7 @@ public class ValidationContext implements IValidationContextManager {
 	 * (non-Javadoc)
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContextManager#projectHasBeenValidated(org.jboss.tools.jst.web.kb.validation.IValidator, org.eclipse.core.resources.IProject)
 	 */
-	public boolean projectHasBeenValidated(IValidator validator, IProject project) {
+	public synchronized boolean projectHasBeenValidated(IValidator validator, IProject project) {
 		Set<IProject> projects = validatedProjects.get(validator);
 		return projects==null?false:projects.contains(project);
 	}
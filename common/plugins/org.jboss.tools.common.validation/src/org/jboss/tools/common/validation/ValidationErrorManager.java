@@ -510,14 +510,13 @@ public abstract class ValidationErrorManager implements IValidationErrorManager
 			markerType = DEFAULT_VALIDATION_MARKER;
 		}
 		if(maxNumberOfMarkersPerFile>0) {
-			int existingMarkers = resource.findMarkers(markerType, true, IResource.DEPTH_ZERO).length;
+			// Markers left from the previous validation and not reported again will be deleted, don't count them.
+			int existingMarkers = resource.findMarkers(markerType, true, IResource.DEPTH_ZERO).length - MarkerBatch.getPendingCount(resource, markerType);
 			if(existingMarkers>=maxNumberOfMarkersPerFile) {
 				return null;
 			}
 		}
 
-		IMarker item = resource.createMarker(markerType); // add a validation marker
-
 		boolean offsetSet = ((offset != IMessage.OFFSET_UNSET) && (length != IMessage.OFFSET_UNSET));
 		int size = (offsetSet) ? 7 : 5;
 		String[] attribNames = new String[size];
@@ -543,7 +542,12 @@ public abstract class ValidationErrorManager implements IValidationErrorManager
 			attribValues[6] = new Integer(offset + length);
 		}
 
-		item.setAttributes(attribNames, attribValues);
+		// Reuse the marker of the same problem found by the previous validation.
+		IMarker item = MarkerBatch.reuse(resource, markerType, attribNames, attribValues);
+		if(item == null) {
+			item = resource.createMarker(markerType); // add a validation marker
+			item.setAttributes(attribNames, attribValues);
+		}
 
 		return item;
 	}
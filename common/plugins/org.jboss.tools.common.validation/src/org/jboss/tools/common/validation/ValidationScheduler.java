@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.wst.validation.internal.provisional.core.IReporter;
+import org.jboss.tools.common.CommonPlugin;
+
+/**
+ * Runs validators over root projects for ValidatorManager.
+ *
+ * By default validators are invoked one after another, and each validator
+ * validates all the root projects before the next validator starts.
+ * If all the validators implement IConcurrentValidator and parallelism is greater than 1,
+ * root projects are split into independent groups: root projects whose project sets share
+ * a project get into the same group. Groups are validated concurrently, projects of a group
+ * are validated one by one, and for each project validators are invoked in their order.
+ *
+ * Worker threads run validators in workspace operations without a scheduling rule, 
+ * so they may create and delete problem markers, which need no rule by default, 
+ * while the calling thread holds a rule, as the validation job and the builder do.
+ * Validation is run sequentially if the calling thread holds the workspace lock,
+ * or if it holds a rule that conflicts with the marker rule of a validated project,
+ * because then workers would wait for the calling thread that waits for them.
+ *
+ * Validators are run inside a workspace operation that avoids intermediate notifications,
+ * so that problem markers created and deleted by validators are reported
+ * in one resource change event per batch.
+ *
+ * @author V. Kabanovich
+ */
+class ValidationScheduler {
+	/**
+	 * System property that sets the maximum number of root project groups validated at the same time.
+	 */
+	public static final String PARALLELISM_PROPERTY = "org.jboss.tools.common.validation.parallelism"; //$NON-NLS-1$
+
+	private static int parallelism = -1;
+
+	interface ProjectValidation {
+		void validate(IValidator validator, IProject rootProject, IValidatingProjectSet projectBrunch) throws Exception;
+	}
+
+	public static synchronized int getParallelism() {
+		if(parallelism < 0) {
+			int value = Runtime.getRuntime().availableProcessors();
+			String property = System.getProperty(PARALLELISM_PROPERTY);
+			if(property != null) {
+				try {
+					value = Integer.parseInt(property.trim());
+				} catch (NumberFormatException e) {
+					CommonPlugin.getDefault().logError(e);
+				}
+			}
+			parallelism = Math.max(1, value);
+		}
+		return parallelism;
+	}
+
+	/**
+	 * Sets the maximum number of concurrently validated root project groups.
+	 * Value 1 makes validation sequential. This method is supposed to be used in unit tests.
+	 * @param value
+	 */
+	public static synchronized void setParallelism(int value) {
+		parallelism = Math.max(1, value);
+	}
+
+	private IValidationContextManager validationContextManager;
+	private IReporter reporter;
+
+	public ValidationScheduler(IValidationContextManager validationContextManager, IReporter reporter) {
+		this.validationContextManager = validationContextManager;
+		this.reporter = reporter;
+	}
+
+	public void run(final Set<IProject> rootProjects, final ProjectValidation validation) {
+		final List<IValidator> validators = validationContextManager.getValidators();
+		List<List<IProject>> groups = getConcurrentGroups(validators, rootProjects);
+		if(groups == null) {
+			runInWorkspace(new Runnable() {
+				public void run() {
+					runSequentially(validators, rootProjects, validation);
+				}
+			});
+		} else {
+			runConcurrently(validators, groups, validation);
+		}
+	}
+
+	private static void runInWorkspace(final Runnable runnable) {
+		try {
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+				public void run(IProgressMonitor monitor) throws CoreException {
+					runnable.run();
+				}
+			}, null, IWorkspace.AVOID_UPDATE, null);
+		} catch (CoreException e) {
+			CommonPlugin.getDefault().logError(e);
+		}
+	}
+
+	private void runSequentially(List<IValidator> validators, Set<IProject> rootProjects, ProjectValidation validation) {
+		for (IValidator validator : validators) {
+			try {
+				IValidatingProjectTree tree = validationContextManager.getValidatingProjectTree(validator);
+				if(tree != null) {
+					for (IProject rootProject : rootProjects) {
+						IValidatingProjectSet projectBrunch = tree.getBrunches().get(rootProject);
+						if(projectBrunch!=null) {
+							validation.validate(validator, rootProject, projectBrunch);
+						}
+					}
+				}
+			} catch(Exception e) {
+				// Log the exception and proceed to the next validator
+				CommonPlugin.getDefault().logError(new JBTValidationException(e.getMessage(), e));
+			}
+		}
+	}
+
+	private void runConcurrently(final List<IValidator> validators, List<List<IProject>> groups, final ProjectValidation validation) {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(getParallelism(), groups.size()), new WorkerFactory());
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (final List<IProject> group : groups) {
+				futures.add(executor.submit(new Runnable() {
+					public void run() {
+						runInWorkspace(new Runnable() {
+							public void run() {
+								for (IProject rootProject : group) {
+									validate(validators, rootProject, validation);
+								}
+							}
+						});
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					CommonPlugin.getDefault().logError(new JBTValidationException(e.getMessage(), e.getCause()));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void validate(List<IValidator> validators, IProject rootProject, ProjectValidation validation) {
+		for (IValidator validator : validators) {
+			if(reporter != null && reporter.isCancelled()) {
+				return;
+			}
+			try {
+				IValidatingProjectTree tree = validationContextManager.getValidatingProjectTree(validator);
+				IValidatingProjectSet projectBrunch = tree == null ? null : tree.getBrunches().get(rootProject);
+				if(projectBrunch != null) {
+					validation.validate(validator, rootProject, projectBrunch);
+				}
+			} catch(Exception e) {
+				// Log the exception and proceed to the next validator
+				CommonPlugin.getDefault().logError(new JBTValidationException(e.getMessage(), e));
+			}
+		}
+	}
+
+	/**
+	 * Returns groups of root projects that can be validated concurrently,
+	 * or null if validation should run sequentially.
+	 */
+	List<List<IProject>> getConcurrentGroups(List<IValidator> validators, Set<IProject> rootProjects) {
+		if(getParallelism() < 2 || rootProjects.size() < 2 || isWorkspaceLockHeld()) {
+			return null;
+		}
+		Map<IProject, Set<IProject>> projectSets = new HashMap<IProject, Set<IProject>>();
+		for (IValidator validator : validators) {
+			IValidatingProjectTree tree = validationContextManager.getValidatingProjectTree(validator);
+			if(tree == null) {
+				continue;
+			}
+			for (IProject rootProject : rootProjects) {
+				IValidatingProjectSet projectBrunch = tree.getBrunches().get(rootProject);
+				if(projectBrunch == null) {
+					continue;
+				}
+				if(!(validator instanceof IConcurrentValidator)) {
+					return null;
+				}
+				Set<IProject> projects = projectSets.get(rootProject);
+				if(projects == null) {
+					projects = new LinkedHashSet<IProject>();
+					projects.add(rootProject);
+					projectSets.put(rootProject, projects);
+				}
+				projects.addAll(projectBrunch.getAllProjects());
+			}
+		}
+		if(!canModifyMarkers(projectSets.values())) {
+			return null;
+		}
+		List<List<IProject>> groups = new ArrayList<List<IProject>>();
+		List<Set<IProject>> groupProjects = new ArrayList<Set<IProject>>();
+		for (IProject rootProject : rootProjects) {
+			Set<IProject> projects = projectSets.get(rootProject);
+			if(projects == null) {
+				continue;
+			}
+			List<IProject> group = new ArrayList<IProject>();
+			group.add(rootProject);
+			Set<IProject> all = new LinkedHashSet<IProject>(projects);
+			// Merge with all the groups that share a project with this one.
+			for (int i = groups.size() - 1; i >= 0; i--) {
+				if(intersects(groupProjects.get(i), all)) {
+					group.addAll(0, groups.remove(i));
+					all.addAll(groupProjects.remove(i));
+				}
+			}
+			groups.add(group);
+			groupProjects.add(all);
+		}
+		return groups.size() < 2 ? null : groups;
+	}
+
+	private static boolean isWorkspaceLockHeld() {
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		if(workspace instanceof Workspace) {
+			try {
+				return ((Workspace)workspace).getWorkManager().isLockAlreadyAcquired();
+			} catch (CoreException e) {
+				CommonPlugin.getDefault().logError(e);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if worker threads can modify markers of the projects
+	 * while the calling thread keeps its scheduling rule.
+	 */
+	private static boolean canModifyMarkers(Collection<Set<IProject>> projectSets) {
+		ISchedulingRule rule = Job.getJobManager().currentRule();
+		if(rule == null) {
+			return true;
+		}
+		IResourceRuleFactory factory = ResourcesPlugin.getWorkspace().getRuleFactory();
+		for (Set<IProject> projects : projectSets) {
+			for (IProject project : projects) {
+				ISchedulingRule markerRule = factory.markerRule(project);
+				if(markerRule != null && rule.isConflicting(markerRule)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean intersects(Set<IProject> s1, Set<IProject> s2) {
+		for (IProject p : s2) {
+			if(s1.contains(p)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static class WorkerFactory implements ThreadFactory {
+		static AtomicInteger counter = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "JBoss Tools Validation Worker " + counter.incrementAndGet()); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -10,14 +10,14 @@
  ******************************************************************************/
 package org.jboss.tools.common.validation;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.wst.validation.internal.core.ValidationException;
@@ -105,85 +105,71 @@ public class ValidatorManager implements IValidatorJob {
 		}
 	}
 
-	private IStatus validate(Set<IFile> changedFiles, ContextValidationHelper validationHelper, IReporter reporter, Set<IProject> rootProjects) throws ValidationException {
+	private IStatus validate(final Set<IFile> changedFiles, final ContextValidationHelper validationHelper, final IReporter reporter, Set<IProject> rootProjects) throws ValidationException {
 		IValidationContextManager validationContextManager = validationHelper.getValidationContextManager();
 		List<IValidator> validators = validationContextManager.getValidators();
-		removeMarkers(changedFiles);
+		MarkerBatch markers = new MarkerBatch(changedFiles);
 		AsYouTypeValidatorManager.removeMessages();
+		//Collect projects that need full validation
+		final Map<IValidator, Set<IProject>> validateAll = new HashMap<IValidator, Set<IProject>>();
 		for (IValidator validator : validators) {
 			try {
-				IValidatingProjectTree tree = validationHelper.getValidationContextManager().getValidatingProjectTree(validator);
+				IValidatingProjectTree tree = validationContextManager.getValidatingProjectTree(validator);
 				if(tree != null) {
-					//Collect projects that need full validation
-					Set<IProject> validateAll = new HashSet<IProject>();
+					Set<IProject> projects = new HashSet<IProject>();
 					for (IProject rootProject : rootProjects) {
 						IValidatingProjectSet projectBrunch = tree.getBrunches().get(rootProject);
 						if(projectBrunch != null && projectBrunch.isFullValidationRequired()) {
-							validateAll.add(rootProject);
+							projects.add(rootProject);
 						}
 					}
 					//Clear property 'full validation required' to make projects ready for next build
 					//that can start while validation is only partially completed.
-					for (IProject rootProject : validateAll) {
+					for (IProject rootProject : projects) {
 						IValidatingProjectSet projectBrunch = tree.getBrunches().get(rootProject);
 						if(projectBrunch != null) {
 							projectBrunch.setFullValidationRequired(false);
 						}
 					}
-					//Run validation
-					for (IProject rootProject : rootProjects) {
-						IValidatingProjectSet projectBrunch = tree.getBrunches().get(rootProject);
-						if(projectBrunch!=null) {
-							if(validateAll.contains(rootProject)) {
-								validator.validateAll(rootProject, validationHelper, projectBrunch.getRootContext(), this, reporter);
-							} else {
-								validator.validate(changedFiles, rootProject, validationHelper, projectBrunch.getRootContext(), this, reporter);
-							}
-						}
-					}
+					validateAll.put(validator, projects);
 				}
 			} catch(Exception e) {
 				// Log the exception and proceed to the next validator
 				CommonPlugin.getDefault().logError(new JBTValidationException(e.getMessage(), e));
 			}
 		}
-		return OK_STATUS;
-	}
-
-	private IStatus validateAll(ContextValidationHelper validationHelper, IReporter reporter, Set<IProject> rootProjects) throws ValidationException {
-		IValidationContextManager validationContextManager = validationHelper.getValidationContextManager();
-		List<IValidator> validators = validationContextManager.getValidators();
-		removeMarkers(validationHelper.getProjectSetRegisteredFiles());
-		for (IValidator validator : validators) {
-			try {
-				IValidatingProjectTree tree = validationHelper.getValidationContextManager().getValidatingProjectTree(validator);
-				if(tree != null) {
-					for (IProject rootProject : rootProjects) {
-						IValidatingProjectSet projectBrunch = tree.getBrunches().get(rootProject);
-						if(projectBrunch!=null) {
-							projectBrunch.setFullValidationRequired(false);
-							validator.validateAll(rootProject, validationHelper, projectBrunch.getRootContext(), this, reporter);
-						}
+		//Run validation
+		try {
+			new ValidationScheduler(validationContextManager, reporter).run(rootProjects, new ValidationScheduler.ProjectValidation() {
+				public void validate(IValidator validator, IProject rootProject, IValidatingProjectSet projectBrunch) throws ValidationException {
+					Set<IProject> projects = validateAll.get(validator);
+					if(projects != null && projects.contains(rootProject)) {
+						validator.validateAll(rootProject, validationHelper, projectBrunch.getRootContext(), ValidatorManager.this, reporter);
+					} else {
+						validator.validate(changedFiles, rootProject, validationHelper, projectBrunch.getRootContext(), ValidatorManager.this, reporter);
 					}
 				}
-			} catch(Exception e) {
-				// Log the exception and proceed to the next validator
-				CommonPlugin.getDefault().logError(new JBTValidationException(e.getMessage(), e));
-			}
+			});
+		} finally {
+			markers.finish();
 		}
 		return OK_STATUS;
 	}
 
-	private void removeMarkers(Set<IFile> files) {
+	private IStatus validateAll(final ContextValidationHelper validationHelper, final IReporter reporter, Set<IProject> rootProjects) throws ValidationException {
+		IValidationContextManager validationContextManager = validationHelper.getValidationContextManager();
+		MarkerBatch markers = new MarkerBatch(validationHelper.getProjectSetRegisteredFiles());
 		try {
-			for (IFile file : files) {
-				if(file.isAccessible()) {
-					file.deleteMarkers(IValidator.KB_PROBLEM_MARKER_TYPE, true, IResource.DEPTH_ZERO);
+			new ValidationScheduler(validationContextManager, reporter).run(rootProjects, new ValidationScheduler.ProjectValidation() {
+				public void validate(IValidator validator, IProject rootProject, IValidatingProjectSet projectBrunch) throws ValidationException {
+					projectBrunch.setFullValidationRequired(false);
+					validator.validateAll(rootProject, validationHelper, projectBrunch.getRootContext(), ValidatorManager.this, reporter);
 				}
-			}
-		} catch (CoreException e) {
-			CommonPlugin.getDefault().logError(e);
+			});
+		} finally {
+			markers.finish();
 		}
+		return OK_STATUS;
 	}
 
 	/*
@@ -10,26 +10,29 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.validation.internal;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.runtime.IPath;
 import org.jboss.tools.common.el.core.ELReference;
 import org.jboss.tools.common.validation.ValidationELReference;
 import org.jboss.tools.common.xml.XMLUtilities;
 import org.w3c.dom.Element;
 
 /**
+ * Links between EL references and variable names.
+ * Queries do not lock and return read-only snapshots.
+ * 
  * @author Alexey Kazakov
  */
 public class ELValidatorContext extends LinkCollection {
 
-	private Map<String, Set<ELReference>> elsByVariableName = new HashMap<String, Set<ELReference>>();
-	private Map<ELReference, Set<String>> variableNamesByEl = new HashMap<ELReference, Set<String>>();
-	private Map<IPath, Set<ELReference>> elsByResource = new HashMap<IPath, Set<ELReference>>();
+	private ElIndex elsByVariableName = new ElIndex();
+	private Map<ELReference, int[]> variableNamesByEl = new HashMap<ELReference, int[]>();
+	private ElIndex elsByResource = new ElIndex();
 
 	public ELValidatorContext(String id) {
 		super(id);
@@ -41,40 +44,65 @@ public class ELValidatorContext extends LinkCollection {
 	 * @param el
 	 */
 	public synchronized void addLinkedEl(String variableName, ELReference el) {
-		Set<ELReference> linkedEls = elsByVariableName.get(variableName);
-		if(linkedEls==null) {
-			// create set of linked ELs with variable name.
-			linkedEls = new HashSet<ELReference>();
-			elsByVariableName.put(variableName, linkedEls);
-		}
+		int name = names.intern(variableName);
 		// save linked ELs.
 		// don't save links if there are more than 500 ELs for the var name.
-		if(linkedEls.size()<500) {
-			if(linkedEls.add(el)) {
+		if(elsByVariableName.size(name)<500) {
+			if(elsByVariableName.add(name, el)) {
+				names.retain(name);
 				modifications++;
 			}
 			// Save link between EL and variable names.
-			Set<String> variableNames = variableNamesByEl.get(el);
-			if(variableNames==null) {
-				variableNames = new HashSet<String>();
-				variableNamesByEl.put(el, variableNames);
-			}
-			if(variableNames.add(variableName.intern())) {
+			if(addName(el, name)) {
 				modifications++;
 			}
 		}
 
 		// Save link between EL and resource.
-		Set<ELReference> els = elsByResource.get(el.getPath());
-		if(els==null) {
-			els = new HashSet<ELReference>();
-			elsByResource.put(el.getPath(), els);
-		}
-		if(els.add(el)) {
+		int path = paths.intern(el.getPath());
+		if(elsByResource.add(path, el)) {
+			paths.retain(path);
 			modifications++;
 		}
 	}
 
+	private boolean addName(ELReference el, int name) {
+		int[] ns = variableNamesByEl.get(el);
+		if(ns == null) {
+			variableNamesByEl.put(el, new int[]{name});
+			return true;
+		}
+		for (int n: ns) {
+			if(n == name) return false;
+		}
+		int[] result = new int[ns.length + 1];
+		System.arraycopy(ns, 0, result, 0, ns.length);
+		result[ns.length] = name;
+		variableNamesByEl.put(el, result);
+		return true;
+	}
+
+	private boolean removeName(ELReference el, int name) {
+		int[] ns = variableNamesByEl.get(el);
+		if(ns == null) {
+			return false;
+		}
+		for (int i = 0; i < ns.length; i++) {
+			if(ns[i] == name) {
+				if(ns.length == 1) {
+					variableNamesByEl.remove(el);
+				} else {
+					int[] result = new int[ns.length - 1];
+					System.arraycopy(ns, 0, result, 0, i);
+					System.arraycopy(ns, i + 1, result, i, result.length - i);
+					variableNamesByEl.put(el, result);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public synchronized void removeLinkedEls(Set<IFile> resorces) {
 		for (IFile file : resorces) {
 			removeLinkedEls(file);
@@ -82,55 +110,47 @@ public class ELValidatorContext extends LinkCollection {
 	}
 
 	public synchronized void removeLinkedEls(IFile resource) {
-		String name = resource.getFullPath().toString(); // Resource path is also a variable name
-		Set<ELReference> linkedEls = elsByVariableName.remove(name);
-		if(linkedEls!=null ) {
-			modifications++;
+		int name = names.get(resource.getFullPath().toString()); // Resource path is also a variable name
+		if(name >= 0) {
+			ELReference[] linkedEls = elsByVariableName.remove(name);
+			if(linkedEls.length > 0) {
+				modifications++;
+			}
 			for (ELReference el : linkedEls) {
-				Set<String> variableNames = variableNamesByEl.get(el);
-				if(variableNames!=null) {
-					if(variableNames.remove(name)) {
-						modifications++;
-					}
-					if(variableNames.isEmpty()) {
-						variableNamesByEl.remove(el);
-					}
+				if(removeName(el, name)) {
+					modifications++;
 				}
 			}
+			names.release(name, linkedEls.length);
 		}
 
-		Set<ELReference> els = elsByResource.get(resource.getFullPath());
-		if(els!=null) {
-			if(elsByResource.remove(resource.getFullPath()) != null) {
-				modifications++;
-			}
-			for (ELReference el : els) {
-				Set<String> names = variableNamesByEl.get(el);
-				if(names!=null) {
-					String[] nameStrins = names.toArray(new String[0]);
-					for (int i = 0; i < nameStrins.length; i++) {
-						removeLinkedEl(nameStrins[i], el);
-					}
+		int path = paths.get(resource.getFullPath());
+		ELReference[] els = elsByResource.remove(path);
+		if(els.length > 0) {
+			modifications++;
+		}
+		for (ELReference el : els) {
+			int[] ns = variableNamesByEl.get(el);
+			if(ns != null) {
+				for (int n: ns) {
+					removeLinkedEl(n, el);
 				}
 			}
 		}
+		paths.release(path, els.length);
 	}
 
 	public synchronized void removeLinkedEl(ELReference el) {
-		Set<String> names = variableNamesByEl.remove(el);
-		if(names==null) {
+		int[] ns = variableNamesByEl.remove(el);
+		if(ns == null) {
 			return;
 		}
-		if(!names.isEmpty()) {
+		if(ns.length > 0) {
 			modifications++;
 		}
-		for (String name : names) {
-			Set<ELReference> els = elsByVariableName.get(name);
-			if(els!=null) {
-				els.remove(el);
-				if(els.isEmpty()) {
-					elsByVariableName.remove(name);
-				}
+		for (int n : ns) {
+			if(elsByVariableName.remove(n, el)) {
+				names.release(n, 1);
 			}
 		}
 	}
@@ -141,25 +161,23 @@ public class ELValidatorContext extends LinkCollection {
 	 * @param el
 	 */
 	public synchronized void removeLinkedEl(String name, ELReference el) {
-		Set<ELReference> linkedEls = elsByVariableName.get(name);
-		if(linkedEls!=null) {
-			if(linkedEls.remove(el)) {
-				modifications++;
-			}
-			if(linkedEls.isEmpty()) {
-				elsByVariableName.remove(name);
-			}
+		int n = names.get(name);
+		if(n >= 0) {
+			removeLinkedEl(n, el);
 		}
+	}
 
+	private void removeLinkedEl(int name, ELReference el) {
+		boolean removed = elsByVariableName.remove(name, el);
+		if(removed) {
+			modifications++;
+		}
 		// Remove link between EL and variable names.
-		Set<String> variableNames = variableNamesByEl.get(el);
-		if(variableNames!=null) {
-			if(variableNames.remove(name)) {
-				modifications++;
-			}
-			if(variableNames.isEmpty()) {
-				variableNamesByEl.remove(el);
-			}
+		if(removeName(el, name)) {
+			modifications++;
+		}
+		if(removed) {
+			names.release(name, 1);
 		}
 	}
 
@@ -168,20 +186,31 @@ public class ELValidatorContext extends LinkCollection {
 	 * @param variableName
 	 * @return
 	 */
-	public synchronized Set<ELReference> getElsByVariableName(String variableName) {
-		return elsByVariableName.get(variableName);
+	public Set<ELReference> getElsByVariableName(String variableName) {
+		while(true) {
+			int version = names.version();
+			ELReference[] els = elsByVariableName.get(names.get(variableName));
+			if(version == names.version()) {
+				return els.length == 0 ? null : ElIndex.asSet(els);
+			}
+		}
 	}
 
 	/**
 	 * @param names
 	 * @return
 	 */
-	public synchronized Set<ELReference> getElsByVariableNames(Set<String> names) {
+	public Set<ELReference> getElsByVariableNames(Set<String> names) {
 		Set<ELReference> result = new HashSet<ELReference>();
 		for(String name : names) {
-			Set<ELReference> els = getElsByVariableName(name);
-			if(els!=null) {
-				result.addAll(els);
+			ELReference[] els;
+			int version;
+			do {
+				version = this.names.version();
+				els = elsByVariableName.get(this.names.get(name));
+			} while(version != this.names.version());
+			for (ELReference el: els) {
+				result.add(el);
 			}
 		}
 		return result;
@@ -199,6 +228,15 @@ public class ELValidatorContext extends LinkCollection {
 		elsByResource.clear();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see org.jboss.tools.common.validation.internal.LinkCollection#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return super.isEmpty() && elsByVariableName.isEmpty() && elsByResource.isEmpty();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.jboss.tools.jst.web.kb.internal.validation.LinkCollection#store(org.w3c.dom.Element)
@@ -206,15 +244,11 @@ public class ELValidatorContext extends LinkCollection {
 	@Override
 	public synchronized void store(Element root, Map<String, String> pathIds) {
 		super.store(root, pathIds);
-		Set<String> variables = elsByVariableName.keySet();
-		for (String name: variables) {
-			Set<ELReference> els = elsByVariableName.get(name);
-			if(els == null) {
-				continue;
-			}
-			for (ELReference el: els) {
+		for (int name: elsByVariableName.keys()) {
+			String alias = ELReference.getAlias(pathIds, names.value(name));
+			for (ELReference el: elsByVariableName.get(name)) {
 				Element linkedEl = XMLUtilities.createElement(root, "linked-el"); //$NON-NLS-1$
-				linkedEl.setAttribute("name", ELReference.getAlias(pathIds, name)); //$NON-NLS-1$
+				linkedEl.setAttribute("name", alias); //$NON-NLS-1$
 				el.store(linkedEl, pathIds);
 			}
 		}
@@ -245,4 +279,49 @@ public class ELValidatorContext extends LinkCollection {
 			}
 		}
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jboss.tools.common.validation.internal.LinkCollection#store(org.jboss.tools.common.validation.internal.LinkStorage.Writer)
+	 */
+	@Override
+	synchronized int store(LinkStorage.Writer out) throws IOException {
+		int stored = super.store(out);
+		int[] keys = elsByVariableName.keys();
+		out.writeInt(keys.length);
+		for (int name: keys) {
+			ELReference[] els = elsByVariableName.get(name);
+			out.writeString(names.value(name));
+			out.writeInt(els.length);
+			for (ELReference el: els) {
+				out.writePath(el.getPath());
+				out.writeInt(el.getStartPosition());
+				out.writeInt(el.getLength());
+			}
+		}
+		return stored;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jboss.tools.common.validation.internal.LinkCollection#load(org.jboss.tools.common.validation.internal.LinkStorage.Reader)
+	 */
+	@Override
+	synchronized void load(LinkStorage.Reader in) {
+		super.load(in);
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String name = in.readString();
+			int els = in.readInt();
+			for (int j = 0; j < els; j++) {
+				ELReference el = new ValidationELReference();
+				el.setPath(in.readPath());
+				el.setStartPosition(in.readInt());
+				el.setLength(in.readInt());
+				el.setNeedToInitMarkers(true);
+				addLinkedEl(name, el);
+			}
+		}
+		modifications = 0;
+	}
 }
\ No newline at end of file
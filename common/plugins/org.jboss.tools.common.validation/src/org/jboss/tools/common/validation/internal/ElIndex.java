@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.internal;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jboss.tools.common.el.core.ELReference;
+
+/**
+ * Maps int keys to sets of EL references.
+ *
+ * Each set is a row sorted by start position of references, which is replaced
+ * on modification, so readers get a consistent snapshot without locking.
+ * As in IntIndex, a reference that goes after all references of the row
+ * is appended in place beyond the length seen by earlier snapshots.
+ * Modifications are done under the lock of the index.
+ *
+ * @author V. Kabanovich
+ */
+class ElIndex {
+	static final ELReference[] EMPTY = new ELReference[0];
+
+	/**
+	 * Snapshot of a row: first length references of the array.
+	 */
+	static final class Row {
+		final ELReference[] values;
+		final int length;
+
+		Row(ELReference[] values, int length) {
+			this.values = values;
+			this.length = length;
+		}
+	}
+
+	private volatile AtomicReferenceArray<Row> rows = new AtomicReferenceArray<Row>(64);
+	private volatile int size = 0;
+
+	private Row getRow(int key) {
+		AtomicReferenceArray<Row> rs = rows;
+		if(key < 0 || key >= rs.length()) {
+			return null;
+		}
+		return rs.get(key);
+	}
+
+	/**
+	 * Returns a copy of references for the key.
+	 * @param key
+	 * @return
+	 */
+	public ELReference[] get(int key) {
+		Row row = getRow(key);
+		if(row == null) {
+			return EMPTY;
+		}
+		ELReference[] result = new ELReference[row.length];
+		System.arraycopy(row.values, 0, result, 0, row.length);
+		return result;
+	}
+
+	/**
+	 * Returns number of references for the key.
+	 * @param key
+	 * @return
+	 */
+	public int size(int key) {
+		Row row = getRow(key);
+		return row == null ? 0 : row.length;
+	}
+
+	public synchronized boolean add(int key, ELReference el) {
+		Row row = getRow(key);
+		if(row == null) {
+			set(key, new Row(new ELReference[]{el, null}, 1));
+			size++;
+			return true;
+		}
+		int i = indexOf(row.values, row.length, el);
+		if(i >= 0) {
+			return false;
+		}
+		i = -i - 1;
+		if(i == row.length && row.length < row.values.length) {
+			// Earlier snapshots do not see references beyond their length.
+			row.values[i] = el;
+			set(key, new Row(row.values, row.length + 1));
+			return true;
+		}
+		ELReference[] n = new ELReference[row.length < 4 ? row.length + 2 : row.length + (row.length >> 1)];
+		System.arraycopy(row.values, 0, n, 0, i);
+		n[i] = el;
+		System.arraycopy(row.values, i, n, i + 1, row.length - i);
+		set(key, new Row(n, row.length + 1));
+		return true;
+	}
+
+	private void set(int key, Row row) {
+		AtomicReferenceArray<Row> rs = rows;
+		if(key >= rs.length()) {
+			AtomicReferenceArray<Row> g = new AtomicReferenceArray<Row>(Math.max(key + 1, rs.length() * 2));
+			for (int j = 0; j < rs.length(); j++) {
+				g.set(j, rs.get(j));
+			}
+			g.set(key, row);
+			rows = g;
+		} else {
+			rs.set(key, row);
+		}
+	}
+
+	public synchronized boolean remove(int key, ELReference el) {
+		Row row = getRow(key);
+		if(row == null) {
+			return false;
+		}
+		int i = indexOf(row.values, row.length, el);
+		if(i < 0) {
+			return false;
+		}
+		if(row.length == 1) {
+			rows.set(key, null);
+			size--;
+			return true;
+		}
+		ELReference[] n = new ELReference[row.length - 1];
+		System.arraycopy(row.values, 0, n, 0, i);
+		System.arraycopy(row.values, i + 1, n, i, n.length - i);
+		rows.set(key, new Row(n, n.length));
+		return true;
+	}
+
+	public synchronized ELReference[] remove(int key) {
+		ELReference[] row = get(key);
+		if(row.length > 0) {
+			rows.set(key, null);
+			size--;
+		}
+		return row;
+	}
+
+	public synchronized int[] keys() {
+		int[] result = new int[size];
+		AtomicReferenceArray<Row> rs = rows;
+		int k = 0;
+		for (int i = 0; i < rs.length() && k < result.length; i++) {
+			if(rs.get(i) != null) {
+				result[k++] = i;
+			}
+		}
+		return result;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public synchronized void clear() {
+		rows = new AtomicReferenceArray<Row>(64);
+		size = 0;
+	}
+
+	/**
+	 * Returns index of the reference in the row,
+	 * or (-(insertion point) - 1) if the row does not contain it.
+	 */
+	static int indexOf(ELReference[] row, Object o) {
+		return indexOf(row, row.length, o);
+	}
+
+	static int indexOf(ELReference[] row, int length, Object o) {
+		if(!(o instanceof ELReference)) {
+			return -1;
+		}
+		ELReference el = (ELReference)o;
+		int start = el.getStartPosition();
+		int low = 0;
+		int high = length - 1;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int s = row[mid].getStartPosition();
+			if(s < start) {
+				low = mid + 1;
+			} else if(s > start) {
+				high = mid - 1;
+			} else {
+				// References with the same start position differ by path.
+				int i = mid;
+				while(i > 0 && row[i - 1].getStartPosition() == start) i--;
+				for (; i < length && row[i].getStartPosition() == start; i++) {
+					if(row[i].equals(el)) {
+						return i;
+					}
+				}
+				return -i - 1;
+			}
+		}
+		return -low - 1;
+	}
+
+	/**
+	 * Returns read-only set view of the row.
+	 * @param row
+	 * @return
+	 */
+	public static Set<ELReference> asSet(final ELReference[] row) {
+		return new AbstractSet<ELReference>() {
+			@Override
+			public int size() {
+				return row.length;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return indexOf(row, o) >= 0;
+			}
+
+			@Override
+			public Iterator<ELReference> iterator() {
+				return new Iterator<ELReference>() {
+					int i = 0;
+
+					public boolean hasNext() {
+						return i < row.length;
+					}
+
+					public ELReference next() {
+						if(i >= row.length) {
+							throw new NoSuchElementException();
+						}
+						return row[i++];
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+}
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.internal;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assigns int ids to values, so that links between values may be kept as int arrays.
+ * Each id counts links that refer to it, and is released for reuse
+ * when the last link is removed.
+ *
+ * Lookups do not lock, new ids are assigned under the lock of the table.
+ * Since a released id may be given to another value, a reader that looks up
+ * ids and their values without lock should check that version()
+ * has not changed in the meantime.
+ *
+ * @author V. Kabanovich
+ */
+class IdTable<T> {
+	private volatile ConcurrentHashMap<T, Integer> ids = new ConcurrentHashMap<T, Integer>();
+	private volatile AtomicReferenceArray<T> values = new AtomicReferenceArray<T>(64);
+	private int size = 0;
+	private int[] links = new int[64];
+	private int[] free = new int[16];
+	private int freeSize = 0;
+	private volatile int version = 0;
+
+	/**
+	 * Returns id of the value, assigns a new id if the value has no id yet.
+	 * @param value
+	 * @return
+	 */
+	public int intern(T value) {
+		Integer id = ids.get(value);
+		if(id != null) {
+			return id.intValue();
+		}
+		synchronized (this) {
+			id = ids.get(value);
+			if(id != null) {
+				return id.intValue();
+			}
+			int result;
+			if(freeSize > 0) {
+				result = free[--freeSize];
+			} else {
+				AtomicReferenceArray<T> vs = values;
+				if(size == vs.length()) {
+					AtomicReferenceArray<T> n = new AtomicReferenceArray<T>(vs.length() * 2);
+					for (int i = 0; i < size; i++) {
+						n.set(i, vs.get(i));
+					}
+					values = n;
+					int[] ls = new int[n.length()];
+					System.arraycopy(links, 0, ls, 0, size);
+					links = ls;
+				}
+				result = size++;
+			}
+			values.set(result, value);
+			ids.put(value, result);
+			return result;
+		}
+	}
+
+	/**
+	 * Counts a new link to the id.
+	 * @param id
+	 */
+	public synchronized void retain(int id) {
+		links[id]++;
+	}
+
+	/**
+	 * Counts removal of links to the id. When no links are left,
+	 * the id is released and may be given to another value.
+	 * @param id
+	 * @param count
+	 */
+	public synchronized void release(int id, int count) {
+		if(id < 0 || id >= size || links[id] == 0) {
+			return;
+		}
+		links[id] = Math.max(0, links[id] - count);
+		if(links[id] > 0) {
+			return;
+		}
+		T value = values.get(id);
+		if(value == null) {
+			return;
+		}
+		version++;
+		ids.remove(value);
+		values.set(id, null);
+		if(freeSize == free.length) {
+			int[] f = new int[free.length * 2];
+			System.arraycopy(free, 0, f, 0, freeSize);
+			free = f;
+		}
+		free[freeSize++] = id;
+	}
+
+	/**
+	 * Returns number of released ids, it changes when an id may be given to another value.
+	 * @return
+	 */
+	public int version() {
+		return version;
+	}
+
+	/**
+	 * Returns id of the value, or -1 if the value has no id.
+	 * @param value
+	 * @return
+	 */
+	public int get(Object value) {
+		if(value == null) {
+			return -1;
+		}
+		Integer id = ids.get(value);
+		return id == null ? -1 : id.intValue();
+	}
+
+	/**
+	 * Returns value by id, or null if the id is unknown.
+	 * @param id
+	 * @return
+	 */
+	public T value(int id) {
+		AtomicReferenceArray<T> vs = values;
+		return id < 0 || id >= vs.length() ? null : vs.get(id);
+	}
+
+	/**
+	 * Returns number of ids in use.
+	 * @return
+	 */
+	public synchronized int size() {
+		return size - freeSize;
+	}
+
+	public synchronized void clear() {
+		version++;
+		ids = new ConcurrentHashMap<T, Integer>();
+		values = new AtomicReferenceArray<T>(64);
+		size = 0;
+		links = new int[64];
+		freeSize = 0;
+	}
+
+	/**
+	 * Returns read-only snapshot of values with ids in the array.
+	 * Values are resolved at once, so the set does not depend
+	 * on later changes of the table.
+	 * @param ids
+	 * @return
+	 */
+	public IdSet<T> asSet(int[] ids) {
+		Object[] vs = new Object[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			vs[i] = value(ids[i]);
+		}
+		return new IdSet<T>(vs);
+	}
+
+	/**
+	 * Read-only set backed by an array of distinct values.
+	 */
+	static class IdSet<T> extends AbstractSet<T> {
+		static final int HASH_THRESHOLD = 8;
+
+		Object[] values;
+		volatile Set<Object> hash;
+
+		IdSet(Object[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if(values.length > HASH_THRESHOLD) {
+				Set<Object> h = hash;
+				if(h == null) {
+					h = new HashSet<Object>(Arrays.asList(values));
+					hash = h;
+				}
+				return h.contains(o);
+			}
+			for (Object v: values) {
+				if(v.equals(o)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new Iterator<T>() {
+				int i = 0;
+
+				public boolean hasNext() {
+					return i < values.length;
+				}
+
+				@SuppressWarnings("unchecked")
+				public T next() {
+					if(i >= values.length) {
+						throw new NoSuchElementException();
+					}
+					return (T)values[i++];
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps int keys to sorted sets of int values.
+ *
+ * Each set is a row that is replaced on modification, so readers get
+ * a consistent snapshot without locking. A row has spare capacity,
+ * and a value greater than all values of the row is appended in place
+ * beyond the length seen by earlier snapshots, so that a row built
+ * in increasing order is not copied on every add.
+ * Modifications are done under the lock of the index.
+ *
+ * @author V. Kabanovich
+ */
+class IntIndex {
+	static final int[] EMPTY = new int[0];
+
+	/**
+	 * Snapshot of a row: first length values of the array.
+	 * Values beyond the length may be written by later appends.
+	 */
+	static final class Row {
+		final int[] values;
+		final int length;
+
+		Row(int[] values, int length) {
+			this.values = values;
+			this.length = length;
+		}
+	}
+
+	private volatile AtomicReferenceArray<Row> rows = new AtomicReferenceArray<Row>(64);
+	private volatile int size = 0;
+
+	private Row getRow(int key) {
+		AtomicReferenceArray<Row> rs = rows;
+		if(key < 0 || key >= rs.length()) {
+			return null;
+		}
+		return rs.get(key);
+	}
+
+	/**
+	 * Returns a copy of sorted values for the key.
+	 * @param key
+	 * @return
+	 */
+	public int[] get(int key) {
+		Row row = getRow(key);
+		if(row == null) {
+			return EMPTY;
+		}
+		int[] result = new int[row.length];
+		System.arraycopy(row.values, 0, result, 0, row.length);
+		return result;
+	}
+
+	/**
+	 * Returns number of values for the key.
+	 * @param key
+	 * @return
+	 */
+	public int size(int key) {
+		Row row = getRow(key);
+		return row == null ? 0 : row.length;
+	}
+
+	public boolean contains(int key, int value) {
+		Row row = getRow(key);
+		return row != null && Arrays.binarySearch(row.values, 0, row.length, value) >= 0;
+	}
+
+	public synchronized boolean add(int key, int value) {
+		Row row = getRow(key);
+		if(row == null) {
+			set(key, new Row(new int[]{value, 0}, 1));
+			size++;
+			return true;
+		}
+		int i = Arrays.binarySearch(row.values, 0, row.length, value);
+		if(i >= 0) {
+			return false;
+		}
+		i = -i - 1;
+		if(i == row.length && row.length < row.values.length) {
+			// Earlier snapshots do not see values beyond their length.
+			row.values[i] = value;
+			set(key, new Row(row.values, row.length + 1));
+			return true;
+		}
+		int[] n = new int[row.length < 4 ? row.length + 2 : row.length + (row.length >> 1)];
+		System.arraycopy(row.values, 0, n, 0, i);
+		n[i] = value;
+		System.arraycopy(row.values, i, n, i + 1, row.length - i);
+		set(key, new Row(n, row.length + 1));
+		return true;
+	}
+
+	public synchronized boolean remove(int key, int value) {
+		Row row = getRow(key);
+		if(row == null) {
+			return false;
+		}
+		int i = Arrays.binarySearch(row.values, 0, row.length, value);
+		if(i < 0) {
+			return false;
+		}
+		if(row.length == 1) {
+			rows.set(key, null);
+			size--;
+			return true;
+		}
+		int[] n = new int[row.length - 1];
+		System.arraycopy(row.values, 0, n, 0, i);
+		System.arraycopy(row.values, i + 1, n, i, n.length - i);
+		rows.set(key, new Row(n, n.length));
+		return true;
+	}
+
+	/**
+	 * Removes all values of the key.
+	 * @param key
+	 * @return removed values
+	 */
+	public synchronized int[] remove(int key) {
+		int[] row = get(key);
+		if(row.length > 0) {
+			rows.set(key, null);
+			size--;
+		}
+		return row;
+	}
+
+	private void set(int key, Row row) {
+		AtomicReferenceArray<Row> rs = rows;
+		if(key >= rs.length()) {
+			AtomicReferenceArray<Row> n = new AtomicReferenceArray<Row>(Math.max(key + 1, rs.length() * 2));
+			for (int i = 0; i < rs.length(); i++) {
+				n.set(i, rs.get(i));
+			}
+			n.set(key, row);
+			rows = n;
+		} else {
+			rs.set(key, row);
+		}
+	}
+
+	/**
+	 * Returns keys that have values.
+	 * @return
+	 */
+	public synchronized int[] keys() {
+		int[] result = new int[size];
+		AtomicReferenceArray<Row> rs = rows;
+		int k = 0;
+		for (int i = 0; i < rs.length() && k < result.length; i++) {
+			if(rs.get(i) != null) {
+				result[k++] = i;
+			}
+		}
+		return result;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public synchronized void clear() {
+		rows = new AtomicReferenceArray<Row>(64);
+		size = 0;
+	}
+
+}
@@ -10,7 +10,7 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.validation.internal;
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -24,13 +24,22 @@ import org.jboss.tools.common.xml.XMLUtilities;
 import org.w3c.dom.Element;
 
 /**
+ * Links between variable names and resources.
+ * 
+ * Names and paths are given int ids, and links are kept as sorted int arrays indexed by ids.
+ * Arrays are replaced on modification, so that queries do not lock and return snapshots;
+ * sets returned by queries are read-only. Ids are released when their last link is removed,
+ * so queries are repeated if an id was released while they were resolved.
+ * 
  * @author Alexey Kazakov
  */
 public class LinkCollection {
-	protected Map<String, Set<IPath>> resourcesByVariableName = new HashMap<String, Set<IPath>>();
-	protected Map<IPath, Set<String>> variableNamesByResource = new HashMap<IPath, Set<String>>();
-	protected Map<String, Set<IPath>> resourcesByDeclaringVariableName = new HashMap<String, Set<IPath>>();
-	protected Map<IPath, Set<String>> declaringVariableNamesByResource = new HashMap<IPath, Set<String>>();
+	protected IdTable<String> names = new IdTable<String>();
+	protected IdTable<IPath> paths = new IdTable<IPath>();
+	protected IntIndex resourcesByVariableName = new IntIndex();
+	protected IntIndex variableNamesByResource = new IntIndex();
+	protected IntIndex resourcesByDeclaringVariableName = new IntIndex();
+	protected IntIndex declaringVariableNamesByResource = new IntIndex();
 	protected Set<IPath> unnamedResources = new HashSet<IPath>();
 	private String id;
 
@@ -55,60 +64,30 @@ public class LinkCollection {
 		if(variableName==null) {
 			throw new IllegalArgumentException(ValidationMessages.VALIDATION_CONTEXT_VARIABLE_NAME_MUST_NOT_BE_NULL);
 		}
-		
-		linkedResourcePath = UniquePaths.getInstance().intern(linkedResourcePath);
 
-		if(resourcesByVariableName != null) {
-			synchronized(this) {
-				Set<IPath> linkedResources = resourcesByVariableName.get(variableName);
-				if(linkedResources==null) {
-					// create set of linked resources with variable name.
-					linkedResources = new HashSet<IPath>();
-					resourcesByVariableName.put(variableName, linkedResources);
-				}
-				//save linked resources.
-				if(linkedResources.add(linkedResourcePath)) {
-					modifications++;
-				}
-			}
-		}
+		linkedResourcePath = UniquePaths.getInstance().intern(linkedResourcePath);
 
-		Set<String> variableNames = null;
-		// Save link between resource and variable names. It's needed if variable name changes in resource file.
 		synchronized(this) {
-			variableNames = variableNamesByResource.get(linkedResourcePath);
-			if(variableNames==null) {
-				variableNames = new HashSet<String>();
-				variableNamesByResource.put(linkedResourcePath, variableNames);
+			int name = names.intern(variableName);
+			int path = paths.intern(linkedResourcePath);
+			if(resourcesByVariableName != null && resourcesByVariableName.add(name, path)) {
+				modifications++;
 			}
-			if(variableNames.add(variableName.intern())) {
+			// Save link between resource and variable names. It's needed if variable name changes in resource file.
+			if(variableNamesByResource.add(path, name)) {
+				names.retain(name);
+				paths.retain(path);
 				modifications++;
 			}
-		}
-
-		if(declaration) {
-			synchronized(this) {
-				Set<IPath> linkedResources = resourcesByDeclaringVariableName.get(variableName);
-				if(linkedResources==null) {
-					// create set of linked resources with declaring variable name.
-					linkedResources = new HashSet<IPath>();
-					resourcesByDeclaringVariableName.put(variableName, linkedResources);
+			if(declaration) {
+				if(resourcesByDeclaringVariableName.add(name, path)) {
+					modifications++;
 				}
-				// save linked resources.
-				if(linkedResources.add(linkedResourcePath)) {
+				// Save link between resource and declaring variable names. It's needed if variable name changes in resource file.
+				if(declaringVariableNamesByResource.add(path, name)) {
 					modifications++;
 				}
 			}
-
-			// Save link between resource and declaring  variable names. It's needed if variable name changes in resource file.
-			variableNames = declaringVariableNamesByResource.get(linkedResourcePath);
-			if(variableNames==null) {
-				variableNames = new HashSet<String>();
-				declaringVariableNamesByResource.put(linkedResourcePath, variableNames);
-			}
-			if(variableNames.add(variableName)) {
-				modifications++;
-			}
 		}
 	}
 
@@ -117,52 +96,28 @@ public class LinkCollection {
 	 * @param oldVariableName
 	 * @param linkedResourcePath
 	 */
-	public void removeLinkedResource(String name, IPath linkedResourcePath) {
-		if(resourcesByVariableName != null) {
-			synchronized(this) {
-				Set<IPath> linkedResources = resourcesByVariableName.get(name);
-				if(linkedResources!=null) {
-					// remove linked resource.
-					if(linkedResources.remove(linkedResourcePath)) {
-						modifications++;
-					}
-				}
-				if(linkedResources.isEmpty()) {
-					resourcesByVariableName.remove(name);
-				}
-			}
+	public synchronized void removeLinkedResource(String name, IPath linkedResourcePath) {
+		int n = names.get(name);
+		int path = paths.get(linkedResourcePath);
+		if(n < 0 || path < 0) {
+			return;
 		}
-		// Remove link between resource and declaring variable names.
-		Set<String> variableNames = variableNamesByResource.get(linkedResourcePath);
-		if(variableNames!=null) {
-			if(variableNames.remove(name)) {
-				modifications++;
-			}
+		if(resourcesByVariableName != null && resourcesByVariableName.remove(n, path)) {
+			modifications++;
 		}
-		if(variableNames.isEmpty()) {
-			variableNamesByResource.remove(linkedResourcePath);
+		boolean removed = variableNamesByResource.remove(path, n);
+		if(removed) {
+			modifications++;
 		}
-		synchronized(this) {
-			Set<IPath> linkedResources = resourcesByDeclaringVariableName.get(name);
-			if(linkedResources!=null) {
-				// remove linked resource.
-				if(linkedResources.remove(linkedResourcePath)) {
-					modifications++;
-				}
-			}
-			if(linkedResources.isEmpty()) {
-				resourcesByDeclaringVariableName.remove(name);
-			}
+		if(resourcesByDeclaringVariableName.remove(n, path)) {
+			modifications++;
 		}
-		// Remove link between resource and declaring variable names.
-		variableNames = declaringVariableNamesByResource.get(linkedResourcePath);
-		if(variableNames!=null) {
-			if(variableNames.remove(name)) {
-				modifications++;
-			}
+		if(declaringVariableNamesByResource.remove(path, n)) {
+			modifications++;
 		}
-		if(variableNames.isEmpty()) {
-			declaringVariableNamesByResource.remove(linkedResourcePath);
+		if(removed) {
+			names.release(n, 1);
+			paths.release(path, 1);
 		}
 	}
 
@@ -181,52 +136,61 @@ public class LinkCollection {
 	 * @param linkedResources
 	 */
 	public synchronized void removeLinkedResource(IPath resource) {
-		Set<String> resourceNames = variableNamesByResource.get(resource);
-		if(resourceNames!=null && resourcesByVariableName != null) {
-			for (String name : resourceNames) {
-				Set<IPath> linkedResources = resourcesByVariableName.get(name);
-				if(linkedResources!=null) {
-					if(linkedResources.remove(resource)) {
+		int path = paths.get(resource);
+		if(path < 0) {
+			return;
+		}
+		int[] linkedNames = variableNamesByResource.remove(path);
+		if(linkedNames.length > 0) {
+			modifications++;
+			if(resourcesByVariableName != null) {
+				for (int name : linkedNames) {
+					if(resourcesByVariableName.remove(name, path)) {
 						modifications++;
 					}
-					if(linkedResources.isEmpty()) {
-						resourcesByVariableName.remove(name);
-					}
 				}
 			}
 		}
-		if(variableNamesByResource.remove(resource) != null) {
+		int[] resourceNames = declaringVariableNamesByResource.remove(path);
+		if(resourceNames.length > 0) {
 			modifications++;
-		}
-
-		resourceNames = declaringVariableNamesByResource.get(resource);
-		if(resourceNames!=null) {
-			for (String name : resourceNames) {
-				Set<IPath> linkedResources = resourcesByDeclaringVariableName.get(name);
-				if(linkedResources!=null) {
-					if(linkedResources.remove(resource)) {
-						modifications++;
-					}
-					if(linkedResources.isEmpty()) {
-						resourcesByDeclaringVariableName.remove(name);
-					}
+			for (int name : resourceNames) {
+				if(resourcesByDeclaringVariableName.remove(name, path)) {
+					modifications++;
 				}
 			}
 		}
-		if(declaringVariableNamesByResource.remove(resource) != null) {
-			modifications++;
+		for (int name : linkedNames) {
+			names.release(name, 1);
 		}
+		paths.release(path, linkedNames.length);
 	}
 
 	public Set<IPath> getResourcesByVariableName(String variableName, boolean declaration) {
-		if(!declaration && resourcesByVariableName == null) {
+		IntIndex index = declaration ? resourcesByDeclaringVariableName : resourcesByVariableName;
+		if(index == null) {
 			throw new RuntimeException("ResourcesByVariableName are disabled.");
 		}
-		return declaration ? resourcesByDeclaringVariableName.get(variableName) : resourcesByVariableName.get(variableName);
+		while(true) {
+			int version = names.version() + paths.version();
+			int[] result = index.get(names.get(variableName));
+			Set<IPath> set = result.length == 0 ? null : paths.asSet(result);
+			if(version == names.version() + paths.version()) {
+				return set;
+			}
+		}
 	}
 
-	public synchronized Set<String> getVariableNamesByResource(IPath fullPath, boolean declaration) {
-		return declaration?declaringVariableNamesByResource.get(fullPath):variableNamesByResource.get(fullPath);
+	public Set<String> getVariableNamesByResource(IPath fullPath, boolean declaration) {
+		IntIndex index = declaration ? declaringVariableNamesByResource : variableNamesByResource;
+		while(true) {
+			int version = names.version() + paths.version();
+			int[] result = index.get(paths.get(fullPath));
+			Set<String> set = result.length == 0 ? null : names.asSet(result);
+			if(version == names.version() + paths.version()) {
+				return set;
+			}
+		}
 	}
 
 	/**
@@ -268,6 +232,8 @@ public class LinkCollection {
 		declaringVariableNamesByResource.clear();
 		resourcesByDeclaringVariableName.clear();
 		unnamedResources.clear();
+		names.clear();
+		paths.clear();
 		modifications = 0;
 	}
 
@@ -276,16 +242,13 @@ public class LinkCollection {
 	 * @param root
 	 */
 	public synchronized void store(Element root, Map<String, String> pathAliases) {
-		Set<IPath> paths = variableNamesByResource.keySet();
-		for (IPath path: paths) {
-			String pathAlias = ELReference.getAlias(pathAliases, path.toString());
-			Set<String> variables = variableNamesByResource.get(path);
-			if(variables == null || variables.isEmpty()) continue;
+		for (int path: variableNamesByResource.keys()) {
+			String pathAlias = ELReference.getAlias(pathAliases, paths.value(path).toString());
 			StringBuilder declarationFalseNames = new StringBuilder();
 			StringBuilder declarationTrueNames = new StringBuilder();
-			for (String name: variables) {
-				String nameAlias = ELReference.getAlias(pathAliases, name);
-				if(checkDeclaration(path, name)) {
+			for (int name: variableNamesByResource.get(path)) {
+				String nameAlias = ELReference.getAlias(pathAliases, names.value(name));
+				if(declaringVariableNamesByResource.contains(path, name)) {
 					declarationTrueNames.append(nameAlias).append(";");
 				} else {
 					declarationFalseNames.append(nameAlias).append(";");
@@ -354,16 +317,61 @@ public class LinkCollection {
 		modifications = 0;
 	}
 
-	private boolean checkDeclaration(IPath resource, String variableName) {
-		Set<IPath> paths = resourcesByDeclaringVariableName.get(variableName);
-		if(paths!=null) {
-			for (IPath path : paths) {
-				if(path.equals(resource)) {
-					return true;
-				}
+	/**
+	 * Store the collection in binary form.
+	 * Returns the number of modifications written, they should be
+	 * cleared with storeCompleted() once the writer is saved.
+	 * @param out
+	 * @throws IOException
+	 */
+	synchronized int store(LinkStorage.Writer out) throws IOException {
+		int stored = modifications;
+		int[] keys = variableNamesByResource.keys();
+		out.writeInt(keys.length);
+		for (int path: keys) {
+			int[] variables = variableNamesByResource.get(path);
+			out.writePath(paths.value(path));
+			out.writeInt(variables.length);
+			for (int name: variables) {
+				out.writeString(names.value(name));
+				out.writeBoolean(declaringVariableNamesByResource.contains(path, name));
 			}
 		}
-		return false;
+		out.writeInt(unnamedResources.size());
+		for (IPath unnamedPath: unnamedResources) {
+			out.writePath(unnamedPath);
+		}
+		return stored;
+	}
+
+	/**
+	 * Clears modifications written by store(LinkStorage.Writer)
+	 * after the writer has been successfully saved.
+	 * @param stored
+	 */
+	synchronized void storeCompleted(int stored) {
+		modifications = Math.max(0, modifications - stored);
+	}
+
+	/**
+	 * Load the collection stored in binary form
+	 * @param in
+	 */
+	synchronized void load(LinkStorage.Reader in) {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			IPath path = in.readPath();
+			int count = in.readInt();
+			for (int j = 0; j < count; j++) {
+				String name = in.readString();
+				addLinkedResource(name, path, in.readBoolean());
+			}
+		}
+		size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			addUnnamedResource(in.readPath());
+		}
+		modifications = 0;
 	}
 
 	public int getModificationsSinceLastStore() {
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.jboss.tools.common.util.UniquePaths;
+
+/**
+ * Binary storage of a link collection.
+ *
+ * A file starts with a header (magic number, format version, collection id),
+ * followed by a table of all strings used by the collection, and then by
+ * the collection body in which every name and path is an index in the string table.
+ *
+ * Files are read at once into a heap buffer rather than mapped, so that
+ * a file is not locked while its collection is lazily loaded
+ * and can be replaced by the next store.
+ *
+ * @author V. Kabanovich
+ */
+class LinkStorage {
+	static final int MAGIC = 0x4A425456; // JBTV
+	static final int VERSION = 1;
+	static final String UTF8 = "UTF-8"; //$NON-NLS-1$
+
+	/**
+	 * Collects the body of a collection and its string table,
+	 * and writes them to a file when the collection is stored.
+	 */
+	static class Writer {
+		private Map<String, Integer> indexes = new HashMap<String, Integer>();
+		private List<String> strings = new ArrayList<String>();
+		private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private DataOutputStream body = new DataOutputStream(bytes);
+
+		public void writeInt(int i) throws IOException {
+			body.writeInt(i);
+		}
+
+		public void writeBoolean(boolean b) throws IOException {
+			body.writeBoolean(b);
+		}
+
+		public void writeString(String s) throws IOException {
+			Integer index = indexes.get(s);
+			if(index == null) {
+				index = strings.size();
+				indexes.put(s, index);
+				strings.add(s);
+			}
+			body.writeInt(index.intValue());
+		}
+
+		public void writePath(IPath path) throws IOException {
+			writeString(path.toString());
+		}
+
+		/**
+		 * Writes the collection to a temporary file that then replaces the target file,
+		 * so that an interrupted store does not leave a broken file.
+		 * @param id
+		 * @param file
+		 * @throws IOException
+		 */
+		public void writeTo(String id, File file) throws IOException {
+			File tmp = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				writeUTF(out, id);
+				out.writeInt(strings.size());
+				for (String s: strings) {
+					writeUTF(out, s);
+				}
+				body.flush();
+				bytes.writeTo(out);
+			} finally {
+				out.close();
+			}
+			if(file.exists() && !file.delete()) {
+				tmp.delete();
+				throw new IOException("Cannot replace " + file); //$NON-NLS-1$
+			}
+			if(!tmp.renameTo(file)) {
+				throw new IOException("Cannot rename " + tmp + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+
+		private static void writeUTF(DataOutputStream out, String s) throws IOException {
+			byte[] b = s.getBytes(UTF8);
+			out.writeInt(b.length);
+			out.write(b);
+		}
+	}
+
+	/**
+	 * Reads a collection body from a file.
+	 */
+	static class Reader {
+		private ByteBuffer buffer;
+		private String id;
+		private String[] strings;
+		private IPath[] paths;
+
+		public Reader(File file) throws IOException {
+			FileInputStream in = new FileInputStream(file);
+			try {
+				FileChannel channel = in.getChannel();
+				buffer = ByteBuffer.allocate((int)channel.size());
+				while(buffer.hasRemaining()) {
+					if(channel.read(buffer) < 0) {
+						throw new IOException("Unexpected end of " + file); //$NON-NLS-1$
+					}
+				}
+				buffer.flip();
+			} finally {
+				in.close();
+			}
+			try {
+				if(buffer.getInt() != MAGIC) {
+					throw new IOException("Unknown format of " + file); //$NON-NLS-1$
+				}
+				int version = buffer.getInt();
+				if(version != VERSION) {
+					throw new IOException("Unsupported version " + version + " of " + file); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				id = readUTF(buffer);
+				int size = buffer.getInt();
+				strings = new String[size];
+				for (int i = 0; i < size; i++) {
+					strings[i] = readUTF(buffer);
+				}
+				paths = new IPath[size];
+			} catch (RuntimeException e) {
+				throw new IOException("Corrupted file " + file, e); //$NON-NLS-1$
+			}
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public boolean hasMore() {
+			return buffer.hasRemaining();
+		}
+
+		public int readInt() {
+			return buffer.getInt();
+		}
+
+		public boolean readBoolean() {
+			return buffer.get() != 0;
+		}
+
+		public String readString() {
+			return strings[buffer.getInt()];
+		}
+
+		public IPath readPath() {
+			int index = buffer.getInt();
+			IPath path = paths[index];
+			if(path == null) {
+				path = UniquePaths.getInstance().intern(new Path(strings[index]));
+				paths[index] = path;
+			}
+			return path;
+		}
+
+		/**
+		 * Reads collection id from the header without reading the whole file.
+		 * @param file
+		 * @return
+		 * @throws IOException
+		 */
+		public static String readId(File file) throws IOException {
+			DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try {
+				if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+					throw new IOException("Unknown format of " + file); //$NON-NLS-1$
+				}
+				byte[] b = new byte[in.readInt()];
+				in.readFully(b);
+				return new String(b, UTF8);
+			} finally {
+				in.close();
+			}
+		}
+
+		private static String readUTF(ByteBuffer buffer) throws UnsupportedEncodingException {
+			byte[] b = new byte[buffer.getInt()];
+			buffer.get(b);
+			return new String(b, UTF8).intern();
+		}
+	}
+
+}
@@ -10,15 +10,21 @@
  ******************************************************************************/
 package org.jboss.tools.common.validation.internal;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IPath;
 import org.jboss.tools.common.el.core.ELReference;
+import org.jboss.tools.common.validation.CommonValidationPlugin;
 import org.jboss.tools.common.validation.IProjectValidationContext;
 import org.jboss.tools.common.validation.ValidationResourceRegister;
 import org.jboss.tools.common.xml.XMLUtilities;
@@ -27,6 +33,14 @@ import org.w3c.dom.Element;
 /**
  * Contains information for validators that must be saved between
  * validation invoking.
+ *
+ * A context created for a project is stored by store(Element) in binary form
+ * to the folder of the project given by ValidationContextStorage.
+ * Binary files are not memory-mapped: each file is read at once into a heap buffer
+ * when its collection is first requested, because a mapped buffer cannot be
+ * released explicitly and would keep the file locked on Windows until it is
+ * garbage collected, so that the next store could not replace the file.
+ *
  * @author Alexey Kazakov
  */
 public class ProjectValidationContext implements IProjectValidationContext {
@@ -40,11 +54,23 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	static String FULL_VALIDATION_REQUIRED = "fullValidationRequired"; //$NON-NLS-1$
 	static String VALIDATOR_ID = "validator-id"; //$NON-NLS-1$
 	static String TRUE = "true"; //$NON-NLS-1$
+	static String LINKS_EXTENSION = ".links"; //$NON-NLS-1$
+	static String CORE_LINKS_PREFIX = "core-"; //$NON-NLS-1$
+	static String EL_LINKS_FILE = "el" + LINKS_EXTENSION; //$NON-NLS-1$
+	static String STATE_FILE = "state"; //$NON-NLS-1$
+	static String STORAGE = "storage"; //$NON-NLS-1$
 
 	// We should load/save these collections between eclipse sessions.
 	private Map<String, LinkCollection> coreLinks = new HashMap<String, LinkCollection>();
 	private ELValidatorContext elLinks = new ELValidatorContext("jboss.el"); //$NON-NLS-1$
 
+	// Collections stored in binary form that are not loaded yet.
+	private Map<String, File> storedCoreLinks = new HashMap<String, File>();
+	private File storedElLinks;
+	private File storage;
+
+	private IProject project;
+
 	private Map<String, Set<String>> oldVariableNamesForELValidation = new HashMap<String, Set<String>>();
 
 	private ValidationResourceRegister validationResourceRegister;
@@ -53,7 +79,24 @@ public class ProjectValidationContext implements IProjectValidationContext {
 
 	public ProjectValidationContext() {}
 
-	public LinkCollection getCoreLinks(String validatorId) {
+	/**
+	 * Creates context which store(Element) writes in binary form 
+	 * to the storage folder of the project.
+	 * @param project
+	 */
+	public ProjectValidationContext(IProject project) {
+		this.project = project;
+	}
+
+	public IProject getProject() {
+		return project;
+	}
+
+	public void setProject(IProject project) {
+		this.project = project;
+	}
+
+	public synchronized LinkCollection getCoreLinks(String validatorId) {
 		LinkCollection linkCollection = coreLinks.get(validatorId);
 		if(linkCollection==null) {
 			linkCollection = new LinkCollection(validatorId);
@@ -61,10 +104,38 @@ public class ProjectValidationContext implements IProjectValidationContext {
 				linkCollection.disableResourcesByVariableName();
 			}
 			coreLinks.put(validatorId, linkCollection);
+			File file = storedCoreLinks.remove(validatorId);
+			if(file != null) {
+				load(linkCollection, file);
+			}
 		}
 		return linkCollection;
 	}
 
+	synchronized ELValidatorContext getElLinks() {
+		if(storedElLinks != null) {
+			File file = storedElLinks;
+			storedElLinks = null;
+			load(elLinks, file);
+		}
+		return elLinks;
+	}
+
+	private void load(LinkCollection links, File file) {
+		try {
+			links.load(new LinkStorage.Reader(file));
+		} catch (IOException e) {
+			CommonValidationPlugin.getDefault().logError(e);
+			links.clearAll();
+			setFullValidationRequired(true);
+		} catch (RuntimeException e) {
+			// Broken file, the links will be rebuilt by full validation.
+			CommonValidationPlugin.getDefault().logError(e);
+			links.clearAll();
+			setFullValidationRequired(true);
+		}
+	}
+
 	private Set<String> getOldVariableNamesForELValidation(String validatorId) {
 		Set<String> linkCollection = oldVariableNamesForELValidation.get(validatorId);
 		if(linkCollection==null) {
@@ -76,7 +147,10 @@ public class ProjectValidationContext implements IProjectValidationContext {
 
 	private Set<String> getIds() {
 		Set<String> ids = new HashSet<String>();
-		ids.addAll(coreLinks.keySet());
+		synchronized (this) {
+			ids.addAll(coreLinks.keySet());
+			ids.addAll(storedCoreLinks.keySet());
+		}
 		ids.addAll(oldVariableNamesForELValidation.keySet());
 		return ids;
 	}
@@ -158,7 +232,7 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContext#getUnnamedElResources()
 	 */
 	public Set<IPath> getUnnamedElResources() {
-		return elLinks.getUnnamedResources();
+		return getElLinks().getUnnamedResources();
 	}
 
 	/*
@@ -166,7 +240,7 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContext#removeUnnamedElResource(org.eclipse.core.runtime.IPath)
 	 */
 	public void removeUnnamedElResource(IPath fullPath) {
-		elLinks.removeUnnamedResource(fullPath);
+		getElLinks().removeUnnamedResource(fullPath);
 	}
 
 	/*
@@ -182,7 +256,7 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContext#removeLinkedEls(java.util.Set)
 	 */
 	public void removeLinkedEls(Set<IFile> resorces) {
-		elLinks.removeLinkedEls(resorces);
+		getElLinks().removeLinkedEls(resorces);
 	}
 
 	/*
@@ -199,7 +273,7 @@ public class ProjectValidationContext implements IProjectValidationContext {
 				if(newNames!=null) {
 					for (String newName : newNames) {
 						if(!onlyChangedVariables || (oldVariableNamesForELValidation!=null && !oldVariableNamesForELValidation.contains(newName))) {
-							Set<ELReference> els = elLinks.getElsByVariableName(newName);
+							Set<ELReference> els = getElLinks().getElsByVariableName(newName);
 							if(els!=null) {
 								result.addAll(els);
 							}
@@ -207,14 +281,14 @@ public class ProjectValidationContext implements IProjectValidationContext {
 					}
 				}
 				// Threat resource path as a variable name too.
-				Set<ELReference> els = elLinks.getElsByVariableName(resource.getFullPath().toString());
+				Set<ELReference> els = getElLinks().getElsByVariableName(resource.getFullPath().toString());
 				if(els!=null) {
 					result.addAll(els);
 				}
 				if(oldVariableNamesForELValidation!=null) {
 					for (String oldName :oldVariableNamesForELValidation) {
 						if(!onlyChangedVariables || newNames==null || !newNames.contains(oldName)) {
-							els = elLinks.getElsByVariableName(oldName);
+							els = getElLinks().getElsByVariableName(oldName);
 							if(els!=null) {
 								result.addAll(els);
 							}
@@ -234,7 +308,11 @@ public class ProjectValidationContext implements IProjectValidationContext {
 		for (LinkCollection links : coreLinks.values()) {
 			links.clearAll();
 		}
-		coreLinks.clear();
+		synchronized (this) {
+			coreLinks.clear();
+			storedCoreLinks.clear();
+			storedElLinks = null;
+		}
 		elLinks.clearAll();
 		oldVariableNamesForELValidation.clear();
 	}
@@ -252,7 +330,7 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContext#addLinkedEl(java.lang.String, org.jboss.tools.jst.web.kb.validation.ELReference)
 	 */
 	public void addLinkedEl(String variableName, ELReference el) {
-		elLinks.addLinkedEl(variableName, el);
+		getElLinks().addLinkedEl(variableName, el);
 	}
 
 	/*
@@ -260,7 +338,7 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContext#removeLinkedEl(java.lang.String, org.jboss.tools.jst.web.kb.validation.ELReference)
 	 */
 	public void removeLinkedEl(String name, ELReference el) {
-		elLinks.removeLinkedEl(name, el);
+		getElLinks().removeLinkedEl(name, el);
 	}
 
 	/*
@@ -268,7 +346,7 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	 * @see org.jboss.tools.common.validation.IProjectValidationContext#removeLinkedEl(org.jboss.tools.common.el.core.ELReference)
 	 */
 	public void removeLinkedEl(ELReference el) {
-		elLinks.removeLinkedEl(el);
+		getElLinks().removeLinkedEl(el);
 	}
 
 	/*
@@ -276,7 +354,7 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContext#getElsByVariableName(java.lang.String)
 	 */
 	public Set<ELReference> getElsByVariableName(String variableName) {
-		return elLinks.getElsByVariableName(variableName);
+		return getElLinks().getElsByVariableName(variableName);
 	}
 
 	/*
@@ -284,18 +362,48 @@ public class ProjectValidationContext implements IProjectValidationContext {
 	 * @see org.jboss.tools.jst.web.kb.validation.IValidationContext#store(org.w3c.dom.Element)
 	 */
 	public void store(Element root) {
-		Map<String, String> pathAliases = new HashMap<String, String>();
+		File folder = project == null ? null : ValidationContextStorage.getFolder(project);
+		File oldStorage = storage;
+		if(folder != null) {
+			try {
+				store(folder);
+			} catch (IOException e) {
+				CommonValidationPlugin.getDefault().logError(e);
+				folder = null;
+			}
+		}
 		Element validation = XMLUtilities.createElement(root, VALIDATION);
 		if(isFullValidationRequired()) {
 			validation.setAttribute(FULL_VALIDATION_REQUIRED, TRUE);
 		}
+		if(folder != null) {
+			// Links are in binary storage, XML only refers to it.
+			validation.setAttribute(STORAGE, ValidationContextStorage.toReference(folder));
+			if(oldStorage != null && !oldStorage.equals(folder) && ValidationContextStorage.isInRoot(oldStorage)) {
+				// Storage of the project under its old name.
+				ValidationContextStorage.delete(oldStorage);
+			}
+			return;
+		}
+		synchronized (this) {
+			loadStoredLinks();
+			storage = null;
+		}
+		// Links are written to XML, binary storage is obsolete.
+		if(project != null) {
+			ValidationContextStorage.projectDeleted(project);
+		}
+		if(oldStorage != null && ValidationContextStorage.isInRoot(oldStorage)) {
+			ValidationContextStorage.delete(oldStorage);
+		}
+		Map<String, String> pathAliases = new HashMap<String, String>();
 		for (LinkCollection links : coreLinks.values()) {
 			Element core = XMLUtilities.createElement(validation, CORE);
 			core.setAttribute(VALIDATOR_ID, links.getId());
 			links.store(core, pathAliases);
 		}
 		Element el = XMLUtilities.createElement(validation, EL);
-		elLinks.store(el, pathAliases);
+		getElLinks().store(el, pathAliases);
 		
 		Element aliases = XMLUtilities.createElement(root, ALIASES);
 		for (String path: pathAliases.keySet()) {
@@ -324,6 +432,15 @@ public class ProjectValidationContext implements IProjectValidationContext {
 
 		Element validation = XMLUtilities.getUniqueChild(root, VALIDATION);
 		if(validation == null) return;
+		String reference = validation.getAttribute(STORAGE);
+		if(reference != null && reference.length() > 0) {
+			File folder = ValidationContextStorage.fromReference(reference);
+			if(folder == null || !load(folder)) {
+				// Binary storage is lost.
+				setFullValidationRequired(true);
+			}
+			return;
+		}
 		setFullValidationRequired(TRUE.equals(validation.getAttribute(FULL_VALIDATION_REQUIRED)));
 		Element[] cores = XMLUtilities.getChildren(validation, CORE);
 		for (Element core : cores) {
@@ -334,8 +451,131 @@ public class ProjectValidationContext implements IProjectValidationContext {
 		}
 		Element[] els = XMLUtilities.getChildren(validation, EL);
 		for (Element el : els) {
-			elLinks.load(el, pathAliases);
+			getElLinks().load(el, pathAliases);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jboss.tools.common.validation.IProjectValidationContext#store(java.io.File)
+	 */
+	public synchronized void store(File folder) throws IOException {
+		if(!folder.equals(storage)) {
+			loadStoredLinks();
+		}
+		if(!folder.isDirectory() && !folder.mkdirs()) {
+			throw new IOException("Cannot create " + folder); //$NON-NLS-1$
+		}
+		Set<String> fileNames = new HashSet<String>();
+		for (LinkCollection links : coreLinks.values()) {
+			String fileName = getCoreLinksFileName(links.getId());
+			if(store(links, new File(folder, fileName))) {
+				fileNames.add(fileName);
+			}
+		}
+		for (String id : storedCoreLinks.keySet()) {
+			// Not loaded since the last store, the file is up to date.
+			fileNames.add(getCoreLinksFileName(id));
+		}
+		if(storedElLinks != null || store(elLinks, new File(folder, EL_LINKS_FILE))) {
+			fileNames.add(EL_LINKS_FILE);
+		}
+		File[] files = folder.listFiles();
+		if(files != null) {
+			for (File file : files) {
+				if(file.getName().endsWith(LINKS_EXTENSION) && !fileNames.contains(file.getName())) {
+					file.delete();
+				}
+			}
+		}
+		FileOutputStream out = new FileOutputStream(new File(folder, STATE_FILE));
+		try {
+			out.write(isFullValidationRequired() ? 1 : 0);
+		} finally {
+			out.close();
+		}
+		storage = folder;
+	}
+
+	/**
+	 * Writes the collection if it was modified since the last store or has not been stored yet.
+	 * Returns false if the collection is empty and the file should not exist.
+	 */
+	private boolean store(LinkCollection links, File file) throws IOException {
+		if(links.isEmpty()) {
+			return false;
+		}
+		if(links.getModificationsSinceLastStore() > 0 || !file.isFile() || !file.getParentFile().equals(storage)) {
+			LinkStorage.Writer out = new LinkStorage.Writer();
+			int stored = links.store(out);
+			out.writeTo(links.getId(), file);
+			links.storeCompleted(stored);
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.jboss.tools.common.validation.IProjectValidationContext#load(java.io.File)
+	 */
+	public boolean load(File folder) {
+		File state = new File(folder, STATE_FILE);
+		if(!state.isFile()) {
+			return false;
+		}
+		clearAll();
+		boolean fullValidationRequired = true;
+		try {
+			FileInputStream in = new FileInputStream(state);
+			try {
+				fullValidationRequired = in.read() != 0;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			CommonValidationPlugin.getDefault().logError(e);
+		}
+		synchronized (this) {
+			File[] files = folder.listFiles();
+			if(files != null) {
+				for (File file : files) {
+					String name = file.getName();
+					if(name.equals(EL_LINKS_FILE)) {
+						storedElLinks = file;
+					} else if(name.startsWith(CORE_LINKS_PREFIX) && name.endsWith(LINKS_EXTENSION)) {
+						try {
+							storedCoreLinks.put(LinkStorage.Reader.readId(file), file);
+						} catch (IOException e) {
+							CommonValidationPlugin.getDefault().logError(e);
+							fullValidationRequired = true;
+						}
+					}
+				}
+			}
+			storage = folder;
+		}
+		setFullValidationRequired(fullValidationRequired);
+		return true;
+	}
+
+	private synchronized void loadStoredLinks() {
+		for (String id : storedCoreLinks.keySet().toArray(new String[0])) {
+			getCoreLinks(id);
+		}
+		getElLinks();
+	}
+
+	static String getCoreLinksFileName(String validatorId) {
+		StringBuilder sb = new StringBuilder(CORE_LINKS_PREFIX);
+		for (int i = 0; i < validatorId.length(); i++) {
+			char c = validatorId.charAt(i);
+			if(Character.isLetterOrDigit(c) || c == '.' || c == '-') {
+				sb.append(c);
+			} else {
+				sb.append('_').append(Integer.toHexString(c));
+			}
 		}
+		return sb.append(LINKS_EXTENSION).toString();
 	}
 
 	public int getModificationsSinceLastStore() {
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.internal;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.jboss.tools.common.validation.CommonValidationPlugin;
+
+/**
+ * Folders of binary storage of project validation contexts in the plugin state location,
+ * one folder for a project, named after the project. XML of a context refers to its folder
+ * by that name, so that the storage is not lost when the workspace is moved.
+ *
+ * The folder of a project is deleted when the project is deleted. Folders of projects
+ * that are not in the workspace, for example deleted while the plugin was not active,
+ * or renamed, are deleted when the plugin starts.
+ *
+ * @author V. Kabanovich
+ */
+public class ValidationContextStorage {
+	static String STORAGE_FOLDER = "validation"; //$NON-NLS-1$
+
+	private static IResourceChangeListener listener = null;
+
+	/**
+	 * Returns the folder containing folders of all projects,
+	 * or null if the plugin is not active.
+	 */
+	public static File getRoot() {
+		CommonValidationPlugin plugin = CommonValidationPlugin.getDefault();
+		return plugin == null ? null : plugin.getStateLocation().append(STORAGE_FOLDER).toFile();
+	}
+
+	/**
+	 * Returns the folder for binary storage of the project context,
+	 * or null if the plugin is not active.
+	 * @param project
+	 * @return
+	 */
+	public static File getFolder(IProject project) {
+		File root = getRoot();
+		return root == null ? null : new File(root, getFolderName(project.getName()));
+	}
+
+	/**
+	 * Returns name of the folder for the project. Characters other than letters,
+	 * digits, '.' and '-' are escaped, so that different names give different folders.
+	 */
+	static String getFolderName(String projectName) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < projectName.length(); i++) {
+			char c = projectName.charAt(i);
+			if(Character.isLetterOrDigit(c) || c == '.' || c == '-') {
+				sb.append(c);
+			} else {
+				sb.append('_').append(Integer.toHexString(c));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the value by which XML refers to the folder: the name
+	 * of a folder in the storage root, otherwise the absolute path.
+	 */
+	static String toReference(File folder) {
+		return isInRoot(folder) ? folder.getName() : folder.getAbsolutePath();
+	}
+
+	/**
+	 * Returns the folder XML refers to by the value written by toReference(),
+	 * or null if the plugin is not active.
+	 */
+	static File fromReference(String reference) {
+		File file = new File(reference);
+		if(file.isAbsolute()) {
+			return file;
+		}
+		File root = getRoot();
+		return root == null ? null : new File(root, reference);
+	}
+
+	/**
+	 * Returns true if the folder is a folder of a project in the storage root.
+	 */
+	static boolean isInRoot(File folder) {
+		File root = getRoot();
+		return root != null && root.equals(folder.getAbsoluteFile().getParentFile());
+	}
+
+	static void delete(File f) {
+		File[] files = f.listFiles();
+		if(files != null) {
+			for (File c: files) {
+				delete(c);
+			}
+		}
+		f.delete();
+	}
+
+	/**
+	 * Deletes folders of projects that are not in the workspace.
+	 */
+	public static void prune() {
+		File root = getRoot();
+		File[] folders = root == null ? null : root.listFiles();
+		if(folders == null || folders.length == 0) {
+			return;
+		}
+		Set<String> names = new HashSet<String>();
+		for (IProject project: ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+			names.add(getFolderName(project.getName()));
+		}
+		for (File folder: folders) {
+			if(!names.contains(folder.getName())) {
+				delete(folder);
+			}
+		}
+	}
+
+	/**
+	 * Deletes storage of the project.
+	 * @param project
+	 */
+	public static void projectDeleted(IProject project) {
+		File folder = getFolder(project);
+		if(folder != null && folder.exists()) {
+			delete(folder);
+		}
+	}
+
+	/**
+	 * Starts deleting folders of deleted projects and deletes folders of projects
+	 * that are not in the workspace. Called when the plugin starts.
+	 */
+	public static synchronized void start() {
+		if(listener != null) {
+			return;
+		}
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		listener = new IResourceChangeListener() {
+			public void resourceChanged(IResourceChangeEvent event) {
+				if(event.getType() == IResourceChangeEvent.PRE_DELETE
+						&& event.getResource() instanceof IProject) {
+					projectDeleted((IProject)event.getResource());
+				}
+			}
+		};
+		workspace.addResourceChangeListener(listener, IResourceChangeEvent.PRE_DELETE);
+		prune();
+	}
+
+	public static synchronized void stop() {
+		if(listener != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+			listener = null;
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.el.core.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Corpus of real-world expressions used by benchmarks.
+ *
+ * @author V. Kabanovich
+ */
+public class Corpus {
+	static String RESOURCE = "expressions.txt"; //$NON-NLS-1$
+
+	private static String[] expressions;
+
+	public static synchronized String[] getExpressions() {
+		if(expressions == null) {
+			expressions = load();
+		}
+		return expressions;
+	}
+
+	/**
+	 * Returns all expressions of the corpus joined into one text,
+	 * similar to a page body.
+	 * @return
+	 */
+	public static String getPage() {
+		StringBuilder sb = new StringBuilder();
+		for (String s: getExpressions()) {
+			sb.append(s).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static String[] load() {
+		List<String> result = new ArrayList<String>();
+		InputStream is = Corpus.class.getResourceAsStream(RESOURCE);
+		if(is == null) {
+			throw new IllegalStateException("Cannot find " + RESOURCE); //$NON-NLS-1$
+		}
+		try {
+			BufferedReader r = new BufferedReader(new InputStreamReader(is, "UTF-8")); //$NON-NLS-1$
+			try {
+				String line = null;
+				while((line = r.readLine()) != null) {
+					if(line.trim().length() > 0 && !line.startsWith("# ")) { //$NON-NLS-1$
+						result.add(line);
+					}
+				}
+			} finally {
+				r.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return result.toArray(new String[result.size()]);
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.el.core.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tools.common.el.core.model.ELExpression;
+import org.jboss.tools.common.el.core.model.ELInstance;
+import org.jboss.tools.common.el.core.model.ELInvocationExpression;
+import org.jboss.tools.common.el.core.model.ELModel;
+import org.jboss.tools.common.el.core.model.ELObject;
+import org.jboss.tools.common.el.core.parser.ELParserUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures traversal of parsed models, the way content assist and validators
+ * walk instances, expressions and invocations.
+ *
+ * @author V. Kabanovich
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ModelTraversalBenchmark {
+
+	ELModel[] models;
+
+	@Setup
+	public void setUp() {
+		String[] expressions = Corpus.getExpressions();
+		models = new ELModel[expressions.length];
+		for (int i = 0; i < expressions.length; i++) {
+			models[i] = ELParserUtil.getJbossFactory().createParser().parse(expressions[i]);
+		}
+	}
+
+	@Benchmark
+	public void visitChildren(Blackhole bh) {
+		for (ELModel model: models) {
+			visit(model, bh);
+		}
+	}
+
+	private void visit(ELObject object, Blackhole bh) {
+		bh.consume(object.getType());
+		List<ELObject> children = object.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			visit(children.get(i), bh);
+		}
+	}
+
+	@Benchmark
+	public void collectInvocations(Blackhole bh) {
+		for (ELModel model: models) {
+			for (ELInstance instance: model.getInstances()) {
+				ELExpression expression = instance.getExpression();
+				if(expression != null) {
+					for (ELInvocationExpression invocation: expression.getInvocations()) {
+						bh.consume(invocation.getText());
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.el.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tools.common.el.core.model.ELModel;
+import org.jboss.tools.common.el.core.parser.ELParserFactory;
+import org.jboss.tools.common.el.core.parser.ELParserUtil;
+import org.jboss.tools.common.el.core.parser.PackedTokens;
+import org.jboss.tools.common.el.core.parser.Tokenizer;
+import org.jboss.tools.common.el.internal.core.parser.ELParserImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures parsing of the corpus: building of the model from pre-tokenized input,
+ * full parsing by a factory parser, parsing of the corpus as one page,
+ * and parsing through the shared cache.
+ *
+ * @author V. Kabanovich
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParserBenchmark {
+
+	@Param({"default", "jboss", "collection"})
+	String tokenizer;
+
+	String[] expressions;
+	String page;
+	PackedTokens[] tokens;
+	ELParserFactory factory;
+
+	@Setup
+	public void setUp() {
+		expressions = Corpus.getExpressions();
+		page = Corpus.getPage();
+		factory = getFactory(tokenizer);
+		Tokenizer t = TokenizerBenchmark.createTokenizer(tokenizer);
+		tokens = new PackedTokens[expressions.length];
+		for (int i = 0; i < expressions.length; i++) {
+			tokens[i] = t.parsePacked(expressions[i], 0, expressions[i].length());
+			t.dispose();
+		}
+	}
+
+	static ELParserFactory getFactory(String name) {
+		if("jboss".equals(name)) {
+			return ELParserUtil.getJbossFactory();
+		} else if("collection".equals(name)) {
+			return ELParserUtil.getCollectionFactory();
+		}
+		return ELParserUtil.getDefaultFactory();
+	}
+
+	@Benchmark
+	public void buildModel(Blackhole bh) {
+		ELParserImpl impl = new ELParserImpl();
+		for (PackedTokens t: tokens) {
+			bh.consume(impl.parse(t));
+		}
+	}
+
+	@Benchmark
+	public void parse(Blackhole bh) {
+		for (String s: expressions) {
+			bh.consume(factory.createParser().parse(s));
+		}
+	}
+
+	@Benchmark
+	public ELModel parsePage() {
+		return factory.createParser().parse(page);
+	}
+
+	@Benchmark
+	public void parseCached(Blackhole bh) {
+		for (String s: expressions) {
+			bh.consume(ELParserUtil.getCache().parse(factory, s));
+		}
+	}
+}
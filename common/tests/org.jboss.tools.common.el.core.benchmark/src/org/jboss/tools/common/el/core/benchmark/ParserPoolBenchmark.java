@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.el.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tools.common.el.core.model.ELModel;
+import org.jboss.tools.common.el.core.parser.ELParserFactory;
+import org.jboss.tools.common.el.core.parser.ELParserUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures contention on the shared parser pool and parser cache
+ * when several threads parse short expressions, as validators do.
+ * Parsers release themselves to the pool after each parse.
+ *
+ * @author V. Kabanovich
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParserPoolBenchmark {
+
+	String[] expressions;
+	ELParserFactory factory;
+
+	@Setup
+	public void setUp() {
+		expressions = Corpus.getExpressions();
+		factory = ELParserUtil.getJbossFactory();
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		int index;
+
+		String next(String[] expressions) {
+			if(index >= expressions.length) {
+				index = 0;
+			}
+			return expressions[index++];
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public ELModel parse1(Cursor cursor) {
+		return factory.createParser().parse(cursor.next(expressions));
+	}
+
+	@Benchmark
+	@Threads(4)
+	public ELModel parse4(Cursor cursor) {
+		return factory.createParser().parse(cursor.next(expressions));
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public ELModel parseMax(Cursor cursor) {
+		return factory.createParser().parse(cursor.next(expressions));
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public ELModel parseCachedMax(Cursor cursor) {
+		return ELParserUtil.getCache().parse(factory, cursor.next(expressions));
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.el.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tools.common.el.core.parser.LexicalToken;
+import org.jboss.tools.common.el.core.parser.Tokenizer;
+import org.jboss.tools.common.el.core.parser.TokenizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Tokenizes the corpus with each tokenizer variant, into linked tokens and into packed tokens.
+ *
+ * @author V. Kabanovich
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TokenizerBenchmark {
+
+	@Param({"default", "jboss", "collection"})
+	String tokenizer;
+
+	String[] expressions;
+	Tokenizer t;
+
+	@Setup
+	public void setUp() {
+		expressions = Corpus.getExpressions();
+		t = createTokenizer(tokenizer);
+	}
+
+	static Tokenizer createTokenizer(String name) {
+		if("jboss".equals(name)) {
+			return TokenizerFactory.createJbossTokenizer();
+		} else if("collection".equals(name)) {
+			return TokenizerFactory.createCollectionTokenizer();
+		}
+		return TokenizerFactory.createDefaultTokenizer();
+	}
+
+	@Benchmark
+	public void tokenize(Blackhole bh) {
+		for (String s: expressions) {
+			LexicalToken token = t.parse(s);
+			while(token != null) {
+				bh.consume(token.getType());
+				token = token.getNextToken();
+			}
+		}
+	}
+
+	@Benchmark
+	public void tokenizePacked(Blackhole bh) {
+		for (String s: expressions) {
+			bh.consume(t.parsePacked(s, 0, s.length()));
+		}
+	}
+}
@@ -13,12 +13,16 @@ package org.jboss.tools.common.el.core.test;
 import java.util.List;
 import java.util.Random;
 
+import org.jboss.tools.common.el.core.ELReference;
+import org.jboss.tools.common.el.core.model.ELExpression;
 import org.jboss.tools.common.el.core.model.ELInstance;
 import org.jboss.tools.common.el.core.model.ELModel;
 import org.jboss.tools.common.el.core.parser.ELParser;
+import org.jboss.tools.common.el.core.parser.ELParserCache;
 import org.jboss.tools.common.el.core.parser.ELParserFactory;
 import org.jboss.tools.common.el.core.parser.ELParserUtil;
 import org.jboss.tools.common.el.core.parser.LexicalToken;
+import org.jboss.tools.common.el.core.parser.PackedTokens;
 import org.jboss.tools.common.el.core.parser.SyntaxError;
 import org.jboss.tools.common.el.core.parser.Tokenizer;
 import org.jboss.tools.common.el.core.parser.TokenizerFactory;
@@ -365,6 +369,101 @@ public class ELParserTest extends TestCase {
 		return sb.toString();
 	}
 
+	public void testParserCache() {
+		ELParserCache cache = new ELParserCache(100);
+		ELParserFactory factory = ELParserUtil.getJbossFactory();
+		String el = "#{a.b(c.d , e['u'])}";
+		ELModel model1 = cache.parse(factory, el);
+		ELModel model2 = cache.parse(factory, new String(el));
+		assertSame(model1, model2);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(el, restore(model1.getFirstToken()));
+
+		ELModel model3 = cache.parse(ELParserUtil.getDefaultFactory(), el);
+		assertNotSame(model1, model3);
+
+		try {
+			model1.shift(10);
+			fail("Shared model should not be shifted.");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+
+		for (int i = 0; i < 1000; i++) {
+			cache.parse(factory, "#{a" + i + "}");
+		}
+		assertTrue(cache.size() <= 100);
+	}
+
+	public void testCachedSyntaxErrors() {
+		ELParserCache cache = new ELParserCache(100);
+		ELParserFactory factory = ELParserUtil.getJbossFactory();
+		StringBuilder sb = new StringBuilder("#{a.b(} ");
+		while(sb.length() <= ELParserCache.MAX_CACHED_SOURCE_LENGTH) {
+			sb.append("#{a.b(c.d)} ");
+		}
+		String[] sources = {"#{a.b(}", sb.toString()};
+		for (String source: sources) {
+			List<SyntaxError> expected = factory.createParser().parse(source).getSyntaxErrors();
+			List<SyntaxError> errors = cache.getSyntaxErrors(factory, source);
+			assertEquals(expected.size(), errors.size());
+			assertFalse(errors.isEmpty());
+			for (int i = 0; i < errors.size(); i++) {
+				assertEquals(expected.get(i).getPosition(), errors.get(i).getPosition());
+			}
+		}
+		assertEquals(1, cache.size());
+	}
+
+	public void testReferenceModelIsNotShared() {
+		String el = "#{a.b}";
+		ELModel shared = ELParserUtil.getCache().parse(ELParserUtil.getJbossFactory(), el);
+		ELExpression[] es = new ELReference().init(el);
+		assertEquals(1, es.length);
+		ELModel model = es[0].getModel();
+		assertNotSame(shared, model);
+		model.shift(10);
+		assertEquals(10, model.getFirstToken().getStart());
+		assertEquals(0, shared.getFirstToken().getStart());
+	}
+
+	public void testPackedTokens() {
+		String[] els = {"#{a.b(c.d , e['u'])}", "aa#{a.b(7 + 8) * 4 / 2 - 1}bb", "#{a.}", "#{c.a[1.5E7]}", "x#{a}#{b}"};
+		for (String el: els) {
+			Tokenizer t = TokenizerFactory.createJbossTokenizer();
+			LexicalToken token = t.parse(el);
+			int errors = t.getErrors().size();
+			t.dispose();
+			PackedTokens packed = t.parsePacked(el, 0, el.length());
+			assertEquals(errors, packed.getErrors().size());
+			int i = 0;
+			while(token != null) {
+				assertEquals(token.getStart(), packed.getStart(i));
+				assertEquals(token.getType(), packed.getType(i));
+				assertEquals(token.getText(), packed.getText(i));
+				token = token.getNextToken();
+				i++;
+			}
+			assertEquals(i, packed.size());
+			assertEquals(el, restore(packed.toLexicalTokens()));
+		}
+		PackedTokens packed = ELParserUtil.tokenize(ELParserUtil.getJbossFactory(), "#{a.}");
+		assertEquals(4, packed.getErrors().get(0).getPosition());
+	}
+
+	public void testParserPool() {
+		ELParserFactory factory = ELParserUtil.getCollectionFactory();
+		ELParser parser = factory.createParser();
+		parser.parse("#{a.b}");
+		//Parser is released by parse() and even if released twice, it must be given out only once.
+		parser.parse("#{a.c}");
+		ELParser parser1 = factory.createParser();
+		ELParser parser2 = factory.createParser();
+		assertNotSame(parser1, parser2);
+		assertTrue(parser1 == parser || parser2 == parser);
+	}
+
 	static int TREAD_NUMBER = 20;
 	static int CALL_NUMBER = 1000;
 
@@ -10,12 +10,14 @@
   ******************************************************************************/
 package org.jboss.tools.common.el.core.test.resolver;
 
+import java.io.ByteArrayInputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import junit.framework.TestCase;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
@@ -145,6 +147,44 @@ public class TypeInfoCollectorTest extends TestCase {
 		assertNotNull(name);
 	}
 
+	public void testSelectiveCacheInvalidation() throws Exception {
+		IJavaProject jp1 = JavaCore.create(project1);
+		IJavaProject jp2 = JavaCore.create(project2);
+		IType changed = jp2.findType("test.TestE"); //$NON-NLS-1$
+		IType unchanged = jp2.findType("test.TestC1"); //$NON-NLS-1$
+		IType other = jp1.findType("test.TestList"); //$NON-NLS-1$
+		MemberInfo changedInfo = TypeInfoCollector.createMemberInfo(changed);
+		MemberInfo unchangedInfo = TypeInfoCollector.createMemberInfo(unchanged);
+		MemberInfo otherInfo = TypeInfoCollector.createMemberInfo(other);
+		long hits = TypeInfoCollector.getCacheHitCount();
+		assertSame(unchangedInfo, TypeInfoCollector.createMemberInfo(unchanged));
+		assertEquals(hits + 1, TypeInfoCollector.getCacheHitCount());
+
+		IFile file = (IFile)changed.getResource();
+		file.appendContents(new ByteArrayInputStream("\n".getBytes()), true, false, new NullProgressMonitor()); //$NON-NLS-1$
+		JobUtils.waitForIdle();
+
+		assertNotSame(changedInfo, TypeInfoCollector.createMemberInfo(changed));
+		assertSame(unchangedInfo, TypeInfoCollector.createMemberInfo(unchanged));
+		assertSame(otherInfo, TypeInfoCollector.createMemberInfo(other));
+	}
+
+	public void testPresentationIndex() throws CoreException {
+		IJavaProject jp = JavaCore.create(project2);
+		IType bean = jp.findType("test.TestE"); //$NON-NLS-1$
+		MemberInfo info = TypeInfoCollector.createMemberInfo(bean);
+		TypeInfoCollector.MemberPresentationIndex index = TypeInfoCollector.getPresentationIndex(info, false, false, true);
+		assertSame(index, TypeInfoCollector.getPresentationIndex(info, false, false, true));
+		assertNotNull(index.find("name")); //$NON-NLS-1$
+		assertNotNull(index.find("getAge")); //$NON-NLS-1$
+		assertNull(index.find("age")); //$NON-NLS-1$
+		for (TypeInfoCollector.MemberPresentation p: index.findByPrefix("get")) { //$NON-NLS-1$
+			assertTrue(p.getPresentation().startsWith("get")); //$NON-NLS-1$
+		}
+		assertFalse(index.findByPrefix("get").isEmpty()); //$NON-NLS-1$
+		assertTrue(index.findByPrefix("zzz").isEmpty()); //$NON-NLS-1$
+	}
+
 	Set<String> getNames(List<MemberInfo> ms) {
 		Set<String> result = new HashSet<String>();
 		for (MemberInfo i: ms) {
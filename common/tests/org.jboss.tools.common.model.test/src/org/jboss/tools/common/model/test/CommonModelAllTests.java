@@ -37,6 +37,15 @@ public class CommonModelAllTests {
 		suite.addTestSuite(XModelTransferBufferTest.class);
 		suite.addTestSuite(PropertiesLoaderTest.class);
 		suite.addTestSuite(JarAccessTest.class);
+		suite.addTestSuite(LargeValueStoreTest.class);
+		suite.addTestSuite(ModelPathTest.class);
+		suite.addTestSuite(FileSystemPeerTest.class);
+		suite.addTestSuite(IncrementalUpdateTest.class);
+		suite.addTestSuite(EntityRecognitionTest.class);
+		suite.addTestSuite(RegularChildrenTest.class);
+		suite.addTestSuite(XJobTest.class);
+		suite.addTestSuite(XModelTreeBatchTest.class);
+		suite.addTestSuite(SearchIndexTest.class);
 		suite.addTestSuite(EclipseJavaUtilTest.class);
 		suite.addTestSuite(ResourceAdapterTest.class);
 		suite.addTestSuite(PaletteLoaderTest.class);
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.jboss.tools.common.model.loaders.impl.ModelEntityRecognizer;
+import org.jboss.tools.common.model.options.PreferenceModelUtilities;
+
+/**
+ * @author V. Kabanovich
+ */
+public class EntityRecognitionTest extends TestCase {
+	File folder;
+	ModelEntityRecognizer recognizer = (ModelEntityRecognizer)PreferenceModelUtilities.getPreferenceModel().getEntityRecognizer();
+
+	public void setUp() throws Exception {
+		folder = File.createTempFile("recognition", "");
+		folder.delete();
+		folder.mkdirs();
+	}
+
+	public void tearDown() throws Exception {
+		FileSystemPeerTest.delete(folder);
+	}
+
+	public void testRecognizedEntity() throws IOException {
+		File f = FileSystemPeerTest.write(new File(folder, "a.xml"), "<a/>");
+		assertNull(recognizer.getRecognizedEntity(f));
+		recognizer.setRecognizedEntity(f, "FileXML");
+		assertEquals("FileXML", recognizer.getRecognizedEntity(f));
+
+		FileSystemPeerTest.write(f, "<a></a>");
+		assertNull(recognizer.getRecognizedEntity(f));
+
+		recognizer.setRecognizedEntity(f, "FileXML");
+		f.delete();
+		assertNull(recognizer.getRecognizedEntity(f));
+	}
+
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.tools.common.model.filesystems.impl.FileSystemPeer;
+
+import junit.framework.TestCase;
+
+public class FileSystemPeerTest extends TestCase {
+	File folder;
+	FileSystemPeer peer;
+
+	public void setUp() throws Exception {
+		folder = File.createTempFile("peer", "");
+		folder.delete();
+		folder.mkdirs();
+		peer = new FileSystemPeer();
+	}
+
+	public void tearDown() throws Exception {
+		delete(folder);
+	}
+
+	static void delete(File f) {
+		File[] fs = f.listFiles();
+		if(fs != null) for (File c: fs) {
+			delete(c);
+		}
+		f.delete();
+	}
+
+	static File write(File f, String text) throws IOException {
+		FileWriter w = new FileWriter(f);
+		try {
+			w.write(text);
+		} finally {
+			w.close();
+		}
+		return f;
+	}
+
+	public void testRegisterFile() throws IOException {
+		File f = write(new File(folder, "a.txt"), "a");
+		assertFalse(peer.contains(f));
+		assertTrue(peer.isUpdated(f));
+		peer.register(f);
+		assertTrue(peer.contains(f));
+		assertFalse(peer.containsDir(f));
+		assertFalse(peer.isUpdated(f));
+
+		write(f, "abc");
+		assertTrue(peer.isUpdated(f));
+		peer.register(f);
+		assertFalse(peer.isUpdated(f));
+
+		peer.unregister(f);
+		assertFalse(peer.contains(f));
+	}
+
+	public void testRegisterDirectory() {
+		File d = new File(folder, "d");
+		d.mkdirs();
+		peer.register(d);
+		assertTrue(peer.contains(d));
+		assertTrue(peer.containsDir(d));
+		assertFalse(peer.isUpdated(d));
+
+		d.delete();
+		assertTrue(peer.containsDir(d));
+		peer.unregisterDir(d);
+		assertFalse(peer.contains(d));
+	}
+
+	public void testUnregisterDirKeepsFile() throws IOException {
+		File f = write(new File(folder, "b.txt"), "b");
+		peer.register(f);
+		peer.unregisterDir(f);
+		assertTrue(peer.contains(f));
+	}
+
+	public void testRegisterMany() throws IOException {
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 200; i++) {
+			files.add(write(new File(folder, "f" + i + ".txt"), "" + i));
+		}
+		peer.register(files);
+		for (File f: files) {
+			assertTrue(peer.contains(f));
+			assertFalse(peer.isUpdated(f));
+		}
+		for (int i = 0; i < 100; i++) {
+			peer.unregister(files.get(i));
+		}
+		File g = write(new File(folder, "g.txt"), "g");
+		peer.register(g);
+		assertTrue(peer.contains(g));
+		for (int i = 0; i < 200; i++) {
+			assertEquals(i >= 100, peer.contains(files.get(i)));
+		}
+
+		peer.clear();
+		assertFalse(peer.contains(g));
+	}
+
+	public void testEqualPathsMatch() throws IOException {
+		File f = write(new File(folder, "c.txt"), "c");
+		peer.register(new File(folder.getAbsolutePath() + File.separator + "c.txt"));
+		assertTrue(peer.contains(f));
+		assertFalse(peer.contains(new File(folder, "c.tx")));
+		peer.unregister(new File(f.getAbsolutePath()));
+		assertFalse(peer.contains(f));
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.util.EclipseResourceUtil;
+import org.jboss.tools.common.util.FileUtil;
+import org.jboss.tools.test.util.JobUtils;
+
+/**
+ * Reports time of loading folders of a large generated web project by FolderImpl,
+ * of computing paths of all its files and of obtaining the cached paths.
+ *
+ * Not a part of CommonModelAllTests; it is run by the 'benchmarks' profile
+ * of this module with 50000 files. The number of files is set by system property
+ * org.jboss.tools.common.model.test.fileCount.
+ *
+ * @author V. Kabanovich
+ */
+public class FolderLoadingBenchmark extends TestCase {
+	public static final String FILE_COUNT_PROPERTY = "org.jboss.tools.common.model.test.fileCount";
+	static String PROJECT_NAME = "FolderLoadingBenchmark";
+	static int FILES_IN_FOLDER = 100;
+
+	IProject project = null;
+	int fileCount;
+
+	public void setUp() throws Exception {
+		fileCount = Integer.getInteger(FILE_COUNT_PROPERTY, 50000);
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT_NAME);
+		if(!project.exists()) {
+			project.create(new NullProgressMonitor());
+		}
+		project.open(new NullProgressMonitor());
+		File root = new File(project.getLocation().toFile(), "WebContent");
+		for (int i = 0; i < fileCount; i++) {
+			File folder = new File(root, "pages" + (i / FILES_IN_FOLDER));
+			folder.mkdirs();
+			FileUtil.writeFile(new File(folder, "page" + i + ".xhtml"), "<html><body>#{bean.value" + i + "}</body></html>");
+		}
+		project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+		JobUtils.waitForIdle();
+	}
+
+	public void tearDown() throws Exception {
+		project.delete(true, true, new NullProgressMonitor());
+	}
+
+	public void testFolderLoading() {
+		long t = System.currentTimeMillis();
+		XModelObject webContent = EclipseResourceUtil.createObjectForResource(project.getFolder("WebContent"));
+		assertNotNull(webContent);
+		List<XModelObject> files = new ArrayList<XModelObject>();
+		collect(webContent, files);
+		long load = System.currentTimeMillis() - t;
+		assertEquals(fileCount, files.size());
+
+		t = System.currentTimeMillis();
+		String[] paths = new String[files.size()];
+		for (int i = 0; i < paths.length; i++) {
+			paths[i] = files.get(i).getPath();
+		}
+		long first = System.currentTimeMillis() - t;
+
+		t = System.currentTimeMillis();
+		for (int i = 0; i < paths.length; i++) {
+			assertSame(paths[i], files.get(i).getPath());
+		}
+		long second = System.currentTimeMillis() - t;
+
+		System.out.println("FolderLoadingBenchmark: " + fileCount + " files loaded in " + load
+				+ " ms, paths computed in " + first + " ms, cached paths obtained in " + second + " ms");
+	}
+
+	private void collect(XModelObject o, List<XModelObject> files) {
+		XModelObject[] cs = o.getChildren();
+		for (XModelObject c: cs) {
+			if(c.getFileType() == XModelObject.FOLDER) {
+				collect(c, files);
+			} else if(c.getFileType() == XModelObject.FILE) {
+				files.add(c);
+			}
+		}
+	}
+}
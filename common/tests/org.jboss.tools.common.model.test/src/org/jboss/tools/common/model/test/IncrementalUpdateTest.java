@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.XModelObjectConstants;
+import org.jboss.tools.common.model.util.EclipseResourceUtil;
+import org.jboss.tools.common.util.FileUtil;
+import org.jboss.tools.test.util.JobUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that files added, removed and changed in the workspace
+ * are applied to loaded folders from resource deltas,
+ * without listing folders that did not change.
+ * 
+ * @author V. Kabanovich
+ */
+public class IncrementalUpdateTest extends TestCase {
+	static String PROJECT_NAME = "IncrementalUpdateTest";
+
+	IProject project = null;
+	XModelObject pages;
+	XModelObject other;
+
+	public void setUp() throws Exception {
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT_NAME);
+		if(!project.exists()) {
+			project.create(new NullProgressMonitor());
+		}
+		project.open(new NullProgressMonitor());
+		IFolder folder = project.getFolder("pages");
+		folder.create(true, true, new NullProgressMonitor());
+		create(folder.getFile("a.txt"), "a");
+		create(folder.getFile("b.txt"), "b");
+		project.getFolder("other").create(true, true, new NullProgressMonitor());
+		JobUtils.waitForIdle();
+
+		pages = EclipseResourceUtil.createObjectForResource(folder);
+		assertNotNull(pages);
+		assertEquals(2, pages.getChildren().length);
+		other = EclipseResourceUtil.createObjectForResource(project.getFolder("other"));
+		assertNotNull(other);
+		assertEquals(0, other.getChildren().length);
+	}
+
+	public void tearDown() throws Exception {
+		project.delete(true, true, new NullProgressMonitor());
+	}
+
+	public void testAdd() throws Exception {
+		// The file is not known to the workspace, only the full update would find it.
+		FileUtil.writeFile(new File(project.getLocation().toFile(), "other/x.txt"), "x");
+		create(project.getFile("pages/c.txt"), "c");
+		JobUtils.waitForIdle();
+
+		assertNotNull(pages.getChildByPath("c.txt"));
+		assertEquals(3, pages.getChildren().length);
+		assertNull(other.getChildByPath("x.txt"));
+	}
+
+	public void testRemove() throws Exception {
+		XModelObject a = pages.getChildByPath("a.txt");
+		assertNotNull(a);
+		project.getFile("pages/a.txt").delete(true, new NullProgressMonitor());
+		JobUtils.waitForIdle();
+
+		assertNull(pages.getChildByPath("a.txt"));
+		assertNotNull(pages.getChildByPath("b.txt"));
+		assertNull(a.getParent());
+	}
+
+	public void testChange() throws Exception {
+		XModelObject b = pages.getChildByPath("b.txt");
+		assertEquals("b", b.getAttributeValue(XModelObjectConstants.ATTR_NAME_BODY));
+		project.getFile("pages/b.txt").setContents(new ByteArrayInputStream("changed".getBytes()), true, false, new NullProgressMonitor());
+		JobUtils.waitForIdle();
+
+		XModelObject c = pages.getChildByPath("b.txt");
+		assertNotNull(c);
+		assertEquals("changed", c.getAttributeValue(XModelObjectConstants.ATTR_NAME_BODY));
+	}
+
+	private void create(IFile file, String content) throws Exception {
+		file.create(new ByteArrayInputStream(content.getBytes()), true, new NullProgressMonitor());
+	}
+}
@@ -11,6 +11,9 @@
 package org.jboss.tools.common.model.test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.core.resources.IFile;
@@ -18,7 +21,16 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.XModelObjectConstants;
+import org.jboss.tools.common.model.filesystems.FileSystemsHelper;
+import org.jboss.tools.common.model.filesystems.impl.JarAccess;
+import org.jboss.tools.common.model.filesystems.impl.JarAccessFactory;
 import org.jboss.tools.common.model.filesystems.impl.TestJarAccess;
+import org.jboss.tools.common.model.filesystems.impl.TestJarAccessFactory;
+import org.jboss.tools.common.model.plugin.ModelPlugin;
+import org.jboss.tools.common.model.util.EclipseResourceUtil;
+import org.jboss.tools.common.util.FileUtils;
 import org.jboss.tools.test.util.JobUtils;
 import org.jboss.tools.test.util.TestProjectProvider;
 
@@ -52,4 +64,205 @@ public class JarAccessTest extends TestCase {
 		}
 		assertTrue(message, errors.isEmpty());
 	}
+
+	public void testJarIndex() throws Exception {
+		IFile jar = project1.getFile(new Path("lib/standard.jar"));
+		String file = jar.getLocation().toFile().getAbsolutePath();
+		JarAccess access1 = new JarAccess();
+		access1.setLocation(file);
+		File folder = ModelPlugin.getDefault().getStateLocation().append("jars").toFile();
+		File[] indexes = folder.listFiles();
+		boolean found = false;
+		if(indexes != null) for (File f: indexes) {
+			if(f.getName().startsWith("standard.jar-")) found = true;
+		}
+		assertTrue("Index of standard.jar is not saved", found);
+
+		// Second access is initialized from the saved index.
+		JarAccess access2 = new JarAccess();
+		access2.setLocation(file);
+		compare(access1, access2, "");
+	}
+
+	/**
+	 * Jar system in a model without project keeps its jar referenced until it is removed.
+	 */
+	public void testReferenceCountWithoutProject() throws Exception {
+		File folder = createTempFolder();
+		try {
+			String location = copyJar(folder);
+			XModelObject fs = createFileSystems(folder);
+			XModelObject js = addJarSystem(fs, location);
+			assertTrue(js.getChildren().length > 0);
+			assertEquals(1, TestJarAccessFactory.getReferenceCount(location));
+
+			TestJarAccessFactory.releaseUnreferenced();
+			assertTrue(TestJarAccessFactory.isRegistered(location));
+			XModelObject folder1 = findFolder(js);
+			assertNotNull(folder1);
+			assertTrue(folder1.getChildren().length > 0);
+
+			File index = TestJarAccessFactory.getIndexFile(location);
+			assertTrue(index.isFile());
+			fs.removeChild(js);
+			assertEquals(0, TestJarAccessFactory.getReferenceCount(location));
+			TestJarAccessFactory.releaseUnreferenced();
+			assertFalse(TestJarAccessFactory.isRegistered(location));
+			assertFalse("Index of released jar is not deleted", index.exists());
+		} finally {
+			FileSystemPeerTest.delete(folder);
+		}
+	}
+
+	/**
+	 * Jar of a model that is discarded without removing its jar system is released
+	 * when the model is garbage collected.
+	 */
+	public void testDiscardedModelReleasesJar() throws Exception {
+		File folder = createTempFolder();
+		try {
+			String location = copyJar(folder);
+			XModelObject js = addJarSystem(createFileSystems(folder), location);
+			assertTrue(js.getChildren().length > 0);
+			assertEquals(1, TestJarAccessFactory.getReferenceCount(location));
+			assertTrue(JarAccessFactory.getDiagnostics().contains(location + " references=1"));
+
+			js = null;
+			for (int i = 0; i < 50 && TestJarAccessFactory.getReferenceCount(location) > 0; i++) {
+				System.gc();
+				Thread.sleep(100);
+			}
+			assertEquals(0, TestJarAccessFactory.getReferenceCount(location));
+			TestJarAccessFactory.releaseUnreferenced();
+			assertFalse(TestJarAccessFactory.isRegistered(location));
+			assertFalse(JarAccessFactory.getDiagnostics().contains(location));
+		} finally {
+			FileSystemPeerTest.delete(folder);
+		}
+	}
+
+	public void testReferenceCountOfSharedJar() throws Exception {
+		File folder = createTempFolder();
+		try {
+			String location = copyJar(folder);
+			XModelObject fs1 = createFileSystems(folder);
+			XModelObject fs2 = createFileSystems(folder);
+			XModelObject js1 = addJarSystem(fs1, location);
+			XModelObject js2 = addJarSystem(fs2, location);
+			js1.getChildren();
+			js2.getChildren();
+			assertEquals(2, TestJarAccessFactory.getReferenceCount(location));
+
+			fs1.removeChild(js1);
+			assertEquals(1, TestJarAccessFactory.getReferenceCount(location));
+			TestJarAccessFactory.releaseUnreferenced();
+			assertTrue(TestJarAccessFactory.isRegistered(location));
+
+			fs2.removeChild(js2);
+			TestJarAccessFactory.releaseUnreferenced();
+			assertFalse(TestJarAccessFactory.isRegistered(location));
+		} finally {
+			FileSystemPeerTest.delete(folder);
+		}
+	}
+
+	/**
+	 * Folders of jar system not loaded before its jar access was disposed are loaded from a new one.
+	 */
+	public void testDisposedJarIsReloaded() throws Exception {
+		File folder = createTempFolder();
+		try {
+			String location = copyJar(folder);
+			XModelObject fs = createFileSystems(folder);
+			XModelObject js = addJarSystem(fs, location);
+			XModelObject folder1 = findFolder(js);
+			assertNotNull(folder1);
+
+			TestJarAccessFactory.dispose(js);
+			assertTrue(folder1.getChildren().length > 0);
+			assertTrue(TestJarAccessFactory.isRegistered(location));
+			assertEquals(1, TestJarAccessFactory.getReferenceCount(location));
+			fs.removeChild(js);
+		} finally {
+			FileSystemPeerTest.delete(folder);
+		}
+	}
+
+	/**
+	 * Loading an index marks it used; index not used for the given time is deleted.
+	 */
+	public void testUnusedIndexIsDeleted() throws Exception {
+		File folder = createTempFolder();
+		try {
+			String location = copyJar(folder);
+			new JarAccess().setLocation(location);
+			File index = TestJarAccessFactory.getIndexFile(location);
+			assertTrue(index.isFile());
+
+			long day = 24 * 60 * 60 * 1000;
+			assertTrue(index.setLastModified(System.currentTimeMillis() - 10 * day));
+			new JarAccess().setLocation(location);
+			TestJarAccessFactory.deleteUnusedIndexes(5 * day);
+			assertTrue("Index that was loaded is deleted", index.isFile());
+
+			assertTrue(index.setLastModified(System.currentTimeMillis() - 10 * day));
+			TestJarAccessFactory.deleteUnusedIndexes(5 * day);
+			assertFalse("Unused index is not deleted", index.exists());
+		} finally {
+			FileSystemPeerTest.delete(folder);
+		}
+	}
+
+	File createTempFolder() throws Exception {
+		File folder = File.createTempFile("jars", "");
+		folder.delete();
+		folder.mkdirs();
+		return folder;
+	}
+
+	String copyJar(File folder) {
+		File source = project1.getFile(new Path("lib/standard.jar")).getLocation().toFile();
+		File copy = new File(folder, "standard.jar");
+		assertTrue(FileUtils.copyFile(source, copy, true));
+		return copy.getAbsolutePath().replace('\\', '/');
+	}
+
+	XModelObject createFileSystems(File folder) throws Exception {
+		File file = FileSystemPeerTest.write(new File(folder, "a.txt"), "a");
+		XModelObject o = EclipseResourceUtil.createObjectForLocation(file.getAbsolutePath());
+		assertNotNull(o);
+		return FileSystemsHelper.getFileSystems(o.getModel());
+	}
+
+	XModelObject addJarSystem(XModelObject fs, String location) {
+		XModelObject js = fs.getModel().createModelObject("FileSystemJar", null);
+		js.setAttributeValue(XModelObjectConstants.ATTR_NAME, "lib-standard.jar");
+		js.setAttributeValue(XModelObjectConstants.ATTR_NAME_LOCATION, location);
+		fs.addChild(js);
+		return js;
+	}
+
+	XModelObject findFolder(XModelObject js) {
+		for (XModelObject c: js.getChildren()) {
+			if(c.getFileType() == XModelObject.FOLDER) return c;
+		}
+		return null;
+	}
+
+	void compare(JarAccess access1, JarAccess access2, String path) {
+		List<String> children1 = new ArrayList<String>(Arrays.asList(access1.getChildren(path)));
+		List<String> children2 = new ArrayList<String>(Arrays.asList(access2.getChildren(path)));
+		Collections.sort(children1);
+		Collections.sort(children2);
+		assertEquals(children1, children2);
+		String parentPath = (path.length() == 0) ? "" : path + "/";
+		for (String c: children1) {
+			if(c.endsWith("/")) {
+				compare(access1, access2, parentPath + c.substring(0, c.length() - 1));
+			} else {
+				assertEquals(access1.getSize(parentPath + c), access2.getSize(parentPath + c));
+				assertEquals(access1.getContent(parentPath + c), access2.getContent(parentPath + c));
+			}
+		}
+	}
 }
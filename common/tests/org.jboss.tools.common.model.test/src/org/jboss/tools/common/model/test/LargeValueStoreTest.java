@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.io.File;
+
+import org.jboss.tools.common.model.impl.LargeValueStore;
+
+import junit.framework.TestCase;
+
+public class LargeValueStoreTest extends TestCase {
+	static int SEGMENT_SIZE = 1 << 16;
+
+	File folder;
+	LargeValueStore store;
+
+	public void setUp() throws Exception {
+		folder = File.createTempFile("lvs", "");
+		folder.delete();
+		folder.mkdirs();
+		store = new LargeValueStore(folder, 4 * SEGMENT_SIZE, SEGMENT_SIZE);
+	}
+
+	public void tearDown() throws Exception {
+		store.dispose();
+		File[] fs = folder.listFiles();
+		if(fs != null) for (File f: fs) {
+			f.delete();
+		}
+		folder.delete();
+	}
+
+	static String createValue(char c, int length) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			sb.append((char)(c + i % 7));
+		}
+		return sb.toString();
+	}
+
+	public void testPutAndGet() {
+		String a = createValue('a', 10000);
+		String b = createValue('b', 10000);
+		LargeValueStore.Handle ha = store.put(a);
+		LargeValueStore.Handle hb = store.put(b);
+		assertNotNull(ha);
+		assertNotNull(hb);
+		assertEquals(a, store.get(ha));
+		assertEquals(b, store.get(hb));
+		assertTrue(store.contentEquals(ha, a));
+		assertFalse(store.contentEquals(ha, b));
+	}
+
+	public void testSharedValue() {
+		String a = createValue('a', 10000);
+		LargeValueStore.Handle h1 = store.put(a);
+		LargeValueStore.Handle h2 = store.put(new String(a.toCharArray()));
+		assertEquals(1, store.getValueCount());
+		store.release(h1);
+		assertEquals(1, store.getValueCount());
+		assertEquals(a, store.get(h2));
+		store.release(h2);
+		//second release is ignored
+		store.release(h2);
+		assertEquals(0, store.getValueCount());
+	}
+
+	public void testSegmentsAreDeleted() {
+		LargeValueStore.Handle[] hs = new LargeValueStore.Handle[12];
+		for (int i = 0; i < hs.length; i++) {
+			hs[i] = store.put(createValue((char)('a' + i), 10000));
+			assertNotNull(hs[i]);
+		}
+		assertTrue(store.getSize() > SEGMENT_SIZE);
+		for (int i = 0; i < hs.length - 1; i++) {
+			store.release(hs[i]);
+		}
+		assertEquals(SEGMENT_SIZE, store.getSize());
+		assertEquals(createValue((char)('a' + 11), 10000), store.get(hs[11]));
+	}
+
+	public void testSizeLimit() {
+		LargeValueStore.Handle[] hs = new LargeValueStore.Handle[12];
+		for (int i = 0; i < hs.length; i++) {
+			hs[i] = store.put(createValue((char)('a' + i), 10000));
+		}
+		//Limit is reached, keep the value in heap.
+		assertNull(store.put(createValue('z', 10000)));
+		assertNull(store.put(createValue('z', SEGMENT_SIZE)));
+
+		//Compaction of sparse segments makes room.
+		for (int i = 0; i < hs.length; i += 2) {
+			store.release(hs[i]);
+		}
+		LargeValueStore.Handle h = store.put(createValue('z', 10000));
+		assertNotNull(h);
+		assertTrue(store.getSize() <= 4 * SEGMENT_SIZE);
+		for (int i = 1; i < hs.length; i += 2) {
+			assertEquals(createValue((char)('a' + i), 10000), store.get(hs[i]));
+		}
+		assertEquals(createValue('z', 10000), store.get(h));
+	}
+}
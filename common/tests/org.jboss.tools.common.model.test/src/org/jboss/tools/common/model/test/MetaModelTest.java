@@ -10,12 +10,18 @@
  ******************************************************************************/ 
 package org.jboss.tools.common.model.test;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import junit.framework.TestCase;
 
+import org.jboss.tools.common.meta.XAttribute;
 import org.jboss.tools.common.meta.XChild;
 import org.jboss.tools.common.meta.XMapping;
 import org.jboss.tools.common.meta.XModelEntity;
@@ -24,6 +30,7 @@ import org.jboss.tools.common.meta.action.XAction;
 import org.jboss.tools.common.meta.action.XActionHandler;
 import org.jboss.tools.common.meta.action.XActionItem;
 import org.jboss.tools.common.meta.action.XActionList;
+import org.jboss.tools.common.meta.impl.TestMetaSnapshot;
 import org.jboss.tools.common.meta.impl.XExtensions;
 import org.jboss.tools.common.meta.impl.XModelEntityImpl;
 import org.jboss.tools.common.meta.impl.XModelMetaDataImpl;
@@ -36,6 +43,7 @@ import org.jboss.tools.common.model.event.XModelTreeEvent;
 import org.jboss.tools.common.model.event.XModelTreeListener;
 import org.jboss.tools.common.model.loaders.XObjectLoader;
 import org.jboss.tools.common.model.options.PreferenceModelUtilities;
+import org.jboss.tools.common.model.plugin.ModelPlugin;
 import org.jboss.tools.common.model.util.ModelFeatureFactory;
 import org.jboss.tools.common.model.util.XModelObjectLoaderUtil;
 
@@ -54,6 +62,65 @@ public class MetaModelTest extends TestCase {
 		assertNotNull("Meta model is not loaded", meta);
 	}
 	
+	/**
+	 * Meta model saves snapshot of meta resources at the first loading,
+	 * and loads it at next starts.
+	 */
+	public void testMetaModelSnapshot() {
+		XModelMetaDataImpl.getInstance();
+		File snapshot = ModelPlugin.getDefault().getStateLocation().append("meta.snapshot").toFile();
+		assertTrue("Meta model snapshot is not saved", snapshot.isFile());
+	}
+
+	/**
+	 * Meta model loaded from snapshot has the same entities, attributes 
+	 * and children as meta model loaded from XML.
+	 */
+	public void testMetaModelSnapshotEqualsXML() throws IOException {
+		File snapshot = File.createTempFile("meta", ".snapshot");
+		snapshot.delete();
+		try {
+			XModelMetaData fromXML = TestMetaSnapshot.load(snapshot);
+			assertFalse(TestMetaSnapshot.isLoadedFromSnapshot(fromXML));
+			assertTrue("Meta model snapshot is not saved", snapshot.isFile());
+
+			XModelMetaData fromSnapshot = TestMetaSnapshot.load(snapshot);
+			assertTrue("Meta model is not loaded from snapshot", TestMetaSnapshot.isLoadedFromSnapshot(fromSnapshot));
+
+			String[] entities = fromXML.entities();
+			Arrays.sort(entities);
+			String[] entities2 = fromSnapshot.entities();
+			Arrays.sort(entities2);
+			assertTrue(entities.length > 0);
+			assertEquals(Arrays.asList(entities), Arrays.asList(entities2));
+
+			for (String name: entities) {
+				XModelEntity e1 = fromXML.getEntity(name);
+				XModelEntity e2 = fromSnapshot.getEntity(name);
+				assertEquals(name, getAttributes(e1), getAttributes(e2));
+				assertEquals(name, getChildren(e1), getChildren(e2));
+			}
+		} finally {
+			snapshot.delete();
+		}
+	}
+
+	private List<String> getAttributes(XModelEntity entity) {
+		List<String> result = new ArrayList<String>();
+		for (XAttribute a: entity.getAttributes()) {
+			result.add(a.getName() + ":" + a.getXMLName() + ":" + a.getDefaultValue());
+		}
+		return result;
+	}
+
+	private Set<String> getChildren(XModelEntity entity) {
+		Set<String> result = new HashSet<String>();
+		for (XChild c: entity.getChildren()) {
+			result.add(c.getName() + ":" + c.isRequired() + ":" + c.getMaxCount());
+		}
+		return result;
+	}
+	
 	/**
 	 * Some common implementations of XModelObject has aliases listed in
 	 * mapping named "Implementations". Check that these classes exist.
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.jboss.tools.common.model.XModel;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.XModelObjectConstants;
+import org.jboss.tools.common.model.impl.XModelImpl;
+import org.jboss.tools.common.model.impl.XModelPathIndex;
+import org.jboss.tools.common.model.options.PreferenceModelUtilities;
+import org.jboss.tools.common.model.options.SharableElement;
+import org.jboss.tools.common.model.util.EclipseResourceUtil;
+import org.jboss.tools.common.util.FileUtil;
+import org.jboss.tools.test.util.JobUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that cached paths of model objects and the path index of the model
+ * follow renaming and moving of objects in a small generated web project.
+ * Loading of a large project is measured by FolderLoadingBenchmark.
+ * 
+ * @author V. Kabanovich
+ */
+public class ModelPathTest extends TestCase {
+	static String PROJECT_NAME = "ModelPathTest";
+	static int FILES_IN_FOLDER = 5;
+	static int FILE_COUNT = 15;
+
+	IProject project = null;
+
+	public void setUp() throws Exception {
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT_NAME);
+		if(!project.exists()) {
+			project.create(new NullProgressMonitor());
+		}
+		project.open(new NullProgressMonitor());
+		File root = new File(project.getLocation().toFile(), "WebContent");
+		for (int i = 0; i < FILE_COUNT; i++) {
+			File folder = new File(root, "pages" + (i / FILES_IN_FOLDER));
+			folder.mkdirs();
+			FileUtil.writeFile(new File(folder, "page" + i + ".xhtml"), "<html><body>#{bean.value" + i + "}</body></html>");
+		}
+		project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+		JobUtils.waitForIdle();
+	}
+
+	public void tearDown() throws Exception {
+		project.delete(true, true, new NullProgressMonitor());
+	}
+
+	public void testPathFollowsRenameAndMove() {
+		XModelObject folder = EclipseResourceUtil.createObjectForResource(project.getFolder("WebContent/pages0"));
+		assertNotNull(folder);
+		XModelObject file = folder.getChildByPath("page0.xhtml");
+		assertNotNull(file);
+
+		String path = file.getPath();
+		assertTrue(path, path.endsWith("/pages0/page0.xhtml"));
+		assertSame(path, file.getPath());
+
+		folder.set(XModelObjectConstants.XML_ATTR_NAME, "renamed");
+		assertTrue(file.getPath(), file.getPath().endsWith("/renamed/page0.xhtml"));
+		assertSame(file, folder.getParent().getChildByPath("renamed/page0.xhtml"));
+
+		folder.set(XModelObjectConstants.XML_ATTR_NAME, "pages0");
+		assertEquals(path, file.getPath());
+
+		XModelObject other = EclipseResourceUtil.createObjectForResource(project.getFolder("WebContent/pages1"));
+		assertNotNull(other);
+		folder.removeChild(file);
+		assertNull(file.getPath());
+		assertTrue(other.addChild(file));
+		assertTrue(file.getPath(), file.getPath().endsWith("/pages1/page0.xhtml"));
+	}
+
+	public void testPathIndex() {
+		XModelObject webContent = EclipseResourceUtil.createObjectForResource(project.getFolder("WebContent"));
+		assertNotNull(webContent);
+		XModel model = webContent.getModel();
+		XModelPathIndex index = ((XModelImpl)model).getPathIndex();
+		List<XModelObject> files = new ArrayList<XModelObject>();
+		collect(webContent, files);
+		for (XModelObject f: files) {
+			assertSame(f, model.getByPath(f.getPath()));
+		}
+		long hits = index.getHitCount();
+		for (XModelObject f: files) {
+			assertSame(f, model.getByPath(f.getPath()));
+		}
+		assertTrue(index.getHitCount() >= hits + files.size());
+		assertTrue(index.checkConsistency().toString(), index.checkConsistency().isEmpty());
+
+		XModelObject folder = webContent.getChildByPath("pages0");
+		XModelObject file = folder.getChildByPath("page0.xhtml");
+		String path = file.getPath();
+		folder.set(XModelObjectConstants.XML_ATTR_NAME, "renamed");
+		assertNull(model.getByPath(path));
+		assertSame(file, model.getByPath(file.getPath()));
+		folder.set(XModelObjectConstants.XML_ATTR_NAME, "pages0");
+		assertSame(file, model.getByPath(path));
+
+		folder.removeChild(file);
+		assertNull(model.getByPath(path));
+		assertTrue(index.checkConsistency().toString(), index.checkConsistency().isEmpty());
+	}
+
+	public void testFolderLoading() {
+		XModelObject webContent = EclipseResourceUtil.createObjectForResource(project.getFolder("WebContent"));
+		assertNotNull(webContent);
+		List<XModelObject> files = new ArrayList<XModelObject>();
+		collect(webContent, files);
+		assertEquals(FILE_COUNT, files.size());
+
+		String[] paths = new String[files.size()];
+		for (int i = 0; i < paths.length; i++) {
+			paths[i] = files.get(i).getPath();
+		}
+		for (int i = 0; i < paths.length; i++) {
+			assertSame(paths[i], files.get(i).getPath());
+		}
+	}
+
+	public void testSharableElementRename() {
+		XModel model = PreferenceModelUtilities.getPreferenceModel();
+		SharableElement programs = (SharableElement)model.getByPath("%Options%/External Programs");
+		assertNotNull(programs);
+		XModelObject[] cs = programs.getChildren();
+		assertTrue(cs.length > 0);
+		XModelObject child = cs[0];
+		String path = programs.getPath();
+		String childPath = child.getPath();
+
+		assertTrue(programs.setName("Renamed Programs"));
+		try {
+			assertTrue(programs.getPath(), programs.getPath().endsWith("/Renamed Programs"));
+			assertEquals(childPath.replace("/External Programs/", "/Renamed Programs/"), child.getPath());
+		} finally {
+			assertTrue(programs.setName("External Programs"));
+		}
+		assertEquals(path, programs.getPath());
+		assertEquals(childPath, child.getPath());
+	}
+
+	private void collect(XModelObject o, List<XModelObject> files) {
+		XModelObject[] cs = o.getChildren();
+		for (XModelObject c: cs) {
+			if(c.getFileType() == XModelObject.FOLDER) {
+				collect(c, files);
+			} else if(c.getFileType() == XModelObject.FILE) {
+				files.add(c);
+			}
+		}
+	}
+}
@@ -157,4 +157,47 @@ public class PropertiesLoaderTest extends TestCase {
 		assertEquals(newText, resText);
 	}
 
+	/**
+	 * 1. Load file a4.properties with escaped keys, commented out entries and mixed line ends;
+	 * 2. Check that generated text is the same as the loaded one;
+	 * 3. Modify value of property 'key:colon' written as 'key\:colon';
+	 * 4. Compare the result to be saved to content of a4-res.properties.
+	 * @throws CoreException
+	 */
+	public void testModificationOfFileWithEscapedKeysAndMixedLineEnds() throws CoreException {
+		IFile f = project.getFile(new Path("src/a4.properties"));
+		XModelObject p = EclipseResourceUtil.createObjectForResource(f);
+		assertNotNull(p);
+		assertEquals(FileUtil.readStream(f), ((FileAnyImpl)p).getAsText());
+		assertNotNull(p.getChildByPath("a b"));
+		assertNotNull(p.getChildByPath("\u00E9t\u00E9"));
+		assertNotNull(p.getChildByPath("#hash"));
+		assertNull(p.getChildByPath("disabled"));
+		XModelObject c = p.getChildByPath("key:colon");
+		assertEquals("colon", c.getAttributeValue("value"));
+		c.setAttributeValue("value", "colons");
+		String newText = ((FileAnyImpl)p).getAsText();
+		IFile fres = project.getFile(new Path("src/a4-res.properties"));
+		String resText = FileUtil.readStream(fres);
+		assertEquals(resText, newText);
+	}
+
+	/**
+	 * 1. Load file a4.properties;
+	 * 2. Disable property '#hash' written as '\#hash';
+	 * 3. Compare the result to be saved to content of a4-disabled-res.properties.
+	 * @throws CoreException
+	 */
+	public void testDisablingPropertyInFileWithMixedLineEnds() throws CoreException {
+		IFile f = project.getFile(new Path("src/a4.properties"));
+		XModelObject p = EclipseResourceUtil.createObjectForResource(f);
+		assertNotNull(p);
+		assertEquals(FileUtil.readStream(f), ((FileAnyImpl)p).getAsText());
+		p.getChildByPath("#hash").setAttributeValue("enabled", "no");
+		String newText = ((FileAnyImpl)p).getAsText();
+		IFile fres = project.getFile(new Path("src/a4-disabled-res.properties"));
+		String resText = FileUtil.readStream(fres);
+		assertEquals(resText, newText);
+	}
+
 }
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.jboss.tools.common.model.XModel;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.impl.RegularChildren;
+import org.jboss.tools.common.model.impl.XModelObjectImpl;
+import org.jboss.tools.common.model.options.PreferenceModelUtilities;
+
+/**
+ * @author V. Kabanovich
+ */
+public class RegularChildrenTest extends TestCase {
+	static Comparator<XModelObject> BY_NAME = new Comparator<XModelObject>() {
+		public int compare(XModelObject o1, XModelObject o2) {
+			return o1.getPathPart().compareTo(o2.getPathPart());
+		}
+	};
+
+	XModel model = PreferenceModelUtilities.getPreferenceModel();
+
+	XModelObject create(String entity, String name) {
+		Properties p = new Properties();
+		p.setProperty("name", name);
+		p.setProperty("extension", "txt");
+		return model.createModelObject(entity, p);
+	}
+
+	public void testSortedChildren() {
+		RegularChildren children = new RegularChildren();
+		children.setComparator(BY_NAME);
+		String[] names = {"d", "b", "e", "a", "c"};
+		for (String n: names) {
+			assertTrue(children.addObject(create("FileAny", n)));
+		}
+		assertSorted(children, 5);
+
+		List<XModelObject> added = new ArrayList<XModelObject>();
+		for (String n: new String[]{"f", "ab", "c"}) {
+			XModelObject o = create("FileAny", n);
+			if(children.addObject(o)) added.add(o);
+		}
+		assertEquals(2, added.size());
+		assertSorted(children, 7);
+		assertEquals(7, children.getChildrenCount("FileAny"));
+
+		List<XModelObject> removed = children.removeObjects(added);
+		assertEquals(2, removed.size());
+		assertSorted(children, 5);
+		assertEquals(5, children.getChildrenCount("FileAny"));
+	}
+
+	public void testChildrenCount() {
+		RegularChildren children = new RegularChildren();
+		children.setComparator(BY_NAME);
+		XModelObject a = create("FileAny", "a");
+		children.addObject(a);
+		children.addObject(create("FileFolder", "b"));
+		assertEquals(1, children.getChildrenCount("FileAny"));
+		assertEquals(1, children.getChildrenCount("FileFolder"));
+		children.removeObject(a);
+		assertEquals(0, children.getChildrenCount("FileAny"));
+		assertEquals(1, children.size());
+	}
+
+	public void testEntityChanged() {
+		RegularChildren children = new RegularChildren();
+		children.setComparator(BY_ENTITY);
+		XModelObject a = create("FileTXT", "a");
+		XModelObject b = create("FileTXT", "b");
+		XModelObject c = create("FileTXT", "c");
+		children.addObject(b);
+		children.addObject(c);
+		children.addObject(a);
+		assertEquals(Arrays.asList(a, b, c), Arrays.asList(children.getObjects()));
+
+		((XModelObjectImpl)c).changeEntity("FileGIF");
+		children.entityChanged(c, "FileTXT");
+		assertEquals(Arrays.asList(c, a, b), Arrays.asList(children.getObjects()));
+		assertEquals(1, children.getChildrenCount("FileGIF"));
+		assertEquals(2, children.getChildrenCount("FileTXT"));
+	}
+
+	static Comparator<XModelObject> BY_ENTITY = new Comparator<XModelObject>() {
+		public int compare(XModelObject o1, XModelObject o2) {
+			int i = o1.getModelEntity().getName().compareTo(o2.getModelEntity().getName());
+			return i != 0 ? i : BY_NAME.compare(o1, o2);
+		}
+	};
+
+	void assertSorted(RegularChildren children, int size) {
+		XModelObject[] os = children.getObjects();
+		assertEquals(size, os.length);
+		assertEquals(size, children.size());
+		for (int i = 1; i < os.length; i++) {
+			assertTrue(BY_NAME.compare(os[i - 1], os[i]) < 0);
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.jboss.tools.common.model.XModel;
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.impl.XModelObjectImpl;
+import org.jboss.tools.common.model.options.PreferenceModelUtilities;
+import org.jboss.tools.common.model.search.impl.TestSearchCommand;
+
+/**
+ * @author V. Kabanovich
+ */
+public class SearchIndexTest extends TestCase {
+	static String[] EXTENSIONS = {"txt", "TXT", "xml"};
+
+	XModel model = PreferenceModelUtilities.getPreferenceModel();
+	TestSearchCommand command = new TestSearchCommand();
+
+	XModelObject create(String entity, String name, String extension) {
+		Properties p = new Properties();
+		p.setProperty("name", name);
+		if(extension != null) p.setProperty("extension", extension);
+		return model.createModelObject(entity, p);
+	}
+
+	/**
+	 * Creates detached folder with subfolders, each having files with extensions in turn.
+	 */
+	XModelObject createTree(int folders, int files) {
+		XModelObject root = create("FileFolder", "root", null);
+		for (int i = 0; i < folders; i++) {
+			XModelObject folder = create("FileFolder", "folder" + i, null);
+			root.addChild(folder);
+			for (int j = 0; j < files; j++) {
+				folder.addChild(create("FileAny", "file" + j, EXTENSIONS[(i + j) % EXTENSIONS.length]));
+			}
+		}
+		return root;
+	}
+
+	List<XModelObject> assertSameResults(XModelObject root) {
+		List<XModelObject> expected = command.findByTreeWalk(root);
+		assertEquals(expected, command.findByIndex(root));
+		return expected;
+	}
+
+	public void testValueBuckets() {
+		XModelObject root = createTree(3, 5);
+
+		command.setMatching("extension", "txt", false, false);
+		assertEquals(5, assertSameResults(root).size());
+
+		command.setMatching("extension", "txt", true, false);
+		assertEquals(10, assertSameResults(root).size());
+
+		command.setMatching("name", "file3", false, false);
+		assertEquals(3, assertSameResults(root).size());
+
+		command.setMatching("extension", "gif", false, false);
+		assertEquals(0, assertSameResults(root).size());
+
+		command.setMatching("name", "older", false, true);
+		assertEquals(3, assertSameResults(root).size());
+	}
+
+	public void testParallelMatching() {
+		XModelObject root = createTree(60, 50);
+		assertTrue(60 * 50 > TestSearchCommand.getMinParallelSize());
+
+		command.setMatching("name", "le1", false, true);
+		assertEquals(60 * 11, assertSameResults(root).size());
+
+		command.setMatching("extension", "TXT", true, false);
+		assertEquals(2000, assertSameResults(root).size());
+
+		command.setMatching("extension", "xml", false, false);
+		assertEquals(1000, assertSameResults(root).size());
+	}
+
+	/**
+	 * Index is reused by the next search while its subtree is not changed,
+	 * even if other objects of the model are changed.
+	 */
+	public void testIndexReusedUntilSubtreeChanges() {
+		XModelObject root = createTree(3, 5);
+		XModelObject other = createTree(3, 5);
+		command.setMatching("extension", "xml", false, false);
+		assertEquals(5, assertSameResults(root).size());
+		Object index = command.getCachedIndex(root);
+		assertNotNull(index);
+		assertTrue(command.hasValidIndex(root));
+		command.findByIndex(root);
+		assertSame(index, command.getCachedIndex(root));
+
+		XModelObjectImpl otherFolder = (XModelObjectImpl)other.getChildren()[0];
+		((XModelObjectImpl)otherFolder.getChildren()[0]).set("extension", "gif");
+		assertTrue(otherFolder.addChild_0(create("FileAny", "added", "xml")));
+		assertTrue(command.hasValidIndex(root));
+		assertEquals(5, command.findByIndex(root).size());
+		assertSame(index, command.getCachedIndex(root));
+
+		XModelObjectImpl folder = (XModelObjectImpl)root.getChildren()[1];
+		assertTrue(folder.addChild_0(create("FileAny", "added", "xml")));
+		assertFalse(command.hasValidIndex(root));
+		assertEquals(6, assertSameResults(root).size());
+		assertNotSame(index, command.getCachedIndex(root));
+	}
+
+	public void testIndexInvalidatedByLowLevelChanges() {
+		XModelObject root = createTree(3, 5);
+		command.setMatching("extension", "xml", false, false);
+		assertEquals(5, assertSameResults(root).size());
+
+		XModelObjectImpl folder = (XModelObjectImpl)root.getChildren()[0];
+		XModelObjectImpl file = (XModelObjectImpl)folder.getChildren()[0];
+		String extension = file.getAttributeValue("extension");
+		file.set("extension", "xml".equals(extension) ? "txt" : "xml");
+		assertFalse(command.hasValidIndex(root));
+		assertEquals(4 + ("xml".equals(extension) ? 0 : 2), assertSameResults(root).size());
+
+		assertTrue(folder.addChild_0(create("FileAny", "added", "xml")));
+		assertFalse(command.hasValidIndex(root));
+		List<XModelObject> found = assertSameResults(root);
+		assertTrue(found.contains(folder.getChildByPath("added.xml")));
+
+		XModelObject removed = found.get(0);
+		((XModelObjectImpl)removed.getParent()).removeChild_0(removed);
+		assertFalse(command.hasValidIndex(root));
+		assertFalse(assertSameResults(root).contains(removed));
+	}
+
+}
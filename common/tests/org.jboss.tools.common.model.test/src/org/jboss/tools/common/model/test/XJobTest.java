@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.jboss.tools.common.model.XJob;
+
+/**
+ * @author V. Kabanovich
+ */
+public class XJobTest extends TestCase {
+	static final long TIMEOUT = 10;
+
+	List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+	class Task implements XJob.XLaneRunnable {
+		String id;
+		String name;
+		String lane;
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = null;
+		CountDownLatch done = new CountDownLatch(1);
+		boolean waitForCancel = false;
+		boolean canceled = false;
+
+		Task(String lane, String id, String name) {
+			this.lane = lane;
+			this.id = id;
+			this.name = name;
+		}
+
+		Task blocking() {
+			release = new CountDownLatch(1);
+			return this;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getLane() {
+			return lane;
+		}
+
+		public void run() {
+			started.countDown();
+			try {
+				if(release != null) {
+					release.await(TIMEOUT, TimeUnit.SECONDS);
+				}
+				while(waitForCancel && !XJob.isRunnableCanceled()) {
+					Thread.sleep(10);
+				}
+				canceled = XJob.isRunnableCanceled();
+			} catch (InterruptedException e) {
+				//ignore
+			}
+			executed.add(name);
+			done.countDown();
+		}
+
+		void awaitStarted() throws InterruptedException {
+			assertTrue(name + " is not started", started.await(TIMEOUT, TimeUnit.SECONDS));
+		}
+
+		void awaitDone() throws InterruptedException {
+			assertTrue(name + " is not done", done.await(TIMEOUT, TimeUnit.SECONDS));
+		}
+	}
+
+	public void testPriority() throws Exception {
+		String lane = "priority";
+		Task blocker = new Task(lane, "blocker", "blocker").blocking();
+		XJob.addRunnableWithPriority(blocker);
+		blocker.awaitStarted();
+		Task low = new Task(lane, "low", "low");
+		XJob.addRunnable(low, XJob.PRIORITY_LOW);
+		XJob.addRunnable(new Task(lane, "normal", "normal"), XJob.PRIORITY_NORMAL);
+		XJob.addRunnable(new Task(lane, "high", "high"), XJob.PRIORITY_HIGH);
+		blocker.release.countDown();
+		low.awaitDone();
+		assertEquals(Arrays.asList("blocker", "high", "normal", "low"), executed);
+	}
+
+	public void testPriorityRaised() throws Exception {
+		String lane = "raised";
+		Task blocker = new Task(lane, "blocker", "blocker").blocking();
+		XJob.addRunnableWithPriority(blocker);
+		blocker.awaitStarted();
+		Task normal = new Task(lane, "normal", "normal");
+		XJob.addRunnable(normal, XJob.PRIORITY_NORMAL);
+		XJob.addRunnable(new Task(lane, "raised", "raised"), XJob.PRIORITY_LOW);
+		XJob.addRunnable(new Task(lane, "raised", "ignored"), XJob.PRIORITY_HIGH);
+		blocker.release.countDown();
+		normal.awaitDone();
+		assertEquals(Arrays.asList("blocker", "raised", "normal"), executed);
+	}
+
+	public void testRerun() throws Exception {
+		String lane = "rerun";
+		Task first = new Task(lane, "task", "first").blocking();
+		XJob.addRunnableWithPriority(first);
+		first.awaitStarted();
+		XJob.addRunnable(new Task(lane, "task", "second"));
+		Task third = new Task(lane, "task", "third");
+		XJob.addRunnableWithPriority(third);
+		first.release.countDown();
+		third.awaitDone();
+		assertEquals(Arrays.asList("first", "third"), executed);
+	}
+
+	public void testCancelWaiting() throws Exception {
+		String lane = "cancel";
+		Task blocker = new Task(lane, "blocker", "blocker").blocking();
+		XJob.addRunnableWithPriority(blocker);
+		blocker.awaitStarted();
+		XJob.addRunnableWithPriority(new Task(lane, "canceled", "canceled"));
+		assertTrue(XJob.cancelRunnable("canceled"));
+		assertFalse(XJob.cancelRunnable("unknown"));
+		Task after = new Task(lane, "after", "after");
+		XJob.addRunnableWithPriority(after);
+		blocker.release.countDown();
+		after.awaitDone();
+		assertEquals(Arrays.asList("blocker", "after"), executed);
+	}
+
+	public void testCancelRunning() throws Exception {
+		Task task = new Task("cancelRunning", "running", "running");
+		task.waitForCancel = true;
+		XJob.addRunnableWithPriority(task);
+		task.awaitStarted();
+		assertTrue(XJob.cancelRunnable("running"));
+		task.awaitDone();
+		assertTrue(task.canceled);
+	}
+
+	public void testLanes() throws Exception {
+		Task blocker = new Task("lane1", "blocker", "blocker").blocking();
+		XJob.addRunnableWithPriority(blocker);
+		blocker.awaitStarted();
+		Task other = new Task("lane2", "other", "other");
+		XJob.addRunnableWithPriority(other);
+		other.awaitDone();
+		blocker.release.countDown();
+		blocker.awaitDone();
+		assertEquals(Arrays.asList("other", "blocker"), executed);
+	}
+
+	/**
+	 * Lane job canceled while it waits to run is scheduled again by the next runnable.
+	 */
+	public void testScheduleAfterCancel() throws Exception {
+		String lane = "scheduleAfterCancel";
+		XJob.addRunnable(new Task(lane, "canceled", "first"), XJob.PRIORITY_NORMAL);
+		Job job = null;
+		for (Job j: Job.getJobManager().find(XJob.FAMILY_XJOB)) {
+			if(j.getName().endsWith(lane)) job = j;
+		}
+		assertNotNull(job);
+		assertTrue(job.cancel());
+		Thread.sleep(1500);
+		Task second = new Task(lane, "second", "second");
+		XJob.addRunnable(second, XJob.PRIORITY_NORMAL);
+		second.awaitDone();
+		assertEquals(Arrays.asList("first", "second"), executed);
+	}
+
+}
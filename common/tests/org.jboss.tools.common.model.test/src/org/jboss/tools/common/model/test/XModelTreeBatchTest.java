@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.model.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.jboss.tools.common.model.XModelObject;
+import org.jboss.tools.common.model.event.XModelTreeBatchEvent;
+import org.jboss.tools.common.model.event.XModelTreeBatchListener;
+import org.jboss.tools.common.model.event.XModelTreeEvent;
+import org.jboss.tools.common.model.event.XModelTreeListener;
+import org.jboss.tools.common.model.impl.XModelImpl;
+import org.jboss.tools.common.model.options.PreferenceModelUtilities;
+
+/**
+ * @author V. Kabanovich
+ */
+public class XModelTreeBatchTest extends TestCase {
+	XModelImpl model = (XModelImpl)PreferenceModelUtilities.getPreferenceModel();
+
+	class EventCounter implements XModelTreeListener {
+		int count = 0;
+
+		public void nodeChanged(XModelTreeEvent event) {
+			count++;
+		}
+
+		public void structureChanged(XModelTreeEvent event) {
+			count++;
+		}
+	}
+
+	class BatchCounter extends EventCounter implements XModelTreeBatchListener {
+		List<XModelTreeBatchEvent> batches = new ArrayList<XModelTreeBatchEvent>();
+
+		public void batchChanged(XModelTreeBatchEvent event) {
+			batches.add(event);
+		}
+
+		public boolean isAsynchronous() {
+			return false;
+		}
+	}
+
+	public void testBatch() {
+		XModelObject o = model.getRoot().getChildren()[0];
+		String path = o.getPath();
+		EventCounter listener = new EventCounter();
+		BatchCounter batchListener = new BatchCounter();
+		model.addModelTreeListener(listener);
+		model.addModelTreeListener(batchListener);
+		try {
+			model.beginBatch();
+			try {
+				model.fireNodeChanged(o, path);
+				model.beginBatch();
+				model.fireNodeChanged(o, path);
+				model.fireStructureChanged(o, XModelTreeEvent.CHILD_REMOVED, path + "/a");
+				model.endBatch();
+				model.fireStructureChanged(o, XModelTreeEvent.CHILD_REMOVED, path + "/b");
+				assertTrue(batchListener.batches.isEmpty());
+			} finally {
+				model.endBatch();
+			}
+			assertEquals(4, listener.count);
+			assertEquals(0, batchListener.count);
+			assertEquals(1, batchListener.batches.size());
+
+			XModelTreeBatchEvent event = batchListener.batches.get(0);
+			assertEquals(4, event.getFiredCount());
+			assertEquals(3, event.getEvents().length);
+			assertEquals(XModelTreeEvent.NODE_CHANGED, event.getEvents()[0].kind());
+			assertEquals(path + "/a", event.getEvents()[1].getInfo());
+			assertEquals(path + "/b", event.getEvents()[2].getInfo());
+			assertFalse(event.contains(o, XModelTreeEvent.STRUCTURE_CHANGED));
+
+			model.fireNodeChanged(o, path);
+			assertEquals(1, batchListener.count);
+			assertEquals(1, batchListener.batches.size());
+		} finally {
+			model.removeModelTreeListener(listener);
+			model.removeModelTreeListener(batchListener);
+		}
+	}
+
+	/**
+	 * Structure events are merged only with the previous event of the same kind,
+	 * so that several changes of children are not reported as STRUCTURE_CHANGED.
+	 */
+	public void testStructureEventsMergedByKind() {
+		XModelObject o = model.getRoot().getChildren()[0];
+		BatchCounter batchListener = new BatchCounter();
+		model.addModelTreeListener(batchListener);
+		try {
+			model.beginBatch();
+			try {
+				model.fireStructureChanged(o, XModelTreeEvent.CHILD_ADDED, "a");
+				model.fireStructureChanged(o, XModelTreeEvent.CHILD_ADDED, "a");
+				model.fireStructureChanged(o, XModelTreeEvent.CHILD_REMOVED, "b");
+			} finally {
+				model.endBatch();
+			}
+			XModelTreeBatchEvent event = batchListener.batches.get(0);
+			assertEquals(3, event.getFiredCount());
+			assertEquals(2, event.getEvents().length);
+			assertEquals(XModelTreeEvent.CHILD_ADDED, event.getEvents()[0].kind());
+			assertEquals(XModelTreeEvent.CHILD_REMOVED, event.getEvents()[1].kind());
+			assertFalse(event.contains(o, XModelTreeEvent.STRUCTURE_CHANGED));
+
+			model.beginBatch();
+			try {
+				model.fireStructureChanged(o, XModelTreeEvent.CHILD_ADDED, "a");
+				model.fireStructureChanged(o, XModelTreeEvent.STRUCTURE_CHANGED, null);
+				model.fireStructureChanged(o, XModelTreeEvent.STRUCTURE_CHANGED, null);
+			} finally {
+				model.endBatch();
+			}
+			event = batchListener.batches.get(1);
+			assertEquals(2, event.getEvents().length);
+			assertTrue(event.contains(o, XModelTreeEvent.CHILD_ADDED));
+			assertTrue(event.contains(o, XModelTreeEvent.STRUCTURE_CHANGED));
+		} finally {
+			model.removeModelTreeListener(batchListener);
+		}
+	}
+
+	/**
+	 * A child added, removed and added again is reported by three events,
+	 * and events of different objects are in the order they were fired.
+	 */
+	public void testEventsInFiredOrder() {
+		XModelObject o1 = model.getRoot();
+		XModelObject x = o1.getChildren()[0];
+		XModelObject o2 = x;
+		String path = x.getPath();
+		BatchCounter batchListener = new BatchCounter();
+		model.addModelTreeListener(batchListener);
+		try {
+			model.beginBatch();
+			try {
+				model.fireStructureChanged(o1, XModelTreeEvent.CHILD_ADDED, x);
+				model.fireStructureChanged(o1, XModelTreeEvent.CHILD_REMOVED, path);
+				model.fireStructureChanged(o2, XModelTreeEvent.STRUCTURE_CHANGED, null);
+				model.fireStructureChanged(o1, XModelTreeEvent.CHILD_ADDED, x);
+			} finally {
+				model.endBatch();
+			}
+			XModelTreeEvent[] events = batchListener.batches.get(0).getEvents();
+			assertEquals(4, events.length);
+			assertEquals(XModelTreeEvent.CHILD_ADDED, events[0].kind());
+			assertEquals(XModelTreeEvent.CHILD_REMOVED, events[1].kind());
+			assertSame(o2, events[2].getModelObject());
+			assertEquals(XModelTreeEvent.CHILD_ADDED, events[3].kind());
+			assertSame(x, events[3].getInfo());
+		} finally {
+			model.removeModelTreeListener(batchListener);
+		}
+	}
+
+}
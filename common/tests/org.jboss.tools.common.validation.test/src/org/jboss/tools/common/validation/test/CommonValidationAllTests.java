@@ -32,6 +32,7 @@ public class CommonValidationAllTests {
 		TestSuite suite = new TestSuite(ValidationTest.class.getName());
 		suite.addTestSuite(ValidationTest.class);
 		suite.addTestSuite(ContextValidationTest.class);
+		suite.addTestSuite(MarkerBatchTest.class);
 
 		ProjectImportTestSetup testSetup = new ProjectImportTestSetup(suite,
 				"org.jboss.tools.common.validation.test",
@@ -40,6 +41,8 @@ public class CommonValidationAllTests {
 		suiteAll.addTest(testSetup);
 
 		suiteAll.addTestSuite(SynchronizationTest.class);
+		suiteAll.addTestSuite(ConcurrentValidationTest.class);
+		suiteAll.addTestSuite(ProjectValidationContextTest.class);
 
 		return suiteAll;
 	}
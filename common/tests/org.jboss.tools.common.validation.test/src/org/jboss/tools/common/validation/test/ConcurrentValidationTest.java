@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.test;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.jboss.tools.common.base.test.validation.ValidationExceptionLogger;
+import org.jboss.tools.common.base.test.validation.ValidationExceptionTest;
+import org.jboss.tools.common.validation.ContextValidationHelper;
+import org.jboss.tools.common.validation.ValidatorManager;
+
+/**
+ * @author V. Kabanovich
+ */
+public class ConcurrentValidationTest extends TestCase {
+
+	/**
+	 * Independent root projects are validated by different threads at the same time,
+	 * even if validation is started in a thread that holds a scheduling rule,
+	 * as it is done by the validation builder.
+	 * 
+	 * @throws Exception
+	 */
+	public void testConcurrentValidation() throws Exception {
+		ValidationExceptionLogger logger = new ValidationExceptionLogger();
+		TestConcurrentValidator.clear();
+
+		ContextValidationHelper helper = new ContextValidationHelper();
+		helper.setProject(TestConcurrentValidator.CHANGED_PROJECT);
+		helper.registerResource(new SynchronizationTest.FakeFile(TestConcurrentValidator.CHANGED_PROJECT, "ChangedFile.java"));
+		helper.setValidationFileURIs(new ArrayList<String>());
+
+		ISchedulingRule rule = ResourcesPlugin.getWorkspace().getRoot();
+		Job.getJobManager().beginRule(rule, null);
+		try {
+			new ValidatorManager().validate(helper, null);
+		} finally {
+			Job.getJobManager().endRule(rule);
+		}
+
+		ValidationExceptionTest.assertExceptionsIsEmpty(logger);
+		assertTrue(TestConcurrentValidator.getValidatedProjects().contains(TestConcurrentValidator.ROOT_PROJECT_1));
+		assertTrue(TestConcurrentValidator.getValidatedProjects().contains(TestConcurrentValidator.ROOT_PROJECT_2));
+		assertEquals(2, TestConcurrentValidator.getThreads().size());
+		assertFalse(TestConcurrentValidator.getThreads().contains(Thread.currentThread()));
+		assertEquals(2, TestConcurrentValidator.getMaxRunning());
+	}
+
+}
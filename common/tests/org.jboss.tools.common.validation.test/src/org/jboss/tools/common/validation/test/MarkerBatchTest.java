@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.jboss.tools.common.validation.ContextValidationHelper;
+import org.jboss.tools.common.validation.IValidator;
+import org.jboss.tools.common.validation.ValidatorManager;
+
+/**
+ * Markers of problems reported again by validation are reused,
+ * other markers of validated files are deleted.
+ * 
+ * @author V. Kabanovich
+ */
+public class MarkerBatchTest extends TestCase {
+	private IProject project;
+	private IFile file;
+
+	@Override
+	protected void setUp() throws Exception {
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("JavaProject");
+		file = project.getFile("src/test/Test.java");
+		file.deleteMarkers(IValidator.KB_PROBLEM_MARKER_TYPE, true, IResource.DEPTH_ZERO);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		TestMarkerValidator.setProblems(null);
+		file.deleteMarkers(IValidator.KB_PROBLEM_MARKER_TYPE, true, IResource.DEPTH_ZERO);
+	}
+
+	public void testReuse() throws Exception {
+		validate("A", "B");
+		assertEquals(2, getMarkers().length);
+		IMarker a = findMarker("A");
+		IMarker b = findMarker("B");
+		a.setAttribute("extra", "value");
+
+		validate("A", "C");
+		assertEquals(2, getMarkers().length);
+		IMarker a2 = findMarker("A");
+		assertEquals(a.getId(), a2.getId());
+		assertNull(a2.getAttribute("extra"));
+		assertFalse(b.exists());
+		assertNotNull(findMarker("C"));
+	}
+
+	public void testLimitIgnoresPendingMarkersOfOtherTypes() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			IMarker marker = file.createMarker(IValidator.KB_PROBLEM_MARKER_TYPE);
+			marker.setAttribute(IMarker.MESSAGE, "old" + i);
+		}
+		validate("A", "B", "C", "D");
+		assertEquals(TestMarkerValidator.MAX_MARKERS, getMarkers().length);
+		assertEquals(0, file.findMarkers(IValidator.KB_PROBLEM_MARKER_TYPE, false, IResource.DEPTH_ZERO).length);
+	}
+
+	private void validate(String... problems) throws Exception {
+		TestMarkerValidator.setProblems(file, problems);
+		ContextValidationHelper helper = new ContextValidationHelper();
+		helper.setProject(project);
+		helper.registerResource(file);
+		List<String> uris = new ArrayList<String>();
+		uris.add(file.getFullPath().toString());
+		helper.setValidationFileURIs(uris);
+		new ValidatorManager().validate(helper, null);
+	}
+
+	private IMarker[] getMarkers() throws CoreException {
+		return file.findMarkers(TestMarkerValidator.PROBLEM_TYPE, true, IResource.DEPTH_ZERO);
+	}
+
+	private IMarker findMarker(String message) throws CoreException {
+		for (IMarker marker : getMarkers()) {
+			if(message.equals(marker.getAttribute(IMarker.MESSAGE))) {
+				return marker;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.jboss.tools.common.el.core.ELReference;
+import org.jboss.tools.common.validation.ValidationELReference;
+import org.jboss.tools.common.validation.internal.ProjectValidationContext;
+import org.jboss.tools.common.validation.internal.ValidationContextStorage;
+import org.jboss.tools.common.xml.XMLUtilities;
+import org.w3c.dom.Element;
+
+/**
+ * @author V. Kabanovich
+ */
+public class ProjectValidationContextTest extends TestCase {
+	static String VALIDATOR_ID = "test.validator";
+
+	private File folder;
+	/**
+	 * Handle of a project that does not exist, only its name is used.
+	 */
+	private IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("Validation Context Test");
+
+	@Override
+	protected void setUp() throws Exception {
+		folder = File.createTempFile("validation", "");
+		folder.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(folder);
+		delete(ValidationContextStorage.getFolder(project));
+	}
+
+	static void delete(File f) {
+		File[] files = f.listFiles();
+		if(files != null) {
+			for (File c: files) {
+				delete(c);
+			}
+		}
+		f.delete();
+	}
+
+	public void testBinaryStorage() throws Exception {
+		IPath a = new Path("/p/src/A.java");
+		IPath b = new Path("/p/WebContent/b.xhtml");
+
+		ProjectValidationContext context = new ProjectValidationContext();
+		assertFalse(context.load(folder));
+
+		context.addLinkedCoreResource(VALIDATOR_ID, "bean", a, true);
+		context.addLinkedCoreResource(VALIDATOR_ID, "other", a, false);
+		context.addUnnamedCoreResource(VALIDATOR_ID, b);
+		ELReference el = new ValidationELReference();
+		el.setPath(b);
+		el.setStartPosition(10);
+		el.setLength(7);
+		context.addLinkedEl("bean", el);
+		context.setFullValidationRequired(true);
+		context.store(folder);
+		assertEquals(0, context.getModificationsSinceLastStore());
+
+		ProjectValidationContext loaded = new ProjectValidationContext();
+		assertTrue(loaded.load(folder));
+		assertTrue(loaded.isFullValidationRequired());
+
+		Set<IPath> declaring = loaded.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", true);
+		assertNotNull(declaring);
+		assertTrue(declaring.contains(a));
+		Set<String> names = loaded.getVariableNamesByCoreResource(VALIDATOR_ID, a, false);
+		assertEquals(2, names.size());
+		Set<String> declaringNames = loaded.getVariableNamesByCoreResource(VALIDATOR_ID, a, true);
+		assertEquals(1, declaringNames.size());
+		assertTrue(loaded.getUnnamedCoreResources(VALIDATOR_ID).contains(b));
+
+		Set<ELReference> els = loaded.getElsByVariableName("bean");
+		assertEquals(1, els.size());
+		ELReference loadedEl = els.iterator().next();
+		assertEquals(b, loadedEl.getPath());
+		assertEquals(10, loadedEl.getStartPosition());
+		assertEquals(7, loadedEl.getLength());
+		assertEquals(0, loaded.getModificationsSinceLastStore());
+
+		// Removed collections are removed from storage.
+		loaded.clearAll();
+		loaded.store(folder);
+		ProjectValidationContext empty = new ProjectValidationContext();
+		assertTrue(empty.load(folder));
+		assertNull(empty.getElsByVariableName("bean"));
+		assertNull(empty.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", true));
+	}
+
+	public void testXMLRefersToBinaryStorage() throws Exception {
+		IPath a = new Path("/p/src/A.java");
+		ProjectValidationContext context = new ProjectValidationContext(project);
+		context.addLinkedCoreResource(VALIDATOR_ID, "bean", a, true);
+		ELReference el = new ValidationELReference();
+		el.setPath(a);
+		el.setStartPosition(3);
+		el.setLength(4);
+		context.addLinkedEl("bean", el);
+
+		Element root = XMLUtilities.createDocumentElement("project");
+		context.store(root);
+		assertEquals(0, context.getModificationsSinceLastStore());
+		Element validation = XMLUtilities.getUniqueChild(root, "validation");
+		String storage = validation.getAttribute("storage");
+		File storageFolder = ValidationContextStorage.getFolder(project);
+		// Folder is referred to by name relative to the state location.
+		assertEquals(storageFolder.getName(), storage);
+		assertTrue(storageFolder.isDirectory());
+		assertEquals(0, XMLUtilities.getChildren(validation, "core").length);
+
+		try {
+			ProjectValidationContext loaded = new ProjectValidationContext(project);
+			loaded.load(root);
+			assertFalse(loaded.isFullValidationRequired());
+			assertTrue(loaded.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", true).contains(a));
+			assertEquals(1, loaded.getElsByVariableName("bean").size());
+
+			// Loaded context is stored again to the same folder.
+			loaded.addLinkedCoreResource(VALIDATOR_ID, "other", a, false);
+			Element root2 = XMLUtilities.createDocumentElement("project");
+			loaded.store(root2);
+			assertEquals(storage, XMLUtilities.getUniqueChild(root2, "validation").getAttribute("storage"));
+
+			ProjectValidationContext reloaded = new ProjectValidationContext();
+			reloaded.load(root2);
+			assertEquals(2, reloaded.getVariableNamesByCoreResource(VALIDATOR_ID, a, false).size());
+		} finally {
+			ValidationContextStorage.projectDeleted(project);
+		}
+		assertFalse(storageFolder.exists());
+
+		ProjectValidationContext lost = new ProjectValidationContext();
+		lost.load(root);
+		assertTrue(lost.isFullValidationRequired());
+	}
+
+	public void testFallbackToXMLDeletesStorage() throws Exception {
+		IPath a = new Path("/p/src/A.java");
+		ProjectValidationContext context = new ProjectValidationContext(project);
+		context.addLinkedCoreResource(VALIDATOR_ID, "bean", a, true);
+		context.store(XMLUtilities.createDocumentElement("project"));
+		File storageFolder = ValidationContextStorage.getFolder(project);
+		assertTrue(storageFolder.isDirectory());
+
+		// A non-empty folder in place of the file cannot be replaced.
+		new File(new File(storageFolder, "el.links"), "x").mkdirs();
+		ELReference el = new ValidationELReference();
+		el.setPath(a);
+		context.addLinkedEl("bean", el);
+		Element root = XMLUtilities.createDocumentElement("project");
+		context.store(root);
+		assertFalse(storageFolder.exists());
+
+		Element validation = XMLUtilities.getUniqueChild(root, "validation");
+		assertEquals("", validation.getAttribute("storage"));
+		assertEquals(1, XMLUtilities.getChildren(validation, "core").length);
+		ProjectValidationContext loaded = new ProjectValidationContext();
+		loaded.load(root);
+		assertTrue(loaded.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", true).contains(a));
+		assertEquals(1, loaded.getElsByVariableName("bean").size());
+	}
+
+	public void testStorageOfMissingProjectIsPruned() throws Exception {
+		File storageFolder = ValidationContextStorage.getFolder(project);
+		ProjectValidationContext context = new ProjectValidationContext(project);
+		context.addLinkedCoreResource(VALIDATOR_ID, "bean", new Path("/p/src/A.java"), true);
+		context.store(storageFolder);
+		assertTrue(storageFolder.isDirectory());
+		assertFalse(project.exists());
+		ValidationContextStorage.prune();
+		assertFalse(storageFolder.exists());
+	}
+
+	public void testModificationsKeptOnFailedStore() throws Exception {
+		ProjectValidationContext context = new ProjectValidationContext();
+		ELReference el = new ValidationELReference();
+		el.setPath(new Path("/p/a.xhtml"));
+		context.addLinkedEl("bean", el);
+		int modifications = context.getModificationsSinceLastStore();
+		assertTrue(modifications > 0);
+
+		// A non-empty folder in place of the file cannot be replaced.
+		File blocked = new File(new File(folder, "el.links"), "x");
+		blocked.mkdirs();
+		try {
+			context.store(folder);
+			fail("Store should fail");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(modifications, context.getModificationsSinceLastStore());
+
+		delete(blocked.getParentFile());
+		context.store(folder);
+		assertEquals(0, context.getModificationsSinceLastStore());
+	}
+
+	public void testSnapshotsSurviveReleasedIds() throws Exception {
+		IPath a = new Path("/p/src/A.java");
+		IPath b = new Path("/p/src/B.java");
+
+		ProjectValidationContext context = new ProjectValidationContext();
+		context.addLinkedCoreResource(VALIDATOR_ID, "bean", a, false);
+		Set<String> names = context.getVariableNamesByCoreResource(VALIDATOR_ID, a, false);
+		Set<IPath> resources = context.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", false);
+
+		// Ids of "bean" and a are released and given to new values.
+		context.removeLinkedCoreResource(VALIDATOR_ID, a);
+		context.addLinkedCoreResource(VALIDATOR_ID, "other", b, false);
+		assertNull(context.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", false));
+		assertNull(context.getVariableNamesByCoreResource(VALIDATOR_ID, a, false));
+		assertTrue(names.contains("bean"));
+		assertFalse(names.contains("other"));
+		assertEquals("bean", names.iterator().next());
+		assertTrue(resources.contains(a));
+		assertEquals(a, resources.iterator().next());
+
+		context.clearAll();
+		context.addLinkedCoreResource(VALIDATOR_ID, "third", b, false);
+		assertEquals("bean", names.iterator().next());
+		assertEquals(a, resources.iterator().next());
+		assertEquals(1, context.getCoreResourcesByVariableName(VALIDATOR_ID, "third", false).size());
+	}
+
+	public void testLinkIndex() throws Exception {
+		IPath a = new Path("/p/src/A.java");
+		IPath b = new Path("/p/src/B.java");
+
+		ProjectValidationContext context = new ProjectValidationContext();
+		context.addLinkedCoreResource(VALIDATOR_ID, "bean", a, true);
+		context.addLinkedCoreResource(VALIDATOR_ID, "bean", b, false);
+		context.addLinkedCoreResource(VALIDATOR_ID, "other", b, false);
+
+		Set<IPath> snapshot = context.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", false);
+		assertEquals(2, snapshot.size());
+		assertTrue(snapshot.contains(a));
+		assertTrue(snapshot.contains(b));
+
+		context.removeLinkedCoreResource(VALIDATOR_ID, b);
+		// Returned sets are snapshots that are not changed by later modifications.
+		assertEquals(2, snapshot.size());
+		Set<IPath> resources = context.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", false);
+		assertEquals(1, resources.size());
+		assertTrue(resources.contains(a));
+		assertNull(context.getCoreResourcesByVariableName(VALIDATOR_ID, "other", false));
+		assertNull(context.getVariableNamesByCoreResource(VALIDATOR_ID, b, false));
+
+		context.removeLinkedCoreResource(VALIDATOR_ID, "bean", a);
+		assertNull(context.getCoreResourcesByVariableName(VALIDATOR_ID, "bean", true));
+		assertNull(context.getVariableNamesByCoreResource(VALIDATOR_ID, a, true));
+
+		ELReference el1 = new ValidationELReference();
+		el1.setPath(a);
+		el1.setStartPosition(5);
+		el1.setLength(3);
+		ELReference el2 = new ValidationELReference();
+		el2.setPath(b);
+		el2.setStartPosition(5);
+		el2.setLength(3);
+		context.addLinkedEl("bean", el1);
+		context.addLinkedEl("bean", el2);
+		context.addLinkedEl("bean", el2);
+		assertEquals(2, context.getElsByVariableName("bean").size());
+		context.removeLinkedEl(el1);
+		Set<ELReference> els = context.getElsByVariableName("bean");
+		assertEquals(1, els.size());
+		assertTrue(els.contains(el2));
+		assertFalse(els.contains(el1));
+	}
+}
\ No newline at end of file
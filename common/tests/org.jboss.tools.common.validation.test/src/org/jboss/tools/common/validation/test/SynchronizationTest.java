@@ -140,7 +140,7 @@ public class SynchronizationTest extends TestCase {
 		}
 	}
 
-	private static class FakeFile implements IFile {
+	static class FakeFile implements IFile {
 		private IProject project;
 		private String name;
 		public FakeFile(IProject project, String name) {
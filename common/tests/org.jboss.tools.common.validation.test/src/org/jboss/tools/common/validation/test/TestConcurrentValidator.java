@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.wst.validation.internal.core.ValidationException;
+import org.eclipse.wst.validation.internal.provisional.core.IReporter;
+import org.jboss.tools.common.validation.ContextValidationHelper;
+import org.jboss.tools.common.validation.IConcurrentValidator;
+import org.jboss.tools.common.validation.IProjectValidationContext;
+import org.jboss.tools.common.validation.IValidatingProjectTree;
+import org.jboss.tools.common.validation.ValidatorManager;
+import org.jboss.tools.common.validation.test.TestSynchronizationValidator.TestValidatingProjectSet;
+import org.jboss.tools.common.validation.test.TestSynchronizationValidator.TestValidatingProjectTree;
+
+/**
+ * Validates two independent root projects of CHANGED_PROJECT and records 
+ * how many threads validate at the same time. Each validation waits
+ * for a while for another one to start, so that concurrent validation 
+ * of the root projects is observed.
+ * 
+ * @author V. Kabanovich
+ */
+public class TestConcurrentValidator implements IConcurrentValidator {
+	static final IProject CHANGED_PROJECT = ResourcesPlugin.getWorkspace().getRoot().getProject("ConcurrentProject"); // Fake project which is "changed" by user.
+	static final IProject ROOT_PROJECT_1 = ResourcesPlugin.getWorkspace().getRoot().getProject("ConcurrentRoot1"); // Fake root project.
+	static final IProject ROOT_PROJECT_2 = ResourcesPlugin.getWorkspace().getRoot().getProject("ConcurrentRoot2"); // Fake root project, does not share projects with ConcurrentRoot1.
+
+	static final long WAIT_TIME = 5000;
+
+	private static int running = 0;
+	private static int maxRunning = 0;
+	private static Set<Thread> threads = new HashSet<Thread>();
+	private static Set<IProject> validated = new HashSet<IProject>();
+
+	public static synchronized void clear() {
+		running = 0;
+		maxRunning = 0;
+		threads.clear();
+		validated.clear();
+	}
+
+	public static synchronized int getMaxRunning() {
+		return maxRunning;
+	}
+
+	public static synchronized Set<Thread> getThreads() {
+		return new HashSet<Thread>(threads);
+	}
+
+	public static synchronized Set<IProject> getValidatedProjects() {
+		return new HashSet<IProject>(validated);
+	}
+
+	private static void run(IProject project) {
+		synchronized (TestConcurrentValidator.class) {
+			running++;
+			maxRunning = Math.max(maxRunning, running);
+			threads.add(Thread.currentThread());
+			validated.add(project);
+			TestConcurrentValidator.class.notifyAll();
+			long end = System.currentTimeMillis() + WAIT_TIME;
+			try {
+				while(maxRunning < 2 && System.currentTimeMillis() < end) {
+					TestConcurrentValidator.class.wait(100);
+				}
+			} catch (InterruptedException e) {
+				// Ignore
+			}
+			running--;
+		}
+	}
+
+	@Override
+	public IStatus validate(Set<IFile> changedFiles, IProject project,
+			ContextValidationHelper validationHelper,
+			IProjectValidationContext validationContext,
+			ValidatorManager manager, IReporter reporter)
+			throws ValidationException {
+		run(project);
+		return ValidatorManager.OK_STATUS;
+	}
+
+	@Override
+	public IStatus validateAll(IProject project,
+			ContextValidationHelper validationHelper,
+			IProjectValidationContext validationContext,
+			ValidatorManager manager, IReporter reporter)
+			throws ValidationException {
+		run(project);
+		return ValidatorManager.OK_STATUS;
+	}
+
+	@Override
+	public String getId() {
+		return "org.jboss.common.validation.test.TestConcurrentValidator";
+	}
+
+	@Override
+	public String getBuilderId() {
+		return null;
+	}
+
+	@Override
+	public IValidatingProjectTree getValidatingProjects(IProject project) {
+		return new TestValidatingProjectTree(
+				new TestValidatingProjectSet(ROOT_PROJECT_1),
+				new TestValidatingProjectSet(ROOT_PROJECT_2));
+	}
+
+	@Override
+	public boolean shouldValidate(IProject project) {
+		return CHANGED_PROJECT.equals(project);
+	}
+
+	@Override
+	public boolean isEnabled(IProject project) {
+		return shouldValidate(project);
+	}
+
+	@Override
+	public void setProblemType(String problemType) {
+	}
+
+	@Override
+	public void registerPreferenceInfo() {
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributor:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.common.validation.test;
+
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.wst.validation.internal.core.ValidationException;
+import org.eclipse.wst.validation.internal.provisional.core.IMessage;
+import org.eclipse.wst.validation.internal.provisional.core.IReporter;
+import org.jboss.tools.common.validation.ContextValidationHelper;
+import org.jboss.tools.common.validation.IProjectValidationContext;
+import org.jboss.tools.common.validation.ValidationErrorManager;
+import org.jboss.tools.common.validation.ValidatorManager;
+
+/**
+ * Reports the given problems for the given file.
+ * 
+ * @author V. Kabanovich
+ */
+public class TestMarkerValidator extends TestValidator {
+	static final String PROBLEM_TYPE = "org.jboss.tools.common.validation.test.TestProblem";
+	static final int MAX_MARKERS = 2;
+
+	private static IFile file;
+	private static String[] problems;
+
+	public static synchronized void setProblems(IFile target, String... messages) {
+		file = target;
+		problems = messages;
+	}
+
+	private static synchronized void report() {
+		if(problems != null) {
+			for (int i = 0; i < problems.length; i++) {
+				ValidationErrorManager.addError(problems[i], IMessage.NORMAL_SEVERITY, new Object[0], 1, 4, 13 + i, file, null, "test", TestMarkerValidator.class, MAX_MARKERS, PROBLEM_TYPE);
+			}
+		}
+	}
+
+	@Override
+	public IStatus validate(Set<IFile> changedFiles, IProject project,
+			ContextValidationHelper validationHelper,
+			IProjectValidationContext validationContext,
+			ValidatorManager manager, IReporter reporter)
+			throws ValidationException {
+		init(project, validationHelper, validationContext, manager, reporter);
+		report();
+		return OK_STATUS;
+	}
+
+	@Override
+	public IStatus validateAll(IProject project,
+			ContextValidationHelper validationHelper,
+			IProjectValidationContext validationContext,
+			ValidatorManager manager, IReporter reporter)
+			throws ValidationException {
+		init(project, validationHelper, validationContext, manager, reporter);
+		report();
+		return OK_STATUS;
+	}
+
+	@Override
+	public String getId() {
+		return "org.jboss.common.validation.test.TestMarkerValidator";
+	}
+
+	@Override
+	public boolean shouldValidate(IProject project) {
+		synchronized (TestMarkerValidator.class) {
+			return problems != null && file != null && file.getProject().equals(project);
+		}
+	}
+
+	@Override
+	public boolean isEnabled(IProject project) {
+		return shouldValidate(project);
+	}
+
+	@Override
+	public int getMaxNumberOfMarkersPerFile(IProject project) {
+		return MAX_MARKERS;
+	}
+}
@@ -51,7 +51,7 @@ public class TestSynchronizationValidator implements IValidator {
 
 	private final static Set<IProject> VALIDATED_ROOT_PROJECTS = new HashSet<IProject>();
 
-	private static class TestValidatingProjectSet implements IValidatingProjectSet {
+	static class TestValidatingProjectSet implements IValidatingProjectSet {
 
 		private IProject[] projects;
 
@@ -85,7 +85,7 @@ public class TestSynchronizationValidator implements IValidator {
 		}
 	}
 
-	private static class TestValidatingProjectTree implements IValidatingProjectTree {
+	static class TestValidatingProjectTree implements IValidatingProjectTree {
 
 		private Map<IProject, IValidatingProjectSet> projects;
 